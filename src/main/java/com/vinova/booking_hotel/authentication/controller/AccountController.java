@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.vinova.booking_hotel.authentication.dto.request.*;
 import com.vinova.booking_hotel.authentication.dto.response.*;
 import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.common.pagination.CursorPageResponseDto;
 import jakarta.validation.Valid;
 import lombok.*;
 import org.springframework.validation.annotation.Validated;
@@ -65,6 +66,19 @@ public class AccountController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/admin/accounts/scroll")
+    public ResponseEntity<CursorPageResponseDto<AccountResponseDto>> searchAccountsByCursor(
+            @RequestParam(required = false) String fullName,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) Boolean isBlocked,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "8") int pageSize,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortOrder) {
+        CursorPageResponseDto<AccountResponseDto> response = accountService.accountsByCursor(fullName, role, isBlocked, cursor, pageSize, sortBy, sortOrder);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/public/sign-up")
     public ResponseEntity<String> signUp(@RequestBody @Valid SignUpRequestDto accountRequest) {
         String response = accountService.signUp(accountRequest);
@@ -0,0 +1,24 @@
+package com.vinova.booking_hotel.authentication.controller;
+
+import com.vinova.booking_hotel.authentication.dto.response.MailQueueResponseDto;
+import com.vinova.booking_hotel.authentication.service.MailOutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class MailController {
+
+    private final MailOutboxService mailOutboxService;
+
+    @GetMapping("/admin/mail/queue")
+    public ResponseEntity<MailQueueResponseDto> queueDepth() {
+        MailQueueResponseDto response = mailOutboxService.queueDepth();
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+}
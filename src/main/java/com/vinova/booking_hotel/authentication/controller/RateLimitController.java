@@ -0,0 +1,24 @@
+package com.vinova.booking_hotel.authentication.controller;
+
+import com.vinova.booking_hotel.authentication.dto.response.RateLimitStatsResponseDto;
+import com.vinova.booking_hotel.common.ratelimit.SlidingWindowRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class RateLimitController {
+
+    private final SlidingWindowRateLimiter rateLimiter;
+
+    @GetMapping("/admin/rate-limit/stats")
+    public ResponseEntity<RateLimitStatsResponseDto> stats() {
+        RateLimitStatsResponseDto response = new RateLimitStatsResponseDto(rateLimiter.allowedCounts(), rateLimiter.rejectedCounts());
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+}
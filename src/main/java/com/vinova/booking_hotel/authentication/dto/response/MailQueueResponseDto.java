@@ -0,0 +1,13 @@
+package com.vinova.booking_hotel.authentication.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailQueueResponseDto {
+    private Long pending;
+    private Long failed;
+}
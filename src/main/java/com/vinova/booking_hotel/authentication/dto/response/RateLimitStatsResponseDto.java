@@ -0,0 +1,16 @@
+package com.vinova.booking_hotel.authentication.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitStatsResponseDto {
+    // Số request được cho qua và bị từ chối theo nhóm route, tính từ lúc ứng dụng khởi động
+    private Map<String, Long> allowed;
+    private Map<String, Long> rejected;
+}
@@ -3,6 +3,7 @@ package com.vinova.booking_hotel.authentication.model;
 import com.vinova.booking_hotel.property.model.*;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,6 +17,12 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "accounts")
+// Dùng khi cần vai trò (xác thực): lấy account, account_roles và roles trong một truy vấn
+@NamedEntityGraph(
+        name = "Account.roles",
+        attributeNodes = @NamedAttributeNode(value = "accountRoles", subgraph = "accountRoles.role"),
+        subgraphs = @NamedSubgraph(name = "accountRoles.role", attributeNodes = @NamedAttributeNode("role"))
+)
 public class Account {
 
     @Id
@@ -61,7 +68,7 @@ public class Account {
     @UpdateTimestamp
     private ZonedDateTime updateDt;
 
-    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Hotel> hotels = new ArrayList<>();
 
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -70,7 +77,9 @@ public class Account {
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Booking> bookings = new ArrayList<>();
 
-    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // Danh sách tài khoản đọc vai trò theo lô thay vì một truy vấn cho mỗi tài khoản
+    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<AccountRole> accountRoles = new ArrayList<>();
 
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -1,6 +1,8 @@
 package com.vinova.booking_hotel.authentication.repository;
 
 import com.vinova.booking_hotel.authentication.model.Account;
+import com.vinova.booking_hotel.authentication.repository.projection.AccountSummary;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
@@ -10,12 +12,18 @@ import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long>, JpaSpecificationExecutor<Account> {
     Optional<Account> findByUsername(String username);
+
+    // Xác thực cần vai trò nên lấy luôn trong cùng truy vấn
+    @EntityGraph("Account.roles")
+    Optional<Account> findWithRolesByUsername(String username);
     
     Optional<Account> findByEmail(String email);
 
     List<Account> findByLatestLoginBefore(LocalDateTime dateTime);
 
     List<Account> findByAccountRoles_RoleName(String roleName);
+
+    Optional<AccountSummary> findSummaryById(Long id);
     
 }
     
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.vinova.booking_hotel.authentication.repository;
+
+import com.vinova.booking_hotel.authentication.model.MailOutbox;
+import com.vinova.booking_hotel.common.enums.MailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    // Khóa một lô email đến hạn, bỏ qua dòng đang được worker/node khác nhận để mỗi email chỉ gửi một lần;
+    // dòng SENDING đã hết thời hạn giữ là lô của node bị tắt giữa chừng
+    @Query(value = "SELECT * FROM mail_outbox " +
+            "WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<MailOutbox> lockDueBatch(@Param("now") ZonedDateTime now, @Param("limit") int limit);
+
+    long countByStatus(MailOutboxStatus status);
+
+    // Xóa email đã gửi xong hoặc đã bỏ cuộc quá thời hạn lưu
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MailOutbox m WHERE m.status IN :statuses AND m.updateDt < :before")
+    int deleteByStatusInAndUpdateDtBefore(@Param("statuses") Collection<MailOutboxStatus> statuses,
+                                          @Param("before") ZonedDateTime before);
+}
@@ -0,0 +1,18 @@
+package com.vinova.booking_hotel.authentication.repository.projection;
+
+// Thông tin cơ bản của tài khoản, không kèm hotels/roles/wishList
+public interface AccountSummary {
+    Long getId();
+
+    String getFullName();
+
+    String getUsername();
+
+    String getEmail();
+
+    String getAvatar();
+
+    String getPhone();
+
+    String getBlockReason();
+}
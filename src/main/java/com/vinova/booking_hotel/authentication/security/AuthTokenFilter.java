@@ -1,8 +1,6 @@
 package com.vinova.booking_hotel.authentication.security;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,7 +9,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,7 +20,7 @@ import java.io.IOException;
 public class AuthTokenFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -31,20 +28,26 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt) && isAccessToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            // Chỉ parse token một lần: kiểm tra chữ ký, hạn dùng và loại token cùng lúc
+            Claims claims = jwt != null ? jwtUtils.parseAccessClaims(jwt) : null;
+            if (claims != null) {
+                jwtUtils.bindAccessClaims(request, jwt, claims);
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // Thông tin tài khoản lấy từ cache, chỉ truy vấn database khi cache chưa có hoặc đã hết hạn
+                UserDetails userDetails = principalCache.get(claims.getSubject());
 
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails,
-                                null,
-                                userDetails.getAuthorities());
+                // Tài khoản đã bị khóa thì không xác thực dù token còn hạn
+                if (userDetails.isAccountNonLocked()) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails,
+                                    null,
+                                    userDetails.getAuthorities());
 
 
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e);
@@ -57,18 +60,4 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         String jwt = jwtUtils.getJwtFromHeader(request);
         return jwt;
     }
-
-    private boolean isAccessToken(String token) {
-        try {
-            // Phân tích JWT để lấy claims
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(jwtUtils.key())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.get("roles") != null;
-        } catch (JwtException e) {
-            return false;
-        }
-    }
 }
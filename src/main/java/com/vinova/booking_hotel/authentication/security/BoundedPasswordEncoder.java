@@ -0,0 +1,58 @@
+package com.vinova.booking_hotel.authentication.security;
+
+import com.vinova.booking_hotel.common.exception.ServerBusyException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+// Chạy bcrypt trên pool riêng có giới hạn: đăng nhập dồn dập chỉ chiếm số CPU của pool,
+// request khác (xem khách sạn, đặt phòng) vẫn còn CPU; hàng đợi đầy thì trả lỗi ngay thay vì chờ mãi
+@RequiredArgsConstructor
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolTaskExecutor passwordHashingExecutor;
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return runOnPool(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return runOnPool(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Chỉ đọc cost trong chuỗi hash, không băm nên không cần qua pool
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T runOnPool(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = passwordHashingExecutor.submit(task);
+        } catch (TaskRejectedException e) {
+            throw new ServerBusyException("Too many sign-in requests, please try again later");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Cannot hash password", e.getCause());
+        }
+    }
+}
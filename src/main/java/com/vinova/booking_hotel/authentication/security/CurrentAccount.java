@@ -0,0 +1,33 @@
+package com.vinova.booking_hotel.authentication.security;
+
+import com.vinova.booking_hotel.authentication.model.Account;
+import com.vinova.booking_hotel.authentication.repository.AccountRepository;
+import com.vinova.booking_hotel.authentication.repository.projection.AccountSummary;
+import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+// Tài khoản đang gọi request; id lấy từ claims đã được AuthTokenFilter xác thực nên không cần tải cả Account
+@Component
+@RequiredArgsConstructor
+public class CurrentAccount {
+
+    private final JwtUtils jwtUtils;
+    private final AccountRepository accountRepository;
+
+    // Dùng cho kiểm tra quyền sở hữu, không truy vấn database
+    public Long id(String token) {
+        return jwtUtils.getUserIdFromJwtToken(token);
+    }
+
+    // Proxy chỉ mang id, dùng để gán khóa ngoại hoặc làm tham số truy vấn mà không select tài khoản
+    public Account reference(String token) {
+        return accountRepository.getReferenceById(id(token));
+    }
+
+    // Các cột cơ bản của tài khoản qua projection, không tải hotels/roles
+    public AccountSummary summary(String token) {
+        return accountRepository.findSummaryById(id(token))
+                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+    }
+}
@@ -45,5 +45,9 @@ public class CustomUserDetails implements UserDetails {
     public boolean isCredentialsNonExpired() {
         return true;
     }
-    
+
+    public boolean isBlocked() {
+        return account.getBlockReason() != null;
+    }
+
 }
\ No newline at end of file
@@ -6,7 +6,6 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,6 +13,8 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.security.Key;
 import java.time.LocalDateTime;
@@ -24,7 +25,6 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
-@RequiredArgsConstructor
 public class JwtUtils {
 
     private final UserDetailsService userDetailsService;
@@ -32,11 +32,27 @@ public class JwtUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${spring.app.jwtSecret}")
-    private String jwtSecret;
-
-    @Value("${spring.app.jwtExpirationMs}")
-    private int jwtExpirationMs;
+    // Claims của access token đã được AuthTokenFilter parse, gắn vào request hiện tại
+    static final String REQUEST_CLAIMS_ATTRIBUTE = JwtUtils.class.getName() + ".claims";
+
+    private final int jwtExpirationMs;
+
+    // Key và parser không đổi theo request nên chỉ tạo một lần; JwtParser đã build an toàn khi dùng đa luồng
+    private final Key signingKey;
+    private final JwtParser jwtParser;
+
+    public JwtUtils(UserDetailsService userDetailsService,
+                    AccountRepository accountRepository,
+                    @Value("${spring.app.jwtSecret}") String jwtSecret,
+                    @Value("${spring.app.jwtExpirationMs}") int jwtExpirationMs) {
+        this.userDetailsService = userDetailsService;
+        this.accountRepository = accountRepository;
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
 
     public String getJwtFromHeader(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
@@ -71,7 +87,7 @@ public class JwtUtils {
                 .claim("roles", roleNames)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(SignatureAlgorithm.HS256, jwtSecret)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -80,15 +96,13 @@ public class JwtUtils {
         return Jwts.builder()
                 .setSubject(username)
                 .setIssuedAt(new Date())
-                .signWith(key())
+                .signWith(signingKey)
                 .compact();
     }
 
     public Map<String, String> refreshAccessToken(String refreshToken) {
         try {
-            String username = Jwts.parserBuilder()
-                    .setSigningKey(key())
-                    .build()
+            String username = jwtParser
                     .parseClaimsJws(refreshToken)
                     .getBody()
                     .getSubject();
@@ -121,33 +135,56 @@ public class JwtUtils {
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public Long getUserIdFromJwtToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("id", Long.class);
+        return parseClaims(token).get("id", Long.class);
+    }
+
+    // Gắn claims đã parse vào request để các service trong cùng request không phải parse lại
+    public void bindAccessClaims(HttpServletRequest request, String token, Claims claims) {
+        request.setAttribute(REQUEST_CLAIMS_ATTRIBUTE, new ParsedAccessToken(token, claims));
+    }
+
+    // Claims của access token trong request hiện tại, null nếu request chưa xác thực
+    public Claims currentClaims() {
+        ParsedAccessToken current = currentAccessToken();
+        return current != null ? current.claims() : null;
+    }
+
+    public Long currentUserId() {
+        Claims claims = currentClaims();
+        return claims != null ? claims.get("id", Long.class) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> currentRoles() {
+        Claims claims = currentClaims();
+        return claims != null ? claims.get("roles", List.class) : List.of();
+    }
+
+    private Claims parseClaims(String token) {
+        // Token giống token filter đã xác thực thì dùng lại claims, không kiểm tra chữ ký lần nữa
+        ParsedAccessToken current = currentAccessToken();
+        if (current != null && current.token().equals(token)) {
+            return current.claims();
+        }
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
-    Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    private ParsedAccessToken currentAccessToken() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        Object value = requestAttributes.getAttribute(REQUEST_CLAIMS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return value instanceof ParsedAccessToken parsed ? parsed : null;
     }
 
     public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key())
-                    .build()
-                    .parseClaimsJws(authToken);
+            jwtParser.parseClaimsJws(authToken);
             return true;
         } catch (MalformedJwtException | ExpiredJwtException e) {
             logger.error("Invalid or expired JWT token: {}", e.getMessage());
@@ -157,4 +194,21 @@ public class JwtUtils {
         return false;
     }
 
+    // Kiểm tra chữ ký và đọc claims trong một lần parse; trả về null nếu token không hợp lệ hoặc không phải access token
+    public Claims parseAccessClaims(String authToken) {
+        try {
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+            return claims.get("roles") != null ? claims : null;
+        } catch (MalformedJwtException | ExpiredJwtException e) {
+            logger.error("Invalid or expired JWT token: {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Cannot parse JWT token: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private record ParsedAccessToken(String token, Claims claims) {
+    }
 }
@@ -0,0 +1,27 @@
+package com.vinova.booking_hotel.authentication.security;
+
+import com.vinova.booking_hotel.common.store.ExpiringKeyValueStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Đếm số lần đăng nhập sai theo tài khoản; bộ đếm dùng chung giữa các node và tự hết hạn sau một khoảng thời gian
+@Component
+@RequiredArgsConstructor
+public class LoginAttemptTracker {
+
+    private static final String KEY_PREFIX = "failed-login:";
+    static final Duration WINDOW = Duration.ofMinutes(15);
+
+    private final ExpiringKeyValueStore expiringKeyValueStore;
+
+    // Trả về số lần sai liên tiếp trong cửa sổ hiện tại, kể cả lần này
+    public long recordFailure(Long accountId) {
+        return expiringKeyValueStore.increment(KEY_PREFIX + accountId, WINDOW);
+    }
+
+    public void reset(Long accountId) {
+        expiringKeyValueStore.remove(KEY_PREFIX + accountId);
+    }
+}
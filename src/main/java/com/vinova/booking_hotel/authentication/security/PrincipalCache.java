@@ -0,0 +1,49 @@
+package com.vinova.booking_hotel.authentication.security;
+
+import com.vinova.booking_hotel.common.cache.ExpiringCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@RequiredArgsConstructor
+public class PrincipalCache {
+
+    static final int MAX_ENTRIES = 10_000;
+    // Giới hạn thời gian sống để thay đổi từ node khác cũng được áp dụng sau tối đa 5 phút
+    static final Duration CACHE_TTL = Duration.ofMinutes(5);
+
+    private final UserDetailsService userDetailsService;
+    private final ExpiringCache<String, UserDetails> principals = new ExpiringCache<>(MAX_ENTRIES, CACHE_TTL);
+
+    public UserDetails get(String username) {
+        return principals.get(username, this::load);
+    }
+
+    // Gọi khi tài khoản bị khóa/mở khóa, đổi vai trò hoặc bị xóa
+    public void evict(String username) {
+        if (username != null) {
+            principals.invalidate(username);
+        }
+    }
+
+    public void evictAll() {
+        principals.invalidateAll();
+    }
+
+    private UserDetails load(String username) {
+        UserDetails loaded = userDetailsService.loadUserByUsername(username);
+        boolean blocked = loaded instanceof CustomUserDetails customUserDetails && customUserDetails.isBlocked();
+
+        // Chỉ giữ username và quyền, không giữ entity Account cùng danh sách khách sạn trong cache
+        return User.withUsername(loaded.getUsername())
+                .password("")
+                .authorities(loaded.getAuthorities())
+                .accountLocked(blocked)
+                .build();
+    }
+}
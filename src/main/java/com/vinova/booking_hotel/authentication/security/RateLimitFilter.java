@@ -0,0 +1,82 @@
+package com.vinova.booking_hotel.authentication.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vinova.booking_hotel.common.ratelimit.RateLimitDecision;
+import com.vinova.booking_hotel.common.ratelimit.RateLimitRule;
+import com.vinova.booking_hotel.common.ratelimit.SlidingWindowRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Chặn request vượt giới hạn trước khi tới controller để không tốn bcrypt, SMTP hay quota Gemini
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final SlidingWindowRateLimiter rateLimiter;
+    private final List<RateLimitRule> rules;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        for (RateLimitRule rule : rules) {
+            if (!rule.matcher().matches(request)) {
+                continue;
+            }
+            // Luôn đếm theo IP; request đã đăng nhập còn bị đếm thêm theo tài khoản,
+            // để đăng nhập không giúp vượt giới hạn của IP và đổi IP không giúp vượt giới hạn của tài khoản
+            for (String clientKey : clientKeys(request)) {
+                RateLimitDecision decision = rateLimiter.tryAcquire(rule, clientKey);
+                if (!decision.allowed()) {
+                    reject(request, response, decision);
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private List<String> clientKeys(HttpServletRequest request) {
+        String ipKey = "ip:" + request.getRemoteAddr();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return List.of(ipKey, "account:" + authentication.getName());
+        }
+        return List.of(ipKey);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, RateLimitDecision decision)
+            throws IOException {
+        // Làm tròn lên theo giây, tối thiểu 1 giây
+        long retryAfterSeconds = Math.max(1, (decision.retryAfter().toMillis() + 999) / 1000);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        final Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", "Too Many Requests");
+        body.put("message", "Too many requests, please try again in " + retryAfterSeconds + " seconds");
+        body.put("path", request.getServletPath());
+
+        final ObjectMapper mapper = new ObjectMapper();
+        mapper.writeValue(response.getOutputStream(), body);
+    }
+}
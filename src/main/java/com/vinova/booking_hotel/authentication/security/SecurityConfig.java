@@ -1,19 +1,30 @@
 package com.vinova.booking_hotel.authentication.security;
 
+import com.vinova.booking_hotel.common.ratelimit.RateLimitRule;
+import com.vinova.booking_hotel.common.ratelimit.SlidingWindowRateLimiter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -24,16 +35,52 @@ public class SecurityConfig {
     private final AuthEntryPointJwt unauthorizedHandler;
     private final AuthAccessDenied accessDeniedHandler;
     private final JwtUtils jwtUtils;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+
+    // Giới hạn request theo nhóm route, tính riêng cho từng IP hoặc tài khoản
+    @Value("${app.rate-limit.sign-in-per-minute}")
+    private int signInPerMinute;
+    @Value("${app.rate-limit.verification-per-hour}")
+    private int verificationPerHour;
+    @Value("${app.rate-limit.ai-per-minute}")
+    private int aiPerMinute;
+
+    // Tăng strength thì mật khẩu cũ được băm lại ở lần đăng nhập thành công tiếp theo
+    @Value("${app.security.bcrypt-strength}")
+    private int bcryptStrength;
 
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
-        return new AuthTokenFilter(jwtUtils, userDetailsService);
+        return new AuthTokenFilter(jwtUtils, principalCache);
+    }
+
+    @Bean
+    public SlidingWindowRateLimiter rateLimiter() {
+        return new SlidingWindowRateLimiter();
+    }
+
+    // Không khai báo là bean để filter chỉ chạy trong chuỗi của Spring Security, sau khi đã xác thực token
+    private RateLimitFilter rateLimitFilter() {
+        List<RateLimitRule> rules = List.of(
+                new RateLimitRule("sign-in", postMatcher("/api/v1/public/sign-in"),
+                        signInPerMinute, Duration.ofMinutes(1)),
+                new RateLimitRule("verification", postMatcher("/api/v1/public/resend-verification-code", "/api/v1/public/forgot-password"),
+                        verificationPerHour, Duration.ofHours(1)),
+                new RateLimitRule("ai", postMatcher("/api/v1/public/ask-question"),
+                        aiPerMinute, Duration.ofMinutes(1))
+        );
+        return new RateLimitFilter(rateLimiter(), rules);
+    }
+
+    private static RequestMatcher postMatcher(String... paths) {
+        return new OrRequestMatcher(Arrays.stream(paths)
+                .map(path -> (RequestMatcher) antMatcher(HttpMethod.POST, path))
+                .toList());
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(ThreadPoolTaskExecutor passwordHashingExecutor) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), passwordHashingExecutor);
     }
 
     @Bean
@@ -81,7 +128,8 @@ public class SecurityConfig {
                 )
                 .csrf(csrf -> csrf.disable())
                 .addFilterBefore(authenticationJwtTokenFilter(),
-                        UsernamePasswordAuthenticationFilter.class);
+                        UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter(), AuthTokenFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,48 @@
+package com.vinova.booking_hotel.authentication.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vinova.booking_hotel.authentication.dto.response.VerificationInfo;
+import com.vinova.booking_hotel.common.store.ExpiringKeyValueStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Mã xác thực email (đăng ký, quên mật khẩu) theo email, lưu trong kho dùng chung thay vì HashMap của từng node
+@Component
+@RequiredArgsConstructor
+public class VerificationCodeStore {
+
+    private static final String KEY_PREFIX = "verification:";
+    // Mã chỉ hợp lệ 60 giây nhưng giữ lâu hơn để còn lấy username/fullName khi gửi lại mã
+    static final Duration RETENTION = Duration.ofMinutes(15);
+
+    private final ExpiringKeyValueStore expiringKeyValueStore;
+    private final ObjectMapper objectMapper;
+
+    public void save(String email, VerificationInfo verificationInfo) {
+        try {
+            expiringKeyValueStore.put(KEY_PREFIX + email, objectMapper.writeValueAsString(verificationInfo), RETENTION);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize verification info", e);
+        }
+    }
+
+    public Optional<VerificationInfo> find(String email) {
+        return expiringKeyValueStore.get(KEY_PREFIX + email).map(this::read);
+    }
+
+    public void remove(String email) {
+        expiringKeyValueStore.remove(KEY_PREFIX + email);
+    }
+
+    private VerificationInfo read(String json) {
+        try {
+            return objectMapper.readValue(json, VerificationInfo.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialize verification info", e);
+        }
+    }
+}
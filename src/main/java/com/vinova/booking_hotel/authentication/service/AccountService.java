@@ -4,6 +4,7 @@ import com.vinova.booking_hotel.authentication.dto.request.*;
 import com.vinova.booking_hotel.authentication.dto.response.AccountResponseDto;
 import com.vinova.booking_hotel.authentication.dto.response.SignInResponseDto;
 import com.vinova.booking_hotel.authentication.model.Account;
+import com.vinova.booking_hotel.common.pagination.CursorPageResponseDto;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.util.List;
@@ -13,6 +14,8 @@ public interface AccountService {
 
     List<AccountResponseDto> accounts(String fullName, String role, Boolean isBlocked, int pageIndex, int pageSize, String sortBy, String sortOrder);
 
+    CursorPageResponseDto<AccountResponseDto> accountsByCursor(String fullName, String role, Boolean isBlocked, String cursor, int pageSize, String sortBy, String sortOrder);
+
     SignInResponseDto signIn(SignInRequestDto request, HttpServletResponse httpServletResponse);
 
     String signUp(SignUpRequestDto request);
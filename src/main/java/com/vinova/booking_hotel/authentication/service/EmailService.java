@@ -13,5 +13,7 @@ public interface EmailService {
     void sendPasswordResetEmail(String to, String resetToken);
 
     void sendEmailWithAttachment(String to, String subject, String body, String attachmentPath) throws MessagingException;
+
+    void sendEmailWithAttachment(String to, String subject, String body, String attachmentName, byte[] attachment) throws MessagingException;
     
 }
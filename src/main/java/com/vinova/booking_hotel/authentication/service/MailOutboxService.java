@@ -0,0 +1,23 @@
+package com.vinova.booking_hotel.authentication.service;
+
+import com.vinova.booking_hotel.authentication.dto.response.MailQueueResponseDto;
+import com.vinova.booking_hotel.authentication.model.MailOutbox;
+
+import java.time.ZonedDateTime;
+
+public interface MailOutboxService {
+
+    // Ghi email vào hàng đợi; nếu đang trong transaction thì chỉ gửi sau khi commit
+    void enqueue(MailOutbox mail);
+
+    // Gửi hết các email đến hạn theo lô trên luồng hiện tại
+    void processDue();
+
+    // Giao processDue cho pool gửi email; pool đầy thì bỏ qua vì worker đang chạy sẽ gửi luôn các email này
+    void dispatch();
+
+    // Xóa email đã gửi hoặc đã thất bại cập nhật lần cuối trước thời điểm before, trả về số dòng đã xóa
+    int purgeFinishedBefore(ZonedDateTime before);
+
+    MailQueueResponseDto queueDepth();
+}
@@ -9,10 +9,16 @@ import com.vinova.booking_hotel.authentication.repository.AccountRepository;
 import com.vinova.booking_hotel.authentication.repository.AccountRoleRepository;
 import com.vinova.booking_hotel.authentication.repository.RoleRepository;
 import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.LoginAttemptTracker;
+import com.vinova.booking_hotel.authentication.security.PrincipalCache;
+import com.vinova.booking_hotel.authentication.security.VerificationCodeStore;
 import com.vinova.booking_hotel.authentication.service.AccountService;
 import com.vinova.booking_hotel.authentication.service.EmailService;
 import com.vinova.booking_hotel.authentication.repository.specification.AccountSpecification;
 import com.vinova.booking_hotel.common.exception.*;
+import com.vinova.booking_hotel.common.pagination.CursorPageResponseDto;
+import com.vinova.booking_hotel.common.pagination.KeysetCursor;
+import com.vinova.booking_hotel.common.pagination.KeysetSpecification;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
@@ -23,9 +29,6 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.*;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -34,7 +37,6 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.concurrent.ConcurrentHashMap;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -54,18 +56,21 @@ public class AccountServiceImpl implements AccountService {
     private final CloudinaryService cloudinaryService;
     
     //Security
-    private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     //Email
     private final EmailService emailService;
-    private final Map<String, VerificationInfo> verificationMap = new HashMap<>();
+    private final VerificationCodeStore verificationCodeStore;
 
     //Login
-    private final ConcurrentHashMap<String, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private final LoginAttemptTracker loginAttemptTracker;
     private static final int MAX_FAILED_ATTEMPTS = 5;
 
+    //Cursor pagination
+    private static final Set<String> CURSOR_SORT_FIELDS = Set.of("id", "username", "email", "fullName");
+
     private final RestTemplate restTemplate = new RestTemplate();
 
     // Google
@@ -131,6 +136,37 @@ public class AccountServiceImpl implements AccountService {
         List<Account> accounts = accountRepository.findAll(spec, pageable).getContent();
 
         // Chuyển đổi danh sách tài khoản sang danh sách AccountResponseDto
+        return toAccountResponseDtos(accounts);
+    }
+
+    @Override
+    public CursorPageResponseDto<AccountResponseDto> accountsByCursor(String fullName, String role, Boolean isBlocked, String cursor, int pageSize, String sortBy, String sortOrder) {
+        if (pageSize <= 0) {
+            throw new InvalidPageOrSizeException();
+        }
+        if (!CURSOR_SORT_FIELDS.contains(sortBy)) {
+            throw new InvalidCursorException("Cursor pagination does not support sortBy=" + sortBy);
+        }
+
+        boolean descending = "desc".equalsIgnoreCase(sortOrder);
+        Specification<Account> spec = Specification
+                .where(AccountSpecification.hasFullName(fullName))
+                .and(AccountSpecification.isBlocked(isBlocked))
+                .and(AccountSpecification.hasRole(role))
+                .and(KeysetSpecification.after(KeysetCursor.decode(cursor, sortBy), descending));
+
+        // Lấy dư 1 bản ghi để biết còn trang sau, không cần truy vấn count
+        List<Account> accounts = accountRepository.findBy(spec, query -> query
+                .sortBy(KeysetSpecification.sort(sortBy, descending))
+                .limit(pageSize + 1)
+                .all());
+
+        String nextCursor = KeysetCursor.nextCursor(accounts, pageSize, sortBy);
+        List<Account> page = accounts.size() > pageSize ? accounts.subList(0, pageSize) : accounts;
+        return new CursorPageResponseDto<>(toAccountResponseDtos(page), nextCursor);
+    }
+
+    private List<AccountResponseDto> toAccountResponseDtos(List<Account> accounts) {
         List<AccountResponseDto> accountResponses = new ArrayList<>();
 
         for (Account account : accounts) {
@@ -172,39 +208,35 @@ public class AccountServiceImpl implements AccountService {
             throw new AccountIsBlockException(account.getBlockReason());
         }
 
-        // Khai báo số lần đăng nhập không thành công
-        int attempts;
-
         // Kiểm tra mật khẩu
         boolean passwordMatch = passwordEncoder.matches(request.getPassword(), account.getPassword());
 
         // Nếu mật khẩu không khớp, tăng số lần không thành công
         if (!passwordMatch) {
-            String accountIdKey = String.valueOf(account.getId());
-            failedAttempts.merge(accountIdKey, 1, Integer::sum);
-            attempts = failedAttempts.get(accountIdKey);
+            long attempts = loginAttemptTracker.recordFailure(account.getId());
 
             // Kiểm tra nếu đã vượt quá số lần cho phép
             if (attempts >= MAX_FAILED_ATTEMPTS) {
                 account.setBlockReason("too_many_failed_login_attempts");
                 accountRepository.save(account);
+                principalCache.evict(account.getUsername());
                 // Đặt lại số lần không thành công về 0
-                failedAttempts.remove(accountIdKey);
+                loginAttemptTracker.reset(account.getId());
             }
 
             throw new ErrorSignInException();
         }
 
         // Nếu đăng nhập thành công, xóa thông tin trong bộ nhớ
-        String accountIdKey = String.valueOf(account.getId());
-        failedAttempts.remove(accountIdKey);
+        loginAttemptTracker.reset(account.getId());
 
-        // Xác thực tài khoản
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(account.getUsername(), request.getPassword())
-        );
+        // Hash tạo với strength cũ thì băm lại bằng strength hiện tại, lưu cùng lần cập nhật tài khoản bên dưới
+        if (passwordEncoder.upgradeEncoding(account.getPassword())) {
+            account.setPassword(passwordEncoder.encode(request.getPassword()));
+        }
 
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        // Mật khẩu đã kiểm tra ở trên nên không gọi AuthenticationManager (sẽ băm bcrypt thêm lần nữa), chỉ lấy quyền của tài khoản
+        UserDetails userDetails = principalCache.get(account.getUsername());
 
         // Tạo JWT token mới
         String jwtToken = jwtUtils.generateTokenFromUserDetails(userDetails);
@@ -278,7 +310,7 @@ public class AccountServiceImpl implements AccountService {
             // Nếu tài khoản chưa được kích hoạt, gửi lại mã xác thực
             if (existingAccount.getBlockReason() != null) {
                 String verificationCode = String.format("%06d", new Random().nextInt(999999));
-                verificationMap.put(existingAccount.getEmail(), new VerificationInfo(verificationCode, LocalDateTime.now(), request.getUsername(), request.getFullName()));
+                verificationCodeStore.save(existingAccount.getEmail(), new VerificationInfo(verificationCode, LocalDateTime.now(), request.getUsername(), request.getFullName()));
                 emailService.sendAccountReactivationEmail(existingAccount.getEmail(), verificationCode);
                 return "Account exists but not activated. Verification code sent again. Please verify to activate your account.";
             } else {
@@ -312,7 +344,7 @@ public class AccountServiceImpl implements AccountService {
 
         // Gửi email xác thực cho tài khoản mới
         String verificationCode = String.format("%06d", new Random().nextInt(999999));
-        verificationMap.put(newAccount.getEmail(), new VerificationInfo(verificationCode, LocalDateTime.now(), newAccount.getUsername(), newAccount.getFullName()));
+        verificationCodeStore.save(newAccount.getEmail(), new VerificationInfo(verificationCode, LocalDateTime.now(), newAccount.getUsername(), newAccount.getFullName()));
         emailService.sendAccountVerificationEmail(newAccount.getEmail(), verificationCode);
 
         return "Account created successfully. Verification code sent. Please verify to activate your account.";
@@ -330,7 +362,7 @@ public class AccountServiceImpl implements AccountService {
         }
 
         // Kiểm tra xem có thông tin xác thực nào không
-        VerificationInfo verificationInfo = verificationMap.get(email);
+        VerificationInfo verificationInfo = verificationCodeStore.find(email).orElse(null);
         if (verificationInfo != null) {
             // Kiểm tra thời gian gửi mã xác thực
             long secondsSinceSent = Duration.between(verificationInfo.getSentTime(), LocalDateTime.now()).getSeconds();
@@ -343,7 +375,7 @@ public class AccountServiceImpl implements AccountService {
         String verificationCode = String.format("%06d", new Random().nextInt(999999));
         assert verificationInfo != null;
         VerificationInfo newVerificationInfo = new VerificationInfo(verificationCode, LocalDateTime.now(), verificationInfo.getUsername(), verificationInfo.getFullName());
-        verificationMap.put(existingAccount.getEmail(), newVerificationInfo);
+        verificationCodeStore.save(existingAccount.getEmail(), newVerificationInfo);
 
         // Gửi mã xác thực mới
         emailService.sendAccountVerificationEmail(existingAccount.getEmail(), verificationCode);
@@ -353,7 +385,7 @@ public class AccountServiceImpl implements AccountService {
     
     @Override
     public String verifyEmail(String email, String code) {
-        VerificationInfo verificationInfo = verificationMap.get(email);
+        VerificationInfo verificationInfo = verificationCodeStore.find(email).orElse(null);
         if (verificationInfo == null ||
                 !verificationInfo.getVerificationCode().equals(code) ||
                 Duration.between(verificationInfo.getSentTime(), LocalDateTime.now()).getSeconds() > 60) {
@@ -373,7 +405,7 @@ public class AccountServiceImpl implements AccountService {
         accountRepository.save(existingAccount);
 
         // Xóa thông tin xác thực sau khi xác thực thành công
-        verificationMap.remove(email);
+        verificationCodeStore.remove(email);
 
         return "Account activated successfully.";
     }
@@ -405,7 +437,7 @@ public class AccountServiceImpl implements AccountService {
 
         // Tạo mã xác thực cho việc reset password
         String verificationCode = String.format("%06d", new Random().nextInt(999999));
-        verificationMap.put(account.getEmail(), new VerificationInfo(verificationCode, LocalDateTime.now(), account.getUsername(), account.getFullName()));
+        verificationCodeStore.save(account.getEmail(), new VerificationInfo(verificationCode, LocalDateTime.now(), account.getUsername(), account.getFullName()));
 
         // Gửi email xác thực cho reset password
         emailService.sendPasswordResetEmail(account.getEmail(), verificationCode);
@@ -417,7 +449,7 @@ public class AccountServiceImpl implements AccountService {
     public String resetPassword(ResetPasswordRequestDto request) {
         
         // Xác thực mã
-        VerificationInfo verificationInfo = verificationMap.get(request.getEmail());
+        VerificationInfo verificationInfo = verificationCodeStore.find(request.getEmail()).orElse(null);
         if (verificationInfo == null ||
                 !verificationInfo.getVerificationCode().equals(request.getCode()) ||
                 Duration.between(verificationInfo.getSentTime(), LocalDateTime.now()).getSeconds() > 60) {
@@ -438,7 +470,7 @@ public class AccountServiceImpl implements AccountService {
         accountRepository.save(account);
 
         // Xóa thông tin xác thực
-        verificationMap.remove(request.getEmail());
+        verificationCodeStore.remove(request.getEmail());
 
         return "Password has been reset successfully.";
     }
@@ -478,6 +510,9 @@ public class AccountServiceImpl implements AccountService {
         account.setBlockReason(request.getReason());
         accountRepository.save(account);
 
+        // Token còn hạn của tài khoản này không còn được chấp nhận từ request tiếp theo
+        principalCache.evict(account.getUsername());
+
         return "Account has been blocked successfully.";
     }
 
@@ -488,6 +523,7 @@ public class AccountServiceImpl implements AccountService {
         
         account.setBlockReason(null);
         accountRepository.save(account);
+        principalCache.evict(account.getUsername());
 
         return "Account has been unblocked successfully.";
     }
@@ -574,6 +610,7 @@ public class AccountServiceImpl implements AccountService {
 
         // Xóa tài khoản
         accountRepository.delete(account);
+        principalCache.evict(account.getUsername());
     }
 
     @Override
@@ -798,6 +835,7 @@ public class AccountServiceImpl implements AccountService {
         for (Account account : inactiveAccounts) {
             account.setBlockReason("long_time_no_login");
             accountRepository.save(account);
+            principalCache.evict(account.getUsername());
         }
     }
 }
@@ -2,25 +2,125 @@ package com.vinova.booking_hotel.authentication.service.impl;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import com.vinova.booking_hotel.property.model.UploadedImage;
+import com.vinova.booking_hotel.property.repository.UploadedImageRepository;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CloudinaryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CloudinaryService.class);
+
     private final Cloudinary cloudinary;
+    private final UploadedImageRepository uploadedImageRepository;
+
+    // File ảnh đã chép ra đĩa kèm SHA-256 của nội dung
+    public record SpooledImage(Path path, String contentHash) {
+    }
+
+    // Ảnh đã lên Cloudinary: public_id để xóa khi không dùng tới, secure_url để lưu
+    public record UploadedAsset(String publicId, String url) {
+    }
 
     public String uploadImage(MultipartFile file) {
+        SpooledImage image = spoolToDisk(file);
         try {
-            Map<String, Object> data = this.cloudinary.uploader().upload(file.getBytes(), ObjectUtils.emptyMap());
-            return (String) data.get("secure_url");
+            return upload(image);
+        } finally {
+            deleteQuietly(image.path());
+        }
+    }
+
+    // Ảnh trùng nội dung với ảnh đã upload trước đó thì dùng lại URL cũ, không gửi lại lên Cloudinary
+    public String upload(SpooledImage image) {
+        return uploadedImageRepository.findById(image.contentHash())
+                .map(UploadedImage::getUrl)
+                .orElseGet(() -> uploadAndIndex(image));
+    }
+
+    public Map<String, String> findUploadedUrls(Collection<String> contentHashes) {
+        return uploadedImageRepository.findAllById(contentHashes).stream()
+                .collect(Collectors.toMap(UploadedImage::getContentHash, UploadedImage::getUrl));
+    }
+
+    public String uploadAndIndex(SpooledImage image) {
+        return index(image.contentHash(), uploadFile(image.path().toFile()));
+    }
+
+    // Request khác đã ghi cùng nội dung vào chỉ mục trước thì dùng URL đã ghi, bản vừa upload là thừa nên bị xóa
+    public String index(String contentHash, UploadedAsset asset) {
+        String url = uploadedImageRepository.insertOrFindUrl(contentHash, asset.url());
+        if (!asset.url().equals(url)) {
+            deleteAsset(asset.publicId());
+        }
+        return url;
+    }
+
+    // Cloudinary client đọc file theo luồng khi gửi multipart, không nạp cả ảnh vào heap
+    public UploadedAsset uploadFile(File file) {
+        try {
+            Map<String, Object> data = this.cloudinary.uploader().upload(file, ObjectUtils.emptyMap());
+            return new UploadedAsset((String) data.get("public_id"), (String) data.get("secure_url"));
+        } catch (IOException io) {
+            throw new RuntimeException("Image upload failed", io);
+        }
+    }
+
+    // Xóa ảnh không còn được dùng; lỗi chỉ ghi log vì ảnh thừa không ảnh hưởng dữ liệu
+    public void deleteAsset(String publicId) {
+        try {
+            this.cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not delete Cloudinary asset {}", publicId, e);
+        }
+    }
+
+    // Chuyển phần multipart ra file tạm để upload sau khi request kết thúc; multipart đã nằm trên đĩa nên
+    // transferTo chỉ đổi tên file thay vì chép lại, SHA-256 tính bằng một lần đọc file tạm
+    public SpooledImage spoolToDisk(MultipartFile file) {
+        Path tempFile = null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            tempFile = Files.createTempFile("image-upload-", null);
+            file.transferTo(tempFile.toFile());
+            try (InputStream input = new DigestInputStream(Files.newInputStream(tempFile), digest)) {
+                input.transferTo(OutputStream.nullOutputStream());
+            }
+            return new SpooledImage(tempFile, HexFormat.of().formatHex(digest.digest()));
         } catch (IOException io) {
+            if (tempFile != null) {
+                deleteQuietly(tempFile);
+            }
             throw new RuntimeException("Image upload failed", io);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public void deleteQuietly(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException io) {
+            logger.warn("Could not delete temporary upload file {}", tempFile, io);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,39 +1,28 @@
 package com.vinova.booking_hotel.authentication.service.impl;
 
+import com.vinova.booking_hotel.authentication.model.MailOutbox;
 import com.vinova.booking_hotel.authentication.service.EmailService;
+import com.vinova.booking_hotel.authentication.service.MailOutboxService;
 import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    private final JavaMailSender javaMailSender;
-
+    private final MailOutboxService mailOutboxService;
 
     @Override
     public void sendEmail(String to, String subject, String text) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-            javaMailSender.send(message);
-        } catch (MailException e) {
-            throw new RuntimeException("Email sending failed. Please try again!", e);
-        }
+        // Không gọi SMTP trên luồng request, email được worker gửi từ hàng đợi
+        mailOutboxService.enqueue(mail(to, subject, text, false));
     }
 
     @Override
@@ -98,19 +87,30 @@ public class EmailServiceImpl implements EmailService {
 
     @Override
     public void sendEmailWithAttachment(String to, String subject, String body, String attachmentPath) throws MessagingException {
-        MimeMessage message = javaMailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(body, true);
+        // Đọc tệp ngay lúc gọi vì tệp có thể bị xóa trước khi worker gửi
+        Path path = Path.of(attachmentPath);
+        try {
+            sendEmailWithAttachment(to, subject, body, path.getFileName().toString(), Files.readAllBytes(path));
+        } catch (IOException e) {
+            throw new MessagingException("Cannot read attachment " + attachmentPath, e);
+        }
+    }
 
-        // Đính kèm tệp
-        FileSystemResource file = new FileSystemResource(new File(attachmentPath));
-        helper.addAttachment(Objects.requireNonNull(file.getFilename()), file);
+    @Override
+    public void sendEmailWithAttachment(String to, String subject, String body, String attachmentName, byte[] attachment) throws MessagingException {
+        MailOutbox mail = mail(to, subject, body, true);
+        mail.setAttachmentName(attachmentName);
+        mail.setAttachment(attachment);
+        mailOutboxService.enqueue(mail);
+    }
 
-        // Gửi email
-        javaMailSender.send(message);
+    private MailOutbox mail(String to, String subject, String body, boolean html) {
+        MailOutbox mail = new MailOutbox();
+        mail.setRecipient(to);
+        mail.setSubject(subject);
+        mail.setBody(body);
+        mail.setHtml(html);
+        return mail;
     }
     
 }
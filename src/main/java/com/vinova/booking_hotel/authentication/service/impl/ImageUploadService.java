@@ -0,0 +1,238 @@
+package com.vinova.booking_hotel.authentication.service.impl;
+
+import com.vinova.booking_hotel.authentication.service.impl.CloudinaryService.SpooledImage;
+import com.vinova.booking_hotel.authentication.service.impl.CloudinaryService.UploadedAsset;
+import com.vinova.booking_hotel.common.enums.ImageSize;
+import com.vinova.booking_hotel.common.exception.ServerBusyException;
+import com.vinova.booking_hotel.common.image.ImageResizer;
+import com.vinova.booking_hotel.property.model.ImageDerivative;
+import com.vinova.booking_hotel.property.repository.ImageDerivativeRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class ImageUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageUploadService.class);
+
+    private final CloudinaryService cloudinaryService;
+    private final ImageResizer imageResizer;
+    private final ImageDerivativeRepository imageDerivativeRepository;
+    private final SimpleAsyncTaskExecutor imageUploadExecutor;
+    private final ThreadPoolTaskExecutor imageProcessingExecutor;
+    private final Semaphore imageUploadSlots;
+
+    @Value("${app.image-upload.timeout-seconds}")
+    private long timeoutSeconds;
+
+    // Tải nhiều ảnh lên Cloudinary song song, trả về URL theo đúng thứ tự file (bỏ qua file rỗng)
+    public List<String> uploadAll(List<MultipartFile> files) {
+        return uploadAll(files, false);
+    }
+
+    // Như uploadAll nhưng tạo thêm các bản thu nhỏ (thumbnail, medium) và lưu URL của chúng theo URL ảnh gốc
+    public List<String> uploadAllWithDerivatives(List<MultipartFile> files) {
+        return uploadAll(files, true);
+    }
+
+    public String uploadWithDerivatives(MultipartFile file) {
+        List<String> imageUrls = uploadAll(List.of(file), true);
+        if (imageUrls.isEmpty()) {
+            throw new RuntimeException("Image file is empty");
+        }
+        return imageUrls.getFirst();
+    }
+
+    private List<String> uploadAll(List<MultipartFile> files, boolean withDerivatives) {
+        if (files == null || files.isEmpty()) {
+            return List.of();
+        }
+
+        List<SpooledImage> sources = new ArrayList<>();
+        // Các task còn đọc file gốc (upload, thu nhỏ)
+        List<CompletableFuture<?>> sourceTasks = new ArrayList<>();
+        try {
+            // Chuyển sang file tạm trên luồng request vì phần multipart bị xóa khi request kết thúc
+            for (MultipartFile file : files) {
+                if (file != null && !file.isEmpty()) {
+                    sources.add(cloudinaryService.spoolToDisk(file));
+                }
+            }
+            if (sources.isEmpty()) {
+                return List.of();
+            }
+
+            // Ảnh đã upload trước đây (cùng SHA-256) dùng lại URL cũ và bản thu nhỏ đã có
+            Map<String, String> knownUrls = cloudinaryService.findUploadedUrls(
+                    sources.stream().map(SpooledImage::contentHash).distinct().toList());
+            Set<String> resizedUrls = withDerivatives && !knownUrls.isEmpty()
+                    ? new HashSet<>(imageDerivativeRepository.findResizedSourceUrls(knownUrls.values()))
+                    : Set.of();
+
+            // Ảnh mới upload ngay; song song đó (nếu cần) ảnh được thu nhỏ trên pool xử lý ảnh rồi upload từng bản.
+            // Các file trùng nội dung trong cùng request chỉ xử lý một lần
+            Map<String, CompletableFuture<String>> uploads = new LinkedHashMap<>();
+            List<CompletableFuture<List<ImageDerivative>>> derivatives = new ArrayList<>();
+            for (SpooledImage source : sources) {
+                if (uploads.containsKey(source.contentHash())) {
+                    continue;
+                }
+                String knownUrl = knownUrls.get(source.contentHash());
+                // Chỉ ghi vào chỉ mục khi người gọi còn chờ, upload về muộn đã bị xóa trong submit
+                CompletableFuture<String> upload = knownUrl != null
+                        ? CompletableFuture.completedFuture(knownUrl)
+                        : submit(source.path(), sourceTasks)
+                                .thenApply(asset -> cloudinaryService.index(source.contentHash(), asset));
+                uploads.put(source.contentHash(), upload);
+                if (!withDerivatives || (knownUrl != null && resizedUrls.contains(knownUrl))) {
+                    continue;
+                }
+                CompletableFuture<Map<ImageSize, Path>> resize = CompletableFuture
+                        .supplyAsync(() -> imageResizer.resize(source.path()), imageProcessingExecutor);
+                sourceTasks.add(resize);
+                // Upload bản thu nhỏ được đẩy sang executor upload để không giữ luồng xử lý ảnh;
+                // bản thu nhỏ chỉ để tối ưu nên lỗi thì bỏ qua, vẫn dùng ảnh gốc
+                CompletableFuture<Map<ImageSize, UploadedAsset>> resizedUploads = resize
+                        .thenComposeAsync(this::uploadDerivatives, imageUploadExecutor)
+                        .exceptionally(ex -> {
+                            logger.warn("Could not create derivatives for image {}", source.contentHash(), ex);
+                            return Map.of();
+                        });
+                // Ảnh gốc lỗi thì bản thu nhỏ đã upload không còn ai dùng
+                upload.whenComplete((url, ex) -> {
+                    if (ex != null) {
+                        resizedUploads.thenAccept(assets -> assets.values()
+                                .forEach(asset -> cloudinaryService.deleteAsset(asset.publicId())));
+                    }
+                });
+                derivatives.add(resizedUploads.thenCombine(upload, ImageUploadService::toDerivatives));
+            }
+
+            // Chờ mọi upload kết thúc (thành công, lỗi hoặc quá hạn)
+            CompletableFuture.allOf(Stream.concat(uploads.values().stream(), derivatives.stream()).toArray(CompletableFuture[]::new))
+                    .exceptionally(ex -> null)
+                    .join();
+
+            // Ghi bản thu nhỏ của các ảnh đã xong trước, kể cả khi ảnh khác trong request bị lỗi;
+            // bản thu nhỏ chỉ lỗi khi ảnh gốc lỗi và lỗi đó được báo qua ảnh gốc
+            List<ImageDerivative> resizedImages = derivatives.stream()
+                    .filter(derivative -> !derivative.isCompletedExceptionally())
+                    .flatMap(derivative -> derivative.join().stream())
+                    .toList();
+            if (!resizedImages.isEmpty()) {
+                imageDerivativeRepository.insertAllIfAbsent(
+                        resizedImages.stream().map(ImageDerivative::getSourceUrl).toArray(String[]::new),
+                        resizedImages.stream().map(resized -> resized.getSize().name()).toArray(String[]::new),
+                        resizedImages.stream().map(ImageDerivative::getUrl).toArray(String[]::new));
+            }
+            List<String> imageUrls = new ArrayList<>(sources.size());
+            for (SpooledImage source : sources) {
+                imageUrls.add(result(uploads.get(source.contentHash())));
+            }
+            return imageUrls;
+        } finally {
+            // Upload quá hạn vẫn có thể đang đọc file, chỉ xóa file gốc khi mọi task dùng nó kết thúc
+            CompletableFuture.allOf(sourceTasks.toArray(CompletableFuture[]::new))
+                    .whenComplete((ignored, ex) -> sources.forEach(source -> cloudinaryService.deleteQuietly(source.path())));
+        }
+    }
+
+    // Mỗi file upload trên một virtual thread. Chờ lượt upload tối đa timeoutSeconds (hết lượt thì báo 503),
+    // sau đó người gọi chờ upload tối đa timeoutSeconds; upload về sau khi người gọi đã bỏ cuộc thì xóa khỏi Cloudinary
+    private CompletableFuture<UploadedAsset> submit(Path file, List<CompletableFuture<?>> tasks) {
+        CompletableFuture<UploadedAsset> result = new CompletableFuture<>();
+        CompletableFuture<UploadedAsset> task = CompletableFuture.supplyAsync(() -> {
+            acquireUploadSlot();
+            try {
+                result.orTimeout(timeoutSeconds, TimeUnit.SECONDS);
+                return cloudinaryService.uploadFile(file.toFile());
+            } finally {
+                imageUploadSlots.release();
+            }
+        }, imageUploadExecutor);
+        tasks.add(task);
+        task.whenComplete((asset, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else if (!result.complete(asset)) {
+                cloudinaryService.deleteAsset(asset.publicId());
+            }
+        });
+        return result;
+    }
+
+    private void acquireUploadSlot() {
+        try {
+            if (!imageUploadSlots.tryAcquire(timeoutSeconds, TimeUnit.SECONDS)) {
+                throw new ServerBusyException("Too many image uploads, please try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an upload slot", e);
+        }
+    }
+
+    private CompletableFuture<Map<ImageSize, UploadedAsset>> uploadDerivatives(Map<ImageSize, Path> resized) {
+        List<CompletableFuture<?>> tasks = new ArrayList<>();
+        Map<ImageSize, CompletableFuture<UploadedAsset>> uploads = new EnumMap<>(ImageSize.class);
+        resized.forEach((size, file) -> uploads.put(size, submit(file, tasks)));
+        // Bản thu nhỏ chỉ dùng để upload, xóa khi các upload của nó kết thúc
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, ex) -> resized.values().forEach(cloudinaryService::deleteQuietly));
+        // Kích thước nào upload lỗi thì bỏ riêng kích thước đó, các bản đã lên Cloudinary vẫn được dùng
+        return CompletableFuture.allOf(uploads.values().toArray(CompletableFuture[]::new))
+                .handle((ignored, ex) -> {
+                    Map<ImageSize, UploadedAsset> assets = new EnumMap<>(ImageSize.class);
+                    uploads.forEach((size, upload) -> {
+                        if (upload.isCompletedExceptionally()) {
+                            logger.warn("Could not upload {} derivative", size, upload.exceptionNow());
+                        } else {
+                            assets.put(size, upload.join());
+                        }
+                    });
+                    return assets;
+                });
+    }
+
+    private static List<ImageDerivative> toDerivatives(Map<ImageSize, UploadedAsset> resized, String sourceUrl) {
+        return resized.entrySet().stream()
+                .map(entry -> new ImageDerivative(null, sourceUrl, entry.getKey(), entry.getValue().url(), null))
+                .toList();
+    }
+
+    private <T> T result(CompletableFuture<T> upload) {
+        try {
+            return upload.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof TimeoutException) {
+                throw new RuntimeException("Image upload timed out", ex.getCause());
+            }
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Image upload failed", ex.getCause());
+        }
+    }
+}
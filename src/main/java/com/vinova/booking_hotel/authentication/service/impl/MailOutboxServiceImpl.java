@@ -0,0 +1,204 @@
+package com.vinova.booking_hotel.authentication.service.impl;
+
+import com.vinova.booking_hotel.authentication.dto.response.MailQueueResponseDto;
+import com.vinova.booking_hotel.authentication.model.MailOutbox;
+import com.vinova.booking_hotel.authentication.repository.MailOutboxRepository;
+import com.vinova.booking_hotel.authentication.service.MailOutboxService;
+import com.vinova.booking_hotel.common.enums.MailOutboxStatus;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class MailOutboxServiceImpl implements MailOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxServiceImpl.class);
+
+    static final int MAX_ATTEMPTS = 5;
+    static final long RETRY_DELAY_SECONDS = 30;
+    static final int BATCH_SIZE = 50;
+    // Thời gian một lô được giữ ở trạng thái SENDING trước khi worker khác được lấy lại
+    static final long SENDING_LEASE_SECONDS = 600;
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final JavaMailSender javaMailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor mailDispatchExecutor;
+
+    @Override
+    public void enqueue(MailOutbox mail) {
+        mail.setStatus(MailOutboxStatus.PENDING);
+        mail.setAttempts(0);
+        mail.setNextAttemptAt(ZonedDateTime.now());
+        mailOutboxRepository.save(mail);
+
+        // Gửi ngay sau khi commit để mã xác thực đến sớm, scheduler chỉ là lưới an toàn
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch();
+                }
+            });
+        } else {
+            dispatch();
+        }
+    }
+
+    @Override
+    public void processDue() {
+        while (sendBatch() == BATCH_SIZE) {
+            // Lô đầy nghĩa là có thể còn email đến hạn, tiếp tục gửi
+        }
+    }
+
+    @Override
+    public int purgeFinishedBefore(ZonedDateTime before) {
+        return mailOutboxRepository.deleteByStatusInAndUpdateDtBefore(
+                List.of(MailOutboxStatus.SENT, MailOutboxStatus.FAILED), before);
+    }
+
+    @Override
+    public MailQueueResponseDto queueDepth() {
+        return new MailQueueResponseDto(
+                mailOutboxRepository.countByStatus(MailOutboxStatus.PENDING),
+                mailOutboxRepository.countByStatus(MailOutboxStatus.FAILED)
+        );
+    }
+
+    @Override
+    public void dispatch() {
+        // Executor đầy thì bỏ qua, các worker đang chạy hoặc scheduler sẽ gửi email này
+        mailDispatchExecutor.execute(() -> {
+            try {
+                processDue();
+            } catch (RuntimeException e) {
+                logger.error("Failed to dispatch mail outbox: {}", e.getMessage());
+            }
+        });
+    }
+
+    // Nhận một lô trong transaction ngắn, gửi SMTP ngoài transaction rồi ghi kết quả; trả về số email đã lấy ra khỏi hàng đợi
+    private int sendBatch() {
+        List<MailOutbox> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<MimeMessage, MailOutbox> messages = new IdentityHashMap<>();
+        Map<MailOutbox, String> errors = new IdentityHashMap<>();
+        for (MailOutbox mail : batch) {
+            try {
+                messages.put(toMimeMessage(mail), mail);
+            } catch (MessagingException | RuntimeException e) {
+                errors.put(mail, e.getMessage());
+            }
+        }
+
+        // Gửi cả lô qua một kết nối SMTP thay vì mở kết nối cho từng email
+        if (!messages.isEmpty()) {
+            try {
+                javaMailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(mail -> errors.put(mail, e.getMessage()));
+                }
+                e.getFailedMessages().forEach((message, exception) -> {
+                    MailOutbox mail = messages.get(message);
+                    if (mail != null) {
+                        errors.put(mail, exception.getMessage());
+                    }
+                });
+            } catch (MailException e) {
+                messages.values().forEach(mail -> errors.put(mail, e.getMessage()));
+            }
+        }
+
+        for (MailOutbox mail : batch) {
+            if (errors.containsKey(mail)) {
+                markFailedAttempt(mail, errors.get(mail));
+            } else {
+                markSent(mail);
+            }
+        }
+        transactionTemplate.execute(status -> mailOutboxRepository.saveAll(batch));
+        return batch.size();
+    }
+
+    // Đánh dấu lô đang gửi và commit ngay để không giữ khóa dòng và connection trong lúc chờ SMTP;
+    // nếu node bị tắt giữa chừng, email được lấy lại khi hết thời hạn giữ
+    private List<MailOutbox> claimBatch() {
+        ZonedDateTime now = ZonedDateTime.now();
+        List<MailOutbox> batch = mailOutboxRepository.lockDueBatch(now, BATCH_SIZE);
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        for (MailOutbox mail : batch) {
+            mail.setStatus(MailOutboxStatus.SENDING);
+            mail.setNextAttemptAt(now.plusSeconds(SENDING_LEASE_SECONDS));
+        }
+        mailOutboxRepository.saveAll(batch);
+        return batch;
+    }
+
+    // Mã xác thực và file báo cáo không cần giữ lại sau khi đã gửi
+    private void markSent(MailOutbox mail) {
+        mail.setStatus(MailOutboxStatus.SENT);
+        mail.setSentAt(ZonedDateTime.now());
+        mail.setLastError(null);
+        mail.setBody("");
+        mail.setAttachment(null);
+    }
+
+    private MimeMessage toMimeMessage(MailOutbox mail) throws MessagingException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, mail.getAttachment() != null);
+
+        helper.setTo(mail.getRecipient());
+        helper.setSubject(mail.getSubject());
+        helper.setText(mail.getBody(), mail.getHtml());
+        if (mail.getAttachment() != null) {
+            helper.addAttachment(mail.getAttachmentName(), new ByteArrayResource(mail.getAttachment()));
+        }
+        return message;
+    }
+
+    private void markFailedAttempt(MailOutbox mail, String error) {
+        // Thử lại với thời gian chờ tăng dần, quá số lần cho phép thì đánh dấu thất bại
+        int attempts = mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+        mail.setLastError(truncate(error));
+        if (attempts >= MAX_ATTEMPTS) {
+            mail.setStatus(MailOutboxStatus.FAILED);
+            logger.error("Giving up on mail {} to {} after {} attempts: {}", mail.getId(), mail.getRecipient(), attempts, error);
+        } else {
+            mail.setStatus(MailOutboxStatus.PENDING);
+            mail.setNextAttemptAt(ZonedDateTime.now().plusSeconds(RETRY_DELAY_SECONDS << (attempts - 1)));
+        }
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1024 ? message.substring(0, 1024) : message;
+    }
+}
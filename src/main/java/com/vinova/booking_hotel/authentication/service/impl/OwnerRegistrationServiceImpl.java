@@ -10,6 +10,7 @@ import com.vinova.booking_hotel.authentication.repository.AccountRoleRepository;
 import com.vinova.booking_hotel.authentication.repository.OwnerRegistrationRepository;
 import com.vinova.booking_hotel.authentication.repository.RoleRepository;
 import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.PrincipalCache;
 import com.vinova.booking_hotel.authentication.service.OwnerRegistrationService;
 import com.vinova.booking_hotel.common.enums.OwnerRegistrationStatus;
 import com.vinova.booking_hotel.common.exception.OwnerRegistrationException;
@@ -28,6 +29,7 @@ public class OwnerRegistrationServiceImpl implements OwnerRegistrationService {
     private final AccountRepository accountRepository;
     private final RoleRepository roleRepository;
     private final AccountRoleRepository accountRoleRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     public String registerOwner(String token) {
@@ -109,6 +111,9 @@ public class OwnerRegistrationServiceImpl implements OwnerRegistrationService {
         accountRole.setRole(roleRepository.findByName("ROLE_OWNER")
                 .orElseThrow(() -> new ResourceNotFoundException("role")));
         accountRoleRepository.save(accountRole);
+
+        // Vai trò mới có hiệu lực ngay ở request tiếp theo của chủ khách sạn
+        principalCache.evict(ownerRegistration.getAccount().getUsername());
         
         // Lưu cập nhật vào repository
         ownerRegistrationRepository.save(ownerRegistration);
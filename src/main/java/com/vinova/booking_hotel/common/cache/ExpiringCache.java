@@ -0,0 +1,169 @@
+package com.vinova.booking_hotel.common.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// Cache trong bộ nhớ có giới hạn số phần tử và thời gian sống cho mỗi phần tử
+public class ExpiringCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ExpiringCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    public ExpiringCache(int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        while (true) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(nanoClock.getAsLong())) {
+                    // Đã nạp xong hoặc đang được luồng khác nạp thì dùng chung kết quả
+                    hits.increment();
+                    return entry.await();
+                }
+                entries.remove(key, entry);
+            }
+
+            // computeIfAbsent chỉ đặt chỗ cho key, loader (thường là truy vấn database) chạy ngoài khóa của map
+            // nên không chặn các key khác cùng bin và không chặn invalidate
+            Entry<V> created = new Entry<>();
+            if (entries.computeIfAbsent(key, k -> created) != created) {
+                continue;
+            }
+            misses.increment();
+            return load(key, created, loader);
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private V load(K key, Entry<V> entry, Function<? super K, ? extends V> loader) {
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        if (value == null) {
+            entries.remove(key, entry);
+        }
+        // Nếu key bị invalidate trong lúc nạp thì entry đã bị bỏ khỏi map, giá trị chỉ trả cho các luồng đang chờ
+        entry.expiresAt = nanoClock.getAsLong() + ttlNanos;
+        entry.future.complete(value);
+
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+        return value;
+    }
+
+    private void evict() {
+        // Chỉ một luồng dọn dẹp, các luồng khác không phải chờ
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = nanoClock.getAsLong();
+            entries.values().removeIf(entry -> entry.isExpired(now));
+
+            int excess = entries.size() - maxEntries;
+            if (excess <= 0) {
+                return;
+            }
+            // TTL cố định nên phần tử hết hạn sớm nhất cũng là phần tử được nạp lâu nhất;
+            // bỏ thêm 10% để không phải dọn lại ở mỗi lần nạp tiếp theo
+            int toRemove = excess + maxEntries / 10;
+            // Entry đang nạp chưa có thời hạn nên không bị bỏ
+            List<Map.Entry<K, Entry<V>>> snapshot = new ArrayList<>();
+            for (Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+                if (e.getValue().isLoaded()) {
+                    snapshot.add(e);
+                }
+            }
+            snapshot.sort(Comparator.comparingLong(e -> e.getValue().expiresAt));
+            for (int i = 0; i < toRemove && i < snapshot.size(); i++) {
+                Map.Entry<K, Entry<V>> oldest = snapshot.get(i);
+                entries.remove(oldest.getKey(), oldest.getValue());
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        // Ghi trước khi future hoàn thành nên luồng thấy future đã xong cũng thấy thời hạn
+        private volatile long expiresAt;
+
+        boolean isLoaded() {
+            return future.isDone() && !future.isCompletedExceptionally();
+        }
+
+        boolean isExpired(long now) {
+            return isLoaded() && now - expiresAt >= 0;
+        }
+
+        V await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                // Luồng chờ nhận lại đúng exception của loader (ví dụ ResourceNotFoundException)
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
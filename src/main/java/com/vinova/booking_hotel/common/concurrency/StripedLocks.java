@@ -0,0 +1,32 @@
+package com.vinova.booking_hotel.common.concurrency;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Tập khóa cố định, mỗi key được ánh xạ vào một khóa theo hash để các key khác nhau ít khi chờ nhau
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+
+    public StripedLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripes must be positive");
+        }
+        // Làm tròn lên lũy thừa của 2 để lấy index bằng phép AND
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        locks = new ReentrantLock[Math.max(size, 1)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(Object key) {
+        int hash = key.hashCode();
+        // Trộn bit cao xuống để các id liên tiếp phân bố đều
+        hash ^= (hash >>> 16);
+        return locks[hash & (locks.length - 1)];
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
@@ -21,13 +21,17 @@ public class CloudinaryConfig {
     @Value("${cloudinary.secure}")
     private boolean secure;
 
+    @Value("${app.image-upload.timeout-seconds}")
+    private int timeoutSeconds;
+
     @Bean
     public Cloudinary getCloudinary() {
         return new Cloudinary(ObjectUtils.asMap(
                 "cloud_name", cloudName,
                 "api_key", apiKey,
                 "api_secret", apiSecret,
-                "secure", secure
+                "secure", secure,
+                "timeout", timeoutSeconds
         ));
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.vinova.booking_hotel.common.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Khai báo lại executor mặc định vì Spring Boot không tự tạo khi đã có Executor bean khác
+    @Lazy
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // Executor có giới hạn cho việc gọi Stripe, task bị từ chối sẽ được scheduler quét lại sau
+    @Bean
+    public ThreadPoolTaskExecutor paymentSessionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("payment-session-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(20);
+        return executor;
+    }
+
+    // Executor có giới hạn cho báo cáo ngày; scheduler giới hạn số báo cáo đang xử lý dưới sức chứa hàng đợi
+    // nên không dùng CallerRunsPolicy, task không bao giờ chạy trên luồng scheduler đang giữ transaction đọc
+    @Bean
+    public ThreadPoolTaskExecutor bookingReportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("booking-report-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    // Worker gửi email; hàng đợi nhỏ vì mỗi task đã gửi hết các lô đến hạn, task thừa bị bỏ
+    @Bean
+    public ThreadPoolTaskExecutor mailDispatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(2);
+        executor.setThreadNamePrefix("mail-dispatch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(20);
+        return executor;
+    }
+
+    // Pool băm mật khẩu, chỉ dùng một nửa số CPU; hàng đợi đầy thì từ chối để request đăng nhập nhận 503 ngay
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 16);
+        executor.setThreadNamePrefix("password-hashing-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    // Thu nhỏ ảnh tốn CPU và bộ nhớ nên chỉ dùng một nửa số CPU; hàng đợi đầy thì luồng request tự xử lý
+    @Bean
+    public ThreadPoolTaskExecutor imageProcessingExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 8);
+        executor.setThreadNamePrefix("image-processing-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Upload ảnh lên Cloudinary chủ yếu chờ mạng nên chạy trên virtual thread; submit không bao giờ chặn luồng gọi
+    @Bean
+    public SimpleAsyncTaskExecutor imageUploadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("image-upload-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    // Số lượt upload đồng thời để không vượt pool kết nối của Cloudinary client; task chờ lượt có thời hạn
+    @Bean
+    public Semaphore imageUploadSlots(@Value("${app.image-upload.concurrency}") int concurrency) {
+        return new Semaphore(concurrency, true);
+    }
+}
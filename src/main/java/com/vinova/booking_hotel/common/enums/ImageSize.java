@@ -0,0 +1,6 @@
+package com.vinova.booking_hotel.common.enums;
+
+public enum ImageSize {
+    THUMBNAIL,
+    MEDIUM,
+}
@@ -0,0 +1,8 @@
+package com.vinova.booking_hotel.common.enums;
+
+public enum MailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -3,6 +3,7 @@ package com.vinova.booking_hotel.common.exception;
 import com.vinova.booking_hotel.authentication.dto.response.ErrorDetail;
 import com.vinova.booking_hotel.authentication.dto.response.ErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -202,6 +203,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    @ExceptionHandler(InvalidDateRangeException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidDateRangeException(HttpServletRequest request, InvalidDateRangeException ex) {
+        ErrorResponse errorResponse = new ErrorResponse();
+        errorResponse.setTimestamp(LocalDateTime.now().toString());
+        errorResponse.setPath(request.getRequestURI());
+
+        List<ErrorDetail> errors = new ArrayList<>();
+        ErrorDetail errorDetail = new ErrorDetail();
+        errorDetail.setErrorMessageId("INVALIDDATERANGE");
+        errorDetail.setErrorMessage(ex.getMessage());
+
+        errors.add(errorDetail);
+        errorResponse.setErrors(errors);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseBody
     public ResponseEntity<ErrorResponse> handleGlobalException(Exception ex, HttpServletRequest request) {
@@ -237,5 +254,26 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
+
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<ErrorResponse> handleServerBusyException(HttpServletRequest request, ServerBusyException ex) {
+        ErrorResponse errorResponse = new ErrorResponse();
+        errorResponse.setTimestamp(LocalDateTime.now().toString());
+        errorResponse.setPath(request.getRequestURI());
+
+        List<ErrorDetail> errors = new ArrayList<>();
+
+        ErrorDetail errorDetail = new ErrorDetail();
+        errorDetail.setErrorMessageId("SERVERBUSY");
+        errorDetail.setErrorMessage(ex.getMessage());
+
+        errors.add(errorDetail);
+        errorResponse.setErrors(errors);
+
+        // Quá tải tạm thời, client nên thử lại sau vài giây
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
     
 }
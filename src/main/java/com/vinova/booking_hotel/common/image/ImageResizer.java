@@ -0,0 +1,230 @@
+package com.vinova.booking_hotel.common.image;
+
+import com.vinova.booking_hotel.common.enums.ImageSize;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Thu nhỏ ảnh upload thành các kích thước cấu hình sẵn và mã hóa lại dạng JPEG
+@Component
+public class ImageResizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageResizer.class);
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final String APP1_MARKER = "225";
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    @Value("${app.image.thumbnail-width}")
+    private int thumbnailWidth;
+
+    @Value("${app.image.medium-width}")
+    private int mediumWidth;
+
+    @Value("${app.image.jpeg-quality}")
+    private float jpegQuality;
+
+    @Value("${app.image.max-pixels}")
+    private long maxPixels;
+
+    public int width(ImageSize size) {
+        return switch (size) {
+            case THUMBNAIL -> thumbnailWidth;
+            case MEDIUM -> mediumWidth;
+        };
+    }
+
+    // Trả về file tạm cho từng kích thước nhỏ hơn ảnh gốc; định dạng không đọc được thì không tạo bản nào
+    public Map<ImageSize, Path> resize(Path source) {
+        Map<ImageSize, Path> derivatives = new EnumMap<>(ImageSize.class);
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return derivatives;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, false);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                // Kích thước đọc từ header, kiểm tra trước khi giải mã để ảnh quá lớn không chiếm hết heap
+                if ((long) sourceWidth * sourceHeight > maxPixels) {
+                    logger.warn("Skip resizing image {}: {}x{} exceeds {} pixels", source, sourceWidth, sourceHeight, maxPixels);
+                    return derivatives;
+                }
+                // Ảnh chụp dọc thường lưu nằm ngang kèm orientation 5-8, chiều rộng hiển thị là chiều cao trong file
+                int orientation = orientation(reader);
+                int displayWidth = orientation >= 5 ? sourceHeight : sourceWidth;
+                int largestWidth = 0;
+                for (ImageSize size : ImageSize.values()) {
+                    if (width(size) < displayWidth) {
+                        largestWidth = Math.max(largestWidth, width(size));
+                    }
+                }
+                if (largestWidth == 0) {
+                    return derivatives;
+                }
+
+                // Bỏ bớt điểm ảnh ngay khi giải mã, chỉ giữ độ phân giải vừa đủ cho kích thước lớn nhất
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, displayWidth / largestWidth);
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded = orient(reader.read(0, param), orientation);
+
+                for (ImageSize size : ImageSize.values()) {
+                    if (width(size) < displayWidth) {
+                        derivatives.put(size, writeJpeg(scale(decoded, width(size))));
+                    }
+                }
+                return derivatives;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Bản thu nhỏ chỉ để tối ưu, lỗi xử lý ảnh thì vẫn dùng ảnh gốc
+            logger.warn("Could not resize image {}", source, e);
+            derivatives.values().forEach(path -> path.toFile().delete());
+            return Map.of();
+        }
+    }
+
+    // Đọc thẻ Orientation (0x0112) trong đoạn APP1 Exif của JPEG; định dạng khác hoặc không có thẻ thì coi như 1
+    private int orientation(ImageReader reader) throws IOException {
+        if (!"jpeg".equalsIgnoreCase(reader.getFormatName())) {
+            return 1;
+        }
+        IIOMetadata metadata = reader.getImageMetadata(0);
+        if (metadata == null) {
+            return 1;
+        }
+        NodeList segments = ((IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT)).getElementsByTagName("unknown");
+        for (int i = 0; i < segments.getLength(); i++) {
+            IIOMetadataNode segment = (IIOMetadataNode) segments.item(i);
+            if (APP1_MARKER.equals(segment.getAttribute("MarkerTag")) && segment.getUserObject() instanceof byte[] data) {
+                int orientation = exifOrientation(data);
+                if (orientation != 0) {
+                    return orientation;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // Đoạn Exif gồm "Exif\0\0" rồi header TIFF: thứ tự byte (II/MM), số 42, vị trí IFD0; trả 0 khi không có thẻ hợp lệ
+    private static int exifOrientation(byte[] data) {
+        if (data.length < 14 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f') {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(data, 6, data.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 0 || ifd > tiff.limit() - 2) {
+            return 0;
+        }
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry > tiff.limit() - 12) {
+                return 0;
+            }
+            if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    // Xoay/lật ảnh theo orientation EXIF vì bản thu nhỏ mã hóa lại không giữ EXIF, trình duyệt sẽ hiển thị sai chiều
+    private BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation == 1) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            default -> new AffineTransform(0, -1, 1, 0, 0, width);
+        };
+        boolean rotated = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(rotated ? height : width, rotated ? width : height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    // Giảm một nửa mỗi bước rồi nội suy đến kích thước đích để ảnh nhỏ không bị răng cưa
+    private BufferedImage scale(BufferedImage source, int targetWidth) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // Nền trắng cho ảnh có kênh trong suốt vì JPEG không hỗ trợ alpha
+                graphics.drawImage(current, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width > targetWidth);
+        return current;
+    }
+
+    private Path writeJpeg(BufferedImage image) throws IOException {
+        Path target = Files.createTempFile("image-derivative-", ".jpg");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+            return target;
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+    }
+}
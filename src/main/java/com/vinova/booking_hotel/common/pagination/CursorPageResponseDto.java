@@ -0,0 +1,15 @@
+package com.vinova.booking_hotel.common.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponseDto<T> {
+    private List<T> content;
+    private String nextCursor; // null khi đã hết dữ liệu
+}
@@ -0,0 +1,69 @@
+package com.vinova.booking_hotel.common.pagination;
+
+import com.vinova.booking_hotel.common.exception.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+// Vị trí của bản ghi cuối cùng trong trang: giá trị cột sắp xếp + id
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    private final String sortBy;
+    private final String sortValue; // null khi giá trị cột sắp xếp là null
+    private final Long id;
+
+    // Tạo cursor từ bản ghi cuối cùng của trang
+    public static KeysetCursor of(Object entity, String sortBy) {
+        BeanWrapper wrapper = new BeanWrapperImpl(entity);
+        Object sortValue = "id".equals(sortBy) ? null : wrapper.getPropertyValue(sortBy);
+        return new KeysetCursor(sortBy, sortValue == null ? null : sortValue.toString(),
+                (Long) wrapper.getPropertyValue("id"));
+    }
+
+    // rows được lấy dư 1 bản ghi (pageSize + 1) để biết còn trang sau mà không cần count
+    public static String nextCursor(List<?> rows, int pageSize, String sortBy) {
+        if (rows.size() <= pageSize) {
+            return null;
+        }
+        return of(rows.get(pageSize - 1), sortBy).encode();
+    }
+
+    // Mã hóa thành chuỗi opaque để client gửi lại nguyên vẹn
+    public String encode() {
+        String raw = VERSION + SEPARATOR + sortBy + SEPARATOR + id + SEPARATOR
+                + (sortValue == null ? "" : "=" + sortValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor, String sortBy) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // Giới hạn 4 phần để giá trị sắp xếp có thể chứa ký tự '|'
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            // Cursor phải được tạo với cùng cột sắp xếp
+            if (!parts[1].equals(sortBy)) {
+                throw new InvalidCursorException("Cursor does not match sortBy");
+            }
+            String sortValue = parts[3].isEmpty() ? null : parts[3].substring(1);
+            return new KeysetCursor(parts[1], sortValue, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
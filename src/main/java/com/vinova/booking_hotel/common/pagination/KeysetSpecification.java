@@ -0,0 +1,57 @@
+package com.vinova.booking_hotel.common.pagination;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+public class KeysetSpecification {
+
+    // Thứ tự dùng cho keyset: cột sắp xếp rồi id tăng dần để vị trí luôn duy nhất
+    public static Sort sort(String sortBy, boolean descending) {
+        Sort idSort = Sort.by(Sort.Direction.ASC, "id");
+        if ("id".equals(sortBy)) {
+            return descending ? Sort.by(Sort.Direction.DESC, "id") : idSort;
+        }
+        return Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, sortBy).and(idSort);
+    }
+
+    // Điều kiện "nằm sau cursor" theo đúng thứ tự của sort(), Postgres mặc định NULLS LAST khi ASC và NULLS FIRST khi DESC
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Specification<T> after(KeysetCursor cursor, boolean descending) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) {
+                return criteriaBuilder.conjunction();
+            }
+
+            Path<Long> id = root.get("id");
+            if ("id".equals(cursor.getSortBy())) {
+                return descending ?
+                        criteriaBuilder.lessThan(id, cursor.getId()) :
+                        criteriaBuilder.greaterThan(id, cursor.getId());
+            }
+
+            Path<?> column = root.get(cursor.getSortBy());
+            if (cursor.getSortValue() == null) {
+                // Đang ở nhóm giá trị null: tiếp tục trong nhóm theo id, khi DESC thì các giá trị khác null nằm phía sau
+                return descending ?
+                        criteriaBuilder.or(
+                                criteriaBuilder.and(criteriaBuilder.isNull(column), criteriaBuilder.greaterThan(id, cursor.getId())),
+                                criteriaBuilder.isNotNull(column)) :
+                        criteriaBuilder.and(criteriaBuilder.isNull(column), criteriaBuilder.greaterThan(id, cursor.getId()));
+            }
+
+            Comparable value = (Comparable) DefaultConversionService.getSharedInstance()
+                    .convert(cursor.getSortValue(), column.getJavaType());
+            Expression<Comparable> comparableColumn = (Expression<Comparable>) column;
+            var sameValueNextId = criteriaBuilder.and(
+                    criteriaBuilder.equal(comparableColumn, value),
+                    criteriaBuilder.greaterThan(id, cursor.getId()));
+            return descending ?
+                    criteriaBuilder.or(criteriaBuilder.lessThan(comparableColumn, value), sameValueNextId) :
+                    criteriaBuilder.or(criteriaBuilder.greaterThan(comparableColumn, value), sameValueNextId,
+                            criteriaBuilder.isNull(column));
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package com.vinova.booking_hotel.common.ratelimit;
+
+import java.time.Duration;
+
+// Kết quả kiểm tra giới hạn; retryAfter chỉ có nghĩa khi request bị từ chối
+public record RateLimitDecision(boolean allowed, Duration retryAfter) {
+
+    static final RateLimitDecision ALLOWED = new RateLimitDecision(true, Duration.ZERO);
+
+    static RateLimitDecision rejected(Duration retryAfter) {
+        return new RateLimitDecision(false, retryAfter);
+    }
+}
@@ -0,0 +1,15 @@
+package com.vinova.booking_hotel.common.ratelimit;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.time.Duration;
+
+// Giới hạn cho một nhóm route: tối đa limit request trong mỗi cửa sổ window cho mỗi IP/tài khoản
+public record RateLimitRule(String group, RequestMatcher matcher, int limit, Duration window) {
+
+    public RateLimitRule {
+        if (limit <= 0 || window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("Rate limit and window must be positive");
+        }
+    }
+}
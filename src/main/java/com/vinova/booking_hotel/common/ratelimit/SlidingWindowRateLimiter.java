@@ -0,0 +1,108 @@
+package com.vinova.booking_hotel.common.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Giới hạn theo cửa sổ trượt xấp xỉ: số request của cửa sổ trước được tính theo tỉ lệ thời gian còn chồng lên cửa sổ hiện tại.
+// Mỗi key chỉ giữ hai bộ đếm và cập nhật bằng compare-and-set nên không khóa
+public class SlidingWindowRateLimiter {
+
+    private final LongSupplier clock;
+    // Cửa sổ dài nhất đã dùng, để biết key nào chắc chắn không còn ảnh hưởng tới giới hạn
+    private final AtomicLong maxWindowMillis = new AtomicLong();
+
+    private final Map<String, AtomicReference<Window>> windows = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> allowedCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rejectedCounts = new ConcurrentHashMap<>();
+
+    public SlidingWindowRateLimiter() {
+        this(System::currentTimeMillis);
+    }
+
+    public SlidingWindowRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public RateLimitDecision tryAcquire(RateLimitRule rule, String clientKey) {
+        long windowMillis = rule.window().toMillis();
+        maxWindowMillis.accumulateAndGet(windowMillis, Math::max);
+        AtomicReference<Window> state = windows.computeIfAbsent(rule.group() + ":" + clientKey,
+                key -> new AtomicReference<>(new Window(0, 0, 0)));
+
+        while (true) {
+            long now = clock.getAsLong();
+            Window observed = state.get();
+            Window current = observed.rollTo(Math.floorDiv(now, windowMillis) * windowMillis, windowMillis);
+            long elapsed = now - current.start();
+            // Ước lượng previous * (window - elapsed) / window + count, nhân cả hai vế với window để tính bằng số nguyên
+            long estimated = current.previousCount() * (windowMillis - elapsed) + current.count() * windowMillis;
+
+            if (estimated + windowMillis > rule.limit() * windowMillis) {
+                counter(rejectedCounts, rule.group()).increment();
+                return RateLimitDecision.rejected(retryAfter(rule, current, elapsed, windowMillis));
+            }
+
+            Window next = new Window(current.start(), current.previousCount(), current.count() + 1);
+            // Luồng khác đã cập nhật trước thì đọc lại và tính lại
+            if (state.compareAndSet(observed, next)) {
+                counter(allowedCounts, rule.group()).increment();
+                return RateLimitDecision.ALLOWED;
+            }
+        }
+    }
+
+    // Bỏ các key không còn request nào trong hai cửa sổ gần nhất để map không tăng mãi theo số IP
+    public int evictIdle() {
+        long threshold = clock.getAsLong() - 2 * maxWindowMillis.get();
+        int before = windows.size();
+        windows.values().removeIf(state -> state.get().start() < threshold);
+        return before - windows.size();
+    }
+
+    public Map<String, Long> allowedCounts() {
+        return snapshot(allowedCounts);
+    }
+
+    public Map<String, Long> rejectedCounts() {
+        return snapshot(rejectedCounts);
+    }
+
+    private Duration retryAfter(RateLimitRule rule, Window current, long elapsed, long windowMillis) {
+        // Cửa sổ hiện tại đã đủ limit thì phải chờ sang cửa sổ mới
+        long waitMillis = windowMillis - elapsed;
+        if (current.count() < rule.limit() && current.previousCount() > 0) {
+            // Chờ đến khi phần đóng góp của cửa sổ trước giảm đủ để còn chỗ cho một request
+            long allowedPrevious = rule.limit() - 1 - current.count();
+            long decayed = windowMillis - elapsed - allowedPrevious * windowMillis / current.previousCount();
+            waitMillis = Math.min(waitMillis, Math.max(decayed, 1));
+        }
+        return Duration.ofMillis(waitMillis);
+    }
+
+    private LongAdder counter(Map<String, LongAdder> counters, String group) {
+        return counters.computeIfAbsent(group, key -> new LongAdder());
+    }
+
+    private Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new ConcurrentHashMap<>();
+        counters.forEach((group, adder) -> result.put(group, adder.sum()));
+        return result;
+    }
+
+    private record Window(long start, long previousCount, long count) {
+
+        // Sang cửa sổ mới thì bộ đếm hiện tại thành bộ đếm của cửa sổ trước; cách quá một cửa sổ thì bỏ cả hai
+        Window rollTo(long windowStart, long windowMillis) {
+            if (windowStart == start) {
+                return this;
+            }
+            long previous = windowStart - start == windowMillis ? count : 0;
+            return new Window(windowStart, previous, 0);
+        }
+    }
+}
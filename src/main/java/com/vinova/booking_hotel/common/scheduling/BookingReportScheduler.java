@@ -1,83 +1,132 @@
 package com.vinova.booking_hotel.common.scheduling;
 
 import com.vinova.booking_hotel.authentication.service.impl.EmailServiceImpl;
-import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.property.model.Booking;
-import com.vinova.booking_hotel.property.model.Hotel;
+import com.vinova.booking_hotel.property.report.OwnerBookingReport;
 import com.vinova.booking_hotel.property.repository.BookingRepository;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
+import com.vinova.booking_hotel.property.repository.projection.OwnerBookingReportRow;
 import com.vinova.booking_hotel.property.service.PdfService;
 import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
 
 @Component
 @RequiredArgsConstructor
 public class BookingReportScheduler {
 
+    private static final Logger logger = LoggerFactory.getLogger(BookingReportScheduler.class);
+
+    // Số báo cáo đã giao cho executor nhưng chưa xong; nhỏ hơn hàng đợi của executor nên task không bao giờ bị từ chối
+    static final int MAX_IN_FLIGHT_REPORTS = 32;
+
+    private final Semaphore reportSlots = new Semaphore(MAX_IN_FLIGHT_REPORTS);
+
     private final BookingRepository bookingRepository;
     private final EmailServiceImpl emailService;
     private final PdfService pdfService;
-    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor bookingReportExecutor;
 
     @Scheduled(cron = "0 0 22 * * ?") // Run every day at 22:00
 //    @Scheduled(cron = "0 */2 * * * ?") // Run every 2 minutes
-    public void generateDailyBookingReport() throws MessagingException {
+    public void generateDailyBookingReport() {
         LocalDate today = LocalDate.now();
-        LocalDateTime dateTime = today.atStartOfDay(); // Convert LocalDate to LocalDateTime
-
-        // Retrieve the list of bookings created today
-        List<Booking> bookings = bookingRepository.findByCreateDt(dateTime);
+        ZonedDateTime from = today.atStartOfDay(ZoneId.systemDefault());
+        ZonedDateTime to = from.plusDays(1);
 
-        // Retrieve the list of hotel owners
-        List<Account> owners = accountRepository.findByAccountRoles_RoleName("ROLE_OWNER");
-
-        // Create PDF report and email content for each hotel owner
-        for (Account owner : owners) {
-            List<Hotel> ownerHotels = owner.getHotels(); // Get the list of hotels owned by the owner
+        // Một truy vấn duy nhất trả về các booking trong ngày đã gom theo chủ khách sạn;
+        // mỗi khi đọc xong một chủ thì đẩy việc tạo PDF và gửi mail sang executor. Transaction chỉ đọc dòng:
+        // khi đã đủ báo cáo đang xử lý thì dừng đọc chờ worker, không bao giờ tự render trên luồng này
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<OwnerBookingReportRow> rows = bookingRepository.streamReportRowsByOwner("ROLE_OWNER", from, to)) {
+                OwnerBookingReport current = null;
+                Iterator<OwnerBookingReportRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    OwnerBookingReportRow row = iterator.next();
+                    if (current == null || !current.getOwnerId().equals(row.getOwnerId())) {
+                        if (current != null) {
+                            tasks.add(submit(current, today));
+                        }
+                        current = OwnerBookingReport.startingAt(row);
+                    }
+                    current.add(row);
+                }
+                if (current != null) {
+                    tasks.add(submit(current, today));
+                }
+            }
+        });
 
-            List<Booking> ownerBookings = bookings.stream()
-                    .filter(booking -> ownerHotels.stream()
-                            .anyMatch(hotel -> hotel.getId().equals(booking.getHotel().getId())))
-                    .collect(Collectors.toList());
+        // Ghi log khi worker xong thay vì chờ trên luồng scheduler
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).whenComplete((ignored, ex) ->
+                logger.info("Daily booking report sent to {} owners, pdf render stats: {}", tasks.size(), pdfService.renderStats()));
+    }
 
-            // Create PDF report for the owner's bookings
-            String pdfFilePath;
-            if (ownerBookings.isEmpty()) {
-                // Tạo PDF thông báo không có booking nào
-                pdfFilePath = pdfService.createBookingReportNoBookings(owner, today);
-            } else {
-                // Tạo PDF cho các booking của chủ sở hữu
-                pdfFilePath = pdfService.createBookingReport(ownerBookings, today);
-            }
+    private CompletableFuture<Void> submit(OwnerBookingReport report, LocalDate today) {
+        try {
+            reportSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a report worker", e);
+        }
+        try {
+            return CompletableFuture.runAsync(() -> sendReport(report, today), bookingReportExecutor)
+                    .whenComplete((ignored, ex) -> reportSlots.release());
+        } catch (TaskRejectedException e) {
+            // Chỉ xảy ra khi executor đang tắt
+            reportSlots.release();
+            logger.error("Daily booking report for owner {} was rejected: {}", report.getOwnerId(), e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 
-            // Create email content
-            String emailContent = "<html>" +
-                    "<head>" +
-                    "<style>" +
-                    "body { font-family: Arial, sans-serif; margin: 20px; }" +
-                    "h2 { color: #4CAF50; }" +
-                    "strong { color: #333; }" +
-                    "ul { list-style-type: none; padding: 0; }" +
-                    "li { margin: 5px 0; }" +
-                    "</style>" +
-                    "</head>" +
-                    "<body>" +
-                    "<h2>Booking Report for " + today + "</h2>" +
-                    "<p>Please find the attached PDF report for details.</p>" +
-                    "<p><strong>Total bookings today: </strong>" + ownerBookings.size() + "</p>" +
-                    "<p>Thank you!</p>" +
-                    "</body>" +
-                    "</html>";
+    private void sendReport(OwnerBookingReport report, LocalDate today) {
+        // Lỗi của một chủ không làm dừng báo cáo của các chủ khác
+        try {
+            byte[] pdf = pdfService.renderOwnerBookingReport(report, today);
+            String emailContent = buildEmailContent(today, report.getBookings().size());
 
             // Send email to the hotel owner
-            emailService.sendEmailWithAttachment(owner.getEmail(), "Daily Booking Report", emailContent, pdfFilePath);
+            emailService.sendEmailWithAttachment(report.getOwnerEmail(), "Daily Booking Report", emailContent,
+                    "booking_report_" + today + ".pdf", pdf);
+        } catch (MessagingException | RuntimeException e) {
+            logger.error("Failed to send daily booking report to owner {}: {}", report.getOwnerId(), e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private String buildEmailContent(LocalDate today, int totalBookings) {
+        return "<html>" +
+                "<head>" +
+                "<style>" +
+                "body { font-family: Arial, sans-serif; margin: 20px; }" +
+                "h2 { color: #4CAF50; }" +
+                "strong { color: #333; }" +
+                "ul { list-style-type: none; padding: 0; }" +
+                "li { margin: 5px 0; }" +
+                "</style>" +
+                "</head>" +
+                "<body>" +
+                "<h2>Booking Report for " + today + "</h2>" +
+                "<p>Please find the attached PDF report for details.</p>" +
+                "<p><strong>Total bookings today: </strong>" + totalBookings + "</p>" +
+                "<p>Thank you!</p>" +
+                "</body>" +
+                "</html>";
+    }
+}
@@ -1,37 +1,65 @@
 package com.vinova.booking_hotel.common.scheduling;
 
-import com.vinova.booking_hotel.property.model.Booking;
-import com.vinova.booking_hotel.property.repository.BookingRepository;
 import com.vinova.booking_hotel.common.enums.BookingStatus;
+import com.vinova.booking_hotel.property.repository.BookingRepository;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.function.BiFunction;
 
 @Component
 @RequiredArgsConstructor
 public class BookingStatusUpdaterScheduler {
 
+    private static final Logger logger = LoggerFactory.getLogger(BookingStatusUpdaterScheduler.class);
+
+    static final int CHUNK_SIZE = 500;
+    // Khóa advisory dùng chung cho mọi node, chỉ một node được chuyển trạng thái tại một thời điểm
+    static final long LOCK_KEY = 0x426f6f6b53746174L;
+
     private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
 
     @Scheduled(fixedRate = 60000) // Chạy mỗi phút
     public void updateBookingStatuses() {
         ZonedDateTime now = ZonedDateTime.now();
 
         // Cập nhật trạng thái booking thành CHECKIN
-        List<Booking> checkinBookings = bookingRepository.findByStartDateBeforeAndStatus(now, BookingStatus.CONFIRMED);
-        for (Booking booking : checkinBookings) {
-            booking.setStatus(BookingStatus.CHECKIN);
-            bookingRepository.save(booking);
+        if (!transition(now, BookingStatus.CONFIRMED, BookingStatus.CHECKIN, bookingRepository::checkInStarted)) {
+            return;
         }
 
         // Cập nhật trạng thái booking thành CHECKOUT
-        List<Booking> checkoutBookings = bookingRepository.findByEndDateBeforeAndStatus(now, BookingStatus.CHECKIN);
-        for (Booking booking : checkoutBookings) {
-            booking.setStatus(BookingStatus.CHECKOUT);
-            bookingRepository.save(booking);
+        transition(now, BookingStatus.CHECKIN, BookingStatus.CHECKOUT, bookingRepository::checkOutEnded);
+    }
+
+    // Mỗi lô là một transaction ngắn giữ khóa advisory; trả về false nếu node khác đang chạy
+    private boolean transition(ZonedDateTime now, BookingStatus fromStatus, BookingStatus toStatus,
+                               BiFunction<ZonedDateTime, Integer, List<Long>> bulkUpdate) {
+        while (true) {
+            List<Long> updatedIds = transactionTemplate.execute(status -> {
+                if (!bookingRepository.tryAdvisoryXactLock(LOCK_KEY)) {
+                    return null;
+                }
+                return bulkUpdate.apply(now, CHUNK_SIZE);
+            });
+
+            if (updatedIds == null) {
+                logger.debug("Booking status transition is running on another node, skipping");
+                return false;
+            }
+            if (!updatedIds.isEmpty()) {
+                logger.debug("Moved {} bookings from {} to {}", updatedIds.size(), fromStatus, toStatus);
+            }
+            if (updatedIds.size() < CHUNK_SIZE) {
+                return true;
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.vinova.booking_hotel.common.scheduling;
+
+import com.vinova.booking_hotel.common.store.ExpiringKeyValueStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ExpiringKeyValueStoreScheduler {
+
+    private final ExpiringKeyValueStore expiringKeyValueStore;
+
+    // Dọn mã xác thực và bộ đếm đăng nhập đã hết hạn; đọc vẫn kiểm tra hạn nên việc dọn chỉ để giải phóng bộ nhớ
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpiredEntries() {
+        expiringKeyValueStore.purgeExpired();
+    }
+}
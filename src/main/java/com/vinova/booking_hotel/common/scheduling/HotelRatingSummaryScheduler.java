@@ -0,0 +1,45 @@
+package com.vinova.booking_hotel.common.scheduling;
+
+import com.vinova.booking_hotel.property.repository.HotelRatingSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class HotelRatingSummaryScheduler {
+
+    static final int BATCH_SIZE = 500;
+
+    private final HotelRatingSummaryRepository hotelRatingSummaryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Backfill một lần ngay khi khởi động (trên thread của scheduler, không chặn startup),
+    // sau đó đối soát lại mỗi đêm lúc 3 giờ
+    @Scheduled(initialDelay = 0)
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void reconcileRatingSummaries() {
+        hotelRatingSummaryRepository.insertMissing();
+
+        // Mỗi lô là một transaction ngắn: khóa dòng tổng hợp trước rồi mới đếm lại,
+        // nên số cộng dồn của addRating/removeRating đang chạy song song không bị ghi đè
+        long afterHotelId = 0L;
+        while (true) {
+            long fromHotelId = afterHotelId;
+            List<Long> hotelIds = transactionTemplate.execute(status -> {
+                List<Long> locked = hotelRatingSummaryRepository.lockBatchAfter(fromHotelId, BATCH_SIZE);
+                if (!locked.isEmpty()) {
+                    hotelRatingSummaryRepository.recountChanged(locked);
+                }
+                return locked;
+            });
+            if (hotelIds == null || hotelIds.size() < BATCH_SIZE) {
+                return;
+            }
+            afterHotelId = hotelIds.getLast();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.vinova.booking_hotel.common.scheduling;
+
+import com.vinova.booking_hotel.authentication.service.MailOutboxService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZonedDateTime;
+
+@Component
+@RequiredArgsConstructor
+public class MailOutboxScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxScheduler.class);
+
+    private final MailOutboxService mailOutboxService;
+
+    @Value("${app.mail-outbox.retention-days}")
+    private int retentionDays;
+
+    // Gửi lại email đến hạn thử lại và email bị bỏ sót khi executor đầy hoặc node bị tắt giữa chừng;
+    // việc gửi SMTP chạy trên pool gửi email, không giữ luồng scheduler dùng chung
+    @Scheduled(fixedDelay = 5000)
+    public void processDueMails() {
+        mailOutboxService.dispatch();
+    }
+
+    // Xóa email đã gửi/thất bại mỗi đêm lúc 3 giờ 30 để hàng đợi không giữ mã xác thực và báo cáo mãi mãi
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void purgeFinishedMails() {
+        int deleted = mailOutboxService.purgeFinishedBefore(ZonedDateTime.now().minusDays(retentionDays));
+        logger.info("Purged {} finished mails older than {} days", deleted, retentionDays);
+    }
+}
@@ -0,0 +1,19 @@
+package com.vinova.booking_hotel.common.scheduling;
+
+import com.vinova.booking_hotel.payment.service.PaymentSessionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class PaymentSessionScheduler {
+
+    private final PaymentSessionService paymentSessionService;
+
+    // Giao cho executor các session chưa tạo được (executor đầy, Stripe lỗi tạm thời hoặc node bị tắt giữa chừng)
+    @Scheduled(fixedDelay = 10000)
+    public void processDuePaymentSessions() {
+        paymentSessionService.processDue();
+    }
+}
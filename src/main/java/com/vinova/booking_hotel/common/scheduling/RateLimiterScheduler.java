@@ -0,0 +1,19 @@
+package com.vinova.booking_hotel.common.scheduling;
+
+import com.vinova.booking_hotel.common.ratelimit.SlidingWindowRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class RateLimiterScheduler {
+
+    private final SlidingWindowRateLimiter rateLimiter;
+
+    // Xóa bộ đếm của các IP/tài khoản đã ngừng gửi request
+    @Scheduled(fixedDelay = 300000)
+    public void evictIdleClients() {
+        rateLimiter.evictIdle();
+    }
+}
@@ -0,0 +1,21 @@
+package com.vinova.booking_hotel.common.store;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Kho key-value có thời hạn cho dữ liệu tạm (mã xác thực, bộ đếm đăng nhập sai).
+// Bản trong bộ nhớ dùng cho một node, bản Postgres dùng khi chạy nhiều node
+public interface ExpiringKeyValueStore {
+
+    Optional<String> get(String key);
+
+    void put(String key, String value, Duration ttl);
+
+    // Tăng bộ đếm nguyên tử và trả về giá trị mới; thời hạn tính từ lần tăng đầu tiên
+    long increment(String key, Duration ttl);
+
+    void remove(String key);
+
+    // Dọn các key đã hết hạn, trả về số key đã xóa
+    int purgeExpired();
+}
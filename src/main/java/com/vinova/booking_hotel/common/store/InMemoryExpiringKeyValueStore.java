@@ -0,0 +1,113 @@
+package com.vinova.booking_hotel.common.store;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+@Component
+@ConditionalOnProperty(name = "app.kv-store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryExpiringKeyValueStore implements ExpiringKeyValueStore {
+
+    // Độ rộng mỗi ô của bánh xe thời gian: key hết hạn trong cùng một giây nằm chung một ô
+    static final long BUCKET_MILLIS = 1000;
+
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Ô thời gian -> các key hết hạn trong ô đó; dọn dẹp chỉ duyệt các ô đã qua, không quét toàn bộ map
+    private final ConcurrentSkipListMap<Long, Set<String>> expiryWheel = new ConcurrentSkipListMap<>();
+
+    public InMemoryExpiringKeyValueStore() {
+        this(System::currentTimeMillis);
+    }
+
+    public InMemoryExpiringKeyValueStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.isExpired(clock.getAsLong())) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        Entry entry = new Entry(value, clock.getAsLong() + ttl.toMillis());
+        entries.put(key, entry);
+        schedule(key, entry);
+    }
+
+    @Override
+    public long increment(String key, Duration ttl) {
+        long now = clock.getAsLong();
+        // compute giữ khóa theo key nên các lần tăng đồng thời không bị mất
+        Entry updated = entries.compute(key, (k, current) -> {
+            if (current == null || current.isExpired(now)) {
+                return new Entry("1", now + ttl.toMillis());
+            }
+            return new Entry(String.valueOf(Long.parseLong(current.value()) + 1), current.expiresAt());
+        });
+        if ("1".equals(updated.value())) {
+            schedule(key, updated);
+        }
+        return Long.parseLong(updated.value());
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = clock.getAsLong();
+        int removed = 0;
+        NavigableMap<Long, Set<String>> dueBuckets = expiryWheel.headMap(bucketOf(now), false);
+        for (Map.Entry<Long, Set<String>> bucket : dueBuckets.entrySet()) {
+            for (String key : bucket.getValue()) {
+                // Key có thể đã được ghi lại với hạn mới, chỉ xóa khi giá trị hiện tại thật sự hết hạn
+                Entry entry = entries.get(key);
+                if (entry != null && entry.isExpired(now) && entries.remove(key, entry)) {
+                    removed++;
+                }
+            }
+            expiryWheel.remove(bucket.getKey(), bucket.getValue());
+        }
+        return removed;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void schedule(String key, Entry entry) {
+        // Ô được làm tròn lên để khi ô đã qua thì mọi key trong đó chắc chắn hết hạn
+        expiryWheel.computeIfAbsent(bucketOf(entry.expiresAt()) + 1, bucket -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private long bucketOf(long millis) {
+        return Math.floorDiv(millis, BUCKET_MILLIS);
+    }
+
+    private record Entry(String value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.vinova.booking_hotel.common.store;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+// Dùng khi chạy nhiều node: mã xác thực gửi từ node này vẫn kiểm tra được ở node khác
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.kv-store.type", havingValue = "database")
+public class JpaExpiringKeyValueStore implements ExpiringKeyValueStore {
+
+    private final KeyValueEntryRepository keyValueEntryRepository;
+
+    @Override
+    public Optional<String> get(String key) {
+        return keyValueEntryRepository.findValidValue(key, ZonedDateTime.now());
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        keyValueEntryRepository.upsert(key, value, ZonedDateTime.now().plus(ttl));
+    }
+
+    @Override
+    public long increment(String key, Duration ttl) {
+        ZonedDateTime now = ZonedDateTime.now();
+        return keyValueEntryRepository.increment(key, now, now.plus(ttl));
+    }
+
+    @Override
+    public void remove(String key) {
+        keyValueEntryRepository.deleteByKey(key);
+    }
+
+    @Override
+    public int purgeExpired() {
+        return keyValueEntryRepository.deleteExpired(ZonedDateTime.now());
+    }
+}
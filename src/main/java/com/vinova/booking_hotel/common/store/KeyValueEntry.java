@@ -0,0 +1,27 @@
+package com.vinova.booking_hotel.common.store;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.ZonedDateTime;
+
+// Một key của kho key-value dùng chung giữa các node, hết hạn theo expires_at
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "key_value_entries", indexes = {
+        @Index(name = "idx_key_value_entries_expires_at", columnList = "expires_at")
+})
+public class KeyValueEntry {
+
+    @Id
+    @Column(name = "store_key", nullable = false)
+    private String storeKey;
+
+    @Column(name = "store_value", nullable = false, columnDefinition = "TEXT")
+    private String storeValue;
+
+    @Column(name = "expires_at", nullable = false)
+    private ZonedDateTime expiresAt;
+}
@@ -0,0 +1,48 @@
+package com.vinova.booking_hotel.common.store;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+public interface KeyValueEntryRepository extends JpaRepository<KeyValueEntry, String> {
+
+    @Query(value = "SELECT store_value FROM key_value_entries " +
+            "WHERE store_key = :key AND expires_at > :now", nativeQuery = true)
+    Optional<String> findValidValue(@Param("key") String key, @Param("now") ZonedDateTime now);
+
+    // Ghi đè cả giá trị lẫn thời hạn trong một câu lệnh, không cần đọc trước
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO key_value_entries (store_key, store_value, expires_at) " +
+            "VALUES (:key, :value, :expiresAt) " +
+            "ON CONFLICT (store_key) DO UPDATE SET store_value = EXCLUDED.store_value, expires_at = EXCLUDED.expires_at",
+            nativeQuery = true)
+    void upsert(@Param("key") String key, @Param("value") String value, @Param("expiresAt") ZonedDateTime expiresAt);
+
+    // Tăng bộ đếm nguyên tử trên database nên các node cùng đếm không bị mất lượt; key đã hết hạn thì đếm lại từ 1
+    @Transactional
+    @Query(value = "INSERT INTO key_value_entries (store_key, store_value, expires_at) " +
+            "VALUES (:key, '1', :expiresAt) " +
+            "ON CONFLICT (store_key) DO UPDATE SET " +
+            "store_value = CASE WHEN key_value_entries.expires_at <= :now THEN '1' " +
+            "ELSE CAST(CAST(key_value_entries.store_value AS BIGINT) + 1 AS TEXT) END, " +
+            "expires_at = CASE WHEN key_value_entries.expires_at <= :now THEN EXCLUDED.expires_at " +
+            "ELSE key_value_entries.expires_at END " +
+            "RETURNING CAST(store_value AS BIGINT)", nativeQuery = true)
+    long increment(@Param("key") String key, @Param("now") ZonedDateTime now, @Param("expiresAt") ZonedDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM key_value_entries WHERE store_key = :key", nativeQuery = true)
+    void deleteByKey(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM key_value_entries WHERE expires_at <= :now", nativeQuery = true)
+    int deleteExpired(@Param("now") ZonedDateTime now);
+}
@@ -4,17 +4,17 @@ import com.stripe.Stripe;
 import com.stripe.model.checkout.Session;
 import com.vinova.booking_hotel.common.enums.BookingStatus;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
+import com.vinova.booking_hotel.payment.dto.PaymentSessionResponseDto;
+import com.vinova.booking_hotel.payment.service.PaymentSessionService;
 import com.vinova.booking_hotel.property.model.Booking;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Value;
 import com.vinova.booking_hotel.property.repository.BookingRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
 
@@ -27,6 +27,16 @@ public class PaymentController {
     private String secretKey;
 
     private final BookingRepository bookingRepository;
+    private final PaymentSessionService paymentSessionService;
+
+    // Client polling để lấy link thanh toán sau khi đặt phòng
+    @GetMapping("/user/payment/booking/{bookingId}")
+    public ResponseEntity<PaymentSessionResponseDto> paymentSession(@PathVariable Long bookingId,
+                                                                    @RequestHeader("Authorization") String token) {
+        String accessToken = token.substring(7);
+        PaymentSessionResponseDto response = paymentSessionService.paymentSession(bookingId, accessToken);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
 
     @SneakyThrows
     @GetMapping("/public/payment/success")
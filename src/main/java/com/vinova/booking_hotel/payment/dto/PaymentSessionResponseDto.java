@@ -0,0 +1,15 @@
+package com.vinova.booking_hotel.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentSessionResponseDto {
+    private Long bookingId;
+    private String status;
+    private String sessionId;
+    private String sessionUrl;
+}
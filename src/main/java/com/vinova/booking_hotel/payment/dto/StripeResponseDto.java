@@ -14,4 +14,5 @@ public class StripeResponseDto {
     private BookingResponseDto booking;
     private String sessionId;
     private String sessionUrl;
+    private String paymentStatus;
 }
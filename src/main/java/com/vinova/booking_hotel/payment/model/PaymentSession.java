@@ -0,0 +1,60 @@
+package com.vinova.booking_hotel.payment.model;
+
+import com.vinova.booking_hotel.common.enums.PaymentSessionStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.ZonedDateTime;
+
+// Outbox cho việc tạo Stripe session, được ghi cùng transaction với booking và xử lý bởi worker
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "payment_sessions", indexes = {
+        @Index(name = "idx_payment_sessions_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class PaymentSession {
+
+    @Id
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private PaymentSessionStatus status;
+
+    @Column(name = "amount", nullable = false)
+    private Long amount;
+
+    @Column(name = "currency", nullable = false)
+    private String currency;
+
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+
+    @Column(name = "session_id")
+    private String sessionId;
+
+    @Column(name = "session_url", length = 1024)
+    private String sessionUrl;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private ZonedDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @Column(name = "create_dt")
+    @CreationTimestamp
+    private ZonedDateTime createDt;
+
+    @Column(name = "update_dt")
+    @UpdateTimestamp
+    private ZonedDateTime updateDt;
+}
@@ -0,0 +1,24 @@
+package com.vinova.booking_hotel.payment.repository;
+
+import com.vinova.booking_hotel.payment.model.PaymentSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentSessionRepository extends JpaRepository<PaymentSession, Long> {
+
+    @Query(value = "SELECT booking_id FROM payment_sessions " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit", nativeQuery = true)
+    List<Long> findDueBookingIds(@Param("now") ZonedDateTime now, @Param("limit") int limit);
+
+    // Bỏ qua dòng đang bị node/thread khác nhận (đang khóa hoặc còn trong thời hạn giữ) để một session chỉ được tạo một lần
+    @Query(value = "SELECT * FROM payment_sessions " +
+            "WHERE booking_id = :bookingId AND status = 'PENDING' AND next_attempt_at <= :now " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<PaymentSession> lockDueByBookingId(@Param("bookingId") Long bookingId, @Param("now") ZonedDateTime now);
+}
@@ -0,0 +1,19 @@
+package com.vinova.booking_hotel.payment.service;
+
+import com.vinova.booking_hotel.payment.dto.PaymentSessionResponseDto;
+import com.vinova.booking_hotel.property.model.Booking;
+
+public interface PaymentSessionService {
+
+    // Ghi outbox, phải được gọi trong transaction tạo booking
+    void enqueue(Booking booking);
+
+    // Đẩy việc tạo session sang executor, gọi sau khi transaction đã commit
+    void dispatch(Long bookingId);
+
+    void process(Long bookingId);
+
+    void processDue();
+
+    PaymentSessionResponseDto paymentSession(Long bookingId, String token);
+}
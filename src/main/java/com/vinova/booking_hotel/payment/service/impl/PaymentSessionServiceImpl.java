@@ -0,0 +1,161 @@
+package com.vinova.booking_hotel.payment.service.impl;
+
+import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.common.enums.BookingStatus;
+import com.vinova.booking_hotel.common.enums.PaymentSessionStatus;
+import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
+import com.vinova.booking_hotel.payment.dto.PaymentRequestDto;
+import com.vinova.booking_hotel.payment.dto.PaymentSessionResponseDto;
+import com.vinova.booking_hotel.payment.dto.StripeResponseDto;
+import com.vinova.booking_hotel.payment.model.PaymentSession;
+import com.vinova.booking_hotel.payment.repository.PaymentSessionRepository;
+import com.vinova.booking_hotel.payment.service.PaymentSessionService;
+import com.vinova.booking_hotel.payment.service.StripeService;
+import com.vinova.booking_hotel.property.model.Booking;
+import com.vinova.booking_hotel.property.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class PaymentSessionServiceImpl implements PaymentSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentSessionServiceImpl.class);
+
+    static final int MAX_ATTEMPTS = 5;
+    static final long RETRY_DELAY_SECONDS = 10;
+    static final int DUE_BATCH_SIZE = 20;
+    // Thời gian một session được giữ sau khi nhận, hết hạn mà chưa ghi kết quả (node bị tắt) thì scheduler lấy lại
+    static final long PROCESSING_LEASE_SECONDS = 300;
+
+    private final PaymentSessionRepository paymentSessionRepository;
+    private final BookingRepository bookingRepository;
+    private final StripeService stripeService;
+    private final JwtUtils jwtUtils;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor paymentSessionExecutor;
+
+    @Override
+    public void enqueue(Booking booking) {
+        PaymentSession paymentSession = new PaymentSession();
+        paymentSession.setBookingId(booking.getId());
+        paymentSession.setStatus(PaymentSessionStatus.PENDING);
+        paymentSession.setAmount(booking.getTotalPrice().longValue() * 100);
+        paymentSession.setCurrency("USD");
+        paymentSession.setProductName(booking.getHotel().getName());
+        paymentSession.setAttempts(0);
+        paymentSession.setNextAttemptAt(ZonedDateTime.now());
+        paymentSessionRepository.save(paymentSession);
+    }
+
+    @Override
+    public void dispatch(Long bookingId) {
+        // Executor đầy thì task bị bỏ, scheduler sẽ xử lý lại dòng outbox này
+        paymentSessionExecutor.execute(() -> {
+            try {
+                process(bookingId);
+            } catch (RuntimeException e) {
+                logger.error("Failed to process payment session for booking {}: {}", bookingId, e.getMessage());
+            }
+        });
+    }
+
+    // Nhận session trong transaction ngắn, gọi Stripe ngoài transaction rồi ghi kết quả trong transaction thứ hai;
+    // gọi lại Stripe khi thử lại là an toàn vì request dùng idempotency key theo booking
+    @Override
+    public void process(Long bookingId) {
+        PaymentSession paymentSession = transactionTemplate.execute(status -> claim(bookingId));
+        if (paymentSession == null) {
+            return;
+        }
+
+        try {
+            StripeResponseDto stripe = stripeService.checkoutBooking(new PaymentRequestDto(
+                    paymentSession.getAmount(),
+                    1L,
+                    paymentSession.getProductName(),
+                    paymentSession.getCurrency()
+            ), bookingId);
+            paymentSession.setSessionId(stripe.getSessionId());
+            paymentSession.setSessionUrl(stripe.getSessionUrl());
+            paymentSession.setStatus(PaymentSessionStatus.READY);
+            paymentSession.setLastError(null);
+        } catch (RuntimeException e) {
+            // Thử lại với thời gian chờ tăng dần, quá số lần cho phép thì đánh dấu thất bại
+            int attempts = paymentSession.getAttempts() + 1;
+            paymentSession.setAttempts(attempts);
+            paymentSession.setLastError(truncate(e.getMessage()));
+            if (attempts >= MAX_ATTEMPTS) {
+                paymentSession.setStatus(PaymentSessionStatus.FAILED);
+            } else {
+                paymentSession.setNextAttemptAt(ZonedDateTime.now().plusSeconds(RETRY_DELAY_SECONDS << (attempts - 1)));
+            }
+        }
+        transactionTemplate.execute(status -> paymentSessionRepository.save(paymentSession));
+    }
+
+    // Scheduler chỉ tìm session đến hạn, việc gọi Stripe chạy trên executor để không giữ luồng scheduler dùng chung
+    @Override
+    public void processDue() {
+        paymentSessionRepository.findDueBookingIds(ZonedDateTime.now(), DUE_BATCH_SIZE).forEach(this::dispatch);
+    }
+
+    // Khóa session đến hạn, hủy nếu booking đã hủy, nếu không thì dời next_attempt_at làm thời hạn giữ
+    // và commit ngay để không giữ khóa dòng và connection trong lúc chờ Stripe
+    private PaymentSession claim(Long bookingId) {
+        ZonedDateTime now = ZonedDateTime.now();
+        // Không lấy được nghĩa là session đã xong, chưa đến hạn hoặc đang được xử lý ở nơi khác
+        PaymentSession paymentSession = paymentSessionRepository.lockDueByBookingId(bookingId, now).orElse(null);
+        if (paymentSession == null) {
+            return null;
+        }
+
+        // Booking đã bị hủy thì không cần tạo session thanh toán nữa
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null || booking.getStatus() == BookingStatus.CANCELLED) {
+            paymentSession.setStatus(PaymentSessionStatus.CANCELLED);
+            paymentSessionRepository.save(paymentSession);
+            return null;
+        }
+
+        paymentSession.setNextAttemptAt(now.plusSeconds(PROCESSING_LEASE_SECONDS));
+        paymentSessionRepository.save(paymentSession);
+        return paymentSession;
+    }
+
+    @Override
+    public PaymentSessionResponseDto paymentSession(Long bookingId, String token) {
+        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
+
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking"));
+
+        // Chỉ chủ booking mới xem được link thanh toán
+        if (!booking.getAccount().getId().equals(accountId)) {
+            throw new RuntimeException("You do not have permission to view this payment");
+        }
+
+        PaymentSession paymentSession = paymentSessionRepository.findById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Payment session"));
+
+        return new PaymentSessionResponseDto(
+                paymentSession.getBookingId(),
+                paymentSession.getStatus().toString(),
+                paymentSession.getSessionId(),
+                paymentSession.getSessionUrl()
+        );
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1024 ? message.substring(0, 1024) : message;
+    }
+}
@@ -1,10 +1,14 @@
 package com.vinova.booking_hotel.property.controller;
 
+import com.vinova.booking_hotel.common.pagination.CursorPageResponseDto;
 import com.vinova.booking_hotel.property.dto.request.AddHotelRequestDto;
 import com.vinova.booking_hotel.property.dto.request.AddImagesRequestDto;
+import com.vinova.booking_hotel.property.dto.response.CacheStatsResponseDto;
 import com.vinova.booking_hotel.property.dto.response.HotelResponseDto;
 import com.vinova.booking_hotel.property.dto.response.ImageResponseDto;
+import com.vinova.booking_hotel.property.dto.response.PriceQuoteResponseDto;
 import com.vinova.booking_hotel.property.service.HotelService;
+import com.vinova.booking_hotel.property.service.PricingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +26,7 @@ import java.util.List;
 public class HotelController {
     
     private final HotelService hotelService;
+    private final PricingService pricingService;
 
     @GetMapping("/public/hotels")
     public ResponseEntity<List<HotelResponseDto>> hotels(
@@ -42,6 +47,25 @@ public class HotelController {
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
+    @GetMapping("/public/hotels/scroll")
+    public ResponseEntity<CursorPageResponseDto<HotelResponseDto>> hotelsByCursor(
+                                            @RequestParam(required = false) Long accountId,
+                                            @RequestParam(required = false) Long districtId,
+                                            @RequestParam(required = false) String name,
+                                            @RequestParam(required = false) BigDecimal minPrice,
+                                            @RequestParam(required = false) BigDecimal maxPrice,
+                                            @RequestParam(required = false) List<String> amenityNames,
+                                            @RequestParam(required = false) ZonedDateTime startDate,
+                                            @RequestParam(required = false) ZonedDateTime endDate,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "8") int pageSize,
+                                            @RequestParam(defaultValue = "id") String sortBy,
+                                            @RequestParam(defaultValue = "asc") String sortOrder) {
+
+        CursorPageResponseDto<HotelResponseDto> response = hotelService.hotelsByCursor(accountId, districtId, name, minPrice, maxPrice, amenityNames, startDate, endDate, cursor, pageSize, sortBy, sortOrder);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
     @GetMapping("/user/hotel/wishlist")
     public ResponseEntity<List<HotelResponseDto>> create(@RequestHeader("Authorization") String token) {
         String accessToken = token.substring(7);
@@ -74,6 +98,20 @@ public class HotelController {
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
     
+    @GetMapping("/admin/hotels/cache-stats")
+    public ResponseEntity<CacheStatsResponseDto> detailCacheStats() {
+        CacheStatsResponseDto response = hotelService.detailCacheStats();
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    @GetMapping("/public/hotel/{id}/quote")
+    public ResponseEntity<PriceQuoteResponseDto> quote(@PathVariable Long id,
+                                                       @RequestParam ZonedDateTime startDate,
+                                                       @RequestParam ZonedDateTime endDate) {
+        PriceQuoteResponseDto response = pricingService.quote(id, startDate, endDate);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
     @DeleteMapping("/owner/hotel/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id, 
                                        @RequestHeader("Authorization") String token) {
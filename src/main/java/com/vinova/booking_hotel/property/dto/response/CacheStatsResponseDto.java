@@ -0,0 +1,15 @@
+package com.vinova.booking_hotel.property.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponseDto {
+    private Long hits;
+    private Long misses;
+    private Double hitRatio;
+    private Integer size;
+}
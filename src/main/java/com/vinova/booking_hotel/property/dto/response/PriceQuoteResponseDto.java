@@ -0,0 +1,20 @@
+package com.vinova.booking_hotel.property.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceQuoteResponseDto {
+    private Long hotelId;
+    private ZonedDateTime startDate;
+    private ZonedDateTime endDate;
+    private Integer days;
+    private BigDecimal pricePerDay;
+    private BigDecimal totalPrice;
+}
@@ -0,0 +1,17 @@
+package com.vinova.booking_hotel.property.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Phát khi dữ liệu hiển thị ở trang chi tiết khách sạn thay đổi (thông tin, ảnh, đánh giá, giảm giá, lịch đặt);
+// hotelId null nghĩa là có thể ảnh hưởng mọi khách sạn
+@Getter
+@AllArgsConstructor
+public class HotelChangedEvent {
+
+    private final Long hotelId;
+
+    public static HotelChangedEvent allHotels() {
+        return new HotelChangedEvent(null);
+    }
+}
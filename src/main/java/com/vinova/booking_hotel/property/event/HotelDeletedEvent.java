@@ -0,0 +1,12 @@
+package com.vinova.booking_hotel.property.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Phát khi khách sạn bị xóa; các index trong bộ nhớ chỉ cập nhật sau khi transaction xóa đã commit
+@Getter
+@AllArgsConstructor
+public class HotelDeletedEvent {
+
+    private final Long hotelId;
+}
@@ -16,6 +16,19 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "hotels")
+@NamedEntityGraphs({
+        // Danh sách khách sạn: kèm owner và quận để map sang DTO
+        @NamedEntityGraph(name = "Hotel.listing", attributeNodes = {
+                @NamedAttributeNode("account"),
+                @NamedAttributeNode("district")
+        }),
+        // Chi tiết khách sạn: thêm giảm giá
+        @NamedEntityGraph(name = "Hotel.detail", attributeNodes = {
+                @NamedAttributeNode("account"),
+                @NamedAttributeNode("district"),
+                @NamedAttributeNode(value = "hotelDiscounts", subgraph = "hotelDiscounts.discount")
+        }, subgraphs = @NamedSubgraph(name = "hotelDiscounts.discount", attributeNodes = @NamedAttributeNode("discount")))
+})
 public class Hotel {
 
     @Id
@@ -44,11 +57,11 @@ public class Hotel {
     @Column(name = "longitude")
     private String longitude;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "district_id", nullable = false)
     private District district;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
@@ -0,0 +1,38 @@
+package com.vinova.booking_hotel.property.model;
+
+import com.vinova.booking_hotel.common.enums.ImageSize;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.ZonedDateTime;
+
+// Bản thu nhỏ của một ảnh đã upload, tra theo URL ảnh gốc (ảnh khách sạn, ảnh đánh giá)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "image_derivatives", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_image_derivatives_source_url_size", columnNames = {"source_url", "size"})
+})
+public class ImageDerivative {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "source_url", nullable = false)
+    private String sourceUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "size", nullable = false)
+    private ImageSize size;
+
+    @Column(name = "url", nullable = false)
+    private String url;
+
+    @Column(name = "create_dt")
+    @CreationTimestamp
+    private ZonedDateTime createDt;
+}
@@ -0,0 +1,27 @@
+package com.vinova.booking_hotel.property.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.ZonedDateTime;
+
+// Chỉ mục SHA-256 nội dung ảnh -> URL trên Cloudinary, dùng chung cho avatar, ảnh khách sạn và ảnh đánh giá
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "uploaded_images")
+public class UploadedImage {
+
+    @Id
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "url", nullable = false)
+    private String url;
+
+    @Column(name = "create_dt")
+    @CreationTimestamp
+    private ZonedDateTime createDt;
+}
@@ -0,0 +1,206 @@
+package com.vinova.booking_hotel.property.pricing;
+
+import com.vinova.booking_hotel.property.model.HotelDiscount;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Lịch giảm giá của một khách sạn: các khoảng giảm giá đã sắp xếp theo ngày bắt đầu, không phụ thuộc vào entity
+public final class DiscountCalendar {
+
+    public static final DiscountCalendar EMPTY = new DiscountCalendar(new ZonedDateTime[0], new ZonedDateTime[0], new BigDecimal[0]);
+
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+
+    private final ZonedDateTime[] starts;
+    private final ZonedDateTime[] ends;
+    // Hệ số nhân giá (1 - rate / 100) của từng khoảng
+    private final BigDecimal[] factors;
+
+    private DiscountCalendar(ZonedDateTime[] starts, ZonedDateTime[] ends, BigDecimal[] factors) {
+        this.starts = starts;
+        this.ends = ends;
+        this.factors = factors;
+    }
+
+    public static DiscountCalendar of(List<HotelDiscount> hotelDiscounts) {
+        if (hotelDiscounts == null || hotelDiscounts.isEmpty()) {
+            return EMPTY;
+        }
+        HotelDiscount[] sorted = hotelDiscounts.toArray(new HotelDiscount[0]);
+        Arrays.sort(sorted, Comparator.comparing(HotelDiscount::getStartDate));
+
+        ZonedDateTime[] starts = new ZonedDateTime[sorted.length];
+        ZonedDateTime[] ends = new ZonedDateTime[sorted.length];
+        BigDecimal[] factors = new BigDecimal[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            starts[i] = sorted[i].getStartDate();
+            ends[i] = sorted[i].getEndDate();
+            factors[i] = BigDecimal.ONE.subtract(sorted[i].getDiscount().getRate().divide(ONE_HUNDRED));
+        }
+        return new DiscountCalendar(starts, ends, factors);
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    // Số ngày tính tiền và tổng giá của một kỳ lưu trú
+    public record StayPrice(int days, BigDecimal totalPrice) {
+    }
+
+    public BigDecimal totalPrice(BigDecimal pricePerDay, ZonedDateTime startDate, ZonedDateTime endDate) {
+        return stayPrice(pricePerDay, startDate, endDate).totalPrice();
+    }
+
+    /**
+     * Tổng giá cho khoảng [startDate, endDate), cho kết quả giống hệt cách cộng dồn từng ngày:
+     * ngày thứ i được giảm bởi mọi khoảng giảm giá có start < ngày i + 1 và end > ngày i.
+     * Mỗi khoảng giảm giá phủ một dãy ngày liên tiếp, nên chỉ cần quét các điểm biên
+     * và nhân giá của từng đoạn với số ngày của đoạn đó.
+     * Số ngày tính tiền: mỗi ngày bắt đầu từ startDate + i ngày và nhỏ hơn endDate (ngày cuối lẻ vẫn tính trọn ngày).
+     */
+    public StayPrice stayPrice(BigDecimal pricePerDay, ZonedDateTime startDate, ZonedDateTime endDate) {
+        DayGrid grid = DayGrid.of(startDate, endDate);
+        int days = grid.countBefore(endDate);
+        if (days == 0) {
+            return new StayPrice(0, BigDecimal.ZERO);
+        }
+        if (starts.length == 0) {
+            return new StayPrice(days, pricePerDay.multiply(BigDecimal.valueOf(days)));
+        }
+
+        // Dãy ngày [from, to) chịu ảnh hưởng của từng khoảng giảm giá, from không giảm vì starts đã sắp xếp
+        int count = starts.length;
+        int[] from = new int[count];
+        int[] to = new int[count];
+        int[] boundaries = new int[2 * count + 2];
+        int boundaryCount = 0;
+        boundaries[boundaryCount++] = 0;
+        boundaries[boundaryCount++] = days;
+        for (int i = 0; i < count; i++) {
+            from[i] = Math.min(days, Math.max(0, grid.countAtOrBefore(starts[i]) - 1));
+            to[i] = Math.min(days, grid.countBefore(ends[i]));
+            if (from[i] < to[i]) {
+                boundaries[boundaryCount++] = from[i];
+                boundaries[boundaryCount++] = to[i];
+            }
+        }
+        Arrays.sort(boundaries, 0, boundaryCount);
+
+        BigDecimal total = BigDecimal.ZERO;
+        int segmentStart = boundaries[0];
+        for (int b = 1; b < boundaryCount; b++) {
+            int segmentEnd = boundaries[b];
+            if (segmentEnd == segmentStart) {
+                continue;
+            }
+            // Các điểm biên chứa mọi from/to nên mỗi khoảng giảm giá phủ trọn hoặc không phủ đoạn này
+            BigDecimal dailyPrice = pricePerDay;
+            for (int i = 0; i < count && from[i] <= segmentStart; i++) {
+                if (from[i] < to[i] && to[i] >= segmentEnd) {
+                    dailyPrice = dailyPrice.multiply(factors[i]);
+                }
+            }
+            total = total.add(dailyPrice.multiply(BigDecimal.valueOf(segmentEnd - segmentStart)));
+            segmentStart = segmentEnd;
+        }
+        return new StayPrice(days, total);
+    }
+
+    // Các mốc đầu ngày startDate, startDate + 1 ngày, ... dùng để đổi thời điểm sang chỉ số ngày
+    private abstract static class DayGrid {
+
+        static DayGrid of(ZonedDateTime startDate, ZonedDateTime endDate) {
+            // Múi giờ có DST: cộng ngày liên tiếp có thể lệch giờ sau khoảng chuyển giờ, nên dựng sẵn các mốc
+            return startDate.getZone().getRules().isFixedOffset()
+                    ? new FixedOffsetDayGrid(startDate)
+                    : new SteppedDayGrid(startDate, endDate);
+        }
+
+        // Số chỉ số i >= 0 thỏa ngày i < moment
+        abstract int countBefore(ZonedDateTime moment);
+
+        // Số chỉ số i >= 0 thỏa ngày i <= moment
+        abstract int countAtOrBefore(ZonedDateTime moment);
+    }
+
+    // Mỗi ngày dài đúng 24 giờ nên tính được chỉ số bằng phép chia
+    private static final class FixedOffsetDayGrid extends DayGrid {
+
+        private static final long SECONDS_PER_DAY = 86400;
+
+        private final ZonedDateTime startDate;
+
+        private FixedOffsetDayGrid(ZonedDateTime startDate) {
+            this.startDate = startDate;
+        }
+
+        @Override
+        int countBefore(ZonedDateTime moment) {
+            if (!moment.isAfter(startDate)) {
+                return 0;
+            }
+            Duration elapsed = Duration.between(startDate, moment);
+            long days = elapsed.getSeconds() / SECONDS_PER_DAY;
+            boolean exact = elapsed.getSeconds() % SECONDS_PER_DAY == 0 && elapsed.getNano() == 0;
+            return (int) (exact ? days : days + 1);
+        }
+
+        @Override
+        int countAtOrBefore(ZonedDateTime moment) {
+            if (moment.isBefore(startDate)) {
+                return 0;
+            }
+            return (int) (Duration.between(startDate, moment).getSeconds() / SECONDS_PER_DAY) + 1;
+        }
+    }
+
+    private static final class SteppedDayGrid extends DayGrid {
+
+        private final Instant[] dayStarts;
+
+        private SteppedDayGrid(ZonedDateTime startDate, ZonedDateTime endDate) {
+            List<Instant> instants = new ArrayList<>();
+            ZonedDateTime current = startDate;
+            while (current.isBefore(endDate)) {
+                instants.add(current.toInstant());
+                current = current.plusDays(1);
+            }
+            instants.add(current.toInstant());
+            dayStarts = instants.toArray(new Instant[0]);
+        }
+
+        @Override
+        int countBefore(ZonedDateTime moment) {
+            return firstIndex(moment.toInstant(), false);
+        }
+
+        @Override
+        int countAtOrBefore(ZonedDateTime moment) {
+            return firstIndex(moment.toInstant(), true);
+        }
+
+        // Chỉ số đầu tiên có mốc >= moment (hoặc > moment khi inclusive), các mốc sau endDate không ảnh hưởng vì kết quả bị chặn bởi số ngày
+        private int firstIndex(Instant moment, boolean inclusive) {
+            int low = 0;
+            int high = dayStarts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int compare = dayStarts[mid].compareTo(moment);
+                if (compare < 0 || (inclusive && compare == 0)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
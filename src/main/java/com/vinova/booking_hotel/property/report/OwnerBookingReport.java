@@ -0,0 +1,30 @@
+package com.vinova.booking_hotel.property.report;
+
+import com.vinova.booking_hotel.property.repository.projection.OwnerBookingReportRow;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Dữ liệu báo cáo ngày của một chủ khách sạn, gom từ các dòng liên tiếp của cùng một chủ
+@Getter
+@RequiredArgsConstructor
+public class OwnerBookingReport {
+
+    private final Long ownerId;
+    private final String ownerEmail;
+    private final String ownerUsername;
+    private final List<OwnerBookingReportRow> bookings = new ArrayList<>();
+
+    public static OwnerBookingReport startingAt(OwnerBookingReportRow row) {
+        return new OwnerBookingReport(row.getOwnerId(), row.getOwnerEmail(), row.getOwnerUsername());
+    }
+
+    public void add(OwnerBookingReportRow row) {
+        // Dòng không có booking chỉ mang thông tin chủ khách sạn
+        if (row.getBookingId() != null) {
+            bookings.add(row);
+        }
+    }
+}
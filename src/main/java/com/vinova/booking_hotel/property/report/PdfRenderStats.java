@@ -0,0 +1,20 @@
+package com.vinova.booking_hotel.property.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Số liệu tích lũy của việc tạo PDF kể từ khi ứng dụng khởi động
+@Getter
+@ToString
+@AllArgsConstructor
+public class PdfRenderStats {
+
+    private final long documents;
+    private final long bytes;
+    private final long totalRenderMillis;
+
+    public double getAverageRenderMillis() {
+        return documents == 0 ? 0 : (double) totalRenderMillis / documents;
+    }
+}
@@ -4,15 +4,24 @@ import com.vinova.booking_hotel.authentication.model.Account;
 import com.vinova.booking_hotel.common.enums.BookingStatus;
 import com.vinova.booking_hotel.property.model.Booking;
 import com.vinova.booking_hotel.property.model.Hotel;
+import com.vinova.booking_hotel.property.repository.projection.BookedRangeView;
+import com.vinova.booking_hotel.property.repository.projection.BookingIntervalView;
+import com.vinova.booking_hotel.property.repository.projection.OwnerBookingReportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
@@ -27,12 +36,64 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     List<Booking> findByHotelId(Long hotelId);
 
+    // Khoảng ngày đã đặt còn chiếm chỗ của một khách sạn (chưa kết thúc, không bị hủy), sắp theo ngày bắt đầu để gộp
+    @Query("SELECT b.startDate AS startDate, b.endDate AS endDate FROM Booking b " +
+            "WHERE b.hotel.id = :hotelId AND b.status <> :excludedStatus AND b.endDate > :after " +
+            "ORDER BY b.startDate")
+    List<BookedRangeView> findBookedRangesEndingAfter(@Param("hotelId") Long hotelId,
+                                                      @Param("after") ZonedDateTime after,
+                                                      @Param("excludedStatus") BookingStatus excludedStatus);
+
+    // Các khoảng thời gian còn hiệu lực (chưa kết thúc, không bị hủy) dùng để dựng availability index
+    @Query("SELECT b.id AS id, b.hotel.id AS hotelId, b.startDate AS startDate, b.endDate AS endDate " +
+            "FROM Booking b WHERE b.status <> :excludedStatus AND b.endDate > :after")
+    List<BookingIntervalView> findActiveIntervalsEndingAfter(@Param("after") ZonedDateTime after,
+                                                             @Param("excludedStatus") BookingStatus excludedStatus);
+
+    // Báo cáo ngày: mọi chủ khách sạn kèm các booking tạo trong [from, to), sắp theo chủ để xử lý dạng stream từng nhóm
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT a.id AS ownerId, a.email AS ownerEmail, a.username AS ownerUsername, " +
+            "b.id AS bookingId, h.name AS hotelName, b.startDate AS startDate, b.endDate AS endDate, " +
+            "b.totalPrice AS totalPrice, b.status AS status " +
+            "FROM Account a JOIN a.accountRoles ar JOIN ar.role r " +
+            "LEFT JOIN a.hotels h " +
+            "LEFT JOIN Booking b ON b.hotel = h AND b.createDt >= :from AND b.createDt < :to " +
+            "WHERE r.name = :roleName " +
+            "ORDER BY a.id, b.id")
+    Stream<OwnerBookingReportRow> streamReportRowsByOwner(@Param("roleName") String roleName,
+                                                          @Param("from") ZonedDateTime from,
+                                                          @Param("to") ZonedDateTime to);
+
     Optional<Booking> findFirstByHotelAndAccount(Hotel hotel, Account account);
 
-    List<Booking> findByStartDateBeforeAndStatus(ZonedDateTime startDate, BookingStatus status);
-    List<Booking> findByEndDateBeforeAndStatus(ZonedDateTime endDate, BookingStatus status);
+    // Chuyển CONFIRMED -> CHECKIN theo lô, trả về id các booking đã cập nhật.
+    // Điều kiện status lặp lại ở câu UPDATE ngoài để Postgres kiểm tra lại khi dòng vừa bị transaction khác sửa (vd. hủy)
+    @Transactional
+    @Query(value = "UPDATE bookings SET status = 'CHECKIN', update_dt = now() " +
+            "WHERE status = 'CONFIRMED' AND id IN (" +
+            "SELECT id FROM bookings WHERE status = 'CONFIRMED' AND start_date < :now ORDER BY id LIMIT :limit) " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> checkInStarted(@Param("now") ZonedDateTime now, @Param("limit") int limit);
+
+    // Chuyển CHECKIN -> CHECKOUT theo lô, trả về id các booking đã cập nhật
+    @Transactional
+    @Query(value = "UPDATE bookings SET status = 'CHECKOUT', update_dt = now() " +
+            "WHERE status = 'CHECKIN' AND id IN (" +
+            "SELECT id FROM bookings WHERE status = 'CHECKIN' AND end_date < :now ORDER BY id LIMIT :limit) " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> checkOutEnded(@Param("now") ZonedDateTime now, @Param("limit") int limit);
+
+    // Khóa advisory theo transaction, tự nhả khi commit/rollback; false nếu node khác đang giữ
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("key") long key);
+
+    // Lấy luôn khách sạn và người đặt để map sang DTO mà không truy vấn thêm cho từng booking
+    @EntityGraph(attributePaths = {"hotel", "account"})
+    List<Booking> findByAccountId(Long accountId);
 
-    List<Booking> findByAccount(Account account);
+    // Thống kê của chủ khách sạn: mọi booking thuộc các khách sạn của chủ trong một truy vấn
+    @EntityGraph(attributePaths = {"hotel", "account"})
+    List<Booking> findByHotelAccountId(Long accountId);
 
     List<Booking> findByHotel(Hotel hotel);
 
@@ -7,11 +7,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface HotelDiscountRepository extends JpaRepository<HotelDiscount, Long> {
     List<HotelDiscount> findByHotelId(Long id);
 
+    @Query("SELECT hd FROM HotelDiscount hd JOIN FETCH hd.discount WHERE hd.hotel.id IN :hotelIds ORDER BY hd.id")
+    List<HotelDiscount> findByHotelIdIn(@Param("hotelIds") Collection<Long> hotelIds);
+
     @Query("SELECT hd FROM HotelDiscount hd WHERE hd.hotel.id = :hotelId AND " +
             "(hd.startDate < :endDate AND hd.endDate > :startDate)")
     
@@ -0,0 +1,72 @@
+package com.vinova.booking_hotel.property.repository;
+
+import com.vinova.booking_hotel.property.model.HotelRatingSummary;
+import com.vinova.booking_hotel.property.repository.projection.HotelRatingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface HotelRatingSummaryRepository extends JpaRepository<HotelRatingSummary, Long> {
+
+    @Query("SELECT s.hotelId AS hotelId, s.averageRating AS averageRating, s.ratingCount AS reviewCount " +
+            "FROM HotelRatingSummary s WHERE s.hotelId IN :hotelIds")
+    List<HotelRatingStats> findStatsByHotelIds(@Param("hotelIds") Collection<Long> hotelIds);
+
+    // Cộng dồn một đánh giá mới, tạo dòng tổng hợp nếu khách sạn chưa có
+    @Modifying
+    @Query(value = "INSERT INTO hotel_rating_summaries (hotel_id, rating_sum, rating_count, average_rating, update_dt) " +
+            "VALUES (:hotelId, :stars, 1, :stars, now()) " +
+            "ON CONFLICT (hotel_id) DO UPDATE SET " +
+            "rating_sum = hotel_rating_summaries.rating_sum + EXCLUDED.rating_sum, " +
+            "rating_count = hotel_rating_summaries.rating_count + 1, " +
+            "average_rating = CAST(hotel_rating_summaries.rating_sum + EXCLUDED.rating_sum AS double precision) " +
+            "/ (hotel_rating_summaries.rating_count + 1), " +
+            "update_dt = now()", nativeQuery = true)
+    void addRating(@Param("hotelId") Long hotelId, @Param("stars") int stars);
+
+    // Trừ một đánh giá đã xóa khỏi dòng tổng hợp
+    @Modifying
+    @Query(value = "UPDATE hotel_rating_summaries SET " +
+            "rating_sum = rating_sum - :stars, " +
+            "rating_count = rating_count - 1, " +
+            "average_rating = CASE WHEN rating_count - 1 = 0 THEN 0 " +
+            "ELSE CAST(rating_sum - :stars AS double precision) / (rating_count - 1) END, " +
+            "update_dt = now() " +
+            "WHERE hotel_id = :hotelId AND rating_count > 0", nativeQuery = true)
+    void removeRating(@Param("hotelId") Long hotelId, @Param("stars") int stars);
+
+    // Backfill dòng tổng hợp cho khách sạn chưa có; dòng đã có (kể cả do addRating vừa tạo) được giữ nguyên
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO hotel_rating_summaries (hotel_id, rating_sum, rating_count, average_rating, update_dt) " +
+            "SELECT h.id, COALESCE(SUM(r.stars), 0), COUNT(r.id), COALESCE(AVG(r.stars), 0), now() " +
+            "FROM hotels h LEFT JOIN ratings r ON r.hotel_id = h.id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM hotel_rating_summaries s WHERE s.hotel_id = h.id) GROUP BY h.id " +
+            "ON CONFLICT (hotel_id) DO NOTHING", nativeQuery = true)
+    int insertMissing();
+
+    // Khóa một lô dòng tổng hợp theo thứ tự hotel_id, addRating/removeRating của các khách sạn này phải chờ
+    @Query(value = "SELECT hotel_id FROM hotel_rating_summaries WHERE hotel_id > :afterHotelId " +
+            "ORDER BY hotel_id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<Long> lockBatchAfter(@Param("afterHotelId") Long afterHotelId, @Param("limit") int limit);
+
+    // Đếm lại từ bảng ratings sau khi đã giữ khóa, chỉ ghi đè những dòng lệch với số đếm
+    @Modifying
+    @Query(value = "UPDATE hotel_rating_summaries s SET " +
+            "rating_sum = c.rating_sum, rating_count = c.rating_count, average_rating = c.average_rating, update_dt = now() " +
+            "FROM (SELECT h.id AS hotel_id, COALESCE(SUM(r.stars), 0) AS rating_sum, COUNT(r.id) AS rating_count, " +
+            "COALESCE(AVG(r.stars), 0) AS average_rating " +
+            "FROM hotels h LEFT JOIN ratings r ON r.hotel_id = h.id WHERE h.id IN :hotelIds GROUP BY h.id) c " +
+            "WHERE s.hotel_id = c.hotel_id AND (s.rating_sum <> c.rating_sum OR s.rating_count <> c.rating_count)",
+            nativeQuery = true)
+    int recountChanged(@Param("hotelIds") Collection<Long> hotelIds);
+
+    @Modifying
+    @Query("DELETE FROM HotelRatingSummary s WHERE s.hotelId = :hotelId")
+    void deleteByHotelId(@Param("hotelId") Long hotelId);
+}
@@ -1,15 +1,45 @@
 package com.vinova.booking_hotel.property.repository;
 
 import com.vinova.booking_hotel.property.model.Hotel;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
 public interface HotelRepository extends JpaRepository<Hotel, Long>, JpaSpecificationExecutor<Hotel> {
 
+    // Lấy luôn owner và district trong cùng truy vấn để tránh N+1 khi map sang DTO
+    @Override
+    @EntityGraph("Hotel.listing")
+    Page<Hotel> findAll(Specification<Hotel> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph("Hotel.listing")
+    List<Hotel> findAll(Specification<Hotel> spec);
+
+    @Override
+    @EntityGraph("Hotel.listing")
+    List<Hotel> findAllById(Iterable<Long> ids);
+
+    @EntityGraph("Hotel.detail")
+    Optional<Hotel> findDetailById(Long id);
+
+    // Khóa dòng khách sạn (SELECT ... FOR UPDATE) để tuần tự hóa việc đặt phòng giữa các node
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hotel h WHERE h.id = :hotelId")
+    Optional<Hotel> findByIdForUpdate(@Param("hotelId") Long hotelId);
+
     @Query("SELECT COALESCE(AVG(r.stars), 0.0) FROM Rating r WHERE r.hotel.id = :hotelId")
     Double findAverageRatingByHotelId(@Param("hotelId") Long hotelId);
 
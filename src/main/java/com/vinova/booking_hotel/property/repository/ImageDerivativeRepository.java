@@ -0,0 +1,29 @@
+package com.vinova.booking_hotel.property.repository;
+
+import com.vinova.booking_hotel.common.enums.ImageSize;
+import com.vinova.booking_hotel.property.model.ImageDerivative;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ImageDerivativeRepository extends JpaRepository<ImageDerivative, Long> {
+    List<ImageDerivative> findBySourceUrlInAndSize(Collection<String> sourceUrls, ImageSize size);
+
+    @Query("SELECT DISTINCT d.sourceUrl FROM ImageDerivative d WHERE d.sourceUrl IN :sourceUrls")
+    List<String> findResizedSourceUrls(@Param("sourceUrls") Collection<String> sourceUrls);
+
+    // Ghi mọi bản thu nhỏ của một request trong một câu lệnh (phần tử thứ i của ba mảng là một dòng);
+    // cùng một ảnh có thể được thu nhỏ đồng thời bởi hai request, bản ghi sau bị bỏ qua
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO image_derivatives (source_url, size, url, create_dt) " +
+            "SELECT d.source_url, d.size, d.url, now() " +
+            "FROM unnest(CAST(:sourceUrls AS text[]), CAST(:sizes AS text[]), CAST(:urls AS text[])) AS d(source_url, size, url) " +
+            "ON CONFLICT (source_url, size) DO NOTHING", nativeQuery = true)
+    int insertAllIfAbsent(@Param("sourceUrls") String[] sourceUrls, @Param("sizes") String[] sizes, @Param("urls") String[] urls);
+}
@@ -0,0 +1,17 @@
+package com.vinova.booking_hotel.property.repository;
+
+import com.vinova.booking_hotel.property.model.UploadedImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface UploadedImageRepository extends JpaRepository<UploadedImage, String> {
+
+    // Hai request upload cùng một ảnh mới thì giữ URL của request ghi trước và trả URL đó cho cả hai;
+    // DO UPDATE không đổi dữ liệu, chỉ để RETURNING trả về cả dòng đã có
+    @Transactional
+    @Query(value = "INSERT INTO uploaded_images (content_hash, url, create_dt) VALUES (:contentHash, :url, now()) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET content_hash = EXCLUDED.content_hash RETURNING url", nativeQuery = true)
+    String insertOrFindUrl(@Param("contentHash") String contentHash, @Param("url") String url);
+}
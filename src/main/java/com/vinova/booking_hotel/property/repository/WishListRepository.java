@@ -14,6 +14,10 @@ public interface WishListRepository extends JpaRepository<WishList, Long> {
     
     WishList findByAccountAndHotel(Account account, Hotel hotel);
 
+    // Chỉ lấy id khách sạn, không tải WishList cùng Hotel của từng dòng
+    @Query("SELECT wl.hotel.id FROM WishList wl WHERE wl.account.id = :accountId")
+    List<Long> findHotelIdsByAccountId(@Param("accountId") Long accountId);
+
     @Modifying
     @Query("DELETE FROM WishList wl WHERE wl.hotel.id = :hotelId")
     void deleteWishListsByHotelId(@Param("hotelId") Long hotelId);
@@ -0,0 +1,9 @@
+package com.vinova.booking_hotel.property.repository.projection;
+
+import java.time.ZonedDateTime;
+
+public interface BookedRangeView {
+    ZonedDateTime getStartDate();
+
+    ZonedDateTime getEndDate();
+}
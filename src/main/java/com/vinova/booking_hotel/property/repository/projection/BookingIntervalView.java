@@ -0,0 +1,13 @@
+package com.vinova.booking_hotel.property.repository.projection;
+
+import java.time.ZonedDateTime;
+
+public interface BookingIntervalView {
+    Long getId();
+
+    Long getHotelId();
+
+    ZonedDateTime getStartDate();
+
+    ZonedDateTime getEndDate();
+}
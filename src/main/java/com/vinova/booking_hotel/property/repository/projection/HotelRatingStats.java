@@ -0,0 +1,9 @@
+package com.vinova.booking_hotel.property.repository.projection;
+
+public interface HotelRatingStats {
+    Long getHotelId();
+
+    Double getAverageRating();
+
+    Long getReviewCount();
+}
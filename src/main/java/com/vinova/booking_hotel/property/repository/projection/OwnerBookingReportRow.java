@@ -0,0 +1,27 @@
+package com.vinova.booking_hotel.property.repository.projection;
+
+import com.vinova.booking_hotel.common.enums.BookingStatus;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+// Một dòng báo cáo ngày: chủ khách sạn kèm một booking (booking = null nếu chủ không có booking nào trong ngày)
+public interface OwnerBookingReportRow {
+    Long getOwnerId();
+
+    String getOwnerEmail();
+
+    String getOwnerUsername();
+
+    Long getBookingId();
+
+    String getHotelName();
+
+    ZonedDateTime getStartDate();
+
+    ZonedDateTime getEndDate();
+
+    BigDecimal getTotalPrice();
+
+    BookingStatus getStatus();
+}
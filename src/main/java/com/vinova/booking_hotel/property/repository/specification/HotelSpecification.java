@@ -1,7 +1,10 @@
 package com.vinova.booking_hotel.property.repository.specification;
 
+import com.vinova.booking_hotel.common.enums.BookingStatus;
 import com.vinova.booking_hotel.property.model.Booking;
 import com.vinova.booking_hotel.property.model.HotelAmenity;
+import com.vinova.booking_hotel.property.model.HotelRatingSummary;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
@@ -11,6 +14,7 @@ import com.vinova.booking_hotel.property.model.Hotel;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class HotelSpecification {
@@ -78,23 +82,48 @@ public class HotelSpecification {
             Subquery<Long> subquery = query.subquery(Long.class);
             Root<Booking> subRoot = subquery.from(Booking.class);
 
-            // Điều kiện cho subquery: tìm các booking liên quan đến khách sạn trong khoảng thời gian
+            // Điều kiện cho subquery: tìm các booking chưa bị hủy chồng lấn với khoảng thời gian
             subquery.select(subRoot.get("id"))
                     .where(criteriaBuilder.and(
                             criteriaBuilder.equal(subRoot.get("hotel"), root),
-                            criteriaBuilder.or(
-                                    criteriaBuilder.between(subRoot.get("startDate"), startDate, endDate),
-                                    criteriaBuilder.between(subRoot.get("endDate"), startDate, endDate),
-                                    criteriaBuilder.and(
-                                            criteriaBuilder.lessThan(subRoot.get("startDate"), startDate),
-                                            criteriaBuilder.greaterThan(subRoot.get("endDate"), endDate)
-                                    )
-                            )
+                            criteriaBuilder.notEqual(subRoot.get("status"), BookingStatus.CANCELLED),
+                            criteriaBuilder.lessThan(subRoot.get("startDate"), endDate),
+                            criteriaBuilder.greaterThan(subRoot.get("endDate"), startDate)
                     ));
 
             // Kiểm tra xem khách sạn không có booking nào trong khoảng thời gian
             return criteriaBuilder.not(criteriaBuilder.exists(subquery));
         };
     }
+
+    public static Specification<Hotel> hasIdNotIn(Set<Long> hotelIds) {
+        return (root, query, criteriaBuilder) -> hotelIds == null || hotelIds.isEmpty() ?
+                criteriaBuilder.conjunction() : criteriaBuilder.not(root.get("id").in(hotelIds));
+    }
+
+    // Sắp xếp theo rating trung bình ngay trong SQL để phân trang bằng LIMIT/OFFSET
+    public static Specification<Hotel> orderByAverageRating(boolean descending) {
+        return (root, query, criteriaBuilder) -> {
+            assert query != null;
+            // Bỏ qua với truy vấn count của Page
+            if (Long.class.equals(query.getResultType()) || long.class.equals(query.getResultType())) {
+                return criteriaBuilder.conjunction();
+            }
+
+            // Đọc rating trung bình đã tổng hợp sẵn, khách sạn chưa có đánh giá được tính là 0
+            Subquery<Double> subquery = query.subquery(Double.class);
+            Root<HotelRatingSummary> subRoot = subquery.from(HotelRatingSummary.class);
+            subquery.select(subRoot.get("averageRating"))
+                    .where(criteriaBuilder.equal(subRoot.get("hotelId"), root.get("id")));
+            Expression<Double> averageRating = criteriaBuilder.coalesce(subquery, 0.0);
+
+            // Thêm id để thứ tự ổn định giữa các trang khi rating bằng nhau
+            query.orderBy(
+                    descending ? criteriaBuilder.desc(averageRating) : criteriaBuilder.asc(averageRating),
+                    criteriaBuilder.asc(root.get("id"))
+            );
+            return criteriaBuilder.conjunction();
+        };
+    }
     
-}
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.vinova.booking_hotel.property.service;
+
+import com.vinova.booking_hotel.property.model.Booking;
+
+import java.time.ZonedDateTime;
+import java.util.Set;
+
+public interface AvailabilityService {
+
+    // Index đã được nạp từ database hay chưa, nếu chưa thì tìm kiếm dùng truy vấn SQL
+    boolean isReady();
+
+    Set<Long> findBookedHotelIds(ZonedDateTime startDate, ZonedDateTime endDate);
+
+    boolean isAvailable(Long hotelId, ZonedDateTime startDate, ZonedDateTime endDate);
+
+    void addBooking(Booking booking);
+
+    void removeBooking(Booking booking);
+
+    void removeHotel(Long hotelId);
+
+    void reload();
+}
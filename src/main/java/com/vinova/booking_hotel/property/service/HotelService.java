@@ -1,7 +1,9 @@
 package com.vinova.booking_hotel.property.service;
 
+import com.vinova.booking_hotel.common.pagination.CursorPageResponseDto;
 import com.vinova.booking_hotel.property.dto.request.AddHotelRequestDto;
 import com.vinova.booking_hotel.property.dto.request.AddImagesRequestDto;
+import com.vinova.booking_hotel.property.dto.response.CacheStatsResponseDto;
 import com.vinova.booking_hotel.property.dto.response.HotelResponseDto;
 import com.vinova.booking_hotel.property.dto.response.ImageResponseDto;
 
@@ -14,9 +16,15 @@ public interface HotelService {
     //Loc theo districtId, AccountId, 
     List<HotelResponseDto> hotels(Long accountId, Long districtId, String name, BigDecimal minPrice, BigDecimal maxPrice, List<String> amenityNames, ZonedDateTime startDate, ZonedDateTime endDate, int pageIndex, int pageSize, String sortBy, String sortOrder);
 
+    // Phân trang theo cursor (keyset), không dùng OFFSET và không truy vấn count
+    CursorPageResponseDto<HotelResponseDto> hotelsByCursor(Long accountId, Long districtId, String name, BigDecimal minPrice, BigDecimal maxPrice, List<String> amenityNames, ZonedDateTime startDate, ZonedDateTime endDate, String cursor, int pageSize, String sortBy, String sortOrder);
+
     List<HotelResponseDto> wishlist(String token);
     
     HotelResponseDto hotel(Long id);
+
+    // Số lần trúng/trượt cache chi tiết khách sạn trên node hiện tại
+    CacheStatsResponseDto detailCacheStats();
     
    HotelResponseDto create(AddHotelRequestDto requestDto, String token);
 
@@ -1,13 +1,13 @@
 package com.vinova.booking_hotel.property.service;
 
-import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.property.model.Booking;
+import com.vinova.booking_hotel.property.report.OwnerBookingReport;
+import com.vinova.booking_hotel.property.report.PdfRenderStats;
 
 import java.time.LocalDate;
-import java.util.List;
 
 public interface PdfService {
-    String createBookingReport(List<Booking> bookings, LocalDate date);
+    // Tạo báo cáo ngày của một chủ khách sạn hoàn toàn trong bộ nhớ, an toàn khi gọi song song
+    byte[] renderOwnerBookingReport(OwnerBookingReport report, LocalDate date);
 
-    String createBookingReportNoBookings(Account owner, LocalDate date);
-}
\ No newline at end of file
+    PdfRenderStats renderStats();
+}
@@ -0,0 +1,19 @@
+package com.vinova.booking_hotel.property.service;
+
+import com.vinova.booking_hotel.property.dto.response.PriceQuoteResponseDto;
+import com.vinova.booking_hotel.property.model.Hotel;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+public interface PricingService {
+
+    BigDecimal totalPrice(Hotel hotel, ZonedDateTime startDate, ZonedDateTime endDate);
+
+    PriceQuoteResponseDto quote(Long hotelId, ZonedDateTime startDate, ZonedDateTime endDate);
+
+    // Xóa giá và lịch giảm giá đã cache khi khách sạn hoặc giảm giá của nó thay đổi
+    void evict(Long hotelId);
+
+    void evictAll();
+}
@@ -0,0 +1,262 @@
+package com.vinova.booking_hotel.property.service.impl;
+
+import com.vinova.booking_hotel.common.enums.BookingStatus;
+import com.vinova.booking_hotel.property.event.HotelDeletedEvent;
+import com.vinova.booking_hotel.property.model.Booking;
+import com.vinova.booking_hotel.property.repository.BookingRepository;
+import com.vinova.booking_hotel.property.repository.projection.BookingIntervalView;
+import com.vinova.booking_hotel.property.service.AvailabilityService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class AvailabilityServiceImpl implements AvailabilityService {
+
+    private final BookingRepository bookingRepository;
+
+    // hotelId -> các khoảng đã đặt (immutable, thay thế nguyên khối khi ghi nên đọc không cần khóa)
+    private volatile Map<Long, HotelIntervals> index = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    private final Object writeLock = new Object();
+    // Các thay đổi xảy ra trong lúc reload, sẽ được áp dụng lại lên index mới
+    private List<IntervalChange> pendingChanges;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Set<Long> findBookedHotelIds(ZonedDateTime startDate, ZonedDateTime endDate) {
+        long from = startDate.toEpochSecond();
+        long to = endDate.toEpochSecond();
+        Set<Long> bookedHotelIds = new HashSet<>();
+        index.forEach((hotelId, intervals) -> {
+            if (intervals.overlaps(from, to)) {
+                bookedHotelIds.add(hotelId);
+            }
+        });
+        return bookedHotelIds;
+    }
+
+    @Override
+    public boolean isAvailable(Long hotelId, ZonedDateTime startDate, ZonedDateTime endDate) {
+        HotelIntervals intervals = index.get(hotelId);
+        return intervals == null || !intervals.overlaps(startDate.toEpochSecond(), endDate.toEpochSecond());
+    }
+
+    @Override
+    public void addBooking(Booking booking) {
+        if (booking.getStatus() == BookingStatus.CANCELLED) {
+            removeBooking(booking);
+            return;
+        }
+        apply(new IntervalChange(booking.getHotel().getId(), booking.getId(),
+                booking.getStartDate().toEpochSecond(), booking.getEndDate().toEpochSecond(), false));
+    }
+
+    @Override
+    public void removeBooking(Booking booking) {
+        apply(new IntervalChange(booking.getHotel().getId(), booking.getId(), 0, 0, true));
+    }
+
+    @Override
+    public void removeHotel(Long hotelId) {
+        apply(new IntervalChange(hotelId, null, 0, 0, true));
+    }
+
+    // Chỉ bỏ khách sạn khỏi index khi việc xóa đã commit, rollback thì index vẫn đúng
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHotelDeleted(HotelDeletedEvent event) {
+        removeHotel(event.getHotelId());
+    }
+
+    // Nạp lại toàn bộ từ database khi khởi động và định kỳ để đồng bộ với các node khác.
+    // Chạy trên thread của scheduler (initialDelay = 0) nên không chặn quá trình khởi động;
+    // trong lúc chưa nạp xong isReady() = false và truy vấn vẫn đi thẳng xuống database
+    @Override
+    @Scheduled(fixedDelay = 300000, initialDelay = 0)
+    public void reload() {
+        synchronized (writeLock) {
+            pendingChanges = new ArrayList<>();
+        }
+
+        Map<Long, List<BookingIntervalView>> intervalsByHotel = new HashMap<>();
+        try {
+            for (BookingIntervalView interval : bookingRepository.findActiveIntervalsEndingAfter(ZonedDateTime.now(), BookingStatus.CANCELLED)) {
+                intervalsByHotel.computeIfAbsent(interval.getHotelId(), id -> new ArrayList<>()).add(interval);
+            }
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                pendingChanges = null;
+            }
+            throw e;
+        }
+
+        Map<Long, HotelIntervals> newIndex = new ConcurrentHashMap<>();
+        intervalsByHotel.forEach((hotelId, intervals) -> newIndex.put(hotelId, HotelIntervals.of(intervals)));
+
+        synchronized (writeLock) {
+            for (IntervalChange change : pendingChanges) {
+                applyTo(newIndex, change);
+            }
+            pendingChanges = null;
+            index = newIndex;
+            ready = true;
+        }
+    }
+
+    private void apply(IntervalChange change) {
+        synchronized (writeLock) {
+            applyTo(index, change);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        }
+    }
+
+    private static void applyTo(Map<Long, HotelIntervals> target, IntervalChange change) {
+        if (change.bookingId() == null) {
+            target.remove(change.hotelId());
+            return;
+        }
+        HotelIntervals current = target.getOrDefault(change.hotelId(), HotelIntervals.EMPTY);
+        HotelIntervals updated = change.removed()
+                ? current.without(change.bookingId())
+                : current.with(change.bookingId(), change.start(), change.end());
+        if (updated.isEmpty()) {
+            target.remove(change.hotelId());
+        } else {
+            target.put(change.hotelId(), updated);
+        }
+    }
+
+    private record IntervalChange(Long hotelId, Long bookingId, long start, long end, boolean removed) {
+    }
+
+    // Các khoảng [start, end) của một khách sạn, sắp xếp theo start, lưu bằng mảng long (epoch second)
+    static final class HotelIntervals {
+
+        static final HotelIntervals EMPTY = new HotelIntervals(new long[0], new long[0], new long[0]);
+
+        private final long[] bookingIds;
+        private final long[] starts;
+        private final long[] ends;
+        // maxEnds[i] = max(ends[0..i]) để kiểm tra chồng lấn bằng một lần tìm kiếm nhị phân
+        private final long[] maxEnds;
+
+        private HotelIntervals(long[] bookingIds, long[] starts, long[] ends) {
+            this.bookingIds = bookingIds;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new long[ends.length];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+
+        // Dựng một lần: sắp xếp theo start rồi điền thẳng vào mảng, tránh with() từng phần tử (O(n²))
+        static HotelIntervals of(List<BookingIntervalView> intervals) {
+            int size = intervals.size();
+            long[][] rows = new long[size][];
+            for (int i = 0; i < size; i++) {
+                BookingIntervalView interval = intervals.get(i);
+                rows[i] = new long[]{interval.getId(), interval.getStartDate().toEpochSecond(), interval.getEndDate().toEpochSecond()};
+            }
+            Arrays.sort(rows, Comparator.comparingLong(row -> row[1]));
+
+            long[] bookingIds = new long[size];
+            long[] starts = new long[size];
+            long[] ends = new long[size];
+            for (int i = 0; i < size; i++) {
+                bookingIds[i] = rows[i][0];
+                starts[i] = rows[i][1];
+                ends[i] = rows[i][2];
+            }
+            return new HotelIntervals(bookingIds, starts, ends);
+        }
+
+        boolean isEmpty() {
+            return starts.length == 0;
+        }
+
+        // Chồng lấn khi start < to và end > from (giống BookingRepository.findByHotelIdAndDateRange)
+        boolean overlaps(long from, long to) {
+            int candidates = lowerBound(starts, to); // các khoảng có start < to
+            return candidates > 0 && maxEnds[candidates - 1] > from;
+        }
+
+        HotelIntervals with(long bookingId, long start, long end) {
+            HotelIntervals base = without(bookingId);
+            int size = base.starts.length;
+            int position = upperBound(base.starts, start);
+            long[] newIds = new long[size + 1];
+            long[] newStarts = new long[size + 1];
+            long[] newEnds = new long[size + 1];
+            insert(base.bookingIds, newIds, position, bookingId);
+            insert(base.starts, newStarts, position, start);
+            insert(base.ends, newEnds, position, end);
+            return new HotelIntervals(newIds, newStarts, newEnds);
+        }
+
+        HotelIntervals without(long bookingId) {
+            for (int i = 0; i < bookingIds.length; i++) {
+                if (bookingIds[i] == bookingId) {
+                    return new HotelIntervals(remove(bookingIds, i), remove(starts, i), remove(ends, i));
+                }
+            }
+            return this;
+        }
+
+        private static int lowerBound(long[] values, long key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int upperBound(long[] values, long key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static void insert(long[] source, long[] target, int position, long value) {
+            System.arraycopy(source, 0, target, 0, position);
+            target[position] = value;
+            System.arraycopy(source, position, target, position + 1, source.length - position);
+        }
+
+        private static long[] remove(long[] source, int position) {
+            long[] target = new long[source.length - 1];
+            System.arraycopy(source, 0, target, 0, position);
+            System.arraycopy(source, position + 1, target, position, source.length - position - 1);
+            return target;
+        }
+    }
+}
@@ -2,24 +2,30 @@ package com.vinova.booking_hotel.property.service.impl;
 
 import com.vinova.booking_hotel.authentication.dto.response.*;
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.repository.projection.AccountSummary;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
+import com.vinova.booking_hotel.common.concurrency.StripedLocks;
 import com.vinova.booking_hotel.common.enums.*;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.payment.dto.*;
-import com.vinova.booking_hotel.payment.service.StripeService;
+import com.vinova.booking_hotel.payment.service.PaymentSessionService;
 import com.vinova.booking_hotel.property.dto.request.AddBookingRequestDto;
 import com.vinova.booking_hotel.property.dto.response.*;
+import com.vinova.booking_hotel.property.event.HotelChangedEvent;
 import com.vinova.booking_hotel.property.model.*;
 import com.vinova.booking_hotel.property.repository.*;
+import com.vinova.booking_hotel.property.service.AvailabilityService;
 import com.vinova.booking_hotel.property.service.BookingService;
+import com.vinova.booking_hotel.property.service.PricingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,17 +34,20 @@ public class BookingServiceImpl implements BookingService {
     
     private final BookingRepository bookingRepository;
     private final HotelRepository hotelRepository;
-    private final AccountRepository accountRepository; 
-    private final JwtUtils jwtUtils;
-    private final HotelDiscountRepository hotelDiscountRepository;
-    private final StripeService stripeService;
+    private final CurrentAccount currentAccount;
+    private final PricingService pricingService;
+    private final PaymentSessionService paymentSessionService;
+    private final AvailabilityService availabilityService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Khóa trong bộ nhớ theo hotelId, các request cùng khách sạn trên một node chờ tại đây thay vì giữ connection chờ khóa DB
+    private final StripedLocks hotelLocks = new StripedLocks(64);
 
     @Override
     public StripeResponseDto createBooking(AddBookingRequestDto requestDto, String token) {
-        // Lấy accountId từ token
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("account"));
+        // Chỉ đọc các cột cơ bản của tài khoản hiện tại, không tải hotels/roles
+        AccountSummary account = currentAccount.summary(token);
 
         // Tìm khách sạn theo hotelId
         Hotel hotel = hotelRepository.findById(requestDto.getHotelId())
@@ -55,50 +64,25 @@ public class BookingServiceImpl implements BookingService {
             throw new RuntimeException("Booking dates must not be in the past");
         }
 
-        // Kiểm tra xem có bất kỳ booking nào đã tồn tại cho khoảng thời gian này không
-        List<Booking> existingBookings = bookingRepository.findByHotelIdAndDateRange(requestDto.getHotelId(), requestDto.getStartDate(), requestDto.getEndDate());
-
-        // Kiểm tra nếu có booking đang hoạt động (không phải CANCELLED)
-        boolean hasActiveBooking = existingBookings.stream()
-                .anyMatch(booking -> booking.getStatus() != BookingStatus.CANCELLED);
-
-        if (hasActiveBooking) {
-            throw new RuntimeException("This hotel is already booked for the selected dates");
-        }
-
         // Tính tổng giá dựa trên thời gian và giảm giá
         BigDecimal totalPrice = calculateTotalPrice(requestDto, hotel);
 
-        // Tạo booking mới
-        Booking booking = new Booking();
-        booking.setStartDate(requestDto.getStartDate());
-        booking.setEndDate(requestDto.getEndDate());
-        booking.setTotalPrice(totalPrice);
-        booking.setStatus(BookingStatus.PENDING);
-        booking.setHotel(hotel);
-        booking.setAccount(account);
-
-        Booking savedBooking = bookingRepository.save(booking);
-
-        // Tạo PaymentRequestDto
-        PaymentRequestDto paymentRequestDto = new PaymentRequestDto(
-                savedBooking.getTotalPrice().longValue() * 100,
-                1L,
-                hotel.getName(),
-                "USD"
-        );
+        Booking savedBooking = reserve(requestDto, hotel, currentAccount.reference(token), totalPrice);
+        availabilityService.addBooking(savedBooking);
+        eventPublisher.publishEvent(new HotelChangedEvent(hotel.getId()));
 
-        // Gọi dịch vụ thanh toán
-        StripeResponseDto stripe = stripeService.checkoutBooking(paymentRequestDto, savedBooking.getId());
+        // Stripe session được tạo bất đồng bộ, client lấy link thanh toán qua API polling
+        paymentSessionService.dispatch(savedBooking.getId());
 
         // Tạo đối tượng phản hồi StripeResponseDto
         StripeResponseDto response = new StripeResponseDto();
+        response.setPaymentStatus(PaymentSessionStatus.PENDING.toString());
         response.setBooking(new BookingResponseDto(
                 savedBooking.getId(),
                 savedBooking.getStartDate(),
                 savedBooking.getEndDate(),
                 savedBooking.getTotalPrice(),
-                booking.getStatus().toString(),
+                savedBooking.getStatus().toString(),
                 savedBooking.getCreateDt(),
                 new HotelResponseDto(
                         hotel.getId(),
@@ -128,59 +112,65 @@ public class BookingServiceImpl implements BookingService {
                 )
         ));
 
-        // Thêm thông tin phiên thanh toán vào phản hồi
-        response.setSessionId(stripe.getSessionId());
-        response.setSessionUrl(stripe.getSessionUrl());
-
         return response;
     }
 
-    private BigDecimal calculateTotalPrice(AddBookingRequestDto requestDto, Hotel hotel) {
-        ZonedDateTime startDate = requestDto.getStartDate();
-        ZonedDateTime endDate = requestDto.getEndDate();
-        BigDecimal totalPrice = BigDecimal.ZERO;
-
-        // Lấy danh sách giảm giá của khách sạn
-        List<HotelDiscount> hotelDiscounts = hotelDiscountRepository.findByHotelId(hotel.getId());
-
-        // Duyệt từ startDate đến endDate theo từng ngày
-        ZonedDateTime currentDate = startDate;
-
-        while (currentDate.isBefore(endDate)) {
-            BigDecimal dailyPrice = hotel.getPricePerDay();
-
-            // Kiểm tra từng giảm giá để tính toán
-            for (HotelDiscount hotelDiscount : hotelDiscounts) {
-                // Kiểm tra xem ngày hiện tại có nằm trong khoảng giảm giá không
-                if (hotelDiscount.getStartDate().isBefore(currentDate.plusDays(1)) && hotelDiscount.getEndDate().isAfter(currentDate)) {
-                    // Nếu có, tính toán giá sau giảm giá
-                    BigDecimal discountRate = hotelDiscount.getDiscount().getRate().divide(BigDecimal.valueOf(100));
-                    dailyPrice = dailyPrice.multiply(BigDecimal.ONE.subtract(discountRate));
+    // Kiểm tra trùng lịch và lưu booking trong cùng một transaction, giữ khóa của khách sạn trong suốt quá trình
+    private Booking reserve(AddBookingRequestDto requestDto, Hotel hotel, Account account, BigDecimal totalPrice) {
+        ReentrantLock lock = hotelLocks.lockFor(hotel.getId());
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> {
+                // Khóa dòng khách sạn trong database để các node khác cũng phải chờ
+                hotelRepository.findByIdForUpdate(hotel.getId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
+
+                // Kiểm tra xem có bất kỳ booking nào đã tồn tại cho khoảng thời gian này không
+                List<Booking> existingBookings = bookingRepository.findByHotelIdAndDateRange(hotel.getId(), requestDto.getStartDate(), requestDto.getEndDate());
+
+                // Kiểm tra nếu có booking đang hoạt động (không phải CANCELLED)
+                boolean hasActiveBooking = existingBookings.stream()
+                        .anyMatch(booking -> booking.getStatus() != BookingStatus.CANCELLED);
+
+                if (hasActiveBooking) {
+                    throw new RuntimeException("This hotel is already booked for the selected dates");
                 }
-            }
 
-            // Cộng dồn giá vào totalPrice
-            totalPrice = totalPrice.add(dailyPrice);
-
-            // Tiến đến ngày tiếp theo
-            currentDate = currentDate.plusDays(1);
+                // Tạo booking mới
+                Booking booking = new Booking();
+                booking.setStartDate(requestDto.getStartDate());
+                booking.setEndDate(requestDto.getEndDate());
+                booking.setTotalPrice(totalPrice);
+                booking.setStatus(BookingStatus.PENDING);
+                booking.setHotel(hotel);
+                booking.setAccount(account);
+
+                Booking savedBooking = bookingRepository.save(booking);
+
+                // Ghi outbox tạo Stripe session trong cùng transaction với booking
+                paymentSessionService.enqueue(savedBooking);
+                return savedBooking;
+            });
+        } finally {
+            lock.unlock();
         }
+    }
 
-        return totalPrice;
+    private BigDecimal calculateTotalPrice(AddBookingRequestDto requestDto, Hotel hotel) {
+        // Tính theo từng đoạn giảm giá thay vì duyệt từng ngày
+        return pricingService.totalPrice(hotel, requestDto.getStartDate(), requestDto.getEndDate());
     }
 
     @Override
     public Void cancelBooking(Long bookingId, String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         // Tìm booking theo bookingId
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking"));
 
         // Kiểm tra xem account có phải là chủ sở hữu của booking không
-        if (!booking.getAccount().getId().equals(account.getId())) {
+        if (!booking.getAccount().getId().equals(accountId)) {
             throw new RuntimeException("You do not have permission to cancel this booking");
         }
 
@@ -192,22 +182,22 @@ public class BookingServiceImpl implements BookingService {
         // Cập nhật trạng thái của booking
         booking.setStatus(BookingStatus.CANCELLED);
         bookingRepository.save(booking);
+        availabilityService.removeBooking(booking);
+        eventPublisher.publishEvent(new HotelChangedEvent(booking.getHotel().getId()));
 
         return null;
     }
 
     @Override
     public Void confirmBooking(Long bookingId, String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         // Tìm booking theo bookingId
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking"));
 
         // Kiểm tra xem account có phải là chủ sở hữu của hotel không
-        if (!booking.getHotel().getAccount().getId().equals(account.getId())) {
+        if (!booking.getHotel().getAccount().getId().equals(accountId)) {
             throw new RuntimeException("You do not have permission to confirm this booking");
         }
 
@@ -225,11 +215,9 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingResponseDto> getBookingsByToken(String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        AccountSummary account = currentAccount.summary(token);
         
-        List<Booking> bookings = bookingRepository.findByAccount(account);
+        List<Booking> bookings = bookingRepository.findByAccountId(account.getId());
 
         return bookings.stream()
                 .map(booking -> new BookingResponseDto(
@@ -265,12 +253,10 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingResponseDto> getReservations(String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        AccountSummary account = currentAccount.summary(token);
 
         // Lấy danh sách booking của tài khoản
-        List<Booking> bookings = bookingRepository.findByAccount(account);
+        List<Booking> bookings = bookingRepository.findByAccountId(account.getId());
 
         // Lọc những booking nằm trong tương lai
         ZonedDateTime now = ZonedDateTime.now();
@@ -311,9 +297,7 @@ public class BookingServiceImpl implements BookingService {
     @Override
     public List<BookingResponseDto> getBookingsByHotelId(Long hotelId, String token) {
         // Lấy accountId từ token
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         // Tìm khách sạn theo hotelId
         Hotel hotel = hotelRepository.findById(hotelId)
@@ -364,9 +348,7 @@ public class BookingServiceImpl implements BookingService {
     @Override
     public List<BookingResponseDto> getReservationsByHotelId(Long hotelId, String token) {
         // Lấy accountId từ token
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         // Tìm khách sạn theo hotelId
         Hotel hotel = hotelRepository.findById(hotelId)
@@ -458,21 +440,10 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingResponseDto> getStatisticForOwner(String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account ownerAccount = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
-
-        // Lấy tất cả các khách sạn thuộc về tài khoản chủ sở hữu này
-        List<Hotel> ownedHotels = ownerAccount.getHotels();
+        Long accountId = currentAccount.id(token);
 
-        // Tạo một danh sách để chứa tất cả các booking từ các khách sạn này
-        List<Booking> allBookings = new ArrayList<>();
-
-        // Duyệt qua từng khách sạn và lấy danh sách booking của nó
-        for (Hotel hotel : ownedHotels) {
-            List<Booking> hotelBookings = bookingRepository.findByHotel(hotel);
-            allBookings.addAll(hotelBookings);
-        }
+        // Lấy tất cả booking thuộc các khách sạn của chủ sở hữu này trong một truy vấn
+        List<Booking> allBookings = bookingRepository.findByHotelAccountId(accountId);
 
         // Chuyển đổi danh sách Booking thành danh sách BookingResponseDto
         return allBookings.stream()
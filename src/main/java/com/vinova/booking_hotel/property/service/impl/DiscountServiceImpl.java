@@ -3,10 +3,13 @@ package com.vinova.booking_hotel.property.service.impl;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.property.dto.request.AddDiscountRequestDto;
 import com.vinova.booking_hotel.property.dto.response.DiscountResponseDto;
+import com.vinova.booking_hotel.property.event.HotelChangedEvent;
 import com.vinova.booking_hotel.property.model.Discount;
 import com.vinova.booking_hotel.property.repository.DiscountRepository;
 import com.vinova.booking_hotel.property.service.DiscountService;
+import com.vinova.booking_hotel.property.service.PricingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.util.List;
 
@@ -15,6 +18,8 @@ import java.util.List;
 public class DiscountServiceImpl implements DiscountService {
 
     private final DiscountRepository discountRepository;
+    private final PricingService pricingService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<DiscountResponseDto> discounts() {
@@ -50,6 +55,9 @@ public class DiscountServiceImpl implements DiscountService {
             discount.setRate(requestDto.getRate());
         }
         discountRepository.save(discount);
+        // Mức giảm giá dùng chung cho nhiều khách sạn nên xóa toàn bộ cache giá
+        pricingService.evictAll();
+        eventPublisher.publishEvent(HotelChangedEvent.allHotels());
 
         return new DiscountResponseDto(discount.getId(), discount.getRate());
     }
@@ -59,6 +67,8 @@ public class DiscountServiceImpl implements DiscountService {
         Discount discount = discountRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Discount"));
         discountRepository.delete(discount);
+        pricingService.evictAll();
+        eventPublisher.publishEvent(HotelChangedEvent.allHotels());
 
         return null;
     }
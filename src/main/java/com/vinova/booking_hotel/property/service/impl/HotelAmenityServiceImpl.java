@@ -1,8 +1,6 @@
 package com.vinova.booking_hotel.property.service.impl;
 
-import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.property.dto.request.AddAmenityToHotelRequestDto;
 import com.vinova.booking_hotel.property.dto.request.DeleteAmenityFromHotelRequestDto;
@@ -24,8 +22,7 @@ public class HotelAmenityServiceImpl implements HotelAmenityService {
     private final HotelAmenityRepository hotelAmenityRepository;
     private final AmenityRepository amenityRepository;;
     private final HotelRepository hotelRepository;
-    private final JwtUtils jwtUtils;
-    private final AccountRepository accountRepository;
+    private final CurrentAccount currentAccount;
 
     @Override
     public String addAmenityToHotel(AddAmenityToHotelRequestDto requestDto, String token) {
@@ -34,12 +31,10 @@ public class HotelAmenityServiceImpl implements HotelAmenityService {
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
 
         // Lấy accountId từ token
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         // Kiểm tra quyền truy cập
-        if (!hotel.getAccount().getId().equals(account.getId())) {
+        if (!hotel.getAccount().getId().equals(accountId)) {
             throw new RuntimeException("You do not have permission to add amenity to this hotel");
         }
 
@@ -73,11 +68,9 @@ public class HotelAmenityServiceImpl implements HotelAmenityService {
         Hotel hotel = hotelRepository.findById(requestDto.getHotelId())
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
 
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
-        if (!hotel.getAccount().getId().equals(account.getId())) {
+        if (!hotel.getAccount().getId().equals(accountId)) {
             throw new RuntimeException("You do not have permission to remove amenities from this hotel");
         }
 
@@ -0,0 +1,43 @@
+package com.vinova.booking_hotel.property.service.impl;
+
+import com.vinova.booking_hotel.common.cache.ExpiringCache;
+import com.vinova.booking_hotel.property.dto.response.CacheStatsResponseDto;
+import com.vinova.booking_hotel.property.dto.response.HotelResponseDto;
+import com.vinova.booking_hotel.property.event.HotelChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+// Cache trang chi tiết khách sạn; bị xóa theo HotelChangedEvent sau khi transaction ghi dữ liệu đã commit
+@Component
+public class HotelDetailCache {
+
+    static final int MAX_ENTRIES = 2_000;
+    // Sự kiện chỉ xóa cache của node hiện tại, TTL giới hạn thời gian node khác còn trả dữ liệu cũ
+    static final Duration CACHE_TTL = Duration.ofMinutes(5);
+
+    private final ExpiringCache<Long, HotelResponseDto> details = new ExpiringCache<>(MAX_ENTRIES, CACHE_TTL);
+
+    public HotelResponseDto get(Long hotelId, Function<Long, HotelResponseDto> loader) {
+        return details.get(hotelId, loader);
+    }
+
+    // fallbackExecution để sự kiện phát ngoài transaction cũng được xử lý ngay
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHotelChanged(HotelChangedEvent event) {
+        if (event.getHotelId() == null) {
+            details.invalidateAll();
+        } else {
+            details.invalidate(event.getHotelId());
+        }
+    }
+
+    public CacheStatsResponseDto stats() {
+        long hits = details.hitCount();
+        long misses = details.missCount();
+        long total = hits + misses;
+        return new CacheStatsResponseDto(hits, misses, total == 0 ? 0.0 : (double) hits / total, details.size());
+    }
+}
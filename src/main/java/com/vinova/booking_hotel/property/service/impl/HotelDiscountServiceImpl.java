@@ -1,18 +1,19 @@
 package com.vinova.booking_hotel.property.service.impl;
 
-import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.property.dto.request.AddDiscountToHotelRequestDto;
 import com.vinova.booking_hotel.property.dto.response.DiscountResponseDto;
 import com.vinova.booking_hotel.property.dto.response.HotelDiscountResponseDto;
+import com.vinova.booking_hotel.property.event.HotelChangedEvent;
 import com.vinova.booking_hotel.property.model.*;
 import com.vinova.booking_hotel.property.repository.DiscountRepository;
 import com.vinova.booking_hotel.property.repository.HotelDiscountRepository;
 import com.vinova.booking_hotel.property.repository.HotelRepository;
 import com.vinova.booking_hotel.property.service.HotelDiscountService;
+import com.vinova.booking_hotel.property.service.PricingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -24,9 +25,10 @@ public class HotelDiscountServiceImpl implements HotelDiscountService {
     
     private final HotelDiscountRepository hotelDiscountRepository;
     private final HotelRepository hotelRepository;
-    private final AccountRepository accountRepository;
-    private final JwtUtils jwtUtils;
+    private final CurrentAccount currentAccount;
     private final DiscountRepository discountRepository;
+    private final PricingService pricingService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public String addDiscountToHotel(AddDiscountToHotelRequestDto requestDto, String token) {
@@ -45,12 +47,10 @@ public class HotelDiscountServiceImpl implements HotelDiscountService {
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
 
         // Lấy accountId từ token
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         // Kiểm tra quyền truy cập
-        if (!hotel.getAccount().getId().equals(account.getId())) {
+        if (!hotel.getAccount().getId().equals(accountId)) {
             throw new RuntimeException("You do not have permission to add discount to this hotel");
         }
 
@@ -69,6 +69,8 @@ public class HotelDiscountServiceImpl implements HotelDiscountService {
             hotelDiscount.setDiscount(existingDiscount);
             hotelDiscount.setHotel(hotel);
             hotelDiscountRepository.save(hotelDiscount);
+            pricingService.evict(hotel.getId());
+            eventPublisher.publishEvent(new HotelChangedEvent(hotel.getId()));
             return  "Discount added to hotel";
         }
 
@@ -84,6 +86,8 @@ public class HotelDiscountServiceImpl implements HotelDiscountService {
         hotelDiscount.setDiscount(savedDiscount);
         hotelDiscount.setHotel(hotel);
         hotelDiscountRepository.save(hotelDiscount);
+        pricingService.evict(hotel.getId());
+        eventPublisher.publishEvent(new HotelChangedEvent(hotel.getId()));
 
         return "Discount added to hotel";
     }
@@ -98,17 +102,17 @@ public class HotelDiscountServiceImpl implements HotelDiscountService {
         Hotel hotel = hotelDiscount.getHotel();
 
         // Lấy accountId từ token
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         // Kiểm tra quyền truy cập
-        if (!hotel.getAccount().getId().equals(account.getId())) {
+        if (!hotel.getAccount().getId().equals(accountId)) {
             throw new RuntimeException("You do not have permission to delete discount from this hotel");
         }
 
         // Xóa hotelDiscount
         hotelDiscountRepository.delete(hotelDiscount);
+        pricingService.evict(hotel.getId());
+        eventPublisher.publishEvent(new HotelChangedEvent(hotel.getId()));
 
         return "Discount deleted successfully";
     }
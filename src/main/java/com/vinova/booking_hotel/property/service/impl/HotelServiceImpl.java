@@ -2,27 +2,38 @@ package com.vinova.booking_hotel.property.service.impl;
 
 import com.vinova.booking_hotel.authentication.dto.response.AccountResponseDto;
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
-import com.vinova.booking_hotel.authentication.service.impl.CloudinaryService;
+import com.vinova.booking_hotel.authentication.repository.projection.AccountSummary;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
+import com.vinova.booking_hotel.authentication.service.impl.ImageUploadService;
+import com.vinova.booking_hotel.common.enums.BookingStatus;
 import com.vinova.booking_hotel.common.enums.EntityType;
+import com.vinova.booking_hotel.common.enums.ImageSize;
 import com.vinova.booking_hotel.property.dto.request.AddImagesRequestDto;
 import com.vinova.booking_hotel.property.dto.response.*;
 import com.vinova.booking_hotel.property.model.*;
 import com.vinova.booking_hotel.property.repository.*;
+import com.vinova.booking_hotel.property.repository.projection.BookedRangeView;
+import com.vinova.booking_hotel.property.repository.projection.HotelRatingStats;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.domain.Sort;
 import com.vinova.booking_hotel.common.exception.*;
+import com.vinova.booking_hotel.common.pagination.CursorPageResponseDto;
+import com.vinova.booking_hotel.common.pagination.KeysetCursor;
+import com.vinova.booking_hotel.common.pagination.KeysetSpecification;
 import com.vinova.booking_hotel.property.dto.request.AddHotelRequestDto;
 import com.vinova.booking_hotel.property.dto.response.HotelResponseDto;
+import com.vinova.booking_hotel.property.event.HotelChangedEvent;
+import com.vinova.booking_hotel.property.event.HotelDeletedEvent;
+import com.vinova.booking_hotel.property.service.AvailabilityService;
 import com.vinova.booking_hotel.property.service.HotelService;
+import com.vinova.booking_hotel.property.service.PricingService;
 import com.vinova.booking_hotel.property.repository.specification.HotelSpecification;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
@@ -34,16 +45,25 @@ import java.util.stream.Collectors;
 public class HotelServiceImpl implements HotelService {
     
     private final HotelRepository hotelRepository;
-    private final JwtUtils jwtUtils;
-    private final AccountRepository accountRepository;
+    private final CurrentAccount currentAccount;
     private final DistrictRepository districtRepository;
-    private final CloudinaryService cloudinaryService;
+    private final ImageUploadService imageUploadService;
+    private final ImageDerivativeRepository imageDerivativeRepository;
     private final RatingRepository ratingRepository;
     private final ImageRepository imageRepository;
     private final BookingRepository bookingRepository;
     private final HotelDiscountRepository hotelDiscountRepository;
     private final HotelAmenityRepository hotelAmenityRepository;
     private final WishListRepository wishListRepository;
+    private final HotelRatingSummaryRepository hotelRatingSummaryRepository;
+    private final AvailabilityService availabilityService;
+    private final PricingService pricingService;
+    private final HotelDetailCache hotelDetailCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Set<String> CURSOR_SORT_FIELDS = Set.of("id", "name", "pricePerDay");
+    // Danh sách NOT IN dài làm kế hoạch truy vấn kém và có thể vượt giới hạn tham số bind, khi đó dùng NOT EXISTS
+    public static final int MAX_EXCLUDED_HOTEL_IDS = 500;
 
     @Override
     public List<HotelResponseDto> hotels(Long accountId, Long districtId, String name,
@@ -56,198 +76,270 @@ public class HotelServiceImpl implements HotelService {
             throw new InvalidPageOrSizeException();
         }
 
-        Specification<Hotel> spec = Specification
-                .where(HotelSpecification.hasAccountId(accountId))
-                .and(HotelSpecification.hasDistrictId(districtId))
-                .and(HotelSpecification.hasName(name))
-                .and(HotelSpecification.hasMinPrice(minPrice))
-                .and(HotelSpecification.hasMaxPrice(maxPrice))
-                .and(HotelSpecification.hasAmenityNames(amenityNames))
-                .and(HotelSpecification.isAvailableBetween(startDate, endDate));
+        Specification<Hotel> spec = searchSpecification(accountId, districtId, name, minPrice, maxPrice,
+                amenityNames, startDate, endDate);
 
-        List<Hotel> filteredHotels;
         boolean sortByRatings = "ratings".equalsIgnoreCase(sortBy);
+        boolean descending = "desc".equalsIgnoreCase(sortOrder);
 
+        Pageable pageable;
         if (sortByRatings) {
-            filteredHotels = hotelRepository.findAll(spec); // Không phân trang
+            // Sắp xếp theo rating được thực hiện trong SQL, vẫn phân trang ở database
+            spec = spec.and(HotelSpecification.orderByAverageRating(descending));
+            pageable = PageRequest.of(pageIndex, pageSize);
         } else {
-            Sort sort = Sort.by(sortOrder.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC, sortBy);
-            Pageable pageable = PageRequest.of(pageIndex, pageSize, sort);
-            Page<Hotel> hotelPage = hotelRepository.findAll(spec, pageable);
-            filteredHotels = hotelPage.getContent();
+            Sort sort = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, sortBy);
+            pageable = PageRequest.of(pageIndex, pageSize, sort);
         }
+        List<Hotel> filteredHotels = hotelRepository.findAll(spec, pageable).getContent();
 
-        // Lọc lại theo amenityNames (nếu có)
-        filteredHotels = filteredHotels.stream()
-                .filter(hotel -> {
-                    if (amenityNames == null) return true;
-                    long count = hotel.getHotelAmenities().stream()
-                            .filter(hotelAmenity -> amenityNames.contains(hotelAmenity.getAmenity().getName()))
-                            .count();
-                    return count == amenityNames.size();
-                })
-                .collect(Collectors.toList());
-
-        // Tính rating và số lượt đánh giá
-        Map<Long, Double> averageRatings = new HashMap<>();
-        Map<Long, Long> reviewCounts = new HashMap<>();
-
-        for (Hotel hotel : filteredHotels) {
-            Double averageRating = hotelRepository.findAverageRatingByHotelId(hotel.getId());
-            Long reviewCount = ratingRepository.countByHotel(hotel);
-            averageRatings.put(hotel.getId(), averageRating);
-            reviewCounts.put(hotel.getId(), reviewCount);
+        return toHotelResponseDtos(filteredHotels);
+    }
+
+    @Override
+    public CursorPageResponseDto<HotelResponseDto> hotelsByCursor(Long accountId, Long districtId, String name,
+                                                                  BigDecimal minPrice, BigDecimal maxPrice,
+                                                                  List<String> amenityNames,
+                                                                  ZonedDateTime startDate, ZonedDateTime endDate,
+                                                                  String cursor, int pageSize, String sortBy, String sortOrder) {
+        if (pageSize <= 0) {
+            throw new InvalidPageOrSizeException();
+        }
+        if (!CURSOR_SORT_FIELDS.contains(sortBy)) {
+            throw new InvalidCursorException("Cursor pagination does not support sortBy=" + sortBy);
         }
 
-        // Nếu cần sort theo ratings, sort sau khi đã có ratings
-        if (sortByRatings) {
-            Comparator<Hotel> comparator = Comparator.comparing(
-                    h -> Optional.ofNullable(averageRatings.get(h.getId())).orElse(0.0)
-            );
-            if ("desc".equalsIgnoreCase(sortOrder)) {
-                comparator = comparator.reversed();
-            }
-            filteredHotels.sort(comparator);
+        boolean descending = "desc".equalsIgnoreCase(sortOrder);
+        Specification<Hotel> spec = searchSpecification(accountId, districtId, name, minPrice, maxPrice,
+                amenityNames, startDate, endDate)
+                .and(KeysetSpecification.after(KeysetCursor.decode(cursor, sortBy), descending));
+
+        // Lấy dư 1 bản ghi để biết còn trang sau, không cần truy vấn count
+        List<Hotel> hotels = hotelRepository.findBy(spec, query -> query
+                .sortBy(KeysetSpecification.sort(sortBy, descending))
+                .project("account", "district")
+                .limit(pageSize + 1)
+                .all());
+
+        String nextCursor = KeysetCursor.nextCursor(hotels, pageSize, sortBy);
+        List<Hotel> page = hotels.size() > pageSize ? hotels.subList(0, pageSize) : hotels;
+        return new CursorPageResponseDto<>(toHotelResponseDtos(page), nextCursor);
+    }
 
-            // Thực hiện phân trang thủ công
-            int fromIndex = Math.min(pageIndex * pageSize, filteredHotels.size());
-            int toIndex = Math.min(fromIndex + pageSize, filteredHotels.size());
-            filteredHotels = filteredHotels.subList(fromIndex, toIndex);
-        }
+    private Specification<Hotel> searchSpecification(Long accountId, Long districtId, String name,
+                                                     BigDecimal minPrice, BigDecimal maxPrice,
+                                                     List<String> amenityNames,
+                                                     ZonedDateTime startDate, ZonedDateTime endDate) {
+        return Specification
+                .where(HotelSpecification.hasAccountId(accountId))
+                .and(HotelSpecification.hasDistrictId(districtId))
+                .and(HotelSpecification.hasName(name))
+                .and(HotelSpecification.hasMinPrice(minPrice))
+                .and(HotelSpecification.hasMaxPrice(maxPrice))
+                .and(HotelSpecification.hasAmenityNames(amenityNames))
+                .and(availabilitySpecification(startDate, endDate));
+    }
 
-        // Mapping sang DTO
-        return filteredHotels.stream().map(hotel -> {
-            DiscountResponseDto discountResponseDto = hotel.getHotelDiscounts().stream()
-                    .findFirst()
-                    .map(hotelDiscount -> new DiscountResponseDto(
-                            hotelDiscount.getDiscount().getId(),
-                            hotelDiscount.getDiscount().getRate()))
-                    .orElse(null);
-
-            List<Image> images = imageRepository.findByEntityIdAndEntityType(hotel.getId(), EntityType.HOTEL);
-            List<ImageResponseDto> imageResponses = images.stream()
-                    .map(image -> new ImageResponseDto(image.getId(), image.getImageUrl()))
-                    .toList();
+    private Specification<Hotel> availabilitySpecification(ZonedDateTime startDate, ZonedDateTime endDate) {
+        if (startDate == null || endDate == null) {
+            return null;
+        }
+        // Dùng index trong bộ nhớ để loại các khách sạn đã kín lịch, chỉ quay về subquery khi index chưa sẵn sàng
+        if (availabilityService.isReady()) {
+            Set<Long> bookedHotelIds = availabilityService.findBookedHotelIds(startDate, endDate);
+            if (bookedHotelIds.size() <= MAX_EXCLUDED_HOTEL_IDS) {
+                return HotelSpecification.hasIdNotIn(bookedHotelIds);
+            }
+        }
+        return HotelSpecification.isAvailableBetween(startDate, endDate);
+    }
 
-            Account owner = accountRepository.findById(hotel.getAccount().getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Account"));
-
-            AccountResponseDto accountResponseDto = new AccountResponseDto(
-                    owner.getId(),
-                    owner.getFullName(),
-                    owner.getUsername(),
-                    owner.getEmail(),
-                    owner.getAvatar(),
-                    owner.getPhone(),
-                    owner.getBlockReason(),
-                    null
-            );
-
-            return new HotelResponseDto(
-                    hotel.getId(),
-                    hotel.getName(),
-                    hotel.getDescription(),
-                    hotel.getPricePerDay(),
-                    hotel.getHighLightImageUrl(),
-                    hotel.getStreetAddress(),
-                    hotel.getLatitude(),
-                    hotel.getLongitude(),
-                    Optional.ofNullable(averageRatings.get(hotel.getId())).orElse(0.0),
-                    Optional.ofNullable(reviewCounts.get(hotel.getId())).orElse(0L),
-                    discountResponseDto,
-                    accountResponseDto,
-                    imageResponses,
-                    null
-            );
-        }).toList();
+    private List<HotelResponseDto> toHotelResponseDtos(List<Hotel> hotels) {
+        // Lấy rating và số lượt đánh giá cho cả trang trong một truy vấn
+        Map<Long, HotelRatingStats> ratingStats = ratingStatsByHotelId(hotels);
+
+        // Lấy giảm giá và hình ảnh của các khách sạn trong trang bằng truy vấn IN
+        Map<Long, DiscountResponseDto> discounts = discountsByHotelId(hotels);
+        Map<Long, List<ImageResponseDto>> images = imagesByHotelId(hotels);
+
+        // Mapping sang DTO, trang danh sách dùng ảnh thumbnail
+        List<HotelResponseDto> hotelResponses = hotels.stream().map(hotel -> toHotelResponseDto(
+                hotel,
+                ratingStats.get(hotel.getId()),
+                discounts.get(hotel.getId()),
+                images.getOrDefault(hotel.getId(), List.of())
+        )).toList();
+        useImageSize(hotelResponses, ImageSize.THUMBNAIL);
+        return hotelResponses;
     }
 
 
 
     @Override
     public List<HotelResponseDto> wishlist(String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
-
-        // Lấy danh sách yêu thích liên kết với tài khoản
-        List<WishList> wishList = account.getWishList();
+        Long accountId = currentAccount.id(token);
 
-        // Lấy các ID khách sạn duy nhất từ danh sách yêu thích
-        List<Long> hotelIds = wishList.stream()
-                .map(wish -> wish.getHotel().getId())
-                .collect(Collectors.toList());
+        // Lấy các ID khách sạn trong danh sách yêu thích của tài khoản
+        List<Long> hotelIds = wishListRepository.findHotelIdsByAccountId(accountId);
 
         // Lấy danh sách khách sạn dựa trên các ID đã lấy
         List<Hotel> hotels = hotelRepository.findAllById(hotelIds);
 
-        Map<Long, Double> averageRatings = new HashMap<>();
-        Map<Long, Long> reviewCounts = new HashMap<>();
+        Map<Long, HotelRatingStats> ratingStats = ratingStatsByHotelId(hotels);
+        Map<Long, DiscountResponseDto> discounts = discountsByHotelId(hotels);
+
+        List<HotelResponseDto> hotelResponses = hotels.stream().map(hotel -> toHotelResponseDto(
+                hotel,
+                ratingStats.get(hotel.getId()),
+                discounts.get(hotel.getId()),
+                null
+        )).toList();
+        useImageSize(hotelResponses, ImageSize.THUMBNAIL);
+        return hotelResponses;
+    }
+
+    private Map<Long, HotelRatingStats> ratingStatsByHotelId(List<Hotel> hotels) {
+        if (hotels.isEmpty()) {
+            return Map.of();
+        }
+        // Đọc từ bảng tổng hợp, không quét bảng ratings
+        return hotelRatingSummaryRepository.findStatsByHotelIds(hotelIds(hotels)).stream()
+                .collect(Collectors.toMap(HotelRatingStats::getHotelId, stats -> stats));
+    }
+
+    private Map<Long, DiscountResponseDto> discountsByHotelId(List<Hotel> hotels) {
+        if (hotels.isEmpty()) {
+            return Map.of();
+        }
+        // Giữ giảm giá đầu tiên của mỗi khách sạn (theo id) như trước đây
+        Map<Long, DiscountResponseDto> discounts = new HashMap<>();
+        for (HotelDiscount hotelDiscount : hotelDiscountRepository.findByHotelIdIn(hotelIds(hotels))) {
+            discounts.putIfAbsent(hotelDiscount.getHotel().getId(), new DiscountResponseDto(
+                    hotelDiscount.getDiscount().getId(),
+                    hotelDiscount.getDiscount().getRate()));
+        }
+        return discounts;
+    }
+
+    private Map<Long, List<ImageResponseDto>> imagesByHotelId(List<Hotel> hotels) {
+        if (hotels.isEmpty()) {
+            return Map.of();
+        }
+        return imageRepository.findByEntityIdInAndEntityType(hotelIds(hotels), EntityType.HOTEL).stream()
+                .collect(Collectors.groupingBy(
+                        Image::getEntityId,
+                        Collectors.mapping(image -> new ImageResponseDto(image.getId(), image.getImageUrl()),
+                                Collectors.toList())));
+    }
 
-        for (Hotel hotel : hotels) {
-            Double averageRating = hotelRepository.findAverageRatingByHotelId(hotel.getId());
-            System.out.println("Hotel ID: " + hotel.getId() + ", averageRating: " + averageRating);
-            Long reviewCount = ratingRepository.countByHotel(hotel);
-            averageRatings.put(hotel.getId(), averageRating);
-            reviewCounts.put(hotel.getId(), reviewCount);
+    // Thay URL ảnh gốc bằng bản thu nhỏ theo kích thước (một truy vấn cho cả trang); ảnh chưa có bản thu nhỏ giữ URL gốc
+    private void useImageSize(List<HotelResponseDto> hotels, ImageSize size) {
+        Set<String> sourceUrls = new HashSet<>();
+        for (HotelResponseDto hotel : hotels) {
+            if (hotel.getHighLightImageUrl() != null) {
+                sourceUrls.add(hotel.getHighLightImageUrl());
+            }
+            if (hotel.getImages() != null) {
+                hotel.getImages().forEach(image -> sourceUrls.add(image.getImageUrl()));
+            }
+        }
+        if (sourceUrls.isEmpty()) {
+            return;
         }
 
-        return hotels.stream().map(hotel -> {
-            DiscountResponseDto discountResponseDto = hotel.getHotelDiscounts().stream()
-                    .findFirst()
-                    .map(hotelDiscount -> new DiscountResponseDto(hotelDiscount.getDiscount().getId(), hotelDiscount.getDiscount().getRate()))
-                    .orElse(null);
-
-            Account owner = accountRepository.findById(hotel.getAccount().getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Account"));
-            AccountResponseDto accountResponseDto = new AccountResponseDto(
-                    owner.getId(),
-                    owner.getFullName(),
-                    owner.getUsername(),
-                    owner.getEmail(),
-                    owner.getAvatar(),
-                    owner.getPhone(),
-                    owner.getBlockReason(),
-                    null
-            );
-
-            return new HotelResponseDto(
-                    hotel.getId(),
-                    hotel.getName(),
-                    hotel.getDescription(),
-                    hotel.getPricePerDay(),
-                    hotel.getHighLightImageUrl(),
-                    hotel.getStreetAddress(),
-                    hotel.getLatitude(),
-                    hotel.getLongitude(),
-                    averageRatings.get(hotel.getId()) != null ? averageRatings.get(hotel.getId()) : 0.0,
-                    reviewCounts.get(hotel.getId()) != null ? reviewCounts.get(hotel.getId()) : 0L,
-                    discountResponseDto,
-                    accountResponseDto,
-                    null,
-                    null
-            );
-        }).toList();
+        Map<String, String> resizedUrls = imageDerivativeRepository.findBySourceUrlInAndSize(sourceUrls, size).stream()
+                .collect(Collectors.toMap(ImageDerivative::getSourceUrl, ImageDerivative::getUrl));
+        for (HotelResponseDto hotel : hotels) {
+            hotel.setHighLightImageUrl(resizedUrls.getOrDefault(hotel.getHighLightImageUrl(), hotel.getHighLightImageUrl()));
+            if (hotel.getImages() != null) {
+                hotel.getImages().forEach(image ->
+                        image.setImageUrl(resizedUrls.getOrDefault(image.getImageUrl(), image.getImageUrl())));
+            }
+        }
+    }
+
+    private List<Long> hotelIds(List<Hotel> hotels) {
+        return hotels.stream().map(Hotel::getId).toList();
+    }
+
+    private Double averageRating(HotelRatingStats stats) {
+        return stats != null && stats.getAverageRating() != null ? stats.getAverageRating() : 0.0;
+    }
+
+    private HotelResponseDto toHotelResponseDto(Hotel hotel, HotelRatingStats stats,
+                                                DiscountResponseDto discountResponseDto,
+                                                List<ImageResponseDto> imageResponses) {
+        // Owner đã được fetch cùng khách sạn, không cần truy vấn lại
+        Account owner = hotel.getAccount();
+        AccountResponseDto accountResponseDto = new AccountResponseDto(
+                owner.getId(),
+                owner.getFullName(),
+                owner.getUsername(),
+                owner.getEmail(),
+                owner.getAvatar(),
+                owner.getPhone(),
+                owner.getBlockReason(),
+                null
+        );
+
+        return new HotelResponseDto(
+                hotel.getId(),
+                hotel.getName(),
+                hotel.getDescription(),
+                hotel.getPricePerDay(),
+                hotel.getHighLightImageUrl(),
+                hotel.getStreetAddress(),
+                hotel.getLatitude(),
+                hotel.getLongitude(),
+                averageRating(stats),
+                stats != null ? stats.getReviewCount() : 0L,
+                discountResponseDto,
+                accountResponseDto,
+                imageResponses,
+                null
+        );
     }
 
 
     @Override
     public HotelResponseDto hotel(Long id) {
-        // Tìm khách sạn theo ID
-        Hotel hotel = hotelRepository.findById(id)
+        // Đọc qua cache, các request cùng khách sạn khi cache trống chỉ tải từ database một lần
+        return hotelDetailCache.get(id, this::loadHotel);
+    }
+
+    // Gộp các khoảng đã sắp theo ngày bắt đầu: khoảng chồng lấn hoặc nối tiếp nhau (trả phòng = nhận phòng) thành một
+    private static List<DateRangeResponseDto> coalesceBookedRanges(List<BookedRangeView> ranges) {
+        List<DateRangeResponseDto> merged = new ArrayList<>();
+        DateRangeResponseDto current = null;
+        for (BookedRangeView range : ranges) {
+            if (current != null && !range.getStartDate().isAfter(current.getEndDate())) {
+                if (range.getEndDate().isAfter(current.getEndDate())) {
+                    current.setEndDate(range.getEndDate());
+                }
+                continue;
+            }
+            current = new DateRangeResponseDto(range.getStartDate(), range.getEndDate());
+            merged.add(current);
+        }
+        return merged;
+    }
+
+    @Override
+    public CacheStatsResponseDto detailCacheStats() {
+        return hotelDetailCache.stats();
+    }
+
+    private HotelResponseDto loadHotel(Long id) {
+        // Tìm khách sạn theo ID, kèm owner, quận và giảm giá trong cùng truy vấn
+        Hotel hotel = hotelRepository.findDetailById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
 
         // Lấy điểm đánh giá trung bình của khách sạn
-        Double averageRating = hotelRepository.findAverageRatingByHotelId(id);
-        Long reviewCount = ratingRepository.countByHotel(hotel);
-
-        // Lấy danh sách đặt phòng của khách sạn
-        List<Booking> bookings = bookingRepository.findByHotelId(id);
-        ZonedDateTime now = ZonedDateTime.now();
-        List<DateRangeResponseDto> bookedDates = bookings.stream()
-                .filter(booking -> booking.getStartDate().isAfter(now))
-                .map(booking -> new DateRangeResponseDto(booking.getStartDate(), booking.getEndDate()))
-                .toList();
+        HotelRatingStats ratingStats = ratingStatsByHotelId(List.of(hotel)).get(id);
+
+        // Lấy các khoảng ngày còn được đặt (bỏ booking đã kết thúc hoặc bị hủy) và gộp các khoảng liền kề
+        List<DateRangeResponseDto> bookedDates = coalesceBookedRanges(
+                bookingRepository.findBookedRangesEndingAfter(id, ZonedDateTime.now(), BookingStatus.CANCELLED));
 
         // Lấy danh sách hình ảnh của khách sạn
         List<Image> images = imageRepository.findByEntityIdAndEntityType(id, EntityType.HOTEL);
@@ -261,8 +353,7 @@ public class HotelServiceImpl implements HotelService {
                 .map(hotelDiscount -> new DiscountResponseDto(hotelDiscount.getDiscount().getId(), hotelDiscount.getDiscount().getRate()))
                 .orElse(null);
 
-        Account owner = accountRepository.findById(hotel.getAccount().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Account owner = hotel.getAccount();
         AccountResponseDto accountResponseDto = new AccountResponseDto(
                 owner.getId(),
                 owner.getFullName(),
@@ -274,7 +365,7 @@ public class HotelServiceImpl implements HotelService {
                 null
         );
 
-        return new HotelResponseDto(
+        HotelResponseDto hotelResponse = new HotelResponseDto(
                 hotel.getId(),
                 hotel.getName(),
                 hotel.getDescription(),
@@ -283,24 +374,23 @@ public class HotelServiceImpl implements HotelService {
                 hotel.getStreetAddress(),
                 hotel.getLatitude(),
                 hotel.getLongitude(),
-                averageRating != null ? averageRating : 0.0,
-                reviewCount,
+                averageRating(ratingStats),
+                ratingStats != null ? ratingStats.getReviewCount() : 0L,
                 discountResponseDto,
                 accountResponseDto,
                 imageResponses,
                 bookedDates
         );
+        // Trang chi tiết dùng ảnh cỡ vừa
+        useImageSize(List.of(hotelResponse), ImageSize.MEDIUM);
+        return hotelResponse;
     }
 
 
     @Override
     public HotelResponseDto create(AddHotelRequestDto requestDto, String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
-
-        Account owner = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        // Chỉ đọc các cột cơ bản của chủ khách sạn, không tải hotels/roles
+        AccountSummary owner = currentAccount.summary(token);
         AccountResponseDto accountResponseDto = new AccountResponseDto(
                 owner.getId(),
                 owner.getFullName(),
@@ -321,13 +411,13 @@ public class HotelServiceImpl implements HotelService {
         hotel.setLongitude(requestDto.getLongitude());
         
         //Xu ly imageHighLight
-        String highLightImageUrl = cloudinaryService.uploadImage(requestDto.getHighLightImageUrl());
+        String highLightImageUrl = imageUploadService.uploadWithDerivatives(requestDto.getHighLightImageUrl());
         hotel.setHighLightImageUrl(highLightImageUrl);
         //Xu ly district
         District district = districtRepository.findById(requestDto.getDistrictId())
                 .orElseThrow(() -> new ResourceNotFoundException("District"));
         hotel.setDistrict(district);
-        hotel.setAccount(account);
+        hotel.setAccount(currentAccount.reference(token));
         
         Hotel savedHotel = hotelRepository.save(hotel);
 
@@ -351,13 +441,11 @@ public class HotelServiceImpl implements HotelService {
 
     @Override
     public Void update(Long id, AddHotelRequestDto requestDto, String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         Hotel hotel = hotelRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
-        if (Objects.equals(account.getId(), hotel.getAccount().getId())) {
+        if (Objects.equals(accountId, hotel.getAccount().getId())) {
             // Cập nhật thông tin khách sạn chỉ nếu có giá trị mới
             if (requestDto.getName() != null) {
                 hotel.setName(requestDto.getName());
@@ -378,7 +466,7 @@ public class HotelServiceImpl implements HotelService {
                 hotel.setLongitude(requestDto.getLongitude());
             }
             if (requestDto.getHighLightImageUrl() != null && !requestDto.getHighLightImageUrl().isEmpty()) {
-                hotel.setHighLightImageUrl(cloudinaryService.uploadImage(requestDto.getHighLightImageUrl()));
+                hotel.setHighLightImageUrl(imageUploadService.uploadWithDerivatives(requestDto.getHighLightImageUrl()));
             }
             if (requestDto.getDistrictId() != null) {
                 hotel.setDistrict(districtRepository.findById(requestDto.getDistrictId())
@@ -387,6 +475,8 @@ public class HotelServiceImpl implements HotelService {
 
             // Lưu cập nhật
             hotelRepository.save(hotel);
+            pricingService.evict(hotel.getId());
+            eventPublisher.publishEvent(new HotelChangedEvent(hotel.getId()));
         } else {
             throw new RuntimeException("You do not have permission to update this hotel");
         }
@@ -398,16 +488,13 @@ public class HotelServiceImpl implements HotelService {
     @Override
     @Transactional
     public Void delete(Long id, String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         Hotel hotel = hotelRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
 
         // Kiểm tra quyền xóa
-        if (!account.getId().equals(hotel.getAccount().getId())) {
+        if (!accountId.equals(hotel.getAccount().getId())) {
             throw new RuntimeException("You do not have permission to delete this hotel");
         }
 
@@ -417,6 +504,10 @@ public class HotelServiceImpl implements HotelService {
         wishListRepository.deleteWishListsByHotelId(id);
         hotelAmenityRepository.deleteAmenitiesByHotelId(id);
         ratingRepository.deleteRatingsByHotelId(id);
+        hotelRatingSummaryRepository.deleteByHotelId(id);
+        pricingService.evict(id);
+        eventPublisher.publishEvent(new HotelChangedEvent(id));
+        eventPublisher.publishEvent(new HotelDeletedEvent(id));
 
         // Cuối cùng, xóa khách sạn
         hotelRepository.deleteHotelById(hotel.getId());
@@ -426,35 +517,30 @@ public class HotelServiceImpl implements HotelService {
 
     @Override
     public List<ImageResponseDto> addImages(Long hotelId, AddImagesRequestDto requestDto, String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         Hotel hotel = hotelRepository.findById(hotelId)
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
 
         // Kiểm tra quyền truy cập
-        if (Objects.equals(account.getId(), hotel.getAccount().getId())) {
-            List<ImageResponseDto> imageResponses = new ArrayList<>();
-
-            for (MultipartFile file : requestDto.getImageUrls()) {
-                if (file != null && !file.isEmpty()) {
-                    // Tải hình ảnh lên Cloudinary
-                    String imageUrl = cloudinaryService.uploadImage(file);
-
-                    // Tạo đối tượng Image mới
-                    Image image = new Image();
-                    image.setImageUrl(imageUrl);
-                    image.setEntityId(hotelId); 
-                    image.setEntityType(EntityType.HOTEL);
-
-                    // Lưu hình ảnh vào cơ sở dữ liệu
-                    imageRepository.save(image);
-
-                    // Thêm vào danh sách phản hồi
-                    imageResponses.add(new ImageResponseDto(image.getId(), imageUrl));
-                }
-            }
+        if (Objects.equals(accountId, hotel.getAccount().getId())) {
+            // Tải các hình ảnh lên Cloudinary song song, kèm bản thu nhỏ cho trang danh sách và chi tiết
+            List<String> imageUrls = imageUploadService.uploadAllWithDerivatives(requestDto.getImageUrls());
+
+            // Tạo các đối tượng Image mới và lưu vào cơ sở dữ liệu trong một lần
+            List<Image> images = imageUrls.stream()
+                    .map(imageUrl -> {
+                        Image image = new Image();
+                        image.setImageUrl(imageUrl);
+                        image.setEntityId(hotelId);
+                        image.setEntityType(EntityType.HOTEL);
+                        return image;
+                    })
+                    .toList();
+            List<ImageResponseDto> imageResponses = imageRepository.saveAll(images).stream()
+                    .map(image -> new ImageResponseDto(image.getId(), image.getImageUrl()))
+                    .toList();
+            eventPublisher.publishEvent(new HotelChangedEvent(hotelId));
             return imageResponses;
         } else {
             throw new RuntimeException("You do not have permission to add images to this hotel");
@@ -464,16 +550,14 @@ public class HotelServiceImpl implements HotelService {
     @Override
     @Transactional
     public Void deleteImages(Long hotelId, List<Long> imageIds, String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         // Lấy thông tin khách sạn và kiểm tra quyền truy cập
         Hotel hotel = hotelRepository.findById(hotelId)
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
 
         // Kiểm tra xem tài khoản có phải là chủ sở hữu khách sạn không
-        if (!Objects.equals(account.getId(), hotel.getAccount().getId())) {
+        if (!Objects.equals(accountId, hotel.getAccount().getId())) {
             throw new RuntimeException("You do not have permission to delete images from this hotel");
         }
 
@@ -489,6 +573,7 @@ public class HotelServiceImpl implements HotelService {
 
         // Xóa tất cả hình ảnh khỏi cơ sở dữ liệu
         imageRepository.deleteAll(images);
+        eventPublisher.publishEvent(new HotelChangedEvent(hotelId));
 
         // Trả về phản hồi thành công
         return null;
@@ -1,5 +1,8 @@
 package com.vinova.booking_hotel.property.service.impl;
 
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
@@ -10,115 +13,61 @@ import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.font.PdfFont;
 import com.itextpdf.layout.properties.TextAlignment;
-import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.property.model.Booking;
+import com.vinova.booking_hotel.property.report.OwnerBookingReport;
+import com.vinova.booking_hotel.property.report.PdfRenderStats;
+import com.vinova.booking_hotel.property.repository.projection.OwnerBookingReportRow;
 import com.vinova.booking_hotel.property.service.PdfService;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class PdfServiceImpl implements PdfService {
 
-    @Override
-    public String createBookingReport(List<Booking> bookings, LocalDate date) {
-        // Tạo đường dẫn cho tệp PDF
-        String directoryPath = "reports";
-        File directory = new File(directoryPath);
-
-        // Kiểm tra và tạo thư mục nếu chưa tồn tại
-        if (!directory.exists()) {
-            directory.mkdir();
-        }
-
-        String filePath = directoryPath + File.separator + "booking_report_" + date + ".pdf";
-
-        try {
-            PdfWriter writer = new PdfWriter(new File(filePath));
-            PdfDocument pdfDocument = new PdfDocument(writer);
-            Document document = new Document(pdfDocument);
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    // Buffer lớn hơn mức này sẽ bị bỏ sau khi dùng để một báo cáo lớn không giữ bộ nhớ mãi
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
 
-            // Thêm tiêu đề với định dạng
-            PdfFont font = PdfFontFactory.createFont("Helvetica-Bold");
-            Paragraph title = new Paragraph("Booking Report for " + date)
-                    .setFont(font)
-                    .setFontSize(18)
-                    .setFontColor(ColorConstants.GREEN)
-                    .setTextAlignment(TextAlignment.CENTER);
-            document.add(title);
+    // FontProgram chỉ đọc một lần; PdfFont gắn với từng document nên được tạo lại (rẻ) từ program này
+    private final FontProgram titleFontProgram;
 
-            // Thêm một dòng phân cách
-            document.add(new Paragraph("-----------------------------------------------------")
-                    .setTextAlignment(TextAlignment.CENTER));
+    // Mỗi luồng dùng lại buffer của mình, không cần đồng bộ khi tạo báo cáo song song
+    private final ThreadLocal<ByteArrayOutputStream> buffers =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(INITIAL_BUFFER_SIZE));
 
-            // Tạo bảng cho các booking
-            Table table = new Table(6);
-            table.setWidth(100);
-
-            // Thêm tiêu đề cho bảng
-            table.addHeaderCell(new Cell().add(new Paragraph("Booking ID")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
-            table.addHeaderCell(new Cell().add(new Paragraph("Hotel")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
-            table.addHeaderCell(new Cell().add(new Paragraph("Start Date")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
-            table.addHeaderCell(new Cell().add(new Paragraph("End Date")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
-            table.addHeaderCell(new Cell().add(new Paragraph("Total Price")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
-            table.addHeaderCell(new Cell().add(new Paragraph("Status")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
-
-            if (bookings.isEmpty()) {
-                document.add(new Paragraph("No bookings for today.")
-                        .setTextAlignment(TextAlignment.CENTER));
-            } else {
-                for (Booking booking : bookings) {
-                    table.addCell(new Cell().add(new Paragraph(String.valueOf(booking.getId()))));
-                    table.addCell(new Cell().add(new Paragraph(booking.getHotel().getName())));
-                    table.addCell(new Cell().add(new Paragraph(booking.getStartDate().toString())));
-                    table.addCell(new Cell().add(new Paragraph(booking.getEndDate().toString())));
-                    table.addCell(new Cell().add(new Paragraph(String.valueOf(booking.getTotalPrice()))));
-                    table.addCell(new Cell().add(new Paragraph(booking.getStatus().toString())));
-                }
-                document.add(table);
-            }
+    private final LongAdder renderedDocuments = new LongAdder();
+    private final LongAdder renderedBytes = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
 
-            // Thêm footer
-            document.add(new Paragraph("-----------------------------------------------------")
-                    .setTextAlignment(TextAlignment.CENTER));
-            document.add(new Paragraph("Thank you for using our booking service!")
-                    .setTextAlignment(TextAlignment.CENTER));
-
-            document.close();
+    public PdfServiceImpl() {
+        try {
+            this.titleFontProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
         } catch (IOException e) {
-            System.out.println("ERROR CREATE PDF: " + e.getMessage());
+            throw new UncheckedIOException("Cannot load PDF font", e);
         }
-
-        return filePath;
     }
 
     @Override
-    public String createBookingReportNoBookings(Account owner, LocalDate date) {
-        // Tạo đường dẫn cho tệp PDF
-        String directoryPath = "reports";
-        File directory = new File(directoryPath);
-
-        // Kiểm tra và tạo thư mục nếu chưa tồn tại
-        if (!directory.exists()) {
-            directory.mkdir();
-        }
-
-        String filePath = directoryPath + File.separator + "no_bookings_report_" + owner.getId() + "_" + date + ".pdf";
+    public byte[] renderOwnerBookingReport(OwnerBookingReport report, LocalDate date) {
+        long startNanos = System.nanoTime();
+        ByteArrayOutputStream buffer = buffers.get();
+        buffer.reset();
 
         try {
-            PdfWriter writer = new PdfWriter(new File(filePath));
-            PdfDocument pdfDocument = new PdfDocument(writer);
+            PdfDocument pdfDocument = new PdfDocument(new PdfWriter(buffer));
             Document document = new Document(pdfDocument);
 
             // Thêm tiêu đề với định dạng
-            PdfFont font = PdfFontFactory.createFont("Helvetica-Bold");
-            Paragraph title = new Paragraph("No Bookings Report for " + owner.getUsername() + " on " + date)
+            PdfFont font = PdfFontFactory.createFont(titleFontProgram);
+            Paragraph title = new Paragraph("Booking Report for " + report.getOwnerUsername() + " on " + date)
                     .setFont(font)
                     .setFontSize(18)
-                    .setFontColor(ColorConstants.RED)
+                    .setFontColor(report.getBookings().isEmpty() ? ColorConstants.RED : ColorConstants.GREEN)
                     .setTextAlignment(TextAlignment.CENTER);
             document.add(title);
 
@@ -126,11 +75,34 @@ public class PdfServiceImpl implements PdfService {
             document.add(new Paragraph("-----------------------------------------------------")
                     .setTextAlignment(TextAlignment.CENTER));
 
-            // Thêm nội dung thông báo không có booking
-            document.add(new Paragraph("There are no bookings for today.")
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setFontSize(14)
-                    .setFontColor(ColorConstants.BLACK));
+            if (report.getBookings().isEmpty()) {
+                document.add(new Paragraph("There are no bookings for today.")
+                        .setTextAlignment(TextAlignment.CENTER)
+                        .setFontSize(14)
+                        .setFontColor(ColorConstants.BLACK));
+            } else {
+                // Tạo bảng cho các booking
+                Table table = new Table(6);
+                table.setWidth(100);
+
+                // Thêm tiêu đề cho bảng
+                table.addHeaderCell(new Cell().add(new Paragraph("Booking ID")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
+                table.addHeaderCell(new Cell().add(new Paragraph("Hotel")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
+                table.addHeaderCell(new Cell().add(new Paragraph("Start Date")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
+                table.addHeaderCell(new Cell().add(new Paragraph("End Date")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
+                table.addHeaderCell(new Cell().add(new Paragraph("Total Price")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
+                table.addHeaderCell(new Cell().add(new Paragraph("Status")).setBackgroundColor(ColorConstants.LIGHT_GRAY));
+
+                for (OwnerBookingReportRow row : report.getBookings()) {
+                    table.addCell(new Cell().add(new Paragraph(String.valueOf(row.getBookingId()))));
+                    table.addCell(new Cell().add(new Paragraph(row.getHotelName())));
+                    table.addCell(new Cell().add(new Paragraph(row.getStartDate().toString())));
+                    table.addCell(new Cell().add(new Paragraph(row.getEndDate().toString())));
+                    table.addCell(new Cell().add(new Paragraph(String.valueOf(row.getTotalPrice()))));
+                    table.addCell(new Cell().add(new Paragraph(row.getStatus().toString())));
+                }
+                document.add(table);
+            }
 
             // Thêm footer
             document.add(new Paragraph("-----------------------------------------------------")
@@ -139,10 +111,24 @@ public class PdfServiceImpl implements PdfService {
                     .setTextAlignment(TextAlignment.CENTER));
 
             document.close();
-        } catch (IOException e) {
-            System.out.println("ERROR CREATE PDF: " + e.getMessage());
+
+            byte[] pdf = buffer.toByteArray();
+            renderedDocuments.increment();
+            renderedBytes.add(pdf.length);
+            renderNanos.add(System.nanoTime() - startNanos);
+            return pdf;
+        } finally {
+            if (buffer.size() > MAX_RETAINED_BUFFER_SIZE) {
+                buffers.remove();
+            } else {
+                buffer.reset();
+            }
         }
+    }
 
-        return filePath;
+    @Override
+    public PdfRenderStats renderStats() {
+        return new PdfRenderStats(renderedDocuments.sum(), renderedBytes.sum(),
+                TimeUnit.NANOSECONDS.toMillis(renderNanos.sum()));
     }
-}
\ No newline at end of file
+}
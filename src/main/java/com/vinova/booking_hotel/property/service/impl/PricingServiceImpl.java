@@ -0,0 +1,94 @@
+package com.vinova.booking_hotel.property.service.impl;
+
+import com.vinova.booking_hotel.common.cache.ExpiringCache;
+import com.vinova.booking_hotel.common.exception.InvalidDateRangeException;
+import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
+import com.vinova.booking_hotel.property.dto.response.PriceQuoteResponseDto;
+import com.vinova.booking_hotel.property.model.Hotel;
+import com.vinova.booking_hotel.property.pricing.DiscountCalendar;
+import com.vinova.booking_hotel.property.repository.HotelDiscountRepository;
+import com.vinova.booking_hotel.property.repository.HotelRepository;
+import com.vinova.booking_hotel.property.service.PricingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Service
+@RequiredArgsConstructor
+public class PricingServiceImpl implements PricingService {
+
+    // Giới hạn thời gian sống để các node khác nhau không giữ lịch giảm giá cũ quá lâu
+    static final Duration CACHE_TTL = Duration.ofMinutes(10);
+    static final int MAX_CACHED_HOTELS = 10_000;
+    // Endpoint báo giá không cần đăng nhập nên giới hạn độ dài kỳ lưu trú được tính
+    public static final int MAX_STAY_DAYS = 365;
+
+    private final HotelRepository hotelRepository;
+    private final HotelDiscountRepository hotelDiscountRepository;
+
+    // hotelId -> giá gốc và lịch giảm giá đã dựng sẵn
+    private final ExpiringCache<Long, HotelPricing> pricingByHotelId = new ExpiringCache<>(MAX_CACHED_HOTELS, CACHE_TTL);
+
+    @Override
+    public BigDecimal totalPrice(Hotel hotel, ZonedDateTime startDate, ZonedDateTime endDate) {
+        // Giá gốc lấy từ entity vừa đọc, chỉ dùng lại lịch giảm giá trong cache
+        return hotelPricing(hotel.getId(), hotel).calendar().totalPrice(hotel.getPricePerDay(), startDate, endDate);
+    }
+
+    @Override
+    public PriceQuoteResponseDto quote(Long hotelId, ZonedDateTime startDate, ZonedDateTime endDate) {
+        // Kiểm tra khoảng thời gian hợp lệ
+        if (startDate == null || endDate == null || !startDate.isBefore(endDate)) {
+            throw new InvalidDateRangeException("Start date must be before end date");
+        }
+        // Ngày bắt đầu tính theo múi giờ của request, cho phép bắt đầu từ đầu ngày hôm nay
+        if (startDate.isBefore(ZonedDateTime.now(startDate.getZone()).truncatedTo(ChronoUnit.DAYS))) {
+            throw new InvalidDateRangeException("Start date must not be in the past");
+        }
+        if (startDate.plusDays(MAX_STAY_DAYS).isBefore(endDate)) {
+            throw new InvalidDateRangeException("Stay must not be longer than " + MAX_STAY_DAYS + " days");
+        }
+
+        HotelPricing pricing = hotelPricing(hotelId, null);
+        DiscountCalendar.StayPrice stayPrice = pricing.calendar().stayPrice(pricing.pricePerDay(), startDate, endDate);
+
+        return new PriceQuoteResponseDto(
+                hotelId,
+                startDate,
+                endDate,
+                stayPrice.days(),
+                pricing.pricePerDay(),
+                stayPrice.totalPrice()
+        );
+    }
+
+    @Override
+    public void evict(Long hotelId) {
+        pricingByHotelId.invalidate(hotelId);
+    }
+
+    @Override
+    public void evictAll() {
+        pricingByHotelId.invalidateAll();
+    }
+
+    private HotelPricing hotelPricing(Long hotelId, Hotel loadedHotel) {
+        // Các request cùng khách sạn chỉ tải từ database một lần, số khách sạn được cache có giới hạn
+        return pricingByHotelId.get(hotelId, id -> load(id, loadedHotel));
+    }
+
+    private HotelPricing load(Long hotelId, Hotel loadedHotel) {
+        // Dùng lại khách sạn mà caller đã đọc nếu có
+        Hotel hotel = loadedHotel != null ? loadedHotel : hotelRepository.findById(hotelId)
+                .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
+        DiscountCalendar calendar = DiscountCalendar.of(hotelDiscountRepository.findByHotelId(hotelId));
+        return new HotelPricing(hotel.getPricePerDay(), calendar);
+    }
+
+    private record HotelPricing(BigDecimal pricePerDay, DiscountCalendar calendar) {
+    }
+}
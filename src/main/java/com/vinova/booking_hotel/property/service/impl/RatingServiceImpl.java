@@ -2,21 +2,23 @@ package com.vinova.booking_hotel.property.service.impl;
 
 import com.vinova.booking_hotel.authentication.dto.response.*;
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
-import com.vinova.booking_hotel.authentication.service.impl.CloudinaryService;
+import com.vinova.booking_hotel.authentication.repository.projection.AccountSummary;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
+import com.vinova.booking_hotel.authentication.service.impl.ImageUploadService;
 import com.vinova.booking_hotel.common.enums.*;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.property.dto.request.AddRatingRequestDto;
 import com.vinova.booking_hotel.property.dto.response.*;
+import com.vinova.booking_hotel.property.event.HotelChangedEvent;
 import com.vinova.booking_hotel.property.model.*;
 import com.vinova.booking_hotel.property.repository.*;
 import com.vinova.booking_hotel.property.service.RatingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -25,12 +27,14 @@ import java.util.stream.Collectors;
 public class RatingServiceImpl implements RatingService {
     
     private final RatingRepository ratingRepository;
-    private final AccountRepository accountRepository;
-    private final JwtUtils jwtUtils;
-    private final CloudinaryService cloudinaryService;
+    private final CurrentAccount currentAccount;
+    private final ImageUploadService imageUploadService;
     private final BookingRepository bookingRepository;
     private final HotelRepository hotelRepository;
     private final ImageRepository imageRepository;
+    private final HotelRatingSummaryRepository hotelRatingSummaryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public List<RatingResponseDto> ratingsByHotelId(Long hotelId) {
@@ -104,18 +108,16 @@ public class RatingServiceImpl implements RatingService {
 
     @Override
     public RatingResponseDto create(AddRatingRequestDto requestDto, String token) {
-        // Lấy accountId từ token
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        // Chỉ đọc các cột cơ bản của tài khoản, khóa ngoại gán bằng tham chiếu theo id
+        AccountSummary account = currentAccount.summary(token);
+        Account accountReference = currentAccount.reference(token);
 
         // Tìm khách sạn theo hotelId
         Hotel hotel = hotelRepository.findById(requestDto.getHotelId())
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
 
         // Kiểm tra xem người dùng đã đặt phòng tại khách sạn này chưa
-        Booking booking = bookingRepository.findFirstByHotelAndAccount(hotel, account)
+        Booking booking = bookingRepository.findFirstByHotelAndAccount(hotel, accountReference)
                 .orElseThrow(() -> new RuntimeException("You must book a room at this hotel before leaving a rating"));
 
         // Kiểm tra trạng thái của booking
@@ -123,79 +125,80 @@ public class RatingServiceImpl implements RatingService {
             throw new RuntimeException("You can only leave a rating after checking in or checking out.");
         }
 
-        // Tạo đối tượng Rating mới
-        Rating rating = new Rating();
-        rating.setStars(requestDto.getStars());
-        rating.setContent(requestDto.getContent());
-        rating.setHotel(hotel);
-        rating.setAccount(account);
-
-        // Lưu đánh giá vào cơ sở dữ liệu
-        Rating savedRating = ratingRepository.save(rating);
-
-        // Khởi tạo danh sách hình ảnh
-        List<ImageResponseDto> imageDtos = new ArrayList<>();
-
-        // Kiểm tra và lưu hình ảnh nếu có
-        if (requestDto.getImages() != null && !requestDto.getImages().isEmpty()) {
-            for (MultipartFile imageFile : requestDto.getImages()) {
-                // Tải hình ảnh lên Cloudinary
-                String imageUrl = cloudinaryService.uploadImage(imageFile);
-
-                // Tạo đối tượng Image mới
-                Image image = new Image();
-                image.setEntityId(savedRating.getId());
-                image.setEntityType(EntityType.REVIEW);
-                image.setImageUrl(imageUrl);
-
-                // Lưu hình ảnh vào cơ sở dữ liệu
-                imageRepository.save(image);
-
-                // Thêm vào danh sách hình ảnh DTO
-                imageDtos.add(new ImageResponseDto(image.getId(), imageUrl));
-            }
-        }
-
-        // Chuyển đổi sang RatingResponseDto
-
-        // Trả về APICustomize chứa RatingResponseDto
-        return new RatingResponseDto(
-                savedRating.getId(),
-                savedRating.getStars(),
-                savedRating.getContent(),
-                savedRating.getCreateDt(),
-                imageDtos,  // Nếu không có hình ảnh, imageDtos sẽ là danh sách rỗng
-                new AccountResponseDto(
-                        account.getId(),
-                        account.getFullName(),
-                        account.getUsername(),
-                        account.getEmail(),
-                        account.getAvatar(),
-                        account.getPhone(),
-                        account.getBlockReason(),
-                        null
-                )
-        );
+        // Tải các hình ảnh (nếu có) lên Cloudinary song song, trước khi mở transaction
+        // để không giữ khóa dòng rating tổng hợp và connection trong lúc chờ mạng
+        List<String> imageUrls = imageUploadService.uploadAll(requestDto.getImages());
+
+        // Lưu đánh giá, rating tổng hợp và hình ảnh trong một transaction ngắn
+        return transactionTemplate.execute(status -> {
+            // Tạo đối tượng Rating mới
+            Rating rating = new Rating();
+            rating.setStars(requestDto.getStars());
+            rating.setContent(requestDto.getContent());
+            rating.setHotel(hotel);
+            rating.setAccount(accountReference);
+
+            // Lưu đánh giá vào cơ sở dữ liệu
+            Rating savedRating = ratingRepository.save(rating);
+
+            // Cập nhật rating tổng hợp của khách sạn trong cùng transaction
+            hotelRatingSummaryRepository.addRating(hotel.getId(), requestDto.getStars());
+            eventPublisher.publishEvent(new HotelChangedEvent(hotel.getId()));
+
+            // Tạo các đối tượng Image mới và lưu vào cơ sở dữ liệu trong một lần
+            List<Image> images = imageUrls.stream()
+                    .map(imageUrl -> {
+                        Image image = new Image();
+                        image.setEntityId(savedRating.getId());
+                        image.setEntityType(EntityType.REVIEW);
+                        image.setImageUrl(imageUrl);
+                        return image;
+                    })
+                    .toList();
+            List<ImageResponseDto> imageDtos = imageRepository.saveAll(images).stream()
+                    .map(image -> new ImageResponseDto(image.getId(), image.getImageUrl()))
+                    .toList();
+
+            // Trả về APICustomize chứa RatingResponseDto
+            return new RatingResponseDto(
+                    savedRating.getId(),
+                    savedRating.getStars(),
+                    savedRating.getContent(),
+                    savedRating.getCreateDt(),
+                    imageDtos,  // Nếu không có hình ảnh, imageDtos sẽ là danh sách rỗng
+                    new AccountResponseDto(
+                            account.getId(),
+                            account.getFullName(),
+                            account.getUsername(),
+                            account.getEmail(),
+                            account.getAvatar(),
+                            account.getPhone(),
+                            account.getBlockReason(),
+                            null
+                    )
+            );
+        });
     }
     
     @Override
+    @Transactional
     public Void delete(Long id, String token) {
         // Lấy accountId từ token
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Long accountId = currentAccount.id(token);
 
         // Tìm đánh giá theo id
         Rating rating = ratingRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Rating"));
 
         // Kiểm tra xem tài khoản có quyền xóa đánh giá này không
-        if (!rating.getAccount().getId().equals(account.getId())) {
+        if (!rating.getAccount().getId().equals(accountId)) {
             throw new RuntimeException("User does not have permission to delete this rating.");
         }
 
         // Xóa đánh giá
         ratingRepository.delete(rating);
+        hotelRatingSummaryRepository.removeRating(rating.getHotel().getId(), rating.getStars());
+        eventPublisher.publishEvent(new HotelChangedEvent(rating.getHotel().getId()));
 
         // Trả về kết quả thành công
         return  null;
@@ -1,8 +1,7 @@
 package com.vinova.booking_hotel.property.service.impl;
 
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.property.model.Hotel;
 import com.vinova.booking_hotel.property.model.WishList;
@@ -17,15 +16,12 @@ import org.springframework.stereotype.Service;
 public class WishListServiceImpl implements WishListService {
 
     private final WishListRepository wishListRepository;
-    private final AccountRepository accountRepository;
+    private final CurrentAccount currentAccount;
     private final HotelRepository hotelRepository;
-    private final JwtUtils jwtUtils;
 
     @Override
     public String addToWishList(Long hotelId, String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Account account = currentAccount.reference(token);
 
         Hotel hotel = hotelRepository.findById(hotelId)
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
@@ -45,9 +41,7 @@ public class WishListServiceImpl implements WishListService {
 
     @Override
     public String removeFromWishList(Long hotelId, String token) {
-        Long accountId = jwtUtils.getUserIdFromJwtToken(token);
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account"));
+        Account account = currentAccount.reference(token);
 
         Hotel hotel = hotelRepository.findById(hotelId)
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel"));
@@ -0,0 +1,139 @@
+package com.vinova.booking_hotel.cache;
+
+import com.vinova.booking_hotel.common.cache.ExpiringCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void get_shouldLoadOnceUntilExpired() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("key", k -> k + loads.incrementAndGet());
+        assertEquals("key1", cache.get("key", k -> k + loads.incrementAndGet()));
+
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertEquals("key2", cache.get("key", k -> k + loads.incrementAndGet()));
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void get_shouldNotCacheNullValues() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), now::get);
+
+        assertNull(cache.get("key", k -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_shouldEvictOldestEntries_whenFull() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), now::get);
+
+        for (int i = 0; i < 11; i++) {
+            now.incrementAndGet();
+            cache.get(i, k -> k);
+        }
+
+        // Vượt giới hạn thì bỏ phần tử cũ nhất cùng 10% dự phòng
+        assertEquals(9, cache.size());
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(0, k -> loads.incrementAndGet());
+        cache.get(10, k -> loads.incrementAndGet());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate_shouldForceReload() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), now::get);
+        cache.get("key", k -> "old");
+
+        cache.invalidate("key");
+
+        assertEquals("new", cache.get("key", k -> "new"));
+    }
+
+    @Test
+    void get_shouldNotBlockOtherKeysOrInvalidateWhileLoading() throws Exception {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), now::get);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> slowResult = new AtomicReference<>();
+        Thread slowLoad = new Thread(() -> slowResult.set(cache.get("slow", k -> {
+            loading.countDown();
+            await(release);
+            return "stale";
+        })));
+        slowLoad.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // Loader của key khác và invalidate không phải chờ loader đang chạy
+        assertEquals("other", cache.get("other", k -> "other"));
+        cache.invalidate("slow");
+
+        release.countDown();
+        slowLoad.join(5000);
+        assertEquals("stale", slowResult.get());
+        // Giá trị nạp trước khi invalidate không được giữ lại trong cache
+        assertEquals("fresh", cache.get("slow", k -> "fresh"));
+    }
+
+    @Test
+    void get_shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), now::get);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicReference<String> firstResult = new AtomicReference<>();
+        AtomicReference<String> secondResult = new AtomicReference<>();
+        Thread first = new Thread(() -> firstResult.set(cache.get("key", k -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "value";
+        })));
+        first.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread second = new Thread(() -> secondResult.set(cache.get("key", k -> "value" + loads.incrementAndGet())));
+        second.start();
+
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        assertEquals("value", firstResult.get());
+        assertEquals("value", secondResult.get());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_shouldPropagateLoaderExceptionAndNotCacheIt() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), now::get);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("key", k -> {
+            throw new IllegalStateException("not found");
+        }));
+        assertEquals("value", cache.get("key", k -> "value"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.vinova.booking_hotel.config;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Server HTTP cục bộ giả lập API upload/xóa ảnh của Cloudinary cho test: trả secure_url theo nội dung file,
+// có thể cấu hình độ trễ phản hồi, ghi nhận số upload chạy đồng thời và các ảnh bị xóa
+public class FakeCloudinaryServer implements AutoCloseable {
+
+    private static final String CLOUD_NAME = "demo";
+    private static final Pattern MARKER = Pattern.compile("image-\\d+");
+    private static final Pattern PUBLIC_ID = Pattern.compile("(image|upload)-\\d+");
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private final AtomicInteger uploads = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<String> deletedPublicIds = new CopyOnWriteArrayList<>();
+    private volatile Duration responseDelay = Duration.ZERO;
+    private volatile String failingContent;
+
+    public FakeCloudinaryServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1_1/" + CLOUD_NAME + "/image/upload", this::handleUpload);
+        server.createContext("/v1_1/" + CLOUD_NAME + "/image/destroy", this::handleDestroy);
+        server.setExecutor(handlers);
+        server.start();
+    }
+
+    // Cloudinary client gửi request upload tới server này thay vì api.cloudinary.com
+    public Cloudinary cloudinary() {
+        return new Cloudinary(ObjectUtils.asMap(
+                "cloud_name", CLOUD_NAME,
+                "api_key", "test-key",
+                "api_secret", "test-secret",
+                "upload_prefix", "http://localhost:" + server.getAddress().getPort()
+        ));
+    }
+
+    public void setResponseDelay(Duration responseDelay) {
+        this.responseDelay = responseDelay;
+    }
+
+    // Upload có nội dung (kể cả tên file trong multipart) chứa đoạn này sẽ nhận lỗi 500
+    public void failUploadsContaining(String failingContent) {
+        this.failingContent = failingContent;
+    }
+
+    public int getUploadCount() {
+        return uploads.get();
+    }
+
+    public int getMaxConcurrentUploads() {
+        return maxInFlight.get();
+    }
+
+    public List<String> getDeletedPublicIds() {
+        return deletedPublicIds;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private void handleUpload(HttpExchange exchange) throws IOException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+            int uploadNumber = uploads.incrementAndGet();
+            Thread.sleep(responseDelay.toMillis());
+            if (failingContent != null && body.contains(failingContent)) {
+                byte[] response = "{\"error\":{\"message\":\"Upload failed\"}}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(500, response.length);
+                exchange.getResponseBody().write(response);
+                return;
+            }
+
+            // URL trả về chứa đoạn "image-N" trong nội dung file để test kiểm tra đúng thứ tự, file khác dùng số thứ tự upload
+            Matcher matcher = MARKER.matcher(body);
+            String publicId = matcher.find() ? matcher.group() : "upload-" + uploadNumber;
+            byte[] response = ("{\"public_id\":\"" + publicId + "\",\"secure_url\":\"https://res.cloudinary.test/"
+                    + CLOUD_NAME + "/" + publicId + ".jpg\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void handleDestroy(HttpExchange exchange) throws IOException {
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+            Matcher matcher = PUBLIC_ID.matcher(body);
+            if (matcher.find()) {
+                deletedPublicIds.add(matcher.group());
+            }
+            byte[] response = "{\"result\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        } finally {
+            exchange.close();
+        }
+    }
+}
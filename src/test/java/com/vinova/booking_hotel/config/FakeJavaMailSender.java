@@ -0,0 +1,105 @@
+package com.vinova.booking_hotel.config;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// JavaMailSender giả lập cho test, lưu email thay vì gửi SMTP và có thể cấu hình số lần gửi lỗi liên tiếp
+public class FakeJavaMailSender implements JavaMailSender {
+
+    private final Session session = Session.getInstance(new Properties());
+    private final List<MimeMessage> sentMessages = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger remainingFailures = new AtomicInteger();
+
+    @Override
+    public MimeMessage createMimeMessage() {
+        return new MimeMessage(session);
+    }
+
+    @Override
+    public MimeMessage createMimeMessage(InputStream contentStream) {
+        try {
+            return new MimeMessage(session, contentStream);
+        } catch (MessagingException e) {
+            throw new MailParseException("Could not parse raw MIME content", e);
+        }
+    }
+
+    @Override
+    public void send(MimeMessage mimeMessage) {
+        send(new MimeMessage[]{mimeMessage});
+    }
+
+    @Override
+    public void send(MimeMessage... mimeMessages) {
+        // Mỗi lần gọi tương ứng một kết nối SMTP
+        batches.incrementAndGet();
+        if (remainingFailures.getAndUpdate(value -> Math.max(0, value - 1)) > 0) {
+            Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+            for (MimeMessage mimeMessage : mimeMessages) {
+                failedMessages.put(mimeMessage, new MessagingException("stubbed SMTP failure"));
+            }
+            throw new MailSendException("Mail server connection failed", null, failedMessages);
+        }
+        sentMessages.addAll(Arrays.asList(mimeMessages));
+    }
+
+    @Override
+    public void send(MimeMessagePreparator mimeMessagePreparator) {
+        send(new MimeMessagePreparator[]{mimeMessagePreparator});
+    }
+
+    @Override
+    public void send(MimeMessagePreparator... mimeMessagePreparators) {
+        List<MimeMessage> mimeMessages = new ArrayList<>();
+        for (MimeMessagePreparator preparator : mimeMessagePreparators) {
+            MimeMessage mimeMessage = createMimeMessage();
+            try {
+                preparator.prepare(mimeMessage);
+            } catch (Exception e) {
+                throw new MailPreparationException(e);
+            }
+            mimeMessages.add(mimeMessage);
+        }
+        send(mimeMessages.toArray(new MimeMessage[0]));
+    }
+
+    @Override
+    public void send(SimpleMailMessage simpleMessage) {
+        send(new SimpleMailMessage[]{simpleMessage});
+    }
+
+    @Override
+    public void send(SimpleMailMessage... simpleMessages) {
+        throw new UnsupportedOperationException("Mail is sent as MimeMessage through the outbox");
+    }
+
+    public void failNext(int times) {
+        remainingFailures.set(times);
+    }
+
+    public List<MimeMessage> getSentMessages() {
+        return List.copyOf(sentMessages);
+    }
+
+    public int getBatches() {
+        return batches.get();
+    }
+}
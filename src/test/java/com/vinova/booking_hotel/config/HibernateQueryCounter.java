@@ -0,0 +1,34 @@
+package com.vinova.booking_hotel.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.test.context.TestComponent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Đếm số câu lệnh SQL Hibernate đã chuẩn bị, dùng để phát hiện N+1 trong test
+@TestComponent
+public class HibernateQueryCounter {
+
+    private final Statistics statistics;
+
+    public HibernateQueryCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    public long getStatementCount() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    public void assertStatementCount(long expected) {
+        assertThat(getStatementCount())
+                .as("Số câu lệnh SQL đã thực thi")
+                .isEqualTo(expected);
+    }
+}
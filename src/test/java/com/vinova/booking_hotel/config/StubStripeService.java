@@ -0,0 +1,34 @@
+package com.vinova.booking_hotel.config;
+
+import com.vinova.booking_hotel.payment.dto.PaymentRequestDto;
+import com.vinova.booking_hotel.payment.dto.StripeResponseDto;
+import com.vinova.booking_hotel.payment.service.StripeService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// StripeService giả lập cho test, không gọi ra ngoài và có thể cấu hình số lần lỗi liên tiếp
+public class StubStripeService implements StripeService {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger remainingFailures = new AtomicInteger();
+
+    @Override
+    public StripeResponseDto checkoutBooking(PaymentRequestDto paymentRequestDto, Long bookingId) {
+        calls.incrementAndGet();
+        if (remainingFailures.getAndUpdate(value -> Math.max(0, value - 1)) > 0) {
+            throw new RuntimeException("Failed to create Stripe session: stubbed failure");
+        }
+        return StripeResponseDto.builder()
+                .sessionId("cs_test_" + bookingId)
+                .sessionUrl("https://checkout.stripe.test/" + bookingId)
+                .build();
+    }
+
+    public void failNext(int times) {
+        remainingFailures.set(times);
+    }
+
+    public int getCalls() {
+        return calls.get();
+    }
+}
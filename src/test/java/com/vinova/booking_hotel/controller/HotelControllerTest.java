@@ -3,9 +3,12 @@ package com.vinova.booking_hotel.controller;
 import com.vinova.booking_hotel.property.controller.HotelController;
 import com.vinova.booking_hotel.property.dto.request.AddHotelRequestDto;
 import com.vinova.booking_hotel.property.dto.request.AddImagesRequestDto;
+import com.vinova.booking_hotel.property.dto.response.CacheStatsResponseDto;
 import com.vinova.booking_hotel.property.dto.response.HotelResponseDto;
 import com.vinova.booking_hotel.property.dto.response.ImageResponseDto;
+import com.vinova.booking_hotel.property.dto.response.PriceQuoteResponseDto;
 import com.vinova.booking_hotel.property.service.HotelService;
+import com.vinova.booking_hotel.property.service.PricingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -15,6 +18,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -28,6 +32,9 @@ public class HotelControllerTest {
     @Mock
     private HotelService hotelService;
 
+    @Mock
+    private PricingService pricingService;
+
     @InjectMocks
     private HotelController hotelController;
 
@@ -52,6 +59,19 @@ public class HotelControllerTest {
         assertEquals(mockResponse, response.getBody());
     }
 
+    @Test
+    public void testQuote() {
+        ZonedDateTime startDate = ZonedDateTime.now().plusDays(1);
+        ZonedDateTime endDate = startDate.plusDays(2);
+        PriceQuoteResponseDto mockResponse = new PriceQuoteResponseDto();
+        when(pricingService.quote(TEST_HOTEL_ID, startDate, endDate)).thenReturn(mockResponse);
+
+        ResponseEntity<PriceQuoteResponseDto> response = hotelController.quote(TEST_HOTEL_ID, startDate, endDate);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(mockResponse, response.getBody());
+    }
+
     @Test
     public void testGetWishlist() {
         List<HotelResponseDto> mockResponse = Collections.singletonList(new HotelResponseDto());
@@ -99,6 +119,17 @@ public class HotelControllerTest {
         assertEquals(mockResponse, response.getBody());
     }
 
+    @Test
+    public void testDetailCacheStats() {
+        CacheStatsResponseDto mockResponse = new CacheStatsResponseDto(9L, 1L, 0.9, 1);
+        when(hotelService.detailCacheStats()).thenReturn(mockResponse);
+
+        ResponseEntity<CacheStatsResponseDto> response = hotelController.detailCacheStats();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(mockResponse, response.getBody());
+    }
+
     @Test
     public void testDeleteHotel() {
         // Sử dụng doNothing() để chỉ định rằng phương thức void không làm gì khi được gọi
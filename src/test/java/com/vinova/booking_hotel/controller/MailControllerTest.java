@@ -0,0 +1,40 @@
+package com.vinova.booking_hotel.controller;
+
+import com.vinova.booking_hotel.authentication.controller.MailController;
+import com.vinova.booking_hotel.authentication.dto.response.MailQueueResponseDto;
+import com.vinova.booking_hotel.authentication.service.MailOutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class MailControllerTest {
+
+    @Mock
+    private MailOutboxService mailOutboxService;
+
+    @InjectMocks
+    private MailController mailController;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testQueueDepth() {
+        MailQueueResponseDto mockResponse = new MailQueueResponseDto(5L, 1L);
+        when(mailOutboxService.queueDepth()).thenReturn(mockResponse);
+
+        ResponseEntity<MailQueueResponseDto> response = mailController.queueDepth();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(mockResponse, response.getBody());
+    }
+}
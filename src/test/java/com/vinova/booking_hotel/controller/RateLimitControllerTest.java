@@ -0,0 +1,42 @@
+package com.vinova.booking_hotel.controller;
+
+import com.vinova.booking_hotel.authentication.controller.RateLimitController;
+import com.vinova.booking_hotel.authentication.dto.response.RateLimitStatsResponseDto;
+import com.vinova.booking_hotel.common.ratelimit.SlidingWindowRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class RateLimitControllerTest {
+
+    @Mock
+    private SlidingWindowRateLimiter rateLimiter;
+
+    @InjectMocks
+    private RateLimitController rateLimitController;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testStats() {
+        when(rateLimiter.allowedCounts()).thenReturn(Map.of("sign-in", 20L));
+        when(rateLimiter.rejectedCounts()).thenReturn(Map.of("sign-in", 3L));
+
+        ResponseEntity<RateLimitStatsResponseDto> response = rateLimitController.stats();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new RateLimitStatsResponseDto(Map.of("sign-in", 20L), Map.of("sign-in", 3L)), response.getBody());
+    }
+}
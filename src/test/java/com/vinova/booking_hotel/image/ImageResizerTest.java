@@ -0,0 +1,152 @@
+package com.vinova.booking_hotel.image;
+
+import com.vinova.booking_hotel.common.enums.ImageSize;
+import com.vinova.booking_hotel.common.image.ImageResizer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageResizerTest {
+
+    private ImageResizer imageResizer;
+    private final List<Path> tempFiles = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        imageResizer = new ImageResizer();
+        ReflectionTestUtils.setField(imageResizer, "thumbnailWidth", 320);
+        ReflectionTestUtils.setField(imageResizer, "mediumWidth", 1024);
+        ReflectionTestUtils.setField(imageResizer, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(imageResizer, "maxPixels", 50_000_000L);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Path tempFile : tempFiles) {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Test
+    void resize_shouldCreateJpegForEachConfiguredWidth() throws IOException {
+        // Arrange: ảnh PNG có kênh trong suốt, JPEG đầu ra phải là RGB
+        Path source = png(4000, 2000, BufferedImage.TYPE_INT_ARGB);
+
+        // Act
+        Map<ImageSize, Path> derivatives = track(imageResizer.resize(source));
+
+        // Assert: giữ tỉ lệ khung hình
+        assertEquals(2, derivatives.size());
+        BufferedImage thumbnail = ImageIO.read(derivatives.get(ImageSize.THUMBNAIL).toFile());
+        BufferedImage medium = ImageIO.read(derivatives.get(ImageSize.MEDIUM).toFile());
+        assertEquals(320, thumbnail.getWidth());
+        assertEquals(160, thumbnail.getHeight());
+        assertEquals(1024, medium.getWidth());
+        assertEquals(512, medium.getHeight());
+    }
+
+    @Test
+    void resize_shouldSkipSizesNotSmallerThanSource() throws IOException {
+        // Act
+        Map<ImageSize, Path> derivatives = track(imageResizer.resize(png(800, 600, BufferedImage.TYPE_INT_RGB)));
+
+        // Assert: không phóng to ảnh nhỏ hơn cỡ medium
+        assertEquals(1, derivatives.size());
+        assertEquals(320, ImageIO.read(derivatives.get(ImageSize.THUMBNAIL).toFile()).getWidth());
+    }
+
+    @Test
+    void resize_shouldReturnEmpty_whenFileIsNotAnImage() throws IOException {
+        Path source = Files.createTempFile("image-resizer-test-", ".bin");
+        tempFiles.add(source);
+        Files.writeString(source, "not an image");
+
+        assertTrue(imageResizer.resize(source).isEmpty());
+    }
+
+    @Test
+    void resize_shouldReturnEmpty_whenImageExceedsMaxPixels() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(imageResizer, "maxPixels", 1_000_000L);
+
+        // Act & Assert: ảnh 2000x1000 vượt giới hạn nên không được giải mã
+        assertTrue(imageResizer.resize(png(2000, 1000, BufferedImage.TYPE_INT_RGB)).isEmpty());
+    }
+
+    @Test
+    void resize_shouldApplyExifOrientation() throws IOException {
+        // Arrange: ảnh chụp dọc lưu nằm ngang 3000x1500 (nửa trái màu đỏ) kèm orientation 6 (xoay 90 độ theo chiều kim đồng hồ)
+        BufferedImage image = new BufferedImage(3000, 1500, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 1500, 1500);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(1500, 0, 1500, 1500);
+        graphics.dispose();
+        Path source = jpegWithOrientation(image, 6);
+
+        // Act
+        Map<ImageSize, Path> derivatives = track(imageResizer.resize(source));
+
+        // Assert: bản thu nhỏ đứng dọc, nửa trái của ảnh lưu trở thành nửa trên
+        BufferedImage thumbnail = ImageIO.read(derivatives.get(ImageSize.THUMBNAIL).toFile());
+        assertEquals(320, thumbnail.getWidth());
+        assertEquals(640, thumbnail.getHeight());
+        assertTrue(new Color(thumbnail.getRGB(160, 100)).getRed() > 200);
+        assertTrue(new Color(thumbnail.getRGB(160, 540)).getBlue() > 200);
+        assertEquals(1024, ImageIO.read(derivatives.get(ImageSize.MEDIUM).toFile()).getWidth());
+    }
+
+    // Chèn đoạn APP1 Exif (TIFF big-endian, một thẻ Orientation) ngay sau đoạn JFIF của file JPEG
+    private Path jpegWithOrientation(BufferedImage image, int orientation) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", jpeg);
+        byte[] bytes = jpeg.toByteArray();
+        int app0End = 4 + (((bytes[4] & 0xFF) << 8) | (bytes[5] & 0xFF));
+
+        ByteBuffer exif = ByteBuffer.allocate(2 + 2 + 6 + 8 + 2 + 12 + 4);
+        exif.put((byte) 0xFF).put((byte) 0xE1).putShort((short) (exif.capacity() - 2));
+        exif.put("Exif".getBytes()).put((byte) 0).put((byte) 0);
+        exif.put("MM".getBytes()).putShort((short) 42).putInt(8);
+        exif.putShort((short) 1);
+        exif.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        exif.putInt(0);
+
+        Path file = Files.createTempFile("image-resizer-test-", ".jpg");
+        tempFiles.add(file);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(bytes, 0, app0End);
+        output.write(exif.array());
+        output.write(bytes, app0End, bytes.length - app0End);
+        Files.write(file, output.toByteArray());
+        return file;
+    }
+
+    private Path png(int width, int height, int type) throws IOException {
+        Path file = Files.createTempFile("image-resizer-test-", ".png");
+        tempFiles.add(file);
+        ImageIO.write(new BufferedImage(width, height, type), "png", file.toFile());
+        return file;
+    }
+
+    private Map<ImageSize, Path> track(Map<ImageSize, Path> derivatives) {
+        tempFiles.addAll(derivatives.values());
+        return derivatives;
+    }
+}
@@ -0,0 +1,87 @@
+package com.vinova.booking_hotel.ratelimit;
+
+import com.vinova.booking_hotel.common.ratelimit.RateLimitDecision;
+import com.vinova.booking_hotel.common.ratelimit.RateLimitRule;
+import com.vinova.booking_hotel.common.ratelimit.SlidingWindowRateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlidingWindowRateLimiterTest {
+
+    private static final RateLimitRule RULE = new RateLimitRule("sign-in", AnyRequestMatcher.INSTANCE, 10, Duration.ofMinutes(1));
+
+    private final AtomicLong now = new AtomicLong(Duration.ofMinutes(10).toMillis());
+    private final SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(now::get);
+
+    @Test
+    void tryAcquire_shouldRejectAfterLimitWithRetryAfter() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(rateLimiter.tryAcquire(RULE, "ip:1.1.1.1").allowed());
+        }
+
+        RateLimitDecision decision = rateLimiter.tryAcquire(RULE, "ip:1.1.1.1");
+
+        assertFalse(decision.allowed());
+        assertEquals(Duration.ofMinutes(1), decision.retryAfter());
+        // Client khác không bị ảnh hưởng
+        assertTrue(rateLimiter.tryAcquire(RULE, "ip:2.2.2.2").allowed());
+        assertEquals(11L, rateLimiter.allowedCounts().get("sign-in"));
+        assertEquals(1L, rateLimiter.rejectedCounts().get("sign-in"));
+    }
+
+    @Test
+    void tryAcquire_shouldWeighPreviousWindow() {
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.tryAcquire(RULE, "ip:1.1.1.1");
+        }
+
+        // Sang cửa sổ mới 30 giây: cửa sổ trước còn tính một nửa, tức 5 request
+        now.addAndGet(Duration.ofSeconds(90).toMillis());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(RULE, "ip:1.1.1.1").allowed());
+        }
+        RateLimitDecision decision = rateLimiter.tryAcquire(RULE, "ip:1.1.1.1");
+        assertFalse(decision.allowed());
+        assertEquals(Duration.ofSeconds(6), decision.retryAfter());
+
+        now.addAndGet(decision.retryAfter().toMillis());
+        assertTrue(rateLimiter.tryAcquire(RULE, "ip:1.1.1.1").allowed());
+    }
+
+    @Test
+    void tryAcquire_shouldNotExceedLimitUnderContention() throws InterruptedException {
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 200; i++) {
+            executor.execute(() -> {
+                if (rateLimiter.tryAcquire(RULE, "account:testuser").allowed()) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(10, allowed.get());
+        assertEquals(190L, rateLimiter.rejectedCounts().get("sign-in"));
+    }
+
+    @Test
+    void evictIdle_shouldDropClientsOutsideTwoWindows() {
+        rateLimiter.tryAcquire(RULE, "ip:1.1.1.1");
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+        rateLimiter.tryAcquire(RULE, "ip:2.2.2.2");
+        now.addAndGet(Duration.ofSeconds(1).toMillis());
+
+        assertEquals(1, rateLimiter.evictIdle());
+    }
+}
@@ -4,7 +4,9 @@ import com.vinova.booking_hotel.authentication.model.Account;
 import com.vinova.booking_hotel.authentication.model.AccountRole;
 import com.vinova.booking_hotel.authentication.model.Role;
 import com.vinova.booking_hotel.authentication.repository.AccountRepository;
+import com.vinova.booking_hotel.config.HibernateQueryCounter;
 import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,7 +26,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
-@Import(TestPostgreSQLContainerConfig.class) // Thêm annotation @Import
+@Import({TestPostgreSQLContainerConfig.class, HibernateQueryCounter.class}) // Thêm annotation @Import
 public class AccountRepositoryTest {
 
     @Autowired
@@ -33,6 +35,9 @@ public class AccountRepositoryTest {
     @Autowired
     private TestEntityManager entityManager;
 
+    @Autowired
+    private HibernateQueryCounter queryCounter;
+
     @BeforeEach
     void setUp() {
         accountRepository.deleteAll();
@@ -72,6 +77,29 @@ public class AccountRepositoryTest {
         assertThat(foundAccount.get().getUsername()).isEqualTo("user1");
     }
 
+    @Test
+    void findByUsername_shouldNotLoadRolesOrHotels() {
+        entityManager.clear();
+
+        Account account = accountRepository.findByUsername("user1").orElseThrow();
+
+        assertThat(Hibernate.isInitialized(account.getAccountRoles())).isFalse();
+        assertThat(Hibernate.isInitialized(account.getHotels())).isFalse();
+    }
+
+    @Test
+    void findWithRolesByUsername_shouldLoadRolesInSingleStatement() {
+        entityManager.clear();
+        queryCounter.reset();
+
+        Account account = accountRepository.findWithRolesByUsername("user1").orElseThrow();
+
+        assertThat(account.getAccountRoles())
+                .extracting(accountRole -> accountRole.getRole().getName())
+                .containsExactly("USER");
+        queryCounter.assertStatementCount(1);
+    }
+
     @Test
     void findByUsername_shouldReturnEmptyOptional_whenUsernameDoesNotExist() {
         Optional<Account> foundAccount = accountRepository.findByUsername("nonexistent");
@@ -1,8 +1,11 @@
 package com.vinova.booking_hotel.repository;
 
 import com.vinova.booking_hotel.authentication.model.Account;
+import com.vinova.booking_hotel.authentication.model.AccountRole;
+import com.vinova.booking_hotel.authentication.model.Role;
 import com.vinova.booking_hotel.authentication.repository.AccountRepository;
 import com.vinova.booking_hotel.common.enums.BookingStatus;
+import com.vinova.booking_hotel.config.HibernateQueryCounter;
 import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
 import com.vinova.booking_hotel.property.model.Booking;
 import com.vinova.booking_hotel.property.model.District;
@@ -10,24 +13,31 @@ import com.vinova.booking_hotel.property.model.Hotel;
 import com.vinova.booking_hotel.property.repository.BookingRepository;
 import com.vinova.booking_hotel.property.repository.DistrictRepository;
 import com.vinova.booking_hotel.property.repository.HotelRepository;
+import com.vinova.booking_hotel.property.repository.projection.BookedRangeView;
+import com.vinova.booking_hotel.property.repository.projection.BookingIntervalView;
+import com.vinova.booking_hotel.property.repository.projection.OwnerBookingReportRow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.context.annotation.Import;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
-@Import(TestPostgreSQLContainerConfig.class)
+@Import({TestPostgreSQLContainerConfig.class, HibernateQueryCounter.class})
 public class BookingRepositoryTest {
 
     @Autowired
@@ -42,6 +52,12 @@ public class BookingRepositoryTest {
     @Autowired
     private DistrictRepository districtRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private HibernateQueryCounter queryCounter;
+
     private Hotel savedHotel;
     private Account savedAccount;
 
@@ -184,4 +200,222 @@ public class BookingRepositoryTest {
         List<Booking> foundBookings = bookingRepository.findByHotelId(savedHotel.getId());
         assertThat(foundBookings).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindActiveIntervalsEndingAfter_ShouldSkipCancelledAndFinishedBookings() {
+        // Arrange
+        Booking active = new Booking();
+        active.setHotel(savedHotel);
+        active.setAccount(savedAccount);
+        active.setStartDate(ZonedDateTime.now().plusDays(1));
+        active.setEndDate(ZonedDateTime.now().plusDays(3));
+        active.setTotalPrice(BigDecimal.valueOf(100));
+        active.setStatus(BookingStatus.PENDING);
+        bookingRepository.save(active);
+
+        Booking cancelled = new Booking();
+        cancelled.setHotel(savedHotel);
+        cancelled.setAccount(savedAccount);
+        cancelled.setStartDate(ZonedDateTime.now().plusDays(4));
+        cancelled.setEndDate(ZonedDateTime.now().plusDays(5));
+        cancelled.setTotalPrice(BigDecimal.valueOf(100));
+        cancelled.setStatus(BookingStatus.CANCELLED);
+        bookingRepository.save(cancelled);
+
+        Booking finished = new Booking();
+        finished.setHotel(savedHotel);
+        finished.setAccount(savedAccount);
+        finished.setStartDate(ZonedDateTime.now().minusDays(5));
+        finished.setEndDate(ZonedDateTime.now().minusDays(3));
+        finished.setTotalPrice(BigDecimal.valueOf(100));
+        finished.setStatus(BookingStatus.CHECKOUT);
+        bookingRepository.save(finished);
+
+        // Act
+        List<BookingIntervalView> intervals = bookingRepository.findActiveIntervalsEndingAfter(ZonedDateTime.now(), BookingStatus.CANCELLED);
+
+        // Assert
+        assertThat(intervals).hasSize(1);
+        assertThat(intervals.getFirst().getId()).isEqualTo(active.getId());
+        assertThat(intervals.getFirst().getHotelId()).isEqualTo(savedHotel.getId());
+    }
+
+    @Test
+    public void testFindBookedRangesEndingAfter_ShouldReturnOnlyOccupyingRangesOrderedByStart() {
+        // Arrange
+        ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking later = saveBooking(now.plusDays(6), now.plusDays(8), BookingStatus.CONFIRMED);
+        Booking ongoing = saveBooking(now.minusDays(1), now.plusDays(2), BookingStatus.CHECKIN);
+        saveBooking(now.plusDays(3), now.plusDays(4), BookingStatus.CANCELLED);
+        saveBooking(now.minusDays(5), now.minusDays(3), BookingStatus.CHECKOUT);
+
+        // Act
+        List<BookedRangeView> ranges = bookingRepository.findBookedRangesEndingAfter(savedHotel.getId(), now, BookingStatus.CANCELLED);
+
+        // Assert
+        assertThat(ranges).hasSize(2);
+        assertThat(ranges.get(0).getStartDate().toInstant()).isEqualTo(ongoing.getStartDate().toInstant());
+        assertThat(ranges.get(1).getEndDate().toInstant()).isEqualTo(later.getEndDate().toInstant());
+    }
+
+    private Booking saveBooking(ZonedDateTime startDate, ZonedDateTime endDate, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setHotel(savedHotel);
+        booking.setAccount(savedAccount);
+        booking.setStartDate(startDate);
+        booking.setEndDate(endDate);
+        booking.setTotalPrice(BigDecimal.valueOf(100));
+        booking.setStatus(status);
+        return bookingRepository.save(booking);
+    }
+
+    @Test
+    public void testCheckInStarted_ShouldOnlyUpdateStartedConfirmedBookings() {
+        // Arrange
+        Booking started = saveBooking(ZonedDateTime.now().minusHours(1), ZonedDateTime.now().plusDays(1), BookingStatus.CONFIRMED);
+        Booking upcoming = saveBooking(ZonedDateTime.now().plusDays(1), ZonedDateTime.now().plusDays(2), BookingStatus.CONFIRMED);
+        Booking cancelled = saveBooking(ZonedDateTime.now().minusHours(1), ZonedDateTime.now().plusDays(1), BookingStatus.CANCELLED);
+
+        // Act
+        List<Long> updatedIds = bookingRepository.checkInStarted(ZonedDateTime.now(), 500);
+        entityManager.clear();
+
+        // Assert
+        assertThat(updatedIds).containsExactly(started.getId());
+        assertThat(bookingRepository.findById(started.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CHECKIN);
+        assertThat(bookingRepository.findById(upcoming.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(bookingRepository.findById(cancelled.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CANCELLED);
+    }
+
+    @Test
+    public void testCheckInStarted_ShouldRespectChunkLimit() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            saveBooking(ZonedDateTime.now().minusHours(1), ZonedDateTime.now().plusDays(1), BookingStatus.CONFIRMED);
+        }
+
+        // Act
+        List<Long> firstChunk = bookingRepository.checkInStarted(ZonedDateTime.now(), 2);
+        List<Long> secondChunk = bookingRepository.checkInStarted(ZonedDateTime.now(), 2);
+        List<Long> thirdChunk = bookingRepository.checkInStarted(ZonedDateTime.now(), 2);
+
+        // Assert
+        assertThat(firstChunk).hasSize(2);
+        assertThat(secondChunk).hasSize(1).doesNotContainAnyElementsOf(firstChunk);
+        assertThat(thirdChunk).isEmpty();
+    }
+
+    @Test
+    public void testCheckOutEnded_ShouldOnlyUpdateEndedCheckinBookings() {
+        // Arrange
+        Booking ended = saveBooking(ZonedDateTime.now().minusDays(2), ZonedDateTime.now().minusHours(1), BookingStatus.CHECKIN);
+        Booking staying = saveBooking(ZonedDateTime.now().minusDays(1), ZonedDateTime.now().plusDays(1), BookingStatus.CHECKIN);
+        Booking confirmed = saveBooking(ZonedDateTime.now().minusDays(2), ZonedDateTime.now().minusHours(1), BookingStatus.CONFIRMED);
+
+        // Act
+        List<Long> updatedIds = bookingRepository.checkOutEnded(ZonedDateTime.now(), 500);
+        entityManager.clear();
+
+        // Assert
+        assertThat(updatedIds).containsExactly(ended.getId());
+        assertThat(bookingRepository.findById(ended.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CHECKOUT);
+        assertThat(bookingRepository.findById(staying.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CHECKIN);
+        assertThat(bookingRepository.findById(confirmed.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+    }
+
+    @Test
+    public void testTryAdvisoryXactLock_ShouldBeReentrantWithinTransaction() {
+        assertThat(bookingRepository.tryAdvisoryXactLock(42L)).isTrue();
+        assertThat(bookingRepository.tryAdvisoryXactLock(42L)).isTrue();
+    }
+
+    private Account saveAccountWithRole(String username, Role role) {
+        Account account = new Account();
+        account.setUsername(username);
+        account.setEmail(username + "@example.com");
+        account.setFullName(username);
+        entityManager.persist(account);
+
+        AccountRole accountRole = new AccountRole();
+        accountRole.setAccount(account);
+        accountRole.setRole(role);
+        entityManager.persist(accountRole);
+        return account;
+    }
+
+    @Test
+    public void testStreamReportRowsByOwner_ShouldGroupTodayBookingsByOwner() {
+        // Arrange
+        Role ownerRole = new Role();
+        ownerRole.setName("ROLE_OWNER");
+        entityManager.persist(ownerRole);
+        Role userRole = new Role();
+        userRole.setName("ROLE_USER");
+        entityManager.persist(userRole);
+
+        Account ownerWithBookings = saveAccountWithRole("owner_a", ownerRole);
+        Account ownerWithoutBookings = saveAccountWithRole("owner_b", ownerRole);
+        saveAccountWithRole("guest", userRole);
+        savedHotel.setAccount(ownerWithBookings);
+        hotelRepository.save(savedHotel);
+
+        Booking todayBooking = saveBooking(ZonedDateTime.now().plusDays(1), ZonedDateTime.now().plusDays(2), BookingStatus.CONFIRMED);
+        Booking yesterdayBooking = saveBooking(ZonedDateTime.now().plusDays(3), ZonedDateTime.now().plusDays(4), BookingStatus.CONFIRMED);
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE bookings SET create_dt = now() - interval '1 day' WHERE id = :id")
+                .setParameter("id", yesterdayBooking.getId())
+                .executeUpdate();
+
+        ZonedDateTime from = LocalDate.now().atStartOfDay(ZoneId.systemDefault());
+
+        // Act
+        List<OwnerBookingReportRow> rows;
+        try (Stream<OwnerBookingReportRow> stream = bookingRepository.streamReportRowsByOwner("ROLE_OWNER", from, from.plusDays(1))) {
+            rows = stream.toList();
+        }
+
+        // Assert
+        assertThat(rows).extracting(OwnerBookingReportRow::getOwnerId)
+                .containsExactly(ownerWithBookings.getId(), ownerWithoutBookings.getId());
+        assertThat(rows.get(0).getBookingId()).isEqualTo(todayBooking.getId());
+        assertThat(rows.get(0).getHotelName()).isEqualTo("Test Hotel");
+        assertThat(rows.get(0).getOwnerEmail()).isEqualTo("owner_a@example.com");
+        assertThat(rows.get(1).getBookingId()).isNull();
+    }
+
+    @Test
+    public void testFindByHotelAccountId_ShouldLoadOwnerBookingsWithHotelAndGuestInSingleStatement() {
+        // Arrange
+        Account otherOwner = new Account();
+        otherOwner.setUsername("other_owner");
+        otherOwner.setEmail("other_owner@example.com");
+        otherOwner.setFullName("Other Owner");
+        accountRepository.save(otherOwner);
+        Hotel otherHotel = new Hotel();
+        otherHotel.setName("Other Hotel");
+        otherHotel.setAccount(otherOwner);
+        otherHotel.setDistrict(savedHotel.getDistrict());
+        hotelRepository.save(otherHotel);
+
+        Booking ownBooking1 = saveBooking(ZonedDateTime.now().plusDays(1), ZonedDateTime.now().plusDays(2), BookingStatus.CONFIRMED);
+        Booking ownBooking2 = saveBooking(ZonedDateTime.now().plusDays(3), ZonedDateTime.now().plusDays(4), BookingStatus.PENDING);
+        Booking otherBooking = saveBooking(ZonedDateTime.now().plusDays(5), ZonedDateTime.now().plusDays(6), BookingStatus.CONFIRMED);
+        otherBooking.setHotel(otherHotel);
+        bookingRepository.save(otherBooking);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        queryCounter.reset();
+        List<Booking> bookings = bookingRepository.findByHotelAccountId(savedAccount.getId());
+
+        // Assert
+        assertThat(bookings).extracting(Booking::getId)
+                .containsExactlyInAnyOrder(ownBooking1.getId(), ownBooking2.getId());
+        assertThat(bookings).allSatisfy(booking -> {
+            assertThat(booking.getHotel().getName()).isEqualTo("Test Hotel");
+            assertThat(booking.getAccount().getUsername()).isEqualTo("test_user");
+        });
+        queryCounter.assertStatementCount(1);
+    }
+}
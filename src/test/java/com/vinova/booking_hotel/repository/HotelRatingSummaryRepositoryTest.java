@@ -0,0 +1,138 @@
+package com.vinova.booking_hotel.repository;
+
+import com.vinova.booking_hotel.authentication.model.Account;
+import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
+import com.vinova.booking_hotel.property.model.District;
+import com.vinova.booking_hotel.property.model.Hotel;
+import com.vinova.booking_hotel.property.model.HotelRatingSummary;
+import com.vinova.booking_hotel.property.model.Rating;
+import com.vinova.booking_hotel.property.repository.HotelRatingSummaryRepository;
+import com.vinova.booking_hotel.property.repository.projection.HotelRatingStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TestPostgreSQLContainerConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class HotelRatingSummaryRepositoryTest {
+
+    @Autowired
+    private HotelRatingSummaryRepository hotelRatingSummaryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Hotel testHotel1;
+    private Hotel testHotel2;
+    private Account testAccount;
+
+    @BeforeEach
+    void setUp() {
+        testAccount = new Account();
+        testAccount.setFullName("Account 1");
+        testAccount.setEmail("account1@example.com");
+        testAccount.setUsername("user1");
+        entityManager.persist(testAccount);
+
+        District district = new District();
+        district.setName("District 1");
+        entityManager.persist(district);
+
+        testHotel1 = new Hotel();
+        testHotel1.setName("Hotel 1");
+        testHotel1.setAccount(testAccount);
+        testHotel1.setDistrict(district);
+        entityManager.persist(testHotel1);
+
+        testHotel2 = new Hotel();
+        testHotel2.setName("Hotel 2");
+        testHotel2.setAccount(testAccount);
+        testHotel2.setDistrict(district);
+        entityManager.persist(testHotel2);
+        entityManager.flush();
+    }
+
+    @Test
+    void addRating_shouldCreateAndAccumulateSummary() {
+        hotelRatingSummaryRepository.addRating(testHotel1.getId(), 4);
+        hotelRatingSummaryRepository.addRating(testHotel1.getId(), 5);
+        entityManager.clear();
+
+        HotelRatingSummary summary = entityManager.find(HotelRatingSummary.class, testHotel1.getId());
+        assertThat(summary.getRatingSum()).isEqualTo(9L);
+        assertThat(summary.getRatingCount()).isEqualTo(2L);
+        assertThat(summary.getAverageRating()).isEqualTo(4.5);
+    }
+
+    @Test
+    void removeRating_shouldDecrementSummaryAndResetAverageWhenEmpty() {
+        hotelRatingSummaryRepository.addRating(testHotel1.getId(), 4);
+        hotelRatingSummaryRepository.addRating(testHotel1.getId(), 2);
+
+        hotelRatingSummaryRepository.removeRating(testHotel1.getId(), 2);
+        entityManager.clear();
+        HotelRatingSummary summary = entityManager.find(HotelRatingSummary.class, testHotel1.getId());
+        assertThat(summary.getRatingCount()).isEqualTo(1L);
+        assertThat(summary.getAverageRating()).isEqualTo(4.0);
+
+        hotelRatingSummaryRepository.removeRating(testHotel1.getId(), 4);
+        entityManager.clear();
+        summary = entityManager.find(HotelRatingSummary.class, testHotel1.getId());
+        assertThat(summary.getRatingCount()).isZero();
+        assertThat(summary.getAverageRating()).isEqualTo(0.0);
+    }
+
+    @Test
+    void insertMissingAndRecountChanged_shouldRebuildSummariesFromRatings() {
+        Rating rating1 = new Rating();
+        rating1.setHotel(testHotel1);
+        rating1.setAccount(testAccount);
+        rating1.setStars(3);
+        rating1.setContent("Okay");
+        entityManager.persist(rating1);
+
+        Rating rating2 = new Rating();
+        rating2.setHotel(testHotel1);
+        rating2.setAccount(testAccount);
+        rating2.setStars(4);
+        rating2.setContent("Good");
+        entityManager.persist(rating2);
+
+        // Dữ liệu tổng hợp sai sẽ được sửa lại khi đối soát
+        hotelRatingSummaryRepository.addRating(testHotel1.getId(), 1);
+        entityManager.flush();
+
+        int inserted = hotelRatingSummaryRepository.insertMissing();
+        List<Long> locked = hotelRatingSummaryRepository.lockBatchAfter(0L, 500);
+        int recounted = hotelRatingSummaryRepository.recountChanged(locked);
+        entityManager.clear();
+
+        // Chỉ khách sạn 2 thiếu dòng tổng hợp, chỉ khách sạn 1 lệch với số đếm
+        assertThat(inserted).isEqualTo(1);
+        assertThat(locked).contains(testHotel1.getId(), testHotel2.getId());
+        assertThat(recounted).isEqualTo(1);
+        List<HotelRatingStats> stats = hotelRatingSummaryRepository.findStatsByHotelIds(List.of(testHotel1.getId(), testHotel2.getId()));
+        assertThat(stats).hasSize(2);
+        HotelRatingStats hotel1Stats = stats.stream()
+                .filter(s -> s.getHotelId().equals(testHotel1.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(hotel1Stats.getReviewCount()).isEqualTo(2L);
+        assertThat(hotel1Stats.getAverageRating()).isEqualTo(3.5);
+        HotelRatingStats hotel2Stats = stats.stream()
+                .filter(s -> s.getHotelId().equals(testHotel2.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(hotel2Stats.getReviewCount()).isZero();
+        assertThat(hotel2Stats.getAverageRating()).isEqualTo(0.0);
+    }
+}
@@ -2,13 +2,19 @@ package com.vinova.booking_hotel.repository;
 
 import com.vinova.booking_hotel.authentication.model.Account;
 import com.vinova.booking_hotel.authentication.repository.AccountRepository;
+import com.vinova.booking_hotel.common.enums.BookingStatus;
+import com.vinova.booking_hotel.common.pagination.KeysetCursor;
+import com.vinova.booking_hotel.common.pagination.KeysetSpecification;
 import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
+import com.vinova.booking_hotel.property.model.Booking;
 import com.vinova.booking_hotel.property.model.District;
 import com.vinova.booking_hotel.property.model.Hotel;
 import com.vinova.booking_hotel.property.model.Rating;
 import com.vinova.booking_hotel.property.repository.DistrictRepository;
+import com.vinova.booking_hotel.property.repository.HotelRatingSummaryRepository;
 import com.vinova.booking_hotel.property.repository.HotelRepository;
 import com.vinova.booking_hotel.property.repository.RatingRepository;
+import com.vinova.booking_hotel.property.repository.specification.HotelSpecification;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,8 +22,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,6 +49,9 @@ public class HotelRepositoryTest {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private HotelRatingSummaryRepository hotelRatingSummaryRepository;
+
     @Autowired
     private DistrictRepository districtRepository;
 
@@ -122,6 +137,16 @@ public class HotelRepositoryTest {
         assertThat(retrievedHotel.get().getName()).isEqualTo("New Hotel");
     }
 
+    @Test
+    @Transactional
+    void testFindByIdForUpdate_ShouldLockAndReturnHotel() {
+        Optional<Hotel> locked = hotelRepository.findByIdForUpdate(testHotel1.getId());
+
+        assertThat(locked).isPresent();
+        assertThat(locked.get().getId()).isEqualTo(testHotel1.getId());
+        assertThat(hotelRepository.findByIdForUpdate(-1L)).isEmpty();
+    }
+
     @Test
     void testFindAverageRatingByHotelId_WhenRatingsExist() {
         // Tạo và lưu Ratings cho testHotel1
@@ -157,6 +182,110 @@ public class HotelRepositoryTest {
         assertThat(averageRating).isEqualTo(0.0);
     }
 
+    @Test
+    void testFindAll_OrderByAverageRating_ShouldSortAndPageInDatabase() {
+        Hotel testHotel3 = new Hotel();
+        testHotel3.setName("Test Hotel 3");
+        testHotel3.setAccount(testAccount);
+        testHotel3.setDistrict(testDistrict);
+        hotelRepository.save(testHotel3);
+
+        Rating rating1 = new Rating();
+        rating1.setHotel(testHotel1);
+        rating1.setStars(3);
+        rating1.setAccount(ratingAccount);
+        rating1.setContent("Average");
+        ratingRepository.save(rating1);
+
+        Rating rating2 = new Rating();
+        rating2.setHotel(testHotel2);
+        rating2.setStars(5);
+        rating2.setAccount(ratingAccount);
+        rating2.setContent("Excellent");
+        ratingRepository.save(rating2);
+        hotelRatingSummaryRepository.insertMissing();
+
+        // testHotel3 không có rating nên được tính là 0
+        Page<Hotel> firstPage = hotelRepository.findAll(HotelSpecification.orderByAverageRating(true), PageRequest.of(0, 2));
+        Page<Hotel> secondPage = hotelRepository.findAll(HotelSpecification.orderByAverageRating(true), PageRequest.of(1, 2));
+
+        assertThat(firstPage.getTotalElements()).isEqualTo(3);
+        assertThat(firstPage.getContent()).extracting(Hotel::getId)
+                .containsExactly(testHotel2.getId(), testHotel1.getId());
+        assertThat(secondPage.getContent()).extracting(Hotel::getId)
+                .containsExactly(testHotel3.getId());
+
+        Page<Hotel> ascending = hotelRepository.findAll(HotelSpecification.orderByAverageRating(false), PageRequest.of(0, 3));
+        assertThat(ascending.getContent()).extracting(Hotel::getId)
+                .containsExactly(testHotel3.getId(), testHotel1.getId(), testHotel2.getId());
+    }
+
+    @Test
+    void testFindBy_KeysetByPricePerDay_ShouldVisitEveryHotelOnceInOrder() {
+        // testHotel1 và testHotel2 không có giá (null), thêm các khách sạn có giá trùng nhau
+        List<Hotel> pricedHotels = new ArrayList<>();
+        for (int price : new int[]{300, 100, 200, 100}) {
+            Hotel hotel = new Hotel();
+            hotel.setName("Priced Hotel " + price);
+            hotel.setPricePerDay(BigDecimal.valueOf(price));
+            hotel.setAccount(testAccount);
+            hotel.setDistrict(testDistrict);
+            pricedHotels.add(hotelRepository.save(hotel));
+        }
+
+        for (boolean descending : new boolean[]{false, true}) {
+            List<Long> visited = new ArrayList<>();
+            String cursor = null;
+            do {
+                Specification<Hotel> spec = KeysetSpecification.after(KeysetCursor.decode(cursor, "pricePerDay"), descending);
+                List<Hotel> rows = hotelRepository.findBy(spec, query -> query
+                        .sortBy(KeysetSpecification.sort("pricePerDay", descending))
+                        .limit(3)
+                        .all());
+                rows.stream().limit(2).forEach(hotel -> visited.add(hotel.getId()));
+                cursor = KeysetCursor.nextCursor(rows, 2, "pricePerDay");
+            } while (cursor != null);
+
+            List<Long> expected = hotelRepository.findAll(KeysetSpecification.sort("pricePerDay", descending))
+                    .stream().map(Hotel::getId).toList();
+            assertThat(visited).hasSize(6).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    @Transactional
+    void testFindAll_IsAvailableBetween_ShouldIgnoreCancelledAndAdjacentBookings() {
+        ZonedDateTime startDate = ZonedDateTime.now().plusDays(10);
+        ZonedDateTime endDate = startDate.plusDays(2);
+
+        // Booking đã hủy của testHotel1 không được chặn tìm kiếm
+        entityManager.persist(booking(testHotel1, startDate, endDate, BookingStatus.CANCELLED));
+        // Booking của testHotel2 kết thúc đúng lúc khoảng tìm kiếm bắt đầu, không chồng lấn
+        entityManager.persist(booking(testHotel2, startDate.minusDays(2), startDate, BookingStatus.CONFIRMED));
+        entityManager.flush();
+
+        List<Hotel> available = hotelRepository.findAll(HotelSpecification.isAvailableBetween(startDate, endDate));
+        assertThat(available).extracting(Hotel::getId).containsExactlyInAnyOrder(testHotel1.getId(), testHotel2.getId());
+
+        // Booking còn hiệu lực chồng lấn thì khách sạn bị loại
+        entityManager.persist(booking(testHotel1, startDate.plusDays(1), endDate.plusDays(1), BookingStatus.PENDING));
+        entityManager.flush();
+
+        available = hotelRepository.findAll(HotelSpecification.isAvailableBetween(startDate, endDate));
+        assertThat(available).extracting(Hotel::getId).containsExactly(testHotel2.getId());
+    }
+
+    private Booking booking(Hotel hotel, ZonedDateTime startDate, ZonedDateTime endDate, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setHotel(entityManager.find(Hotel.class, hotel.getId()));
+        booking.setAccount(entityManager.find(Account.class, ratingAccount.getId()));
+        booking.setStartDate(startDate);
+        booking.setEndDate(endDate);
+        booking.setTotalPrice(BigDecimal.valueOf(100));
+        booking.setStatus(status);
+        return booking;
+    }
+
     @Test
     @Transactional
     void testDeleteHotelById_ShouldDeleteHotelAndRelatedEntities() {
@@ -0,0 +1,86 @@
+package com.vinova.booking_hotel.repository;
+
+import com.vinova.booking_hotel.common.enums.ImageSize;
+import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
+import com.vinova.booking_hotel.property.model.ImageDerivative;
+import com.vinova.booking_hotel.property.repository.ImageDerivativeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(TestPostgreSQLContainerConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ImageDerivativeRepositoryTest {
+
+    @Autowired
+    private ImageDerivativeRepository imageDerivativeRepository;
+
+    @Test
+    void findBySourceUrlInAndSize_shouldReturnRequestedSizeOfGivenSources() {
+        // Arrange
+        imageDerivativeRepository.saveAll(List.of(
+                new ImageDerivative(null, "url_1", ImageSize.THUMBNAIL, "url_1_thumb", null),
+                new ImageDerivative(null, "url_1", ImageSize.MEDIUM, "url_1_medium", null),
+                new ImageDerivative(null, "url_2", ImageSize.THUMBNAIL, "url_2_thumb", null),
+                new ImageDerivative(null, "url_3", ImageSize.THUMBNAIL, "url_3_thumb", null)));
+
+        // Act
+        List<ImageDerivative> thumbnails = imageDerivativeRepository.findBySourceUrlInAndSize(List.of("url_1", "url_2"), ImageSize.THUMBNAIL);
+
+        // Assert
+        assertThat(thumbnails).extracting(ImageDerivative::getUrl).containsExactlyInAnyOrder("url_1_thumb", "url_2_thumb");
+    }
+
+    @Test
+    void save_shouldRejectSecondDerivativeOfSameSize() {
+        imageDerivativeRepository.saveAndFlush(new ImageDerivative(null, "url_1", ImageSize.THUMBNAIL, "url_1_thumb", null));
+
+        assertThatThrownBy(() -> imageDerivativeRepository.saveAndFlush(
+                new ImageDerivative(null, "url_1", ImageSize.THUMBNAIL, "url_1_other", null)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void insertAllIfAbsent_shouldInsertRowsAndKeepFirstDerivativeOfSameSize() {
+        // Act
+        int first = imageDerivativeRepository.insertAllIfAbsent(
+                new String[]{"url_1", "url_1"},
+                new String[]{ImageSize.THUMBNAIL.name(), ImageSize.MEDIUM.name()},
+                new String[]{"url_1_thumb", "url_1_medium"});
+        int second = imageDerivativeRepository.insertAllIfAbsent(
+                new String[]{"url_1", "url_2"},
+                new String[]{ImageSize.THUMBNAIL.name(), ImageSize.THUMBNAIL.name()},
+                new String[]{"url_1_other", "url_2_thumb"});
+
+        // Assert: dòng trùng (url_1, THUMBNAIL) bị bỏ qua, dòng mới vẫn được ghi
+        assertThat(first).isEqualTo(2);
+        assertThat(second).isEqualTo(1);
+        assertThat(imageDerivativeRepository.findBySourceUrlInAndSize(List.of("url_1", "url_2"), ImageSize.THUMBNAIL))
+                .extracting(ImageDerivative::getUrl).containsExactlyInAnyOrder("url_1_thumb", "url_2_thumb");
+        assertThat(imageDerivativeRepository.findBySourceUrlInAndSize(List.of("url_1"), ImageSize.MEDIUM))
+                .extracting(ImageDerivative::getUrl).containsExactly("url_1_medium");
+    }
+
+    @Test
+    void findResizedSourceUrls_shouldReturnOnlySourcesWithDerivatives() {
+        // Arrange
+        imageDerivativeRepository.saveAll(List.of(
+                new ImageDerivative(null, "url_1", ImageSize.THUMBNAIL, "url_1_thumb", null),
+                new ImageDerivative(null, "url_1", ImageSize.MEDIUM, "url_1_medium", null)));
+
+        // Act
+        List<String> resized = imageDerivativeRepository.findResizedSourceUrls(List.of("url_1", "url_2"));
+
+        // Assert
+        assertThat(resized).containsExactly("url_1");
+    }
+}
@@ -0,0 +1,62 @@
+package com.vinova.booking_hotel.repository;
+
+import com.vinova.booking_hotel.common.store.KeyValueEntryRepository;
+import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TestPostgreSQLContainerConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class KeyValueEntryRepositoryTest {
+
+    @Autowired
+    private KeyValueEntryRepository keyValueEntryRepository;
+
+    @BeforeEach
+    void setUp() {
+        keyValueEntryRepository.deleteAll();
+    }
+
+    @Test
+    void testUpsert_ShouldOverwriteValueAndHideExpiredEntries() {
+        ZonedDateTime now = ZonedDateTime.now();
+        keyValueEntryRepository.upsert("verification:a@example.com", "old", now.plusMinutes(1));
+        keyValueEntryRepository.upsert("verification:a@example.com", "new", now.plusMinutes(1));
+        keyValueEntryRepository.upsert("verification:b@example.com", "expired", now.minusMinutes(1));
+
+        assertThat(keyValueEntryRepository.findValidValue("verification:a@example.com", now)).contains("new");
+        assertThat(keyValueEntryRepository.findValidValue("verification:b@example.com", now)).isEmpty();
+    }
+
+    @Test
+    void testIncrement_ShouldCountAndRestartAfterExpiry() {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime expiresAt = now.plusMinutes(15);
+
+        assertThat(keyValueEntryRepository.increment("failed-login:1", now, expiresAt)).isEqualTo(1);
+        assertThat(keyValueEntryRepository.increment("failed-login:1", now, expiresAt.plusMinutes(5))).isEqualTo(2);
+
+        ZonedDateTime later = expiresAt.plusSeconds(1);
+        assertThat(keyValueEntryRepository.increment("failed-login:1", later, later.plusMinutes(15))).isEqualTo(1);
+    }
+
+    @Test
+    void testDeleteExpired_ShouldRemoveOnlyExpiredEntries() {
+        ZonedDateTime now = ZonedDateTime.now();
+        keyValueEntryRepository.upsert("expired", "a", now.minusSeconds(1));
+        keyValueEntryRepository.upsert("valid", "b", now.plusMinutes(1));
+
+        assertThat(keyValueEntryRepository.deleteExpired(now)).isEqualTo(1);
+        assertThat(keyValueEntryRepository.existsById("valid")).isTrue();
+        assertThat(keyValueEntryRepository.existsById("expired")).isFalse();
+    }
+}
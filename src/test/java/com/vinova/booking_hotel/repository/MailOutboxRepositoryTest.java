@@ -0,0 +1,109 @@
+package com.vinova.booking_hotel.repository;
+
+import com.vinova.booking_hotel.authentication.model.MailOutbox;
+import com.vinova.booking_hotel.authentication.repository.MailOutboxRepository;
+import com.vinova.booking_hotel.common.enums.MailOutboxStatus;
+import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TestPostgreSQLContainerConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class MailOutboxRepositoryTest {
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @BeforeEach
+    void setUp() {
+        mailOutboxRepository.deleteAll();
+    }
+
+    private MailOutbox mail(String recipient, MailOutboxStatus status, ZonedDateTime nextAttemptAt) {
+        MailOutbox mail = new MailOutbox();
+        mail.setRecipient(recipient);
+        mail.setSubject("Subject");
+        mail.setBody("Body");
+        mail.setHtml(false);
+        mail.setStatus(status);
+        mail.setAttempts(0);
+        mail.setNextAttemptAt(nextAttemptAt);
+        return mailOutboxRepository.saveAndFlush(mail);
+    }
+
+    @Test
+    void testLockDueBatch_ShouldReturnDuePendingMailsInInsertOrder() {
+        ZonedDateTime now = ZonedDateTime.now();
+        MailOutbox first = mail("first@example.com", MailOutboxStatus.PENDING, now.minusMinutes(1));
+        MailOutbox second = mail("second@example.com", MailOutboxStatus.PENDING, now.minusMinutes(5));
+        mail("later@example.com", MailOutboxStatus.PENDING, now.plusMinutes(5));
+        mail("sent@example.com", MailOutboxStatus.SENT, now.minusMinutes(10));
+
+        List<MailOutbox> batch = mailOutboxRepository.lockDueBatch(now, 10);
+
+        assertThat(batch).extracting(MailOutbox::getId).containsExactly(first.getId(), second.getId());
+        assertThat(mailOutboxRepository.lockDueBatch(now, 1)).extracting(MailOutbox::getId).containsExactly(first.getId());
+    }
+
+    @Test
+    void testAttachment_ShouldRoundTripBytes() {
+        MailOutbox mail = new MailOutbox();
+        mail.setRecipient("owner@example.com");
+        mail.setSubject("Daily Booking Report");
+        mail.setBody("<p>Report</p>");
+        mail.setHtml(true);
+        mail.setAttachmentName("report.pdf");
+        mail.setAttachment(new byte[]{'%', 'P', 'D', 'F'});
+        mail.setStatus(MailOutboxStatus.PENDING);
+        mail.setAttempts(0);
+        mail.setNextAttemptAt(ZonedDateTime.now());
+        MailOutbox saved = mailOutboxRepository.saveAndFlush(mail);
+
+        assertThat(mailOutboxRepository.findById(saved.getId()).orElseThrow().getAttachment())
+                .containsExactly('%', 'P', 'D', 'F');
+    }
+
+    @Test
+    void testCountByStatus_ShouldCountQueueDepth() {
+        ZonedDateTime now = ZonedDateTime.now();
+        mail("a@example.com", MailOutboxStatus.PENDING, now);
+        mail("b@example.com", MailOutboxStatus.PENDING, now);
+        mail("c@example.com", MailOutboxStatus.FAILED, now);
+
+        assertThat(mailOutboxRepository.countByStatus(MailOutboxStatus.PENDING)).isEqualTo(2);
+        assertThat(mailOutboxRepository.countByStatus(MailOutboxStatus.FAILED)).isEqualTo(1);
+    }
+
+    @Test
+    void testLockDueBatch_ShouldReclaimSendingMailsAfterLeaseExpires() {
+        ZonedDateTime now = ZonedDateTime.now();
+        MailOutbox expired = mail("expired@example.com", MailOutboxStatus.SENDING, now.minusMinutes(1));
+        mail("inflight@example.com", MailOutboxStatus.SENDING, now.plusMinutes(5));
+
+        assertThat(mailOutboxRepository.lockDueBatch(now, 10)).extracting(MailOutbox::getId).containsExactly(expired.getId());
+    }
+
+    @Test
+    void testDeleteByStatusInAndUpdateDtBefore_ShouldPurgeOnlyFinishedMails() {
+        ZonedDateTime now = ZonedDateTime.now();
+        mail("sent@example.com", MailOutboxStatus.SENT, now);
+        mail("failed@example.com", MailOutboxStatus.FAILED, now);
+        MailOutbox pending = mail("pending@example.com", MailOutboxStatus.PENDING, now);
+
+        int deleted = mailOutboxRepository.deleteByStatusInAndUpdateDtBefore(
+                List.of(MailOutboxStatus.SENT, MailOutboxStatus.FAILED), now.plusMinutes(1));
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(mailOutboxRepository.findAll()).extracting(MailOutbox::getId).containsExactly(pending.getId());
+    }
+}
@@ -0,0 +1,70 @@
+package com.vinova.booking_hotel.repository;
+
+import com.vinova.booking_hotel.common.enums.PaymentSessionStatus;
+import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
+import com.vinova.booking_hotel.payment.model.PaymentSession;
+import com.vinova.booking_hotel.payment.repository.PaymentSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TestPostgreSQLContainerConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class PaymentSessionRepositoryTest {
+
+    @Autowired
+    private PaymentSessionRepository paymentSessionRepository;
+
+    @BeforeEach
+    void setUp() {
+        paymentSessionRepository.deleteAll();
+    }
+
+    private PaymentSession paymentSession(Long bookingId, PaymentSessionStatus status, ZonedDateTime nextAttemptAt) {
+        PaymentSession paymentSession = new PaymentSession();
+        paymentSession.setBookingId(bookingId);
+        paymentSession.setStatus(status);
+        paymentSession.setAmount(10000L);
+        paymentSession.setCurrency("USD");
+        paymentSession.setProductName("Test Hotel");
+        paymentSession.setAttempts(0);
+        paymentSession.setNextAttemptAt(nextAttemptAt);
+        return paymentSessionRepository.saveAndFlush(paymentSession);
+    }
+
+    @Test
+    void testFindDueBookingIds_ShouldReturnPendingSessionsInAttemptOrder() {
+        ZonedDateTime now = ZonedDateTime.now();
+        paymentSession(1L, PaymentSessionStatus.PENDING, now.minusMinutes(1));
+        paymentSession(2L, PaymentSessionStatus.PENDING, now.minusMinutes(5));
+        paymentSession(3L, PaymentSessionStatus.PENDING, now.plusMinutes(5));
+        paymentSession(4L, PaymentSessionStatus.READY, now.minusMinutes(10));
+
+        List<Long> due = paymentSessionRepository.findDueBookingIds(now, 10);
+
+        assertThat(due).containsExactly(2L, 1L);
+        assertThat(paymentSessionRepository.findDueBookingIds(now, 1)).containsExactly(2L);
+    }
+
+    @Test
+    void testLockDueByBookingId_ShouldOnlyReturnDuePendingSession() {
+        ZonedDateTime now = ZonedDateTime.now();
+        paymentSession(1L, PaymentSessionStatus.PENDING, now);
+        paymentSession(2L, PaymentSessionStatus.READY, now);
+        paymentSession(3L, PaymentSessionStatus.PENDING, now.plusMinutes(5));
+
+        assertThat(paymentSessionRepository.lockDueByBookingId(1L, now)).isPresent();
+        assertThat(paymentSessionRepository.lockDueByBookingId(2L, now)).isEmpty();
+        // Session đang được giữ (next_attempt_at ở tương lai) không bị nhận lại
+        assertThat(paymentSessionRepository.lockDueByBookingId(3L, now)).isEmpty();
+    }
+}
@@ -0,0 +1,36 @@
+package com.vinova.booking_hotel.repository;
+
+import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
+import com.vinova.booking_hotel.property.model.UploadedImage;
+import com.vinova.booking_hotel.property.repository.UploadedImageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TestPostgreSQLContainerConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UploadedImageRepositoryTest {
+
+    @Autowired
+    private UploadedImageRepository uploadedImageRepository;
+
+    @Test
+    void insertOrFindUrl_shouldKeepAndReturnFirstUrlOfSameContent() {
+        // Arrange
+        String hash = "a".repeat(64);
+
+        // Act
+        String first = uploadedImageRepository.insertOrFindUrl(hash, "url_1");
+        String second = uploadedImageRepository.insertOrFindUrl(hash, "url_2");
+
+        // Assert: request ghi sau nhận URL của request ghi trước
+        assertThat(first).isEqualTo("url_1");
+        assertThat(second).isEqualTo("url_1");
+        assertThat(uploadedImageRepository.findById(hash)).map(UploadedImage::getUrl).contains("url_1");
+    }
+}
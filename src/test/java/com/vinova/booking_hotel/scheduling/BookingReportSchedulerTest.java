@@ -0,0 +1,136 @@
+package com.vinova.booking_hotel.scheduling;
+
+import com.vinova.booking_hotel.authentication.service.impl.EmailServiceImpl;
+import com.vinova.booking_hotel.common.scheduling.BookingReportScheduler;
+import com.vinova.booking_hotel.property.report.OwnerBookingReport;
+import com.vinova.booking_hotel.property.repository.BookingRepository;
+import com.vinova.booking_hotel.property.repository.projection.OwnerBookingReportRow;
+import com.vinova.booking_hotel.property.service.PdfService;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingReportSchedulerTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private EmailServiceImpl emailService;
+
+    @Mock
+    private PdfService pdfService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ThreadPoolTaskExecutor bookingReportExecutor;
+
+    @InjectMocks
+    private BookingReportScheduler scheduler;
+
+    private static final byte[] PDF = {'%', 'P', 'D', 'F'};
+
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    @BeforeEach
+    void setUp() {
+        // Chạy transaction và task của executor ngay trên thread hiện tại
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(bookingReportExecutor).execute(any(Runnable.class));
+    }
+
+    private OwnerBookingReportRow row(Long ownerId, Long bookingId) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("ownerId", ownerId);
+        values.put("ownerEmail", "owner" + ownerId + "@example.com");
+        values.put("ownerUsername", "owner" + ownerId);
+        values.put("bookingId", bookingId);
+        return projectionFactory.createProjection(OwnerBookingReportRow.class, values);
+    }
+
+    @Test
+    void generateDailyBookingReport_shouldSendOneReportPerOwner() throws MessagingException {
+        when(bookingRepository.streamReportRowsByOwner(eq("ROLE_OWNER"), any(ZonedDateTime.class), any(ZonedDateTime.class)))
+                .thenReturn(Stream.of(row(1L, 10L), row(1L, 11L), row(2L, null), row(3L, 12L)));
+        when(pdfService.renderOwnerBookingReport(any(OwnerBookingReport.class), any(LocalDate.class)))
+                .thenReturn(PDF);
+
+        scheduler.generateDailyBookingReport();
+
+        ArgumentCaptor<OwnerBookingReport> captor = ArgumentCaptor.forClass(OwnerBookingReport.class);
+        verify(pdfService, times(3)).renderOwnerBookingReport(captor.capture(), any(LocalDate.class));
+        List<OwnerBookingReport> reports = captor.getAllValues();
+        assertEquals(2, reports.get(0).getBookings().size());
+        assertEquals(0, reports.get(1).getBookings().size());
+        assertEquals(1, reports.get(2).getBookings().size());
+
+        verify(emailService).sendEmailWithAttachment(eq("owner1@example.com"), eq("Daily Booking Report"), anyString(), anyString(), eq(PDF));
+        verify(emailService).sendEmailWithAttachment(eq("owner2@example.com"), eq("Daily Booking Report"), anyString(), anyString(), eq(PDF));
+        verify(emailService).sendEmailWithAttachment(eq("owner3@example.com"), eq("Daily Booking Report"), anyString(), anyString(), eq(PDF));
+    }
+
+    @Test
+    void generateDailyBookingReport_whenOneMailFails_shouldContinueWithOtherOwners() throws MessagingException {
+        when(bookingRepository.streamReportRowsByOwner(eq("ROLE_OWNER"), any(ZonedDateTime.class), any(ZonedDateTime.class)))
+                .thenReturn(Stream.of(row(1L, 10L), row(2L, 11L)));
+        when(pdfService.renderOwnerBookingReport(any(OwnerBookingReport.class), any(LocalDate.class)))
+                .thenReturn(PDF);
+        doThrow(new MessagingException("SMTP down"))
+                .when(emailService).sendEmailWithAttachment(eq("owner1@example.com"), anyString(), anyString(), anyString(), any(byte[].class));
+
+        scheduler.generateDailyBookingReport();
+
+        verify(emailService).sendEmailWithAttachment(eq("owner2@example.com"), anyString(), anyString(), anyString(), any(byte[].class));
+    }
+
+    @Test
+    void generateDailyBookingReport_whenExecutorRejects_shouldNotRenderOnSchedulerThreadOrBlock() {
+        // Arrange: nhiều chủ hơn số báo cáo được xử lý cùng lúc, executor từ chối mọi task (đang tắt)
+        when(bookingRepository.streamReportRowsByOwner(eq("ROLE_OWNER"), any(ZonedDateTime.class), any(ZonedDateTime.class)))
+                .thenReturn(LongStream.rangeClosed(1, 50).mapToObj(ownerId -> row(ownerId, ownerId * 10)));
+        doThrow(new TaskRejectedException("Executor is shutting down"))
+                .when(bookingReportExecutor).execute(any(Runnable.class));
+
+        // Act: lượt của task bị từ chối được trả lại nên vòng đọc không bị chặn
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> scheduler.generateDailyBookingReport());
+
+        // Assert: không tự render hay gửi mail trên luồng scheduler
+        verify(bookingReportExecutor, times(50)).execute(any(Runnable.class));
+        verify(pdfService, never()).renderOwnerBookingReport(any(OwnerBookingReport.class), any(LocalDate.class));
+        verifyNoInteractions(emailService);
+    }
+}
@@ -0,0 +1,65 @@
+package com.vinova.booking_hotel.scheduling;
+
+import com.vinova.booking_hotel.common.scheduling.BookingStatusUpdaterScheduler;
+import com.vinova.booking_hotel.property.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingStatusUpdaterSchedulerTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private BookingStatusUpdaterScheduler scheduler;
+
+    // Chạy callback của TransactionTemplate ngay trên thread hiện tại
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    public void updateBookingStatuses_shouldProcessChunksUntilExhausted() {
+        runTransactionsInline();
+        List<Long> fullChunk = LongStream.rangeClosed(1, 500).boxed().toList();
+        when(bookingRepository.tryAdvisoryXactLock(anyLong())).thenReturn(true);
+        when(bookingRepository.checkInStarted(any(ZonedDateTime.class), eq(500)))
+                .thenReturn(fullChunk)
+                .thenReturn(List.of(501L));
+        when(bookingRepository.checkOutEnded(any(ZonedDateTime.class), eq(500))).thenReturn(List.of());
+
+        scheduler.updateBookingStatuses();
+
+        verify(bookingRepository, times(2)).checkInStarted(any(ZonedDateTime.class), eq(500));
+        verify(bookingRepository, times(1)).checkOutEnded(any(ZonedDateTime.class), eq(500));
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    public void updateBookingStatuses_whenLockHeldByAnotherNode_shouldSkip() {
+        runTransactionsInline();
+        when(bookingRepository.tryAdvisoryXactLock(anyLong())).thenReturn(false);
+
+        scheduler.updateBookingStatuses();
+
+        verify(bookingRepository, never()).checkInStarted(any(), anyInt());
+        verify(bookingRepository, never()).checkOutEnded(any(), anyInt());
+    }
+}
@@ -0,0 +1,51 @@
+package com.vinova.booking_hotel.scheduling;
+
+import com.vinova.booking_hotel.common.scheduling.HotelRatingSummaryScheduler;
+import com.vinova.booking_hotel.property.repository.HotelRatingSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class HotelRatingSummarySchedulerTest {
+
+    @Mock
+    private HotelRatingSummaryRepository hotelRatingSummaryRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private HotelRatingSummaryScheduler scheduler;
+
+    @Test
+    public void reconcileRatingSummaries_shouldLockThenRecountEachBatch() {
+        // Chạy callback của TransactionTemplate ngay trên thread hiện tại
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        List<Long> fullBatch = LongStream.rangeClosed(1, 500).boxed().toList();
+        when(hotelRatingSummaryRepository.lockBatchAfter(0L, 500)).thenReturn(fullBatch);
+        when(hotelRatingSummaryRepository.lockBatchAfter(500L, 500)).thenReturn(List.of(501L));
+
+        scheduler.reconcileRatingSummaries();
+
+        InOrder inOrder = inOrder(hotelRatingSummaryRepository);
+        inOrder.verify(hotelRatingSummaryRepository).insertMissing();
+        inOrder.verify(hotelRatingSummaryRepository).lockBatchAfter(0L, 500);
+        inOrder.verify(hotelRatingSummaryRepository).recountChanged(fullBatch);
+        inOrder.verify(hotelRatingSummaryRepository).lockBatchAfter(500L, 500);
+        inOrder.verify(hotelRatingSummaryRepository).recountChanged(List.of(501L));
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+}
@@ -0,0 +1,134 @@
+package com.vinova.booking_hotel.security;
+
+import com.vinova.booking_hotel.authentication.model.Account;
+import com.vinova.booking_hotel.authentication.model.AccountRole;
+import com.vinova.booking_hotel.authentication.model.Role;
+import com.vinova.booking_hotel.authentication.security.AuthTokenFilter;
+import com.vinova.booking_hotel.authentication.security.CustomUserDetails;
+import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.PrincipalCache;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthTokenFilterTest {
+
+    private static final String TOKEN = "access-token";
+
+    @Mock
+    private JwtUtils jwtUtils;
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private PrincipalCache principalCache;
+    private AuthTokenFilter authTokenFilter;
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new PrincipalCache(userDetailsService);
+        authTokenFilter = new AuthTokenFilter(jwtUtils, principalCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_shouldAuthenticateFromCachedPrincipal() throws Exception {
+        // Arrange
+        Claims claims = accessClaims("testuser");
+        when(jwtUtils.getJwtFromHeader(any())).thenReturn(TOKEN);
+        when(jwtUtils.parseAccessClaims(TOKEN)).thenReturn(claims);
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(userDetails("testuser", null));
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            SecurityContextHolder.clearContext();
+            authTokenFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        // Assert: token chỉ parse một lần mỗi request và tài khoản chỉ đọc từ database một lần
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("testuser", authentication.getName());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+        verify(jwtUtils, times(3)).parseAccessClaims(TOKEN);
+        verify(jwtUtils, times(3)).bindAccessClaims(any(), eq(TOKEN), eq(claims));
+        verify(userDetailsService, times(1)).loadUserByUsername("testuser");
+    }
+
+    @Test
+    void doFilter_shouldReloadPrincipalAfterEvict() throws Exception {
+        // Arrange
+        Claims claims = accessClaims("testuser");
+        when(jwtUtils.getJwtFromHeader(any())).thenReturn(TOKEN);
+        when(jwtUtils.parseAccessClaims(TOKEN)).thenReturn(claims);
+        when(userDetailsService.loadUserByUsername("testuser"))
+                .thenReturn(userDetails("testuser", null))
+                .thenReturn(userDetails("testuser", "test reason"));
+
+        // Act
+        authTokenFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+
+        SecurityContextHolder.clearContext();
+        principalCache.evict("testuser");
+        authTokenFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert: tài khoản vừa bị khóa không còn được xác thực
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(userDetailsService, times(2)).loadUserByUsername("testuser");
+    }
+
+    @Test
+    void doFilter_shouldSkipAuthentication_whenTokenIsNotAccessToken() throws Exception {
+        // Arrange
+        when(jwtUtils.getJwtFromHeader(any())).thenReturn(TOKEN);
+        when(jwtUtils.parseAccessClaims(TOKEN)).thenReturn(null);
+        MockFilterChain filterChain = new MockFilterChain();
+
+        // Act
+        authTokenFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), filterChain);
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(filterChain.getRequest());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    private Claims accessClaims(String username) {
+        Claims claims = mock(Claims.class);
+        when(claims.getSubject()).thenReturn(username);
+        return claims;
+    }
+
+    private CustomUserDetails userDetails(String username, String blockReason) {
+        Role role = new Role();
+        role.setName("ROLE_USER");
+        AccountRole accountRole = new AccountRole();
+        accountRole.setRole(role);
+
+        Account account = new Account();
+        account.setUsername(username);
+        account.setBlockReason(blockReason);
+        account.setAccountRoles(List.of(accountRole));
+        return new CustomUserDetails(account);
+    }
+}
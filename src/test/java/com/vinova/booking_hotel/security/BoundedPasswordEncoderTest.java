@@ -0,0 +1,89 @@
+package com.vinova.booking_hotel.security;
+
+import com.vinova.booking_hotel.authentication.security.BoundedPasswordEncoder;
+import com.vinova.booking_hotel.common.exception.ServerBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("password-hashing-test-");
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void matches_shouldHashOnPoolAndDetectOutdatedStrength() {
+        BCryptPasswordEncoder weak = new BCryptPasswordEncoder(4);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), executor);
+        String oldHash = weak.encode("secret");
+
+        assertTrue(encoder.matches("secret", oldHash));
+        assertFalse(encoder.matches("wrong", oldHash));
+        assertTrue(encoder.upgradeEncoding(oldHash));
+
+        String newHash = encoder.encode("secret");
+        assertTrue(encoder.matches("secret", newHash));
+        assertFalse(encoder.upgradeEncoding(newHash));
+    }
+
+    @Test
+    void matches_shouldThrowServerBusyException_whenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, executor);
+
+        // Một task đang chạy và một task trong hàng đợi thì pool đã đầy
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "b"));
+        while (executor.getThreadPoolExecutor().getQueue().isEmpty()) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(ServerBusyException.class, () -> encoder.matches("c", "c"));
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,105 @@
+package com.vinova.booking_hotel.security;
+
+import com.vinova.booking_hotel.authentication.model.Account;
+import com.vinova.booking_hotel.authentication.repository.AccountRepository;
+import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtUtilsTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final Long TEST_ACCOUNT_ID = 1L;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+    @Mock
+    private AccountRepository accountRepository;
+
+    private JwtUtils jwtUtils;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils(userDetailsService, accountRepository, SECRET, 60_000);
+        request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private UserDetails userDetails() {
+        return new User("testuser", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    private String accessToken() {
+        Account account = new Account();
+        account.setId(TEST_ACCOUNT_ID);
+        account.setUsername("testuser");
+        when(accountRepository.findByUsername("testuser")).thenReturn(Optional.of(account));
+        return jwtUtils.generateTokenFromUserDetails(userDetails());
+    }
+
+    @Test
+    void parseAccessClaims_shouldReturnClaimsOfAccessToken() {
+        String token = accessToken();
+
+        Claims claims = jwtUtils.parseAccessClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("testuser", claims.getSubject());
+        assertEquals(TEST_ACCOUNT_ID, jwtUtils.getUserIdFromJwtToken(token));
+    }
+
+    @Test
+    void parseAccessClaims_shouldRejectRefreshAndTamperedTokens() {
+        String refreshToken = jwtUtils.generateRefreshTokenFromUserDetails(userDetails());
+        String token = accessToken();
+
+        assertNull(jwtUtils.parseAccessClaims(refreshToken));
+        assertNull(jwtUtils.parseAccessClaims(token.substring(0, token.length() - 2)));
+    }
+
+    @Test
+    void getUserIdFromJwtToken_shouldReuseClaimsBoundToRequest() {
+        String token = accessToken();
+        Claims claims = jwtUtils.parseAccessClaims(token);
+
+        jwtUtils.bindAccessClaims(request, token, claims);
+
+        assertEquals(TEST_ACCOUNT_ID, jwtUtils.currentUserId());
+        assertEquals(List.of("ROLE_USER"), jwtUtils.currentRoles());
+        assertEquals(TEST_ACCOUNT_ID, jwtUtils.getUserIdFromJwtToken(token));
+        assertEquals("testuser", jwtUtils.getUserNameFromJwtToken(token));
+    }
+
+    @Test
+    void currentClaims_shouldBeNull_whenRequestIsNotAuthenticated() {
+        assertNull(jwtUtils.currentClaims());
+        assertNull(jwtUtils.currentUserId());
+        assertTrue(jwtUtils.currentRoles().isEmpty());
+    }
+}
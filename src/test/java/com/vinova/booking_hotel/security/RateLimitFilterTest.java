@@ -0,0 +1,103 @@
+package com.vinova.booking_hotel.security;
+
+import com.vinova.booking_hotel.authentication.security.RateLimitFilter;
+import com.vinova.booking_hotel.common.ratelimit.RateLimitRule;
+import com.vinova.booking_hotel.common.ratelimit.SlidingWindowRateLimiter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+public class RateLimitFilterTest {
+
+    private static final String SIGN_IN_PATH = "/api/v1/public/sign-in";
+
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitRule rule = new RateLimitRule("sign-in", antMatcher(HttpMethod.POST, SIGN_IN_PATH), 2, Duration.ofMinutes(1));
+        rateLimitFilter = new RateLimitFilter(new SlidingWindowRateLimiter(), List.of(rule));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest request(String method, String path, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private MockHttpServletResponse doFilter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void doFilter_shouldReturn429WithRetryAfter_whenLimitExceeded() throws Exception {
+        assertEquals(200, doFilter(request("POST", SIGN_IN_PATH, "1.1.1.1")).getStatus());
+        assertEquals(200, doFilter(request("POST", SIGN_IN_PATH, "1.1.1.1")).getStatus());
+
+        MockHttpServletResponse response = doFilter(request("POST", SIGN_IN_PATH, "1.1.1.1"));
+
+        assertEquals(429, response.getStatus());
+        assertNotNull(response.getHeader("Retry-After"));
+        assertTrue(Long.parseLong(response.getHeader("Retry-After")) >= 1);
+        assertTrue(response.getContentAsString().contains("Too Many Requests"));
+        // IP khác vẫn đăng nhập được
+        assertEquals(200, doFilter(request("POST", SIGN_IN_PATH, "2.2.2.2")).getStatus());
+    }
+
+    @Test
+    void doFilter_shouldIgnoreRoutesWithoutRule() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = request("GET", "/api/v1/public/hotels", "1.1.1.1");
+            MockFilterChain filterChain = new MockFilterChain();
+            rateLimitFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+            assertNotNull(filterChain.getRequest());
+        }
+    }
+
+    @Test
+    void doFilter_shouldStillApplyIpLimit_whenAuthenticated() throws Exception {
+        doFilter(request("POST", SIGN_IN_PATH, "1.1.1.1"));
+        doFilter(request("POST", SIGN_IN_PATH, "1.1.1.1"));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("testuser", null, List.of()));
+
+        // Đăng nhập không giúp vượt giới hạn của IP
+        assertEquals(429, doFilter(request("POST", SIGN_IN_PATH, "1.1.1.1")).getStatus());
+    }
+
+    @Test
+    void doFilter_shouldApplyAccountLimitAcrossIps() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("testuser", null, List.of()));
+
+        assertEquals(200, doFilter(request("POST", SIGN_IN_PATH, "1.1.1.1")).getStatus());
+        assertEquals(200, doFilter(request("POST", SIGN_IN_PATH, "2.2.2.2")).getStatus());
+
+        // Đổi IP không giúp vượt giới hạn của tài khoản, tài khoản khác vẫn không bị ảnh hưởng
+        assertEquals(429, doFilter(request("POST", SIGN_IN_PATH, "3.3.3.3")).getStatus());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("otheruser", null, List.of()));
+        assertEquals(200, doFilter(request("POST", SIGN_IN_PATH, "4.4.4.4")).getStatus());
+    }
+}
@@ -9,11 +9,16 @@ import com.vinova.booking_hotel.authentication.repository.AccountRepository;
 import com.vinova.booking_hotel.authentication.repository.AccountRoleRepository;
 import com.vinova.booking_hotel.authentication.repository.RoleRepository;
 import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.LoginAttemptTracker;
+import com.vinova.booking_hotel.authentication.security.PrincipalCache;
+import com.vinova.booking_hotel.authentication.security.VerificationCodeStore;
 
 import com.vinova.booking_hotel.authentication.service.EmailService;
 import com.vinova.booking_hotel.authentication.service.impl.AccountServiceImpl;
 import com.vinova.booking_hotel.authentication.service.impl.CloudinaryService;
 import com.vinova.booking_hotel.common.exception.*;
+import com.vinova.booking_hotel.common.pagination.CursorPageResponseDto;
+import com.vinova.booking_hotel.common.pagination.KeysetCursor;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,9 +31,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -40,7 +42,6 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -60,14 +61,18 @@ public class AccountServiceImplTest {
     @Mock
     private CloudinaryService cloudinaryService;
     @Mock
-    private AuthenticationManager authenticationManager;
-    @Mock
     private JwtUtils jwtUtils;
     @Mock
     private PasswordEncoder passwordEncoder;
     @Mock
     private EmailService emailService;
     @Mock
+    private PrincipalCache principalCache;
+    @Mock
+    private VerificationCodeStore verificationCodeStore;
+    @Mock
+    private LoginAttemptTracker loginAttemptTracker;
+    @Mock
     private HttpServletResponse httpServletResponse;
 
     @InjectMocks
@@ -113,19 +118,62 @@ public class AccountServiceImplTest {
         assertEquals(TEST_ROLE_USER, response.getFirst().getRoles().getFirst());
     }
 
+    @Test
+    void accountsByCursor_shouldReturnPageAndNextCursor_whenMoreRowsExist() {
+        // Arrange: lấy dư 1 bản ghi so với pageSize
+        List<Account> accounts = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            Account account = new Account(i, "user" + i, "pass" + i, "email" + i, "Full Name " + i, null, null, null, LocalDateTime.now(), null, null, ZonedDateTime.now(), ZonedDateTime.now(), new ArrayList<>(), null, null, new ArrayList<>(), null, null);
+            accounts.add(account);
+        }
+        when(accountRepository.findBy(any(Specification.class), any())).thenReturn(accounts);
+
+        // Act
+        CursorPageResponseDto<AccountResponseDto> response = accountService.accountsByCursor(null, null, null, null, 2, "username", "asc");
+
+        // Assert
+        assertEquals(2, response.getContent().size());
+        assertEquals("user2", response.getContent().get(1).getUsername());
+        KeysetCursor nextCursor = KeysetCursor.decode(response.getNextCursor(), "username");
+        assertEquals(2L, nextCursor.getId());
+        assertEquals("user2", nextCursor.getSortValue());
+        verify(accountRepository, never()).findAll(any(Specification.class), any(PageRequest.class));
+    }
+
+    @Test
+    void accountsByCursor_shouldReturnNullNextCursor_whenLastPage() {
+        Account account = new Account(1L, "user1", "pass1", "email1", "Full Name 1", null, null, null, LocalDateTime.now(), null, null, ZonedDateTime.now(), ZonedDateTime.now(), new ArrayList<>(), null, null, new ArrayList<>(), null, null);
+        when(accountRepository.findBy(any(Specification.class), any())).thenReturn(List.of(account));
+
+        CursorPageResponseDto<AccountResponseDto> response = accountService.accountsByCursor(null, null, null, null, 2, "id", "asc");
+
+        assertEquals(1, response.getContent().size());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void accountsByCursor_shouldThrowInvalidCursorException_whenSortByOrCursorInvalid() {
+        assertThrows(InvalidCursorException.class, () ->
+                accountService.accountsByCursor(null, null, null, null, 2, "password", "asc"));
+        assertThrows(InvalidCursorException.class, () ->
+                accountService.accountsByCursor(null, null, null, "not-a-cursor", 2, "id", "asc"));
+        String usernameCursor = new KeysetCursor("username", "user1", 1L).encode();
+        assertThrows(InvalidCursorException.class, () ->
+                accountService.accountsByCursor(null, null, null, usernameCursor, 2, "email", "asc"));
+    }
+
     @Test
     void signIn_shouldReturnSignInResponseDto_whenCredentialsAreValid() {
         // Arrange
         SignInRequestDto request = new SignInRequestDto(TEST_USERNAME, TEST_PASSWORD);
         Account mockAccount = new Account(TEST_ACCOUNT_ID, TEST_USERNAME, ENCODED_PASSWORD, TEST_EMAIL, TEST_FULL_NAME, null, null, null, LocalDateTime.now(), "testRefreshToken", LocalDateTime.now().plusDays(30), ZonedDateTime.now(), ZonedDateTime.now(), List.of(), null, null, null, null, null); // Đặt sẵn refreshToken đã mock vào mockAccount
         UserDetails userDetails = new User(TEST_USERNAME, ENCODED_PASSWORD, new ArrayList<>());
-        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, ENCODED_PASSWORD, new ArrayList<>());
         String jwtToken = "testJwtToken";
         String refreshToken = "testRefreshToken"; // Sử dụng biến này để so sánh
 
         when(accountRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockAccount));
         when(passwordEncoder.matches(TEST_PASSWORD, ENCODED_PASSWORD)).thenReturn(true);
-        when(authenticationManager.authenticate(any())).thenReturn(authentication);
+        when(principalCache.get(TEST_USERNAME)).thenReturn(userDetails);
         when(jwtUtils.generateTokenFromUserDetails(userDetails)).thenReturn(jwtToken);
         when(jwtUtils.generateRefreshTokenFromUserDetails(userDetails)).thenReturn(refreshToken); // Mock trả về giá trị kỳ vọng
         when(accountRepository.save(any(Account.class))).thenReturn(mockAccount);
@@ -137,6 +185,34 @@ public class AccountServiceImplTest {
         assertEquals(jwtToken, response.getAccessToken());
         assertEquals(refreshToken, response.getRefreshToken());
         verify(accountRepository, times(1)).save(any(Account.class));
+        // Mật khẩu chỉ được băm một lần cho mỗi lần đăng nhập
+        verify(passwordEncoder, times(1)).matches(TEST_PASSWORD, ENCODED_PASSWORD);
+        verify(passwordEncoder, never()).encode(anyString());
+    }
+
+    @Test
+    void signIn_shouldRehashPassword_whenEncodingIsOutdated() {
+        // Arrange
+        SignInRequestDto request = new SignInRequestDto(TEST_USERNAME, TEST_PASSWORD);
+        Account mockAccount = new Account();
+        mockAccount.setId(TEST_ACCOUNT_ID);
+        mockAccount.setUsername(TEST_USERNAME);
+        mockAccount.setPassword(ENCODED_PASSWORD);
+        UserDetails userDetails = new User(TEST_USERNAME, "", new ArrayList<>());
+        when(accountRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockAccount));
+        when(passwordEncoder.matches(TEST_PASSWORD, ENCODED_PASSWORD)).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(ENCODED_PASSWORD)).thenReturn(true);
+        when(passwordEncoder.encode(TEST_PASSWORD)).thenReturn("rehashedPassword");
+        when(principalCache.get(TEST_USERNAME)).thenReturn(userDetails);
+        when(jwtUtils.generateTokenFromUserDetails(userDetails)).thenReturn("testJwtToken");
+        when(jwtUtils.generateRefreshTokenFromUserDetails(userDetails)).thenReturn("testRefreshToken");
+
+        // Act
+        accountService.signIn(request, httpServletResponse);
+
+        // Assert
+        assertEquals("rehashedPassword", mockAccount.getPassword());
+        verify(accountRepository, times(1)).save(mockAccount);
     }
 
     @Test
@@ -148,11 +224,32 @@ public class AccountServiceImplTest {
 
         // Act & Assert
         assertThrows(ErrorSignInException.class, () -> accountService.signIn(request, httpServletResponse));
-        verify(authenticationManager, never()).authenticate(any());
+        verify(principalCache, never()).get(anyString());
         verify(jwtUtils, never()).generateTokenFromUserDetails(any());
         verify(accountRepository, never()).save(any(Account.class));
     }
 
+    @Test
+    void signIn_shouldBlockAccount_whenFailedAttemptsReachLimit() {
+        // Arrange
+        SignInRequestDto request = new SignInRequestDto(TEST_USERNAME, "wrongPassword");
+        Account mockAccount = new Account();
+        mockAccount.setId(TEST_ACCOUNT_ID);
+        mockAccount.setUsername(TEST_USERNAME);
+        mockAccount.setPassword(ENCODED_PASSWORD);
+        when(accountRepository.findByUsername(TEST_USERNAME)).thenReturn(Optional.of(mockAccount));
+        when(passwordEncoder.matches("wrongPassword", ENCODED_PASSWORD)).thenReturn(false);
+        when(loginAttemptTracker.recordFailure(TEST_ACCOUNT_ID)).thenReturn(5L);
+
+        // Act & Assert
+        assertThrows(ErrorSignInException.class, () -> accountService.signIn(request, httpServletResponse));
+        assertEquals("too_many_failed_login_attempts", mockAccount.getBlockReason());
+        verify(accountRepository, times(1)).save(mockAccount);
+        verify(principalCache, times(1)).evict(TEST_USERNAME);
+        verify(loginAttemptTracker, times(1)).reset(TEST_ACCOUNT_ID);
+        verify(principalCache, never()).get(anyString());
+    }
+
     @Test
     void signUp_shouldCreateAccountAndSendVerificationEmail() {
         // Arrange
@@ -253,15 +350,7 @@ public class AccountServiceImplTest {
         when(accountRepository.save(any(Account.class))).thenReturn(mockAccount);
         when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
 
-        // Mock verificationMap (cần truy cập trực tiếp vì là private)
-        java.lang.reflect.Field verificationMapField = null;
-        try {
-            verificationMapField = AccountServiceImpl.class.getDeclaredField("verificationMap");
-            verificationMapField.setAccessible(true);
-            ((Map<String, VerificationInfo>) verificationMapField.get(accountService)).put(TEST_EMAIL, verificationInfo);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            fail("Failed to access verificationMap: " + e.getMessage());
-        }
+        when(verificationCodeStore.find(TEST_EMAIL)).thenReturn(Optional.of(verificationInfo));
 
         // Act
         String response = accountService.verifyEmail(TEST_EMAIL, verificationCode);
@@ -273,11 +362,7 @@ public class AccountServiceImplTest {
         assertEquals(TEST_USERNAME, mockAccount.getUsername());
         verify(accountRepository, times(1)).save(mockAccount);
         // Kiểm tra xem verificationInfo đã bị xóa
-        try {
-            assertNull(((Map<String, VerificationInfo>) verificationMapField.get(accountService)).get(TEST_EMAIL));
-        } catch (IllegalAccessException e) {
-            fail("Failed to access verificationMap: " + e.getMessage());
-        }
+        verify(verificationCodeStore).remove(TEST_EMAIL);
     }
 
     @Test
@@ -286,15 +371,7 @@ public class AccountServiceImplTest {
         String verificationCode = "wrongCode";
         VerificationInfo verificationInfo = new VerificationInfo("123456", LocalDateTime.now().minusMinutes(1), TEST_USERNAME, TEST_FULL_NAME);
 
-        // Mock verificationMap
-        java.lang.reflect.Field verificationMapField = null;
-        try {
-            verificationMapField = AccountServiceImpl.class.getDeclaredField("verificationMap");
-            verificationMapField.setAccessible(true);
-            ((Map<String, VerificationInfo>) verificationMapField.get(accountService)).put(TEST_EMAIL, verificationInfo);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            fail("Failed to access verificationMap: " + e.getMessage());
-        }
+        when(verificationCodeStore.find(TEST_EMAIL)).thenReturn(Optional.of(verificationInfo));
 
         // Act & Assert
         assertThrows(InValidVerifyEmailException.class, () -> accountService.verifyEmail(TEST_EMAIL, verificationCode));
@@ -314,15 +391,8 @@ public class AccountServiceImplTest {
         // Assert
         assertEquals("Verification code sent to your email. Please check your email to reset your password.", response);
         verify(emailService, times(1)).sendPasswordResetEmail(eq(TEST_EMAIL), anyString());
-        // Kiểm tra xem verificationInfo đã được thêm vào map (khó kiểm tra giá trị chính xác)
-        java.lang.reflect.Field verificationMapField = null;
-        try {
-            verificationMapField = AccountServiceImpl.class.getDeclaredField("verificationMap");
-            verificationMapField.setAccessible(true);
-            assertNotNull(((Map<String, VerificationInfo>) verificationMapField.get(accountService)).get(TEST_EMAIL));
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            fail("Failed to access verificationMap: " + e.getMessage());
-        }
+        // Kiểm tra xem verificationInfo đã được lưu vào kho mã xác thực
+        verify(verificationCodeStore).save(eq(TEST_EMAIL), any(VerificationInfo.class));
     }
 
     @Test
@@ -345,15 +415,7 @@ public class AccountServiceImplTest {
         when(accountRepository.save(any(Account.class))).thenReturn(mockAccount);
         VerificationInfo verificationInfo = new VerificationInfo("validCode", LocalDateTime.now().minusMinutes(1), TEST_USERNAME, TEST_FULL_NAME);
 
-        // Mock verificationMap
-        java.lang.reflect.Field verificationMapField = null;
-        try {
-            verificationMapField = AccountServiceImpl.class.getDeclaredField("verificationMap");
-            verificationMapField.setAccessible(true);
-            ((Map<String, VerificationInfo>) verificationMapField.get(accountService)).put(TEST_EMAIL, verificationInfo);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            fail("Failed to access verificationMap: " + e.getMessage());
-        }
+        when(verificationCodeStore.find(TEST_EMAIL)).thenReturn(Optional.of(verificationInfo));
 
         // Act
         String response = accountService.resetPassword(request);
@@ -363,11 +425,7 @@ public class AccountServiceImplTest {
         verify(accountRepository, times(1)).save(mockAccount);
         assertEquals("encodedNewPassword", mockAccount.getPassword());
         // Kiểm tra xem verificationInfo đã bị xóa
-        try {
-            assertNull(((Map<String, VerificationInfo>) verificationMapField.get(accountService)).get(TEST_EMAIL));
-        } catch (IllegalAccessException e) {
-            fail("Failed to access verificationMap: " + e.getMessage());
-        }
+        verify(verificationCodeStore).remove(TEST_EMAIL);
     }
 
     @Test
@@ -376,15 +434,7 @@ public class AccountServiceImplTest {
         ResetPasswordRequestDto request = new ResetPasswordRequestDto(TEST_EMAIL, "invalidCode", "newPassword", "newPassword");
         VerificationInfo verificationInfo = new VerificationInfo("validCode", LocalDateTime.now().minusMinutes(1), TEST_USERNAME, TEST_FULL_NAME);
 
-        // Mock verificationMap
-        java.lang.reflect.Field verificationMapField = null;
-        try {
-            verificationMapField = AccountServiceImpl.class.getDeclaredField("verificationMap");
-            verificationMapField.setAccessible(true);
-            ((Map<String, VerificationInfo>) verificationMapField.get(accountService)).put(TEST_EMAIL, verificationInfo);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            fail("Failed to access verificationMap: " + e.getMessage());
-        }
+        when(verificationCodeStore.find(TEST_EMAIL)).thenReturn(Optional.of(verificationInfo));
 
         // Act & Assert
         assertThrows(InValidVerifyEmailException.class, () -> accountService.resetPassword(request));
@@ -444,6 +494,7 @@ public class AccountServiceImplTest {
         // Arrange
         BlockAccountRequestDto request = new BlockAccountRequestDto("test reason");
         Account mockAccount = new Account();
+        mockAccount.setUsername("blocked");
         when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
         when(accountRepository.save(any(Account.class))).thenReturn(mockAccount);
 
@@ -454,6 +505,7 @@ public class AccountServiceImplTest {
         assertEquals("Account has been blocked successfully.", response);
         assertEquals("test reason", mockAccount.getBlockReason());
         verify(accountRepository, times(1)).save(mockAccount);
+        verify(principalCache, times(1)).evict("blocked");
     }
 
     @Test
@@ -556,6 +608,7 @@ public class AccountServiceImplTest {
         verify(accountRepository, times(2)).save(any(Account.class));
         for (Account account : inactiveAccounts) {
             assertEquals("long_time_no_login", account.getBlockReason());
+            verify(principalCache, times(1)).evict(account.getUsername());
         }
     }
 }
\ No newline at end of file
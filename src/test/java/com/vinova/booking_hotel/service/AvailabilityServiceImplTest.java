@@ -0,0 +1,193 @@
+package com.vinova.booking_hotel.service;
+
+import com.vinova.booking_hotel.common.enums.BookingStatus;
+import com.vinova.booking_hotel.property.event.HotelDeletedEvent;
+import com.vinova.booking_hotel.property.model.Booking;
+import com.vinova.booking_hotel.property.model.Hotel;
+import com.vinova.booking_hotel.property.repository.BookingRepository;
+import com.vinova.booking_hotel.property.repository.projection.BookingIntervalView;
+import com.vinova.booking_hotel.property.service.impl.AvailabilityServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityServiceImplTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private AvailabilityServiceImpl availabilityService;
+
+    private ZonedDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        base = ZonedDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    void isReady_shouldBeFalseUntilReloaded() {
+        assertFalse(availabilityService.isReady());
+
+        when(bookingRepository.findActiveIntervalsEndingAfter(any(ZonedDateTime.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(List.of());
+        availabilityService.reload();
+
+        assertTrue(availabilityService.isReady());
+    }
+
+    @Test
+    void reload_shouldIndexActiveIntervals() {
+        when(bookingRepository.findActiveIntervalsEndingAfter(any(ZonedDateTime.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(List.of(
+                        interval(1L, 10L, base, base.plusDays(2)),
+                        interval(2L, 20L, base.plusDays(5), base.plusDays(6))));
+
+        availabilityService.reload();
+
+        assertEquals(Set.of(10L), availabilityService.findBookedHotelIds(base.plusDays(1), base.plusDays(3)));
+        assertEquals(Set.of(10L, 20L), availabilityService.findBookedHotelIds(base, base.plusDays(10)));
+        // Khoảng liền kề (kết thúc đúng lúc bắt đầu) không tính là chồng lấn
+        assertTrue(availabilityService.isAvailable(10L, base.plusDays(2), base.plusDays(4)));
+        assertTrue(availabilityService.isAvailable(20L, base, base.plusDays(5)));
+        assertFalse(availabilityService.isAvailable(20L, base.plusDays(4), base.plusDays(7)));
+    }
+
+    @Test
+    void addBooking_andRemoveBooking_shouldUpdateIndex() {
+        Booking booking = booking(3L, 30L, base, base.plusDays(2), BookingStatus.PENDING);
+
+        availabilityService.addBooking(booking);
+        assertFalse(availabilityService.isAvailable(30L, base.plusDays(1), base.plusDays(3)));
+
+        availabilityService.removeBooking(booking);
+        assertTrue(availabilityService.isAvailable(30L, base.plusDays(1), base.plusDays(3)));
+        assertTrue(availabilityService.findBookedHotelIds(base, base.plusDays(3)).isEmpty());
+    }
+
+    @Test
+    void addBooking_withCancelledStatus_shouldNotBlockHotel() {
+        availabilityService.addBooking(booking(4L, 40L, base, base.plusDays(2), BookingStatus.CANCELLED));
+
+        assertTrue(availabilityService.isAvailable(40L, base, base.plusDays(2)));
+    }
+
+    @Test
+    void removeHotel_shouldDropAllIntervalsOfHotel() {
+        availabilityService.addBooking(booking(5L, 50L, base, base.plusDays(1), BookingStatus.CONFIRMED));
+        availabilityService.addBooking(booking(6L, 50L, base.plusDays(3), base.plusDays(4), BookingStatus.CONFIRMED));
+
+        availabilityService.removeHotel(50L);
+
+        assertTrue(availabilityService.findBookedHotelIds(base, base.plusDays(5)).isEmpty());
+    }
+
+    @Test
+    void onHotelDeleted_shouldDropHotelFromIndex() {
+        availabilityService.addBooking(booking(7L, 60L, base, base.plusDays(1), BookingStatus.CONFIRMED));
+
+        availabilityService.onHotelDeleted(new HotelDeletedEvent(60L));
+
+        assertTrue(availabilityService.isAvailable(60L, base, base.plusDays(1)));
+    }
+
+    @Test
+    void isAvailable_shouldMatchLinearScanForRandomIntervals() {
+        Random random = new Random(42);
+        List<long[]> intervals = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            long start = random.nextInt(1000);
+            long end = start + 1 + random.nextInt(50);
+            intervals.add(new long[]{start, end});
+            availabilityService.addBooking(booking(id, 1L, base.plusHours(start), base.plusHours(end), BookingStatus.CONFIRMED));
+        }
+
+        for (int i = 0; i < 500; i++) {
+            long from = random.nextInt(1100);
+            long to = from + 1 + random.nextInt(30);
+            boolean expected = intervals.stream().noneMatch(interval -> interval[0] < to && interval[1] > from);
+            assertEquals(expected, availabilityService.isAvailable(1L, base.plusHours(from), base.plusHours(to)));
+        }
+    }
+
+    @Test
+    void reload_shouldMatchLinearScanForUnsortedIntervals() {
+        Random random = new Random(7);
+        List<long[]> intervals = new ArrayList<>();
+        List<BookingIntervalView> views = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            long start = random.nextInt(1000);
+            long end = start + 1 + random.nextInt(50);
+            intervals.add(new long[]{start, end});
+            views.add(interval(id, 1L, base.plusHours(start), base.plusHours(end)));
+        }
+        when(bookingRepository.findActiveIntervalsEndingAfter(any(ZonedDateTime.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(views);
+
+        availabilityService.reload();
+
+        for (int i = 0; i < 500; i++) {
+            long from = random.nextInt(1100);
+            long to = from + 1 + random.nextInt(30);
+            boolean expected = intervals.stream().noneMatch(interval -> interval[0] < to && interval[1] > from);
+            assertEquals(expected, availabilityService.isAvailable(1L, base.plusHours(from), base.plusHours(to)));
+        }
+        // Booking nạp từ reload vẫn gỡ được theo id
+        for (long id = 1; id <= 200; id++) {
+            availabilityService.removeBooking(booking(id, 1L, base, base, BookingStatus.CANCELLED));
+        }
+        assertTrue(availabilityService.isAvailable(1L, base, base.plusHours(2000)));
+    }
+
+    private Booking booking(Long id, Long hotelId, ZonedDateTime startDate, ZonedDateTime endDate, BookingStatus status) {
+        Hotel hotel = new Hotel();
+        hotel.setId(hotelId);
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setHotel(hotel);
+        booking.setStartDate(startDate);
+        booking.setEndDate(endDate);
+        booking.setStatus(status);
+        return booking;
+    }
+
+    private BookingIntervalView interval(Long id, Long hotelId, ZonedDateTime startDate, ZonedDateTime endDate) {
+        return new BookingIntervalView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getHotelId() {
+                return hotelId;
+            }
+
+            @Override
+            public ZonedDateTime getStartDate() {
+                return startDate;
+            }
+
+            @Override
+            public ZonedDateTime getEndDate() {
+                return endDate;
+            }
+        };
+    }
+}
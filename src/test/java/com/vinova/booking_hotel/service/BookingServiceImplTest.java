@@ -1,34 +1,41 @@
 package com.vinova.booking_hotel.service;
 
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.repository.projection.AccountSummary;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
 import com.vinova.booking_hotel.common.enums.BookingStatus;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
-import com.vinova.booking_hotel.payment.dto.PaymentRequestDto;
 import com.vinova.booking_hotel.payment.dto.StripeResponseDto;
-import com.vinova.booking_hotel.payment.service.StripeService;
+import com.vinova.booking_hotel.payment.service.PaymentSessionService;
 import com.vinova.booking_hotel.property.dto.request.AddBookingRequestDto;
 import com.vinova.booking_hotel.property.dto.response.BookingResponseDto;
 import com.vinova.booking_hotel.property.model.Booking;
 import com.vinova.booking_hotel.property.model.Hotel;
 import com.vinova.booking_hotel.property.repository.BookingRepository;
-import com.vinova.booking_hotel.property.repository.HotelDiscountRepository;
 import com.vinova.booking_hotel.property.repository.HotelRepository;
+import com.vinova.booking_hotel.property.service.AvailabilityService;
+import com.vinova.booking_hotel.property.service.PricingService;
 import com.vinova.booking_hotel.property.service.impl.BookingServiceImpl; // Import implementation class
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -41,13 +48,17 @@ public class BookingServiceImplTest {
     @Mock
     private HotelRepository hotelRepository;
     @Mock
-    private AccountRepository accountRepository;
+    private CurrentAccount currentAccount;
     @Mock
-    private JwtUtils jwtUtils;
+    private PricingService pricingService;
     @Mock
-    private HotelDiscountRepository hotelDiscountRepository;
+    private PaymentSessionService paymentSessionService;
     @Mock
-    private StripeService stripeService;
+    private AvailabilityService availabilityService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private BookingServiceImpl bookingService; // Thay đổi kiểu ở đây
@@ -83,6 +94,12 @@ public class BookingServiceImplTest {
         return booking;
     }
 
+    // Chạy callback của TransactionTemplate ngay trên thread hiện tại
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
     private AddBookingRequestDto createAddBookingRequestDto() {
         AddBookingRequestDto requestDto = new AddBookingRequestDto();
         requestDto.setHotelId(TEST_HOTEL_ID);
@@ -98,17 +115,15 @@ public class BookingServiceImplTest {
         Account account = createTestAccount();
         Hotel hotel = createTestHotel();
         Booking savedBooking = createTestBooking();
-        StripeResponseDto stripeResponseDto = new StripeResponseDto();
-        stripeResponseDto.setSessionId("session_id");
-        stripeResponseDto.setSessionUrl("session_url");
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(account));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(account);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
+        runTransactionsInline();
+        when(hotelRepository.findByIdForUpdate(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
         when(bookingRepository.findByHotelIdAndDateRange(eq(TEST_HOTEL_ID), any(ZonedDateTime.class), any(ZonedDateTime.class))).thenReturn(List.of());
-        when(hotelDiscountRepository.findByHotelId(TEST_HOTEL_ID)).thenReturn(List.of());
+        when(pricingService.totalPrice(eq(hotel), any(ZonedDateTime.class), any(ZonedDateTime.class))).thenReturn(BigDecimal.valueOf(100));
         when(bookingRepository.save(any(Booking.class))).thenReturn(savedBooking);
-        when(stripeService.checkoutBooking(any(PaymentRequestDto.class), eq(TEST_BOOKING_ID))).thenReturn(stripeResponseDto);
 
         // Act
         StripeResponseDto response = bookingService.createBooking(requestDto, TEST_TOKEN);
@@ -117,23 +132,28 @@ public class BookingServiceImplTest {
         assertNotNull(response);
         assertNotNull(response.getBooking());
         assertEquals(savedBooking.getId(), response.getBooking().getId());
-        assertEquals("session_id", response.getSessionId());
-        assertEquals("session_url", response.getSessionUrl());
+        // Link thanh toán được tạo bất đồng bộ, client lấy qua API polling
+        assertNull(response.getSessionId());
+        assertNull(response.getSessionUrl());
+        assertEquals("PENDING", response.getPaymentStatus());
+        verify(hotelRepository, times(1)).findByIdForUpdate(TEST_HOTEL_ID);
         verify(bookingRepository, times(1)).save(any(Booking.class));
-        verify(stripeService, times(1)).checkoutBooking(any(PaymentRequestDto.class), eq(TEST_BOOKING_ID));
+        verify(availabilityService, times(1)).addBooking(savedBooking);
+        verify(paymentSessionService, times(1)).enqueue(savedBooking);
+        verify(paymentSessionService, times(1)).dispatch(TEST_BOOKING_ID);
     }
 
     @Test
     void createBooking_accountNotFound() {
         // Arrange
         AddBookingRequestDto requestDto = createAddBookingRequestDto();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
+        when(currentAccount.summary(TEST_TOKEN)).thenThrow(new ResourceNotFoundException("Account"));
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> bookingService.createBooking(requestDto, TEST_TOKEN));
         verify(bookingRepository, times(0)).save(any(Booking.class));
-        verify(stripeService, times(0)).checkoutBooking(any(PaymentRequestDto.class), anyLong());
+        verify(paymentSessionService, times(0)).enqueue(any(Booking.class));
+        verify(paymentSessionService, times(0)).dispatch(anyLong());
     }
 
     @Test
@@ -142,14 +162,14 @@ public class BookingServiceImplTest {
         AddBookingRequestDto requestDto = createAddBookingRequestDto();
         Account account = createTestAccount();
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(account));
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> bookingService.createBooking(requestDto, TEST_TOKEN));
         verify(bookingRepository, times(0)).save(any(Booking.class));
-        verify(stripeService, times(0)).checkoutBooking(any(PaymentRequestDto.class), anyLong());
+        verify(paymentSessionService, times(0)).enqueue(any(Booking.class));
+        verify(paymentSessionService, times(0)).dispatch(anyLong());
     }
 
     @Test
@@ -161,14 +181,14 @@ public class BookingServiceImplTest {
         Account account = createTestAccount();
         Hotel hotel = createTestHotel();
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(account));
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> bookingService.createBooking(requestDto, TEST_TOKEN));
         verify(bookingRepository, times(0)).save(any(Booking.class));
-        verify(stripeService, times(0)).checkoutBooking(any(PaymentRequestDto.class), anyLong());
+        verify(paymentSessionService, times(0)).enqueue(any(Booking.class));
+        verify(paymentSessionService, times(0)).dispatch(anyLong());
     }
 
     @Test
@@ -180,14 +200,14 @@ public class BookingServiceImplTest {
         Account account = createTestAccount();
         Hotel hotel = createTestHotel();
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(account));
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> bookingService.createBooking(requestDto, TEST_TOKEN));
         verify(bookingRepository, times(0)).save(any(Booking.class));
-        verify(stripeService, times(0)).checkoutBooking(any(PaymentRequestDto.class), anyLong());
+        verify(paymentSessionService, times(0)).enqueue(any(Booking.class));
+        verify(paymentSessionService, times(0)).dispatch(anyLong());
     }
 
     @Test
@@ -199,15 +219,72 @@ public class BookingServiceImplTest {
         Booking existingBooking = createTestBooking();
         existingBooking.setStatus(BookingStatus.CONFIRMED);
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(account));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(account);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
+        runTransactionsInline();
+        when(hotelRepository.findByIdForUpdate(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
         when(bookingRepository.findByHotelIdAndDateRange(eq(TEST_HOTEL_ID), any(ZonedDateTime.class), any(ZonedDateTime.class))).thenReturn(List.of(existingBooking));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> bookingService.createBooking(requestDto, TEST_TOKEN));
         verify(bookingRepository, times(0)).save(any(Booking.class));
-        verify(stripeService, times(0)).checkoutBooking(any(PaymentRequestDto.class), anyLong());
+        verify(paymentSessionService, times(0)).enqueue(any(Booking.class));
+        verify(paymentSessionService, times(0)).dispatch(anyLong());
+    }
+
+    @Test
+    void createBooking_concurrentRequestsForSameDates_shouldReserveOnlyOnce() throws Exception {
+        // Arrange
+        Account account = createTestAccount();
+        Hotel hotel = createTestHotel();
+        List<Booking> storedBookings = new CopyOnWriteArrayList<>();
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(account));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(account);
+        when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
+        runTransactionsInline();
+        when(hotelRepository.findByIdForUpdate(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
+        when(bookingRepository.findByHotelIdAndDateRange(eq(TEST_HOTEL_ID), any(ZonedDateTime.class), any(ZonedDateTime.class)))
+                .thenAnswer(invocation -> new ArrayList<>(storedBookings));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
+            // Mô phỏng độ trễ ghi để các request chen vào giữa bước kiểm tra và bước lưu
+            Thread.sleep(20);
+            Booking booking = invocation.getArgument(0);
+            booking.setId(TEST_BOOKING_ID);
+            storedBookings.add(booking);
+            return booking;
+        });
+
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    bookingService.createBooking(createAddBookingRequestDto(), TEST_TOKEN);
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+
+        // Act
+        start.countDown();
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, succeeded);
+        assertEquals(1, storedBookings.size());
+        verify(paymentSessionService, times(1)).enqueue(any(Booking.class));
     }
 
     @Test
@@ -216,8 +293,7 @@ public class BookingServiceImplTest {
         Account account = createTestAccount();
         Booking booking = createTestBooking();
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(booking));
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
 
@@ -227,25 +303,14 @@ public class BookingServiceImplTest {
         // Assert
         assertEquals(BookingStatus.CANCELLED, booking.getStatus());
         verify(bookingRepository, times(1)).save(booking);
-    }
-
-    @Test
-    void cancelBooking_accountNotFound() {
-        // Arrange
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> bookingService.cancelBooking(TEST_BOOKING_ID, TEST_TOKEN));
-        verify(bookingRepository, times(0)).save(any(Booking.class));
+        verify(availabilityService, times(1)).removeBooking(booking);
     }
 
     @Test
     void cancelBooking_bookingNotFound() {
         // Arrange
         Account account = createTestAccount();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.empty());
 
         // Act & Assert
@@ -262,8 +327,7 @@ public class BookingServiceImplTest {
         Booking booking = createTestBooking();
         booking.setAccount(ownerAccount);
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(otherAccount.getId());
-        when(accountRepository.findById(otherAccount.getId())).thenReturn(Optional.of(otherAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(otherAccount.getId());
         when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(booking));
 
         // Act & Assert
@@ -278,8 +342,7 @@ public class BookingServiceImplTest {
         Booking booking = createTestBooking();
         booking.setStatus(BookingStatus.CANCELLED);
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(booking));
 
         // Act & Assert
@@ -297,8 +360,7 @@ public class BookingServiceImplTest {
         booking.setStatus(BookingStatus.PENDING);
         booking.setHotel(hotel);
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(hotelOwnerAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(booking));
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
 
@@ -316,9 +378,8 @@ public class BookingServiceImplTest {
         Account account = createTestAccount();
         Booking booking1 = createTestBooking();
         Booking booking2 = createTestBooking();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
-        when(bookingRepository.findByAccount(account)).thenReturn(List.of(booking1, booking2));
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(account));
+        when(bookingRepository.findByAccountId(TEST_ACCOUNT_ID)).thenReturn(List.of(booking1, booking2));
 
         // Act
         List<BookingResponseDto> response = bookingService.getBookingsByToken(TEST_TOKEN);
@@ -333,8 +394,7 @@ public class BookingServiceImplTest {
     @Test
     void getBookingsByToken_accountNotFound() {
         // Arrange
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
+        when(currentAccount.summary(TEST_TOKEN)).thenThrow(new ResourceNotFoundException("Account"));
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> bookingService.getBookingsByToken(TEST_TOKEN));
@@ -348,9 +408,8 @@ public class BookingServiceImplTest {
         futureBooking1.setStartDate(ZonedDateTime.now().plusDays(5));
         Booking pastBooking = createTestBooking();
         pastBooking.setStartDate(ZonedDateTime.now().minusDays(1));
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(account));
-        when(bookingRepository.findByAccount(account)).
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(account));
+        when(bookingRepository.findByAccountId(TEST_ACCOUNT_ID)).
                 thenReturn(List.of(futureBooking1, pastBooking));
 
         // Act
@@ -365,8 +424,7 @@ public class BookingServiceImplTest {
     @Test
     void getReservations_accountNotFound() {
         // Arrange
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
+        when(currentAccount.summary(TEST_TOKEN)).thenThrow(new ResourceNotFoundException("Account"));
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> bookingService.getReservations(TEST_TOKEN));
@@ -380,8 +438,7 @@ public class BookingServiceImplTest {
         hotel.setAccount(ownerAccount);
         Booking booking1 = createTestBooking();
         Booking booking2 = createTestBooking();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(ownerAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
         when(bookingRepository.findByHotel(hotel)).thenReturn(List.of(booking1, booking2));
 
@@ -395,22 +452,11 @@ public class BookingServiceImplTest {
         assertEquals(booking2.getId(), response.get(1).getId());
     }
 
-    @Test
-    void getBookingsByHotelId_accountNotFound() {
-        // Arrange
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> bookingService.getBookingsByHotelId(TEST_HOTEL_ID, TEST_TOKEN));
-    }
-
     @Test
     void getBookingsByHotelId_hotelNotFound() {
         // Arrange
         Account ownerAccount = createTestAccount();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(ownerAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.empty());
 
         // Act & Assert
@@ -426,8 +472,7 @@ public class BookingServiceImplTest {
         Hotel hotel = createTestHotel();
         hotel.setAccount(ownerAccount);
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(otherAccount.getId());
-        when(accountRepository.findById(otherAccount.getId())).thenReturn(Optional.of(otherAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(otherAccount.getId());
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
 
         // Act & Assert
@@ -444,8 +489,7 @@ public class BookingServiceImplTest {
         futureBooking1.setStartDate(ZonedDateTime.now().plusDays(5));
         Booking pastBooking = createTestBooking();
         pastBooking.setStartDate(ZonedDateTime.now().minusDays(1));
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(ownerAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
         when(bookingRepository.findByHotel(hotel)).thenReturn(List.of(futureBooking1, pastBooking));
 
@@ -458,22 +502,11 @@ public class BookingServiceImplTest {
         assertEquals(futureBooking1.getId(), response.getFirst().getId());
     }
 
-    @Test
-    void getReservationsByHotelId_accountNotFound() {
-        // Arrange
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> bookingService.getReservationsByHotelId(TEST_HOTEL_ID, TEST_TOKEN));
-    }
-
     @Test
     void getReservationsByHotelId_hotelNotFound() {
         // Arrange
         Account ownerAccount = createTestAccount();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(ownerAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.empty());
 
         // Act & Assert
@@ -489,8 +522,7 @@ public class BookingServiceImplTest {
         Hotel hotel = createTestHotel();
         hotel.setAccount(ownerAccount);
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(otherAccount.getId());
-        when(accountRepository.findById(otherAccount.getId())).thenReturn(Optional.of(otherAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(otherAccount.getId());
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
 
         // Act & Assert
@@ -515,12 +547,25 @@ public class BookingServiceImplTest {
     }
 
     @Test
-    void getStatisticForOwner_accountNotFound() {
+    void getStatisticForOwner_success() {
         // Arrange
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
+        Hotel hotel = createTestHotel();
+        hotel.setAccount(createTestAccount());
+        Booking booking = createTestBooking();
+        booking.setHotel(hotel);
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
+        when(bookingRepository.findByHotelAccountId(TEST_ACCOUNT_ID)).thenReturn(List.of(booking));
 
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> bookingService.getStatisticForOwner(TEST_TOKEN));
+        // Act
+        List<BookingResponseDto> response = bookingService.getStatisticForOwner(TEST_TOKEN);
+
+        // Assert
+        assertEquals(1, response.size());
+        assertEquals(booking.getId(), response.getFirst().getId());
+        verify(bookingRepository, never()).findByHotel(any(Hotel.class));
+    }
+
+    private AccountSummary summaryOf(Account account) {
+        return new SpelAwareProxyProjectionFactory().createProjection(AccountSummary.class, account);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,124 @@
+package com.vinova.booking_hotel.service;
+
+import com.vinova.booking_hotel.authentication.service.impl.CloudinaryService;
+import com.vinova.booking_hotel.config.FakeCloudinaryServer;
+import com.vinova.booking_hotel.property.model.UploadedImage;
+import com.vinova.booking_hotel.property.repository.UploadedImageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CloudinaryServiceTest {
+
+    private static final byte[] AVATAR = "image-1".getBytes();
+
+    @Mock
+    private UploadedImageRepository uploadedImageRepository;
+
+    private FakeCloudinaryServer cloudinaryServer;
+    private CloudinaryService cloudinaryService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cloudinaryServer = new FakeCloudinaryServer();
+        cloudinaryService = new CloudinaryService(cloudinaryServer.cloudinary(), uploadedImageRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cloudinaryServer.close();
+    }
+
+    @Test
+    void spoolToDisk_shouldCopyFileAndComputeSha256() throws Exception {
+        CloudinaryService.SpooledImage image = cloudinaryService.spoolToDisk(avatar());
+        try {
+            assertArrayEquals(AVATAR, Files.readAllBytes(image.path()));
+            assertEquals(sha256(AVATAR), image.contentHash());
+        } finally {
+            cloudinaryService.deleteQuietly(image.path());
+        }
+    }
+
+    @Test
+    void uploadImage_shouldUploadAndIndex_whenContentIsNew() throws Exception {
+        // Arrange
+        String hash = sha256(AVATAR);
+        when(uploadedImageRepository.findById(hash)).thenReturn(Optional.empty());
+        when(uploadedImageRepository.insertOrFindUrl(eq(hash), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        // Act
+        String url = cloudinaryService.uploadImage(avatar());
+
+        // Assert
+        assertEquals("https://res.cloudinary.test/demo/image-1.jpg", url);
+        assertEquals(1, cloudinaryServer.getUploadCount());
+        verify(uploadedImageRepository, times(1)).insertOrFindUrl(hash, url);
+        assertTrue(cloudinaryServer.getDeletedPublicIds().isEmpty());
+    }
+
+    @Test
+    void uploadImage_shouldReuseIndexedUrl_whenSameContentWasUploaded() throws Exception {
+        // Arrange
+        String hash = sha256(AVATAR);
+        when(uploadedImageRepository.findById(hash))
+                .thenReturn(Optional.of(new UploadedImage(hash, "https://res.cloudinary.test/demo/avatar.jpg", null)));
+
+        // Act
+        String url = cloudinaryService.uploadImage(avatar());
+
+        // Assert: không gửi lại lên Cloudinary
+        assertEquals("https://res.cloudinary.test/demo/avatar.jpg", url);
+        assertEquals(0, cloudinaryServer.getUploadCount());
+        verify(uploadedImageRepository, never()).insertOrFindUrl(anyString(), anyString());
+    }
+
+    @Test
+    void index_shouldReturnIndexedUrlAndDeleteDuplicate_whenOtherRequestIndexedFirst() {
+        // Arrange: request khác đã ghi cùng nội dung với URL khác
+        when(uploadedImageRepository.insertOrFindUrl("hash", "https://res.cloudinary.test/demo/image-2.jpg"))
+                .thenReturn("https://res.cloudinary.test/demo/image-1.jpg");
+
+        // Act
+        String url = cloudinaryService.index("hash",
+                new CloudinaryService.UploadedAsset("image-2", "https://res.cloudinary.test/demo/image-2.jpg"));
+
+        // Assert
+        assertEquals("https://res.cloudinary.test/demo/image-1.jpg", url);
+        assertEquals(List.of("image-2"), cloudinaryServer.getDeletedPublicIds());
+    }
+
+    @Test
+    void deleteAsset_shouldDestroyAssetByPublicId() {
+        // Act
+        cloudinaryService.deleteAsset("image-7");
+
+        // Assert
+        assertEquals(List.of("image-7"), cloudinaryServer.getDeletedPublicIds());
+    }
+
+    private MockMultipartFile avatar() {
+        return new MockMultipartFile("avatar", "avatar.jpg", "image/jpeg", AVATAR);
+    }
+
+    private String sha256(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
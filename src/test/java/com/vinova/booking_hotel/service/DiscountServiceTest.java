@@ -3,8 +3,10 @@ package com.vinova.booking_hotel.service;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.property.dto.request.AddDiscountRequestDto;
 import com.vinova.booking_hotel.property.dto.response.DiscountResponseDto;
+import com.vinova.booking_hotel.property.event.HotelChangedEvent;
 import com.vinova.booking_hotel.property.model.Discount;
 import com.vinova.booking_hotel.property.repository.DiscountRepository;
+import com.vinova.booking_hotel.property.service.PricingService;
 import com.vinova.booking_hotel.property.service.impl.DiscountServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +14,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -29,6 +32,12 @@ public class DiscountServiceTest {
     @Mock
     private DiscountRepository discountRepository;
 
+    @Mock
+    private PricingService pricingService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private DiscountServiceImpl discountService;
 
@@ -117,6 +126,9 @@ public class DiscountServiceTest {
         // Assert
         assertNotNull(updatedDiscount);
         assertEquals(mockRequest.getRate(), updatedDiscount.getRate());
+        Mockito.verify(pricingService).evictAll();
+        // Mức giảm giá dùng chung nên xóa cache chi tiết của mọi khách sạn
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<HotelChangedEvent>argThat(event -> event.getHotelId() == null));
     }
 
     @Test
@@ -147,6 +159,7 @@ public class DiscountServiceTest {
         // Assert
         // Xác minh rằng discount được xóa
         Mockito.verify(discountRepository).delete(mockDiscount);
+        Mockito.verify(pricingService).evictAll();
     }
 
     @Test
@@ -1,26 +1,23 @@
 package com.vinova.booking_hotel.service;
 
+import com.vinova.booking_hotel.authentication.model.MailOutbox;
+import com.vinova.booking_hotel.authentication.service.MailOutboxService;
 import com.vinova.booking_hotel.authentication.service.impl.EmailServiceImpl;
-import jakarta.mail.Address;
 import jakarta.mail.MessagingException;
-import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.MailPreparationException;
-import org.springframework.mail.MailSendException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,19 +26,19 @@ import static org.mockito.Mockito.*;
 public class EmailServiceImplTest {
 
     @Mock
-    private JavaMailSender javaMailSender;
+    private MailOutboxService mailOutboxService;
 
     @InjectMocks
     private EmailServiceImpl emailService;
 
     @Captor
-    private ArgumentCaptor<SimpleMailMessage> simpleMailMessageCaptor;
+    private ArgumentCaptor<MailOutbox> mailCaptor;
 
-    @Captor
-    private ArgumentCaptor<MimeMessage> mimeMessageCaptor;
+    @TempDir
+    Path tempDir;
 
     @Test
-    void sendEmail_shouldSendSimpleMailMessage_whenCalled() {
+    void sendEmail_shouldEnqueuePlainTextMail_whenCalled() {
         // Arrange
         String to = "test@example.com";
         String subject = "Test Subject";
@@ -51,24 +48,24 @@ public class EmailServiceImplTest {
         emailService.sendEmail(to, subject, text);
 
         // Assert
-        verify(javaMailSender, times(1)).send(simpleMailMessageCaptor.capture());
-        SimpleMailMessage sentMessage = simpleMailMessageCaptor.getValue();
-        assertEquals(to, Objects.requireNonNull(sentMessage.getTo())[0]);
+        verify(mailOutboxService, times(1)).enqueue(mailCaptor.capture());
+        MailOutbox sentMessage = mailCaptor.getValue();
+        assertEquals(to, sentMessage.getRecipient());
         assertEquals(subject, sentMessage.getSubject());
-        assertEquals(text, Objects.requireNonNull(sentMessage.getText()));
+        assertEquals(text, sentMessage.getBody());
+        assertFalse(sentMessage.getHtml());
+        assertNull(sentMessage.getAttachment());
     }
 
     @Test
-    void sendEmail_shouldThrowRuntimeException_whenMailExceptionOccurs() {
+    void sendEmail_shouldPropagateException_whenEnqueueFails() {
         // Arrange
-        String to = "test@example.com";
-        String subject = "Test Subject";
-        String text = "Test Body";
-        doThrow(new MailSendException("Sending failed")).when(javaMailSender).send(any(SimpleMailMessage.class));
+        doThrow(new RuntimeException("Database unavailable")).when(mailOutboxService).enqueue(any(MailOutbox.class));
 
         // Act & Assert
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> emailService.sendEmail(to, subject, text));
-        assertEquals("Email sending failed. Please try again!", exception.getMessage());
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> emailService.sendEmail("test@example.com", "Test Subject", "Test Body"));
+        assertEquals("Database unavailable", exception.getMessage());
     }
 
     @Test
@@ -83,9 +80,9 @@ public class EmailServiceImplTest {
         emailService.sendAccountVerificationEmail(to, verificationCode);
 
         // Assert
-        verify(javaMailSender, times(1)).send(simpleMailMessageCaptor.capture());
-        SimpleMailMessage sentMessage = simpleMailMessageCaptor.getValue();
-        assertEquals(to, Objects.requireNonNull(sentMessage.getTo())[0]);
+        verify(mailOutboxService, times(1)).enqueue(mailCaptor.capture());
+        MailOutbox sentMessage = mailCaptor.getValue();
+        assertEquals(to, sentMessage.getRecipient());
         assertEquals("Welcome to Vinova! Please Verify Your Account", sentMessage.getSubject());
         String expectedText = String.format(
                 "Dear User,\n\n" +
@@ -101,7 +98,7 @@ public class EmailServiceImplTest {
                 now,
                 nowWithNoNanos
         );
-        assertEquals(expectedText, Objects.requireNonNull(sentMessage.getText()));
+        assertEquals(expectedText, sentMessage.getBody());
     }
 
     @Test
@@ -116,9 +113,9 @@ public class EmailServiceImplTest {
         emailService.sendAccountReactivationEmail(to, verificationCode);
 
         // Assert
-        verify(javaMailSender, times(1)).send(simpleMailMessageCaptor.capture());
-        SimpleMailMessage sentMessage = simpleMailMessageCaptor.getValue();
-        assertEquals(to, Objects.requireNonNull(sentMessage.getTo())[0]);
+        verify(mailOutboxService, times(1)).enqueue(mailCaptor.capture());
+        MailOutbox sentMessage = mailCaptor.getValue();
+        assertEquals(to, sentMessage.getRecipient());
         assertEquals("Account Reactivation Request - Vinova", sentMessage.getSubject());
         String expectedText = String.format(
                 "Dear User,\n\n" +
@@ -134,7 +131,7 @@ public class EmailServiceImplTest {
                 now,
                 nowWithNoNanos
         );
-        assertEquals(expectedText, Objects.requireNonNull(sentMessage.getText()));
+        assertEquals(expectedText, sentMessage.getBody());
     }
 
     @Test
@@ -149,9 +146,9 @@ public class EmailServiceImplTest {
         emailService.sendPasswordResetEmail(to, resetToken);
 
         // Assert
-        verify(javaMailSender, times(1)).send(simpleMailMessageCaptor.capture());
-        SimpleMailMessage sentMessage = simpleMailMessageCaptor.getValue();
-        assertEquals(to, Objects.requireNonNull(sentMessage.getTo())[0]);
+        verify(mailOutboxService, times(1)).enqueue(mailCaptor.capture());
+        MailOutbox sentMessage = mailCaptor.getValue();
+        assertEquals(to, sentMessage.getRecipient());
         assertEquals("Password Reset Request - Vinova", sentMessage.getSubject());
         String expectedText = String.format(
                 "Dear User,\n\n" +
@@ -167,68 +164,55 @@ public class EmailServiceImplTest {
                 now,
                 nowWithNoNanos
         );
-        assertEquals(expectedText, Objects.requireNonNull(sentMessage.getText()));
+        assertEquals(expectedText, sentMessage.getBody());
     }
 
     @Test
-    void sendEmailWithAttachment_shouldSendMimeMessageWithAttachment_whenCalled() throws MessagingException, IOException {
+    void sendEmailWithAttachment_shouldEnqueueHtmlMailWithFileContent_whenCalled() throws MessagingException, IOException {
         // Arrange
         String to = "attachment@example.com";
         String subject = "Attachment Subject";
         String body = "<p>Attachment Body</p>";
-        String attachmentPath = "test_attachment.txt";
-
-        // Mock tạo MimeMessage
-        MimeMessage mockMimeMessage = mock(MimeMessage.class);
-        when(javaMailSender.createMimeMessage()).thenReturn(mockMimeMessage);
-
-        // Mock getRecipients()
-        Address[] toAddresses = {new InternetAddress(to)};
-        when(mockMimeMessage.getRecipients(jakarta.mail.Message.RecipientType.TO)).thenReturn(toAddresses);
-        when(mockMimeMessage.getSubject()).thenReturn(subject);
-        when(mockMimeMessage.getContent()).thenReturn(body);
+        Path attachmentPath = tempDir.resolve("test_attachment.txt");
+        Files.writeString(attachmentPath, "attachment content");
 
         // Act
-        emailService.sendEmailWithAttachment(to, subject, body, attachmentPath);
+        emailService.sendEmailWithAttachment(to, subject, body, attachmentPath.toString());
 
         // Assert
-        verify(javaMailSender, times(1)).send(mimeMessageCaptor.capture());
-        MimeMessage sentMessage = mimeMessageCaptor.getValue();
-
-        assertNotNull(sentMessage.getRecipients(jakarta.mail.Message.RecipientType.TO));
-        assertEquals(to, ((InternetAddress) sentMessage.getRecipients(jakarta.mail.Message.RecipientType.TO)[0]).getAddress());
+        verify(mailOutboxService, times(1)).enqueue(mailCaptor.capture());
+        MailOutbox sentMessage = mailCaptor.getValue();
+        assertEquals(to, sentMessage.getRecipient());
         assertEquals(subject, sentMessage.getSubject());
-        assertTrue(sentMessage.getContent().toString().contains(body));
+        assertEquals(body, sentMessage.getBody());
+        assertTrue(sentMessage.getHtml());
+        assertEquals("test_attachment.txt", sentMessage.getAttachmentName());
+        assertArrayEquals("attachment content".getBytes(), sentMessage.getAttachment());
     }
 
     @Test
-    void sendEmailWithAttachment_shouldThrowMailPreparationException_whenCreateMimeMessageFails() throws MessagingException {
+    void sendEmailWithAttachment_shouldThrowMessagingException_whenFileIsMissing() {
         // Arrange
-        String to = "attachment@example.com";
-        String subject = "Attachment Subject";
-        String body = "<p>Attachment Body</p>";
-        String attachmentPath = "test_attachment.txt";
-
-        // Mock việc tạo MimeMessage ném ra MailPreparationException
-        when(javaMailSender.createMimeMessage()).thenThrow(new MailPreparationException("Failed to create MimeMessage"));
+        String attachmentPath = tempDir.resolve("missing.txt").toString();
 
         // Act & Assert
-        assertThrows(MailPreparationException.class, () -> emailService.sendEmailWithAttachment(to, subject, body, attachmentPath));
-        verify(javaMailSender, never()).send(any(MimeMessage.class));
+        assertThrows(MessagingException.class,
+                () -> emailService.sendEmailWithAttachment("attachment@example.com", "Attachment Subject", "<p>Body</p>", attachmentPath));
+        verify(mailOutboxService, never()).enqueue(any(MailOutbox.class));
     }
 
     @Test
-    void sendEmailWithAttachment_shouldThrowMailSendException_whenSendFails() throws MessagingException, IOException {
+    void sendEmailWithAttachment_shouldEnqueueBytesFromMemory_whenCalled() throws MessagingException {
         // Arrange
-        String to = "attachment@example.com";
-        String subject = "Attachment Subject";
-        String body = "<p>Attachment Body</p>";
-        String attachmentPath = "test_attachment.txt";
-        MimeMessage mockMimeMessage = mock(MimeMessage.class);
-        when(javaMailSender.createMimeMessage()).thenReturn(mockMimeMessage);
-        doThrow(new MailSendException("Sending failed")).when(javaMailSender).send(any(MimeMessage.class));
+        byte[] attachment = "%PDF-1.7".getBytes();
 
-        // Act & Assert
-        assertThrows(MailSendException.class, () -> emailService.sendEmailWithAttachment(to, subject, body, attachmentPath));
+        // Act
+        emailService.sendEmailWithAttachment("attachment@example.com", "Attachment Subject", "<p>Body</p>", "report.pdf", attachment);
+
+        // Assert
+        verify(mailOutboxService, times(1)).enqueue(mailCaptor.capture());
+        MailOutbox sentMessage = mailCaptor.getValue();
+        assertEquals("report.pdf", sentMessage.getAttachmentName());
+        assertArrayEquals(attachment, sentMessage.getAttachment());
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,7 @@
 package com.vinova.booking_hotel.service;
 
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.property.dto.request.AddAmenityToHotelRequestDto;
 import com.vinova.booking_hotel.property.dto.request.DeleteAmenityFromHotelRequestDto;
@@ -42,10 +41,7 @@ public class HotelAmenityServiceImplTest {
     @Mock
     private HotelRepository hotelRepository;
     @Mock
-    private JwtUtils jwtUtils;
-    @Mock
-    private AccountRepository accountRepository;
-
+    private CurrentAccount currentAccount;
     @InjectMocks
     private HotelAmenityServiceImpl hotelAmenityService;
 
@@ -85,8 +81,7 @@ public class HotelAmenityServiceImplTest {
     void addAmenityToHotel_shouldAddExistingAmenity() {
         // Arrange
         AddAmenityToHotelRequestDto requestDto = new AddAmenityToHotelRequestDto(TEST_HOTEL_ID, "Existing Amenity");
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(amenityRepository.findByName("Existing Amenity")).thenReturn(existingAmenity);
         when(hotelAmenityRepository.save(any(HotelAmenity.class))).thenReturn(hotelAmenityRelation);
@@ -97,7 +92,6 @@ public class HotelAmenityServiceImplTest {
         // Assert
         assertEquals("Amenity added to hotel", response);
         verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
-        verify(accountRepository, times(1)).findById(TEST_ACCOUNT_ID);
         verify(amenityRepository, times(1)).findByName("Existing Amenity");
         verify(amenityRepository, never()).save(any(Amenity.class));
         verify(hotelAmenityRepository, times(1)).save(any(HotelAmenity.class));
@@ -107,8 +101,7 @@ public class HotelAmenityServiceImplTest {
     void addAmenityToHotel_shouldAddNewAmenity() {
         // Arrange
         AddAmenityToHotelRequestDto requestDto = new AddAmenityToHotelRequestDto(TEST_HOTEL_ID, "New Amenity");
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(amenityRepository.findByName("New Amenity")).thenReturn(null);
         when(amenityRepository.save(any(Amenity.class))).thenReturn(newAmenity);
@@ -120,7 +113,6 @@ public class HotelAmenityServiceImplTest {
         // Assert
         assertEquals("Amenity added to hotel", response);
         verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
-        verify(accountRepository, times(1)).findById(TEST_ACCOUNT_ID);
         verify(amenityRepository, times(1)).findByName("New Amenity");
         verify(amenityRepository, times(1)).save(any(Amenity.class));
         verify(hotelAmenityRepository, times(1)).save(any(HotelAmenity.class));
@@ -134,24 +126,7 @@ public class HotelAmenityServiceImplTest {
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> hotelAmenityService.addAmenityToHotel(requestDto, TEST_TOKEN));
-        verify(jwtUtils, never()).getUserIdFromJwtToken(anyString());
-        verify(accountRepository, never()).findById(anyLong());
-        verify(amenityRepository, never()).findByName(anyString());
-        verify(amenityRepository, never()).save(any(Amenity.class));
-        verify(hotelAmenityRepository, never()).save(any(HotelAmenity.class));
-    }
-
-    @Test
-    void addAmenityToHotel_shouldThrowResourceNotFoundException_whenAccountNotFound() {
-        // Arrange
-        AddAmenityToHotelRequestDto requestDto = new AddAmenityToHotelRequestDto(TEST_HOTEL_ID, "Existing Amenity");
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-        when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> hotelAmenityService.addAmenityToHotel(requestDto, TEST_TOKEN));
-        verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
+        verify(currentAccount, never()).id(anyString());
         verify(amenityRepository, never()).findByName(anyString());
         verify(amenityRepository, never()).save(any(Amenity.class));
         verify(hotelAmenityRepository, never()).save(any(HotelAmenity.class));
@@ -163,8 +138,7 @@ public class HotelAmenityServiceImplTest {
         Account anotherAccount = new Account();
         anotherAccount.setId(TEST_ACCOUNT_ID + 1);
         AddAmenityToHotelRequestDto requestDto = new AddAmenityToHotelRequestDto(TEST_HOTEL_ID, "Existing Amenity");
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(anotherAccount.getId());
-        when(accountRepository.findById(anotherAccount.getId())).thenReturn(Optional.of(anotherAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(anotherAccount.getId());
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
 
         // Act & Assert
@@ -179,8 +153,7 @@ public class HotelAmenityServiceImplTest {
     void removeAmenityFromHotel_shouldRemoveExistingAmenityRelation() {
         // Arrange
         DeleteAmenityFromHotelRequestDto requestDto = new DeleteAmenityFromHotelRequestDto(TEST_HOTEL_ID, TEST_AMENITY_ID);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(amenityRepository.findById(TEST_AMENITY_ID)).thenReturn(Optional.of(existingAmenity));
         when(hotelAmenityRepository.findByHotelAndAmenity(testHotel, existingAmenity)).thenReturn(Optional.of(hotelAmenityRelation));
@@ -191,7 +164,6 @@ public class HotelAmenityServiceImplTest {
         // Assert
         assertEquals("Amenity removed from hotel", response);
         verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
-        verify(accountRepository, times(1)).findById(TEST_ACCOUNT_ID);
         verify(amenityRepository, times(1)).findById(TEST_AMENITY_ID);
         verify(hotelAmenityRepository, times(1)).findByHotelAndAmenity(testHotel, existingAmenity);
         verify(hotelAmenityRepository, times(1)).delete(hotelAmenityRelation);
@@ -205,24 +177,7 @@ public class HotelAmenityServiceImplTest {
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> hotelAmenityService.removeAmenityFromHotel(requestDto, TEST_TOKEN));
-        verify(jwtUtils, never()).getUserIdFromJwtToken(anyString());
-        verify(accountRepository, never()).findById(anyLong());
-        verify(amenityRepository, never()).findById(anyLong());
-        verify(hotelAmenityRepository, never()).findByHotelAndAmenity(any(), any());
-        verify(hotelAmenityRepository, never()).delete(any());
-    }
-
-    @Test
-    void removeAmenityFromHotel_shouldThrowResourceNotFoundException_whenAccountNotFound() {
-        // Arrange
-        DeleteAmenityFromHotelRequestDto requestDto = new DeleteAmenityFromHotelRequestDto(TEST_HOTEL_ID, TEST_AMENITY_ID);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-        when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> hotelAmenityService.removeAmenityFromHotel(requestDto, TEST_TOKEN));
-        verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
+        verify(currentAccount, never()).id(anyString());
         verify(amenityRepository, never()).findById(anyLong());
         verify(hotelAmenityRepository, never()).findByHotelAndAmenity(any(), any());
         verify(hotelAmenityRepository, never()).delete(any());
@@ -234,8 +189,7 @@ public class HotelAmenityServiceImplTest {
         Account anotherAccount = new Account();
         anotherAccount.setId(TEST_ACCOUNT_ID + 1);
         DeleteAmenityFromHotelRequestDto requestDto = new DeleteAmenityFromHotelRequestDto(TEST_HOTEL_ID, TEST_AMENITY_ID);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(anotherAccount.getId());
-        when(accountRepository.findById(anotherAccount.getId())).thenReturn(Optional.of(anotherAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(anotherAccount.getId());
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
 
         // Act & Assert
@@ -250,8 +204,7 @@ public class HotelAmenityServiceImplTest {
     void removeAmenityFromHotel_shouldThrowResourceNotFoundException_whenAmenityNotFound() {
         // Arrange
         DeleteAmenityFromHotelRequestDto requestDto = new DeleteAmenityFromHotelRequestDto(TEST_HOTEL_ID, TEST_AMENITY_ID);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(amenityRepository.findById(TEST_AMENITY_ID)).thenReturn(Optional.empty());
 
@@ -267,8 +220,7 @@ public class HotelAmenityServiceImplTest {
     void removeAmenityFromHotel_shouldThrowResourceNotFoundException_whenHotelAmenityNotFound() {
         // Arrange
         DeleteAmenityFromHotelRequestDto requestDto = new DeleteAmenityFromHotelRequestDto(TEST_HOTEL_ID, TEST_AMENITY_ID);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(amenityRepository.findById(TEST_AMENITY_ID)).thenReturn(Optional.of(existingAmenity));
         when(hotelAmenityRepository.findByHotelAndAmenity(testHotel, existingAmenity)).thenReturn(Optional.empty());
@@ -1,8 +1,7 @@
 package com.vinova.booking_hotel.service;
 
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.property.dto.request.AddDiscountToHotelRequestDto;
 import com.vinova.booking_hotel.property.dto.response.HotelDiscountResponseDto;
@@ -12,6 +11,7 @@ import com.vinova.booking_hotel.property.model.HotelDiscount;
 import com.vinova.booking_hotel.property.repository.DiscountRepository;
 import com.vinova.booking_hotel.property.repository.HotelDiscountRepository;
 import com.vinova.booking_hotel.property.repository.HotelRepository;
+import com.vinova.booking_hotel.property.service.PricingService;
 import com.vinova.booking_hotel.property.service.impl.HotelDiscountServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +19,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
@@ -38,11 +39,13 @@ public class HotelDiscountServiceImplTest {
     @Mock
     private HotelRepository hotelRepository;
     @Mock
-    private AccountRepository accountRepository;
-    @Mock
-    private JwtUtils jwtUtils;
+    private CurrentAccount currentAccount;
     @Mock
     private DiscountRepository discountRepository;
+    @Mock
+    private PricingService pricingService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private HotelDiscountServiceImpl hotelDiscountService;
@@ -84,8 +87,7 @@ public class HotelDiscountServiceImplTest {
     void addDiscountToHotel_shouldAddExistingDiscount() {
         // Arrange
         AddDiscountToHotelRequestDto requestDto = new AddDiscountToHotelRequestDto(TEST_HOTEL_ID, BigDecimal.valueOf(0.1), now, future);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(discountRepository.findByRate(BigDecimal.valueOf(0.1))).thenReturn(existingDiscount);
         when(hotelDiscountRepository.findByHotelIdAndDateRange(TEST_HOTEL_ID, now, future)).thenReturn(Collections.emptyList());
@@ -97,19 +99,18 @@ public class HotelDiscountServiceImplTest {
         // Assert
         assertEquals("Discount added to hotel", response);
         verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
-        verify(accountRepository, times(1)).findById(TEST_ACCOUNT_ID);
         verify(discountRepository, times(1)).findByRate(BigDecimal.valueOf(0.1));
         verify(discountRepository, never()).save(any(Discount.class));
         verify(hotelDiscountRepository, times(1)).save(any(HotelDiscount.class));
         verify(hotelDiscountRepository, times(1)).findByHotelIdAndDateRange(TEST_HOTEL_ID, now, future);
+        verify(pricingService, times(1)).evict(TEST_HOTEL_ID);
     }
 
     @Test
     void addDiscountToHotel_shouldAddNewDiscount() {
         // Arrange
         AddDiscountToHotelRequestDto requestDto = new AddDiscountToHotelRequestDto(TEST_HOTEL_ID, BigDecimal.valueOf(0.2), now, future);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(discountRepository.findByRate(BigDecimal.valueOf(0.2))).thenReturn(null);
         when(discountRepository.save(any(Discount.class))).thenReturn(newDiscount);
@@ -122,11 +123,11 @@ public class HotelDiscountServiceImplTest {
         // Assert
         assertEquals("Discount added to hotel", response);
         verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
-        verify(accountRepository, times(1)).findById(TEST_ACCOUNT_ID);
         verify(discountRepository, times(1)).findByRate(BigDecimal.valueOf(0.2));
         verify(discountRepository, times(1)).save(any(Discount.class));
         verify(hotelDiscountRepository, times(1)).save(any(HotelDiscount.class));
         verify(hotelDiscountRepository, times(1)).findByHotelIdAndDateRange(TEST_HOTEL_ID, now, future);
+        verify(pricingService, times(1)).evict(TEST_HOTEL_ID);
     }
 
     @Test
@@ -136,15 +137,15 @@ public class HotelDiscountServiceImplTest {
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> hotelDiscountService.addDiscountToHotel(requestDtoInvalid, TEST_TOKEN));
-        verifyNoInteractions(jwtUtils, accountRepository, hotelRepository, discountRepository, hotelDiscountRepository);
+        verifyNoInteractions(currentAccount, hotelRepository, discountRepository, hotelDiscountRepository);
 
         AddDiscountToHotelRequestDto requestDtoNullStart = new AddDiscountToHotelRequestDto(TEST_HOTEL_ID, BigDecimal.valueOf(0.1), null, future);
         assertThrows(RuntimeException.class, () -> hotelDiscountService.addDiscountToHotel(requestDtoNullStart, TEST_TOKEN));
-        verifyNoMoreInteractions(jwtUtils, accountRepository, hotelRepository, discountRepository, hotelDiscountRepository);
+        verifyNoMoreInteractions(currentAccount, hotelRepository, discountRepository, hotelDiscountRepository);
 
         AddDiscountToHotelRequestDto requestDtoNullEnd = new AddDiscountToHotelRequestDto(TEST_HOTEL_ID, BigDecimal.valueOf(0.1), now, null);
         assertThrows(RuntimeException.class, () -> hotelDiscountService.addDiscountToHotel(requestDtoNullEnd, TEST_TOKEN));
-        verifyNoMoreInteractions(jwtUtils, accountRepository, hotelRepository, discountRepository, hotelDiscountRepository);
+        verifyNoMoreInteractions(currentAccount, hotelRepository, discountRepository, hotelDiscountRepository);
     }
 
     @Test
@@ -156,23 +157,7 @@ public class HotelDiscountServiceImplTest {
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> hotelDiscountService.addDiscountToHotel(requestDto, TEST_TOKEN));
         verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
-        verifyNoInteractions(jwtUtils, accountRepository, discountRepository, hotelDiscountRepository);
-    }
-
-    @Test
-    void addDiscountToHotel_shouldThrowResourceNotFoundException_whenAccountNotFound() {
-        // Arrange
-        AddDiscountToHotelRequestDto requestDto = new AddDiscountToHotelRequestDto(TEST_HOTEL_ID, BigDecimal.valueOf(0.1), now, future);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-        when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> hotelDiscountService.addDiscountToHotel(requestDto, TEST_TOKEN));
-        verify(jwtUtils, times(1)).getUserIdFromJwtToken(TEST_TOKEN);
-        verify(accountRepository, times(1)).findById(TEST_ACCOUNT_ID);
-        verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
-        verifyNoInteractions(discountRepository, hotelDiscountRepository);
+        verifyNoInteractions(currentAccount, discountRepository, hotelDiscountRepository);
     }
 
     @Test
@@ -181,14 +166,12 @@ public class HotelDiscountServiceImplTest {
         Account anotherAccount = new Account();
         anotherAccount.setId(TEST_ACCOUNT_ID + 1);
         AddDiscountToHotelRequestDto requestDto = new AddDiscountToHotelRequestDto(TEST_HOTEL_ID, BigDecimal.valueOf(0.1), now, future);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(anotherAccount.getId());
-        when(accountRepository.findById(anotherAccount.getId())).thenReturn(Optional.of(anotherAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(anotherAccount.getId());
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> hotelDiscountService.addDiscountToHotel(requestDto, TEST_TOKEN));
-        verify(jwtUtils, times(1)).getUserIdFromJwtToken(TEST_TOKEN);
-        verify(accountRepository, times(1)).findById(anotherAccount.getId());
+        verify(currentAccount, times(1)).id(TEST_TOKEN);
         verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
         verifyNoInteractions(discountRepository, hotelDiscountRepository);
     }
@@ -197,15 +180,13 @@ public class HotelDiscountServiceImplTest {
     void addDiscountToHotel_shouldThrowRuntimeException_whenDiscountAlreadyExists() {
         // Arrange
         AddDiscountToHotelRequestDto requestDto = new AddDiscountToHotelRequestDto(TEST_HOTEL_ID, BigDecimal.valueOf(0.1), now, future);
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(testHotel));
         when(hotelDiscountRepository.findByHotelIdAndDateRange(TEST_HOTEL_ID, now, future)).thenReturn(Collections.singletonList(new HotelDiscount()));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> hotelDiscountService.addDiscountToHotel(requestDto, TEST_TOKEN));
         verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
-        verify(accountRepository, times(1)).findById(TEST_ACCOUNT_ID);
         verify(hotelDiscountRepository, times(1)).findByHotelIdAndDateRange(TEST_HOTEL_ID, now, future);
         verifyNoInteractions(discountRepository);
         verify(hotelDiscountRepository, never()).save(any());
@@ -219,8 +200,7 @@ public class HotelDiscountServiceImplTest {
         hotelDiscountToDelete.setHotel(testHotel);
 
         when(hotelDiscountRepository.findById(TEST_HOTEL_DISCOUNT_ID)).thenReturn(Optional.of(hotelDiscountToDelete));
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         doNothing().when(hotelDiscountRepository).delete(hotelDiscountToDelete);
 
         // Act
@@ -229,9 +209,9 @@ public class HotelDiscountServiceImplTest {
         // Assert
         assertEquals("Discount deleted successfully", response);
         verify(hotelDiscountRepository, times(1)).findById(TEST_HOTEL_DISCOUNT_ID);
-        verify(jwtUtils, times(1)).getUserIdFromJwtToken(TEST_TOKEN);
-        verify(accountRepository, times(1)).findById(TEST_ACCOUNT_ID);
+        verify(currentAccount, times(1)).id(TEST_TOKEN);
         verify(hotelDiscountRepository, times(1)).delete(hotelDiscountToDelete);
+        verify(pricingService, times(1)).evict(TEST_HOTEL_ID);
     }
 
     @Test
@@ -242,26 +222,7 @@ public class HotelDiscountServiceImplTest {
         // Act & Assert
         assertThrows(RuntimeException.class, () -> hotelDiscountService.deleteHotelDiscount(TEST_HOTEL_DISCOUNT_ID, TEST_TOKEN));
         verify(hotelDiscountRepository, times(1)).findById(TEST_HOTEL_DISCOUNT_ID);
-        verifyNoInteractions(jwtUtils, accountRepository, hotelRepository);
-        verify(hotelDiscountRepository, never()).delete(any());
-    }
-
-    @Test
-    void deleteHotelDiscount_shouldThrowResourceNotFoundException_whenAccountNotFound() {
-        // Arrange
-        HotelDiscount hotelDiscountToDelete = new HotelDiscount();
-        hotelDiscountToDelete.setId(TEST_HOTEL_DISCOUNT_ID);
-        hotelDiscountToDelete.setHotel(testHotel);
-
-        when(hotelDiscountRepository.findById(TEST_HOTEL_DISCOUNT_ID)).thenReturn(Optional.of(hotelDiscountToDelete));
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> hotelDiscountService.deleteHotelDiscount(TEST_HOTEL_DISCOUNT_ID, TEST_TOKEN));
-        verify(hotelDiscountRepository, times(1)).findById(TEST_HOTEL_DISCOUNT_ID);
-        verify(jwtUtils, times(1)).getUserIdFromJwtToken(TEST_TOKEN);
-        verify(accountRepository, times(1)).findById(TEST_ACCOUNT_ID);
+        verifyNoInteractions(currentAccount, hotelRepository);
         verify(hotelDiscountRepository, never()).delete(any());
     }
 
@@ -275,14 +236,12 @@ public class HotelDiscountServiceImplTest {
         hotelDiscountToDelete.setHotel(testHotel);
 
         when(hotelDiscountRepository.findById(TEST_HOTEL_DISCOUNT_ID)).thenReturn(Optional.of(hotelDiscountToDelete));
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(anotherAccount.getId());
-        when(accountRepository.findById(anotherAccount.getId())).thenReturn(Optional.of(anotherAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(anotherAccount.getId());
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> hotelDiscountService.deleteHotelDiscount(TEST_HOTEL_DISCOUNT_ID, TEST_TOKEN));
         verify(hotelDiscountRepository, times(1)).findById(TEST_HOTEL_DISCOUNT_ID);
-        verify(jwtUtils, times(1)).getUserIdFromJwtToken(TEST_TOKEN);
-        verify(accountRepository, times(1)).findById(anotherAccount.getId());
+        verify(currentAccount, times(1)).id(TEST_TOKEN);
         verify(hotelDiscountRepository, never()).delete(any());
     }
 
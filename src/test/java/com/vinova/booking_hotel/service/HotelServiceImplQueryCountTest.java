@@ -0,0 +1,176 @@
+package com.vinova.booking_hotel.service;
+
+import com.vinova.booking_hotel.authentication.model.Account;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
+import com.vinova.booking_hotel.authentication.service.impl.ImageUploadService;
+import com.vinova.booking_hotel.common.enums.EntityType;
+import com.vinova.booking_hotel.config.HibernateQueryCounter;
+import com.vinova.booking_hotel.config.TestPostgreSQLContainerConfig;
+import com.vinova.booking_hotel.property.dto.response.HotelResponseDto;
+import com.vinova.booking_hotel.property.model.*;
+import com.vinova.booking_hotel.property.repository.HotelRatingSummaryRepository;
+import com.vinova.booking_hotel.property.service.AvailabilityService;
+import com.vinova.booking_hotel.property.service.PricingService;
+import com.vinova.booking_hotel.property.service.impl.HotelDetailCache;
+import com.vinova.booking_hotel.property.service.impl.HotelServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({TestPostgreSQLContainerConfig.class, HibernateQueryCounter.class, HotelServiceImpl.class, HotelDetailCache.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class HotelServiceImplQueryCountTest {
+
+    @Autowired
+    private HotelServiceImpl hotelService;
+
+    @Autowired
+    private HibernateQueryCounter queryCounter;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private HotelRatingSummaryRepository hotelRatingSummaryRepository;
+
+    @MockitoBean
+    private CurrentAccount currentAccount;
+
+    @MockitoBean
+    private ImageUploadService imageUploadService;
+
+    @MockitoBean
+    private AvailabilityService availabilityService;
+
+    @MockitoBean
+    private PricingService pricingService;
+
+    private Long firstHotelId;
+
+    @BeforeEach
+    void setUp() {
+        Account owner = new Account();
+        owner.setFullName("Owner");
+        owner.setEmail("owner@example.com");
+        owner.setUsername("owner");
+        entityManager.persist(owner);
+
+        Account reviewer = new Account();
+        reviewer.setFullName("Reviewer");
+        reviewer.setEmail("reviewer@example.com");
+        reviewer.setUsername("reviewer");
+        entityManager.persist(reviewer);
+
+        District district = new District();
+        district.setName("District 1");
+        entityManager.persist(district);
+
+        Discount discount = new Discount();
+        discount.setRate(BigDecimal.TEN);
+        entityManager.persist(discount);
+
+        // Tạo 12 khách sạn, mỗi khách sạn có rating, hình ảnh và giảm giá
+        for (int i = 1; i <= 12; i++) {
+            Hotel hotel = new Hotel();
+            hotel.setName("Hotel " + i);
+            hotel.setPricePerDay(BigDecimal.valueOf(100 + i));
+            hotel.setAccount(owner);
+            hotel.setDistrict(district);
+            entityManager.persist(hotel);
+            if (firstHotelId == null) {
+                firstHotelId = hotel.getId();
+            }
+
+            Rating rating = new Rating();
+            rating.setHotel(hotel);
+            rating.setAccount(reviewer);
+            rating.setStars(i % 5 + 1);
+            rating.setContent("Review " + i);
+            entityManager.persist(rating);
+
+            Image image = new Image();
+            image.setEntityId(hotel.getId());
+            image.setEntityType(EntityType.HOTEL);
+            image.setImageUrl("url_" + i);
+            entityManager.persist(image);
+
+            HotelDiscount hotelDiscount = new HotelDiscount();
+            hotelDiscount.setHotel(hotel);
+            hotelDiscount.setDiscount(discount);
+            hotelDiscount.setStartDate(ZonedDateTime.now());
+            hotelDiscount.setEndDate(ZonedDateTime.now().plusDays(7));
+            entityManager.persist(hotelDiscount);
+        }
+        entityManager.flush();
+        hotelRatingSummaryRepository.insertMissing();
+        entityManager.clear();
+    }
+
+    @Test
+    void hotels_statementCountShouldNotGrowWithPageSize() {
+        queryCounter.reset();
+        List<HotelResponseDto> smallPage = hotelService.hotels(null, null, null, null, null, null, null, null,
+                0, 2, "id", "asc");
+        long smallPageStatements = queryCounter.getStatementCount();
+        entityManager.clear();
+
+        queryCounter.reset();
+        List<HotelResponseDto> largePage = hotelService.hotels(null, null, null, null, null, null, null, null,
+                0, 10, "id", "asc");
+
+        assertThat(smallPage).hasSize(2);
+        assertThat(largePage).hasSize(10);
+        assertThat(largePage).allSatisfy(hotel -> {
+            assertThat(hotel.getReviews()).isEqualTo(1L);
+            assertThat(hotel.getImages()).hasSize(1);
+            assertThat(hotel.getDiscount()).isNotNull();
+            assertThat(hotel.getOwner().getUsername()).isEqualTo("owner");
+        });
+        queryCounter.assertStatementCount(smallPageStatements);
+    }
+
+    @Test
+    void hotels_sortByRatings_statementCountShouldNotGrowWithPageSize() {
+        queryCounter.reset();
+        hotelService.hotels(null, null, null, null, null, null, null, null, 0, 2, "ratings", "desc");
+        long smallPageStatements = queryCounter.getStatementCount();
+        entityManager.clear();
+
+        queryCounter.reset();
+        List<HotelResponseDto> largePage = hotelService.hotels(null, null, null, null, null, null, null, null,
+                0, 10, "ratings", "desc");
+
+        assertThat(largePage).hasSize(10);
+        assertThat(largePage.get(0).getRating()).isGreaterThanOrEqualTo(largePage.get(9).getRating());
+        queryCounter.assertStatementCount(smallPageStatements);
+    }
+
+    @Test
+    void hotel_shouldLoadDetailWithFixedStatementCount() {
+        queryCounter.reset();
+        HotelResponseDto detail = hotelService.hotel(firstHotelId);
+
+        assertThat(detail.getOwner().getUsername()).isEqualTo("owner");
+        assertThat(detail.getDiscount()).isNotNull();
+        assertThat(detail.getImages()).hasSize(1);
+        // Khách sạn kèm owner, quận và giảm giá; thống kê rating; booking; hình ảnh; bản thu nhỏ của hình ảnh
+        queryCounter.assertStatementCount(5);
+
+        // Lần đọc tiếp theo lấy từ cache chi tiết
+        queryCounter.reset();
+        hotelService.hotel(firstHotelId);
+        queryCounter.assertStatementCount(0);
+    }
+}
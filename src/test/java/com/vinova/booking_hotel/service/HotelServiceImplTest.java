@@ -1,32 +1,52 @@
 package com.vinova.booking_hotel.service;
 
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
-import com.vinova.booking_hotel.authentication.service.impl.CloudinaryService;
+import com.vinova.booking_hotel.authentication.repository.projection.AccountSummary;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
+import com.vinova.booking_hotel.authentication.service.impl.ImageUploadService;
+import com.vinova.booking_hotel.common.enums.BookingStatus;
 import com.vinova.booking_hotel.common.enums.EntityType;
+import com.vinova.booking_hotel.common.enums.ImageSize;
+import com.vinova.booking_hotel.common.exception.InvalidCursorException;
 import com.vinova.booking_hotel.common.exception.InvalidPageOrSizeException;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
+import com.vinova.booking_hotel.common.pagination.CursorPageResponseDto;
+import com.vinova.booking_hotel.common.pagination.KeysetCursor;
 import com.vinova.booking_hotel.property.dto.request.AddHotelRequestDto;
 import com.vinova.booking_hotel.property.dto.request.AddImagesRequestDto;
+import com.vinova.booking_hotel.property.dto.response.CacheStatsResponseDto;
 import com.vinova.booking_hotel.property.dto.response.HotelResponseDto;
 import com.vinova.booking_hotel.property.dto.response.ImageResponseDto;
+import com.vinova.booking_hotel.property.event.HotelChangedEvent;
+import com.vinova.booking_hotel.property.event.HotelDeletedEvent;
 import com.vinova.booking_hotel.property.model.*;
 import com.vinova.booking_hotel.property.repository.*;
+import com.vinova.booking_hotel.property.repository.projection.BookedRangeView;
+import com.vinova.booking_hotel.property.repository.projection.HotelRatingStats;
+import com.vinova.booking_hotel.property.service.AvailabilityService;
+import com.vinova.booking_hotel.property.service.PricingService;
+import com.vinova.booking_hotel.property.service.impl.HotelDetailCache;
 import com.vinova.booking_hotel.property.service.impl.HotelServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -38,13 +58,13 @@ class HotelServiceImplTest {
     @Mock
     private HotelRepository hotelRepository;
     @Mock
-    private JwtUtils jwtUtils;
-    @Mock
-    private AccountRepository accountRepository;
+    private CurrentAccount currentAccount;
     @Mock
     private DistrictRepository districtRepository;
     @Mock
-    private CloudinaryService cloudinaryService;
+    private ImageUploadService imageUploadService;
+    @Mock
+    private ImageDerivativeRepository imageDerivativeRepository;
     @Mock
     private RatingRepository ratingRepository;
     @Mock
@@ -57,6 +77,16 @@ class HotelServiceImplTest {
     private HotelAmenityRepository hotelAmenityRepository;
     @Mock
     private WishListRepository wishListRepository;
+    @Mock
+    private HotelRatingSummaryRepository hotelRatingSummaryRepository;
+    @Mock
+    private AvailabilityService availabilityService;
+    @Mock
+    private PricingService pricingService;
+    @Spy
+    private HotelDetailCache hotelDetailCache = new HotelDetailCache();
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private HotelServiceImpl hotelService;
@@ -108,59 +138,252 @@ class HotelServiceImplTest {
         List<Hotel> hotels = List.of(testHotel1, testHotel2);
         Page<Hotel> hotelPage = new PageImpl<>(hotels);
         when(hotelRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(hotelPage);
-        when(hotelRepository.findAverageRatingByHotelId(anyLong())).thenReturn(4.5);
-        when(ratingRepository.countByHotel(any(Hotel.class))).thenReturn(10L);
-        when(imageRepository.findByEntityIdAndEntityType(anyLong(), eq(EntityType.HOTEL))).thenReturn(new ArrayList<>());
-        when(accountRepository.findById(anyLong())).thenReturn(Optional.of(testAccount));
+        when(hotelRatingSummaryRepository.findStatsByHotelIds(List.of(testHotelId, 2L)))
+                .thenReturn(List.of(ratingStats(testHotelId, 4.5, 10L)));
+        when(hotelDiscountRepository.findByHotelIdIn(List.of(testHotelId, 2L))).thenReturn(new ArrayList<>());
+        Image image = new Image();
+        image.setId(1L);
+        image.setEntityId(2L);
+        image.setEntityType(EntityType.HOTEL);
+        image.setImageUrl("image-url");
+        when(imageRepository.findByEntityIdInAndEntityType(List.of(testHotelId, 2L), EntityType.HOTEL)).thenReturn(List.of(image));
 
         List<HotelResponseDto> response = hotelService.hotels(null, null, null, null, null, null, null, null, 0, 10, "name", "asc");
 
         assertEquals(2, response.size());
         assertEquals(testHotel1.getId(), response.get(0).getId());
         assertEquals(testHotel2.getId(), response.get(1).getId());
+        assertEquals(4.5, response.get(0).getRating());
+        assertEquals(10L, response.get(0).getReviews());
+        assertEquals(0.0, response.get(1).getRating());
+        assertEquals(0L, response.get(1).getReviews());
+        assertTrue(response.get(0).getImages().isEmpty());
+        assertEquals("image-url", response.get(1).getImages().get(0).getImageUrl());
+        assertEquals(testAccountId, response.get(0).getOwner().getId());
+        // Không còn truy vấn riêng lẻ cho từng khách sạn
+        verify(hotelRepository, never()).findAverageRatingByHotelId(anyLong());
+        verify(ratingRepository, never()).countByHotel(any(Hotel.class));
+        verify(imageRepository, never()).findByEntityIdAndEntityType(anyLong(), any());
+    }
+
+    @Test
+    void hotels_shouldReturnThumbnailUrls_whenDerivativesExist() {
+        testHotel1.setHighLightImageUrl("highlight-url");
+        testHotel2.setHighLightImageUrl("highlight-2-url");
+        Page<Hotel> hotelPage = new PageImpl<>(List.of(testHotel1, testHotel2));
+        when(hotelRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(hotelPage);
+        when(hotelDiscountRepository.findByHotelIdIn(List.of(testHotelId, 2L))).thenReturn(new ArrayList<>());
+        Image image = new Image(1L, testHotelId, EntityType.HOTEL, "image-url", null, null);
+        when(imageRepository.findByEntityIdInAndEntityType(List.of(testHotelId, 2L), EntityType.HOTEL)).thenReturn(List.of(image));
+        when(imageDerivativeRepository.findBySourceUrlInAndSize(Set.of("highlight-url", "highlight-2-url", "image-url"), ImageSize.THUMBNAIL))
+                .thenReturn(List.of(
+                        new ImageDerivative(1L, "highlight-url", ImageSize.THUMBNAIL, "highlight-thumb-url", null),
+                        new ImageDerivative(2L, "image-url", ImageSize.THUMBNAIL, "image-thumb-url", null)));
+
+        List<HotelResponseDto> response = hotelService.hotels(null, null, null, null, null, null, null, null, 0, 10, "name", "asc");
+
+        // Ảnh chưa có bản thu nhỏ giữ nguyên URL gốc
+        assertEquals("highlight-thumb-url", response.get(0).getHighLightImageUrl());
+        assertEquals("image-thumb-url", response.get(0).getImages().get(0).getImageUrl());
+        assertEquals("highlight-2-url", response.get(1).getHighLightImageUrl());
+    }
+
+    @Test
+    void hotel_shouldReturnMediumUrls_whenDerivativesExist() {
+        testHotel1.setHighLightImageUrl("highlight-url");
+        when(hotelRepository.findDetailById(testHotelId)).thenReturn(Optional.of(testHotel1));
+        when(bookingRepository.findBookedRangesEndingAfter(eq(testHotelId), any(ZonedDateTime.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(new ArrayList<>());
+        Image image = new Image(1L, testHotelId, EntityType.HOTEL, "image-url", null, null);
+        when(imageRepository.findByEntityIdAndEntityType(testHotelId, EntityType.HOTEL)).thenReturn(List.of(image));
+        when(imageDerivativeRepository.findBySourceUrlInAndSize(Set.of("highlight-url", "image-url"), ImageSize.MEDIUM))
+                .thenReturn(List.of(
+                        new ImageDerivative(1L, "highlight-url", ImageSize.MEDIUM, "highlight-medium-url", null),
+                        new ImageDerivative(2L, "image-url", ImageSize.MEDIUM, "image-medium-url", null)));
+
+        HotelResponseDto response = hotelService.hotel(testHotelId);
+
+        assertEquals("highlight-medium-url", response.getHighLightImageUrl());
+        assertEquals("image-medium-url", response.getImages().get(0).getImageUrl());
+    }
+
+    @Test
+    void hotels_withDateRange_shouldUseAvailabilityIndexWhenReady() {
+        ZonedDateTime startDate = ZonedDateTime.now().plusDays(1);
+        ZonedDateTime endDate = startDate.plusDays(2);
+        when(availabilityService.isReady()).thenReturn(true);
+        when(availabilityService.findBookedHotelIds(startDate, endDate)).thenReturn(Set.of(testHotelId));
+        when(hotelRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(testHotel2)));
+        when(hotelRatingSummaryRepository.findStatsByHotelIds(List.of(2L))).thenReturn(List.of());
+        when(hotelDiscountRepository.findByHotelIdIn(List.of(2L))).thenReturn(new ArrayList<>());
+        when(imageRepository.findByEntityIdInAndEntityType(List.of(2L), EntityType.HOTEL)).thenReturn(new ArrayList<>());
+
+        List<HotelResponseDto> response = hotelService.hotels(null, null, null, null, null, null, startDate, endDate, 0, 10, "name", "asc");
+
+        assertEquals(1, response.size());
+        verify(availabilityService, times(1)).findBookedHotelIds(startDate, endDate);
+    }
+
+    @Test
+    void hotels_withDateRange_shouldStillSearchWhenTooManyHotelsAreBooked() {
+        ZonedDateTime startDate = ZonedDateTime.now().plusDays(1);
+        ZonedDateTime endDate = startDate.plusDays(2);
+        Set<Long> bookedHotelIds = LongStream.rangeClosed(100, 100 + HotelServiceImpl.MAX_EXCLUDED_HOTEL_IDS).boxed().collect(Collectors.toSet());
+        when(availabilityService.isReady()).thenReturn(true);
+        when(availabilityService.findBookedHotelIds(startDate, endDate)).thenReturn(bookedHotelIds);
+        when(hotelRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+
+        List<HotelResponseDto> response = hotelService.hotels(null, null, null, null, null, null, startDate, endDate, 0, 10, "name", "asc");
+
+        assertTrue(response.isEmpty());
+        verify(hotelRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void hotels_withDateRange_shouldNotUseAvailabilityIndexBeforeItIsLoaded() {
+        ZonedDateTime startDate = ZonedDateTime.now().plusDays(1);
+        ZonedDateTime endDate = startDate.plusDays(2);
+        when(availabilityService.isReady()).thenReturn(false);
+        when(hotelRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+
+        List<HotelResponseDto> response = hotelService.hotels(null, null, null, null, null, null, startDate, endDate, 0, 10, "name", "asc");
+
+        assertTrue(response.isEmpty());
+        verify(availabilityService, never()).findBookedHotelIds(any(), any());
+    }
+
+    @Test
+    void hotels_sortByRatings_shouldPageInDatabaseWithoutSort() {
+        when(hotelRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(testHotel2)));
+        when(hotelRatingSummaryRepository.findStatsByHotelIds(List.of(2L))).thenReturn(List.of(ratingStats(2L, 4.5, 4L)));
+        when(hotelDiscountRepository.findByHotelIdIn(List.of(2L))).thenReturn(new ArrayList<>());
+        when(imageRepository.findByEntityIdInAndEntityType(List.of(2L), EntityType.HOTEL)).thenReturn(new ArrayList<>());
+
+        List<HotelResponseDto> response = hotelService.hotels(null, null, null, null, null, null, null, null, 1, 1, "ratings", "desc");
+
+        assertEquals(1, response.size());
+        assertEquals(2L, response.get(0).getId());
+        assertEquals(4.5, response.get(0).getRating());
+        // Thứ tự theo rating nằm trong Specification, Pageable không chứa Sort
+        verify(hotelRepository).findAll(any(Specification.class), eq(PageRequest.of(1, 1)));
+        verify(hotelRepository, never()).findAll(any(Specification.class));
+    }
+
+    @Test
+    void hotelsByCursor_shouldReturnPageWithNextCursor() {
+        Hotel testHotel3 = new Hotel();
+        testHotel3.setId(3L);
+        testHotel3.setName("Test Hotel 3");
+        testHotel3.setAccount(testAccount);
+        testHotel3.setDistrict(testDistrict);
+        when(hotelRepository.findBy(any(Specification.class), any())).thenReturn(List.of(testHotel1, testHotel2, testHotel3));
+        when(hotelRatingSummaryRepository.findStatsByHotelIds(List.of(testHotelId, 2L))).thenReturn(new ArrayList<>());
+        when(hotelDiscountRepository.findByHotelIdIn(List.of(testHotelId, 2L))).thenReturn(new ArrayList<>());
+        when(imageRepository.findByEntityIdInAndEntityType(List.of(testHotelId, 2L), EntityType.HOTEL)).thenReturn(new ArrayList<>());
+
+        CursorPageResponseDto<HotelResponseDto> response = hotelService.hotelsByCursor(null, null, null, null, null, null, null, null, null, 2, "name", "asc");
+
+        assertEquals(2, response.getContent().size());
+        KeysetCursor nextCursor = KeysetCursor.decode(response.getNextCursor(), "name");
+        assertEquals(2L, nextCursor.getId());
+        assertEquals("Test Hotel 2", nextCursor.getSortValue());
+        // Không dùng Page nên không có truy vấn count
+        verify(hotelRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void hotelsByCursor_withUnsupportedSortBy_shouldThrowException() {
+        assertThrows(InvalidCursorException.class, () ->
+                hotelService.hotelsByCursor(null, null, null, null, null, null, null, null, null, 2, "ratings", "asc"));
+        assertThrows(InvalidPageOrSizeException.class, () ->
+                hotelService.hotelsByCursor(null, null, null, null, null, null, null, null, null, 0, "id", "asc"));
     }
 
     @Test
     void wishlist_shouldReturnListOfHotelResponseDto() {
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
-        WishList wish1 = new WishList();
-        wish1.setHotel(testHotel1);
-        WishList wish2 = new WishList();
-        wish2.setHotel(testHotel2);
-        testAccount.setWishList(List.of(wish1, wish2));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
+        when(wishListRepository.findHotelIdsByAccountId(testAccountId)).thenReturn(List.of(testHotelId, 2L));
         when(hotelRepository.findAllById(anyList())).thenReturn(List.of(testHotel1, testHotel2));
-        when(hotelRepository.findAverageRatingByHotelId(testHotelId)).thenReturn(4.0);
-        when(hotelRepository.findAverageRatingByHotelId(2L)).thenReturn(3.5);
-        when(ratingRepository.countByHotel(testHotel1)).thenReturn(5L);
-        when(ratingRepository.countByHotel(testHotel2)).thenReturn(7L);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(hotelRatingSummaryRepository.findStatsByHotelIds(List.of(testHotelId, 2L)))
+                .thenReturn(List.of(ratingStats(testHotelId, 4.0, 5L), ratingStats(2L, 3.5, 7L)));
+        when(hotelDiscountRepository.findByHotelIdIn(List.of(testHotelId, 2L))).thenReturn(new ArrayList<>());
 
         List<HotelResponseDto> response = hotelService.wishlist(testToken);
 
         assertEquals(2, response.size());
         assertEquals(testHotel1.getId(), response.get(0).getId());
         assertEquals(testHotel2.getId(), response.get(1).getId());
+        assertEquals(4.0, response.get(0).getRating());
+        assertEquals(7L, response.get(1).getReviews());
     }
 
     @Test
     void hotel_shouldReturnHotelResponseDtoWithDetails() {
-        when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
-        when(hotelRepository.findAverageRatingByHotelId(testHotelId)).thenReturn(4.2);
-        when(ratingRepository.countByHotel(testHotel1)).thenReturn(15L);
-        when(bookingRepository.findByHotelId(testHotelId)).thenReturn(new ArrayList<>());
+        when(hotelRepository.findDetailById(testHotelId)).thenReturn(Optional.of(testHotel1));
+        when(hotelRatingSummaryRepository.findStatsByHotelIds(List.of(testHotelId)))
+                .thenReturn(List.of(ratingStats(testHotelId, 4.2, 15L)));
+        when(bookingRepository.findBookedRangesEndingAfter(eq(testHotelId), any(ZonedDateTime.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(new ArrayList<>());
         when(imageRepository.findByEntityIdAndEntityType(testHotelId, EntityType.HOTEL)).thenReturn(new ArrayList<>());
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
 
         HotelResponseDto response = hotelService.hotel(testHotelId);
 
         assertNotNull(response);
         assertEquals(testHotel1.getId(), response.getId());
+        assertEquals(4.2, response.getRating());
+        assertEquals(15L, response.getReviews());
+        assertEquals(testAccountId, response.getOwner().getId());
+        verify(ratingRepository, never()).countByHotel(any(Hotel.class));
+    }
+
+    @Test
+    void hotel_shouldServeFromCacheUntilHotelChanged() {
+        when(hotelRepository.findDetailById(testHotelId)).thenReturn(Optional.of(testHotel1));
+        when(bookingRepository.findBookedRangesEndingAfter(eq(testHotelId), any(ZonedDateTime.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(new ArrayList<>());
+        when(imageRepository.findByEntityIdAndEntityType(testHotelId, EntityType.HOTEL)).thenReturn(new ArrayList<>());
+
+        HotelResponseDto first = hotelService.hotel(testHotelId);
+        HotelResponseDto second = hotelService.hotel(testHotelId);
+
+        // Lần thứ hai lấy từ cache, không truy vấn lại
+        assertSame(first, second);
+        verify(hotelRepository, times(1)).findDetailById(testHotelId);
+
+        hotelDetailCache.onHotelChanged(new HotelChangedEvent(testHotelId));
+        hotelService.hotel(testHotelId);
+
+        verify(hotelRepository, times(2)).findDetailById(testHotelId);
+        CacheStatsResponseDto stats = hotelService.detailCacheStats();
+        assertEquals(1L, stats.getHits());
+        assertEquals(2L, stats.getMisses());
+    }
+
+    @Test
+    void hotel_shouldCoalesceOverlappingAndAdjacentBookedRanges() {
+        ZonedDateTime base = ZonedDateTime.now().plusDays(1);
+        when(hotelRepository.findDetailById(testHotelId)).thenReturn(Optional.of(testHotel1));
+        when(bookingRepository.findBookedRangesEndingAfter(eq(testHotelId), any(ZonedDateTime.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(List.of(
+                        bookedRange(base, base.plusDays(3)),
+                        bookedRange(base.plusDays(1), base.plusDays(2)),
+                        bookedRange(base.plusDays(3), base.plusDays(5)),
+                        bookedRange(base.plusDays(7), base.plusDays(8))));
+        when(imageRepository.findByEntityIdAndEntityType(testHotelId, EntityType.HOTEL)).thenReturn(new ArrayList<>());
+
+        HotelResponseDto response = hotelService.hotel(testHotelId);
+
+        // Khoảng lồng nhau và khoảng nối tiếp được gộp, khoảng tách rời giữ nguyên
+        assertEquals(2, response.getBookedDates().size());
+        assertEquals(base, response.getBookedDates().get(0).getStartDate());
+        assertEquals(base.plusDays(5), response.getBookedDates().get(0).getEndDate());
+        assertEquals(base.plusDays(7), response.getBookedDates().get(1).getStartDate());
+        assertEquals(base.plusDays(8), response.getBookedDates().get(1).getEndDate());
     }
 
     @Test
     void hotel_withNonExistingId_shouldThrowException() {
-        when(hotelRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(hotelRepository.findDetailById(anyLong())).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> hotelService.hotel(999L));
     }
 
@@ -170,10 +393,10 @@ class HotelServiceImplTest {
         requestDto.setName("New Hotel");
         requestDto.setDistrictId(testDistrictId);
 
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.summary(testToken)).thenReturn(summaryOf(testAccount));
+        when(currentAccount.reference(testToken)).thenReturn(testAccount);
         when(districtRepository.findById(testDistrictId)).thenReturn(Optional.of(testDistrict));
-        when(cloudinaryService.uploadImage(any())).thenReturn("image-url");
+        when(imageUploadService.uploadWithDerivatives(any())).thenReturn("image-url");
 
         // Tạo một Hotel mới để trả về khi save được gọi
         Hotel savedHotel = new Hotel();
@@ -184,7 +407,6 @@ class HotelServiceImplTest {
         savedHotel.setHighLightImageUrl("image-url"); // Giả định image url đã được tải lên
 
         when(hotelRepository.save(any(Hotel.class))).thenReturn(savedHotel);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount)); // Cần thiết cho việc tạo AccountResponseDto
 
         HotelResponseDto response = hotelService.create(requestDto, testToken);
 
@@ -197,22 +419,22 @@ class HotelServiceImplTest {
     void update_shouldUpdateHotelSuccessfully() {
         AddHotelRequestDto requestDto = new AddHotelRequestDto();
         requestDto.setName("Updated Hotel");
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
         when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
         when(hotelRepository.save(any(Hotel.class))).thenReturn(testHotel1);
 
         hotelService.update(testHotelId, requestDto, testToken);
 
         verify(hotelRepository, times(1)).save(any(Hotel.class));
+        verify(pricingService, times(1)).evict(testHotelId);
+        verify(eventPublisher, times(1)).publishEvent(any(HotelChangedEvent.class));
         assertEquals("Updated Hotel", testHotel1.getName());
     }
 
     @Test
     void update_withNonExistingHotel_shouldThrowException() {
         AddHotelRequestDto requestDto = new AddHotelRequestDto();
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
         when(hotelRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> hotelService.update(999L, requestDto, testToken));
@@ -223,8 +445,7 @@ class HotelServiceImplTest {
         Account otherAccount = new Account();
         otherAccount.setId(99L);
         AddHotelRequestDto requestDto = new AddHotelRequestDto();
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(otherAccount));
+        when(currentAccount.id(testToken)).thenReturn(otherAccount.getId());
         when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
 
         assertThrows(RuntimeException.class, () -> hotelService.update(testHotelId, requestDto, testToken));
@@ -232,8 +453,7 @@ class HotelServiceImplTest {
 
     @Test
     void delete_shouldDeleteHotelAndRelatedEntitiesSuccessfully() {
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
         when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
 
         hotelService.delete(testHotelId, testToken);
@@ -243,13 +463,17 @@ class HotelServiceImplTest {
         verify(wishListRepository, times(1)).deleteWishListsByHotelId(testHotelId);
         verify(hotelAmenityRepository, times(1)).deleteAmenitiesByHotelId(testHotelId);
         verify(ratingRepository, times(1)).deleteRatingsByHotelId(testHotelId);
+        verify(hotelRatingSummaryRepository, times(1)).deleteByHotelId(testHotelId);
+        // Index khả dụng chỉ được cập nhật sau commit qua HotelDeletedEvent
+        verify(availabilityService, never()).removeHotel(anyLong());
+        verify(eventPublisher, times(1)).publishEvent(any(HotelDeletedEvent.class));
+        verify(pricingService, times(1)).evict(testHotelId);
         verify(hotelRepository, times(1)).deleteHotelById(testHotelId);
     }
 
     @Test
     void delete_withNonExistingHotel_shouldThrowException() {
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
         when(hotelRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> hotelService.delete(999L, testToken));
@@ -259,8 +483,7 @@ class HotelServiceImplTest {
     void delete_withUnauthorizedAccount_shouldThrowException() {
         Account otherAccount = new Account();
         otherAccount.setId(99L);
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(otherAccount));
+        when(currentAccount.id(testToken)).thenReturn(otherAccount.getId());
         when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
 
         assertThrows(RuntimeException.class, () -> hotelService.delete(testHotelId, testToken));
@@ -268,25 +491,26 @@ class HotelServiceImplTest {
 
     @Test
     void addImages_shouldAddImagesToHotel() {
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
         when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
-        when(cloudinaryService.uploadImage(any(MultipartFile.class))).thenReturn("image-url");
-        when(imageRepository.save(any(Image.class))).thenReturn(new Image());
-
         AddImagesRequestDto requestDto = new AddImagesRequestDto();
         requestDto.setImageUrls(List.of(mock(MultipartFile.class), mock(MultipartFile.class)));
+        when(imageUploadService.uploadAllWithDerivatives(requestDto.getImageUrls())).thenReturn(List.of("image-url-1", "image-url-2"));
+        when(imageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         List<ImageResponseDto> response = hotelService.addImages(testHotelId, requestDto, testToken);
 
+        // Các ảnh được lưu trong một lần, giữ đúng thứ tự upload
         assertEquals(2, response.size());
-        verify(imageRepository, times(2)).save(any(Image.class));
+        assertEquals("image-url-1", response.get(0).getImageUrl());
+        assertEquals("image-url-2", response.get(1).getImageUrl());
+        verify(imageRepository, times(1)).saveAll(anyList());
+        verify(imageRepository, never()).save(any(Image.class));
     }
 
     @Test
     void addImages_withNonExistingHotel_shouldThrowException() {
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
         when(hotelRepository.findById(anyLong())).thenReturn(Optional.empty());
         AddImagesRequestDto requestDto = new AddImagesRequestDto();
         requestDto.setImageUrls(List.of(mock(MultipartFile.class)));
@@ -298,8 +522,7 @@ class HotelServiceImplTest {
     void addImages_withUnauthorizedAccount_shouldThrowException() {
         Account otherAccount = new Account();
         otherAccount.setId(99L);
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(otherAccount));
+        when(currentAccount.id(testToken)).thenReturn(otherAccount.getId());
         when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
         AddImagesRequestDto requestDto = new AddImagesRequestDto();
         requestDto.setImageUrls(List.of(mock(MultipartFile.class)));
@@ -309,8 +532,7 @@ class HotelServiceImplTest {
 
     @Test
     void deleteImages_shouldDeleteImagesSuccessfully() {
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
         when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
         Image image1 = new Image();
         image1.setId(101L);
@@ -330,8 +552,7 @@ class HotelServiceImplTest {
 
     @Test
     void deleteImages_withNonExistingHotel_shouldThrowException() {
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
         when(hotelRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> hotelService.deleteImages(999L, List.of(101L), testToken));
@@ -341,8 +562,7 @@ class HotelServiceImplTest {
     void deleteImages_withUnauthorizedAccount_shouldThrowException() {
         Account otherAccount = new Account();
         otherAccount.setId(99L);
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(otherAccount));
+        when(currentAccount.id(testToken)).thenReturn(otherAccount.getId());
         when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
 
         assertThrows(RuntimeException.class, () -> hotelService.deleteImages(testHotelId, List.of(101L), testToken));
@@ -350,8 +570,7 @@ class HotelServiceImplTest {
 
     @Test
     void deleteImages_withImageNotBelongingToHotel_shouldThrowException() {
-        when(jwtUtils.getUserIdFromJwtToken(testToken)).thenReturn(testAccountId);
-        when(accountRepository.findById(testAccountId)).thenReturn(Optional.of(testAccount));
+        when(currentAccount.id(testToken)).thenReturn(testAccountId);
         when(hotelRepository.findById(testHotelId)).thenReturn(Optional.of(testHotel1));
         Image image = new Image();
         image.setId(101L);
@@ -361,4 +580,41 @@ class HotelServiceImplTest {
 
         assertThrows(RuntimeException.class, () -> hotelService.deleteImages(testHotelId, List.of(101L), testToken));
     }
+
+    private HotelRatingStats ratingStats(Long hotelId, Double averageRating, Long reviewCount) {
+        return new HotelRatingStats() {
+            @Override
+            public Long getHotelId() {
+                return hotelId;
+            }
+
+            @Override
+            public Double getAverageRating() {
+                return averageRating;
+            }
+
+            @Override
+            public Long getReviewCount() {
+                return reviewCount;
+            }
+        };
+    }
+
+    private BookedRangeView bookedRange(ZonedDateTime startDate, ZonedDateTime endDate) {
+        return new BookedRangeView() {
+            @Override
+            public ZonedDateTime getStartDate() {
+                return startDate;
+            }
+
+            @Override
+            public ZonedDateTime getEndDate() {
+                return endDate;
+            }
+        };
+    }
+
+    private AccountSummary summaryOf(Account account) {
+        return new SpelAwareProxyProjectionFactory().createProjection(AccountSummary.class, account);
+    }
 }
@@ -0,0 +1,223 @@
+package com.vinova.booking_hotel.service;
+
+import com.vinova.booking_hotel.authentication.service.impl.CloudinaryService;
+import com.vinova.booking_hotel.authentication.service.impl.ImageUploadService;
+import com.vinova.booking_hotel.common.enums.ImageSize;
+import com.vinova.booking_hotel.common.exception.ServerBusyException;
+import com.vinova.booking_hotel.common.image.ImageResizer;
+import com.vinova.booking_hotel.config.FakeCloudinaryServer;
+import com.vinova.booking_hotel.property.model.UploadedImage;
+import com.vinova.booking_hotel.property.repository.ImageDerivativeRepository;
+import com.vinova.booking_hotel.property.repository.UploadedImageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ImageUploadServiceTest {
+
+    private FakeCloudinaryServer cloudinaryServer;
+    private ThreadPoolTaskExecutor processingExecutor;
+    private ImageDerivativeRepository imageDerivativeRepository;
+    private UploadedImageRepository uploadedImageRepository;
+    private Semaphore uploadSlots;
+    private ImageUploadService imageUploadService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cloudinaryServer = new FakeCloudinaryServer();
+
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("image-upload-test-");
+        executor.setVirtualThreads(true);
+        uploadSlots = new Semaphore(2, true);
+
+        processingExecutor = new ThreadPoolTaskExecutor();
+        processingExecutor.setCorePoolSize(2);
+        processingExecutor.initialize();
+
+        ImageResizer imageResizer = new ImageResizer();
+        ReflectionTestUtils.setField(imageResizer, "thumbnailWidth", 320);
+        ReflectionTestUtils.setField(imageResizer, "mediumWidth", 1024);
+        ReflectionTestUtils.setField(imageResizer, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(imageResizer, "maxPixels", 50_000_000L);
+
+        imageDerivativeRepository = mock(ImageDerivativeRepository.class);
+        uploadedImageRepository = mock(UploadedImageRepository.class);
+        when(uploadedImageRepository.insertOrFindUrl(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        CloudinaryService cloudinaryService = new CloudinaryService(cloudinaryServer.cloudinary(), uploadedImageRepository);
+        imageUploadService = new ImageUploadService(cloudinaryService, imageResizer,
+                imageDerivativeRepository, executor, processingExecutor, uploadSlots);
+        ReflectionTestUtils.setField(imageUploadService, "timeoutSeconds", 5L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cloudinaryServer.close();
+        processingExecutor.shutdown();
+    }
+
+    @Test
+    void uploadAll_shouldUploadConcurrentlyAndKeepFileOrder() {
+        // Arrange
+        cloudinaryServer.setResponseDelay(Duration.ofMillis(300));
+        List<MultipartFile> files = List.of(image(1), image(2), new MockMultipartFile("images", new byte[0]), image(3));
+
+        // Act
+        List<String> imageUrls = imageUploadService.uploadAll(files);
+
+        // Assert: file rỗng bị bỏ qua, tối đa 2 upload chạy cùng lúc theo số lượt upload
+        assertEquals(List.of(
+                "https://res.cloudinary.test/demo/image-1.jpg",
+                "https://res.cloudinary.test/demo/image-2.jpg",
+                "https://res.cloudinary.test/demo/image-3.jpg"), imageUrls);
+        assertEquals(3, cloudinaryServer.getUploadCount());
+        assertEquals(2, cloudinaryServer.getMaxConcurrentUploads());
+    }
+
+    @Test
+    void uploadAllWithDerivatives_shouldUploadAndRecordResizedImages() throws IOException {
+        // Arrange
+        MockMultipartFile photo = new MockMultipartFile("images", "photo.png", "image/png", png(2000, 1000));
+
+        // Act
+        List<String> imageUrls = imageUploadService.uploadAllWithDerivatives(List.of(photo));
+
+        // Assert: ảnh gốc cùng bản thumbnail và medium đều được upload, URL bản thu nhỏ lưu theo URL ảnh gốc
+        assertEquals(1, imageUrls.size());
+        assertEquals(3, cloudinaryServer.getUploadCount());
+        ArgumentCaptor<String[]> sourceUrls = ArgumentCaptor.forClass(String[].class);
+        ArgumentCaptor<String[]> sizes = ArgumentCaptor.forClass(String[].class);
+        ArgumentCaptor<String[]> urls = ArgumentCaptor.forClass(String[].class);
+        verify(imageDerivativeRepository).insertAllIfAbsent(sourceUrls.capture(), sizes.capture(), urls.capture());
+        assertArrayEquals(new String[]{imageUrls.getFirst(), imageUrls.getFirst()}, sourceUrls.getValue());
+        assertEquals(Set.of(ImageSize.THUMBNAIL.name(), ImageSize.MEDIUM.name()), Set.of(sizes.getValue()));
+        assertFalse(List.of(urls.getValue()).contains(imageUrls.getFirst()));
+    }
+
+    @Test
+    void uploadAllWithDerivatives_shouldKeepOriginal_whenDerivativeUploadFails() throws IOException {
+        // Arrange: Cloudinary từ chối mọi bản thu nhỏ
+        cloudinaryServer.failUploadsContaining("image-derivative-");
+        MockMultipartFile photo = new MockMultipartFile("images", "photo.png", "image/png", png(2000, 1000));
+
+        // Act
+        List<String> imageUrls = imageUploadService.uploadAllWithDerivatives(List.of(photo));
+
+        // Assert: ảnh gốc vẫn được upload và trả về, không ghi bản thu nhỏ nào
+        assertEquals(1, imageUrls.size());
+        assertEquals(3, cloudinaryServer.getUploadCount());
+        verify(uploadedImageRepository).insertOrFindUrl(anyString(), eq(imageUrls.getFirst()));
+        verify(imageDerivativeRepository, never()).insertAllIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    void uploadAllWithDerivatives_shouldKeepOriginalOnly_whenImageCannotBeDecoded() {
+        // Act
+        List<String> imageUrls = imageUploadService.uploadAllWithDerivatives(List.of(image(1)));
+
+        // Assert
+        assertEquals(List.of("https://res.cloudinary.test/demo/image-1.jpg"), imageUrls);
+        assertEquals(1, cloudinaryServer.getUploadCount());
+        verify(imageDerivativeRepository, never()).insertAllIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    void uploadAll_shouldUploadDuplicateContentOnce() {
+        // Act
+        List<String> imageUrls = imageUploadService.uploadAll(List.of(image(1), image(1)));
+
+        // Assert: hai file cùng nội dung trong một request chỉ gửi lên Cloudinary một lần và được ghi vào chỉ mục
+        assertEquals(List.of(
+                "https://res.cloudinary.test/demo/image-1.jpg",
+                "https://res.cloudinary.test/demo/image-1.jpg"), imageUrls);
+        assertEquals(1, cloudinaryServer.getUploadCount());
+        verify(uploadedImageRepository).insertOrFindUrl(anyString(), eq("https://res.cloudinary.test/demo/image-1.jpg"));
+    }
+
+    @Test
+    void uploadAllWithDerivatives_shouldReuseIndexedUploadAndDerivatives() throws IOException {
+        // Arrange: ảnh đã upload trước đây và đã có bản thu nhỏ
+        String knownUrl = "https://res.cloudinary.test/demo/known.jpg";
+        when(uploadedImageRepository.findAllById(anyIterable()))
+                .thenAnswer(invocation -> List.of(new UploadedImage(
+                        ((Iterable<String>) invocation.getArgument(0)).iterator().next(), knownUrl, null)));
+        when(imageDerivativeRepository.findResizedSourceUrls(anyCollection())).thenReturn(List.of(knownUrl));
+        MockMultipartFile photo = new MockMultipartFile("images", "photo.png", "image/png", png(2000, 1000));
+
+        // Act
+        List<String> imageUrls = imageUploadService.uploadAllWithDerivatives(List.of(photo));
+
+        // Assert: không gửi gì lên Cloudinary, kể cả bản thu nhỏ
+        assertEquals(List.of(knownUrl), imageUrls);
+        assertEquals(0, cloudinaryServer.getUploadCount());
+        verify(uploadedImageRepository, never()).insertOrFindUrl(anyString(), anyString());
+        verify(imageDerivativeRepository, never()).insertAllIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    void uploadAll_shouldReturnEmptyList_whenNoFiles() {
+        assertTrue(imageUploadService.uploadAll(null).isEmpty());
+        assertTrue(imageUploadService.uploadAll(List.of()).isEmpty());
+        assertEquals(0, cloudinaryServer.getUploadCount());
+    }
+
+    @Test
+    void uploadAll_shouldFailAndDeleteLateUpload_whenUploadExceedsTimeout() throws InterruptedException {
+        // Arrange
+        ReflectionTestUtils.setField(imageUploadService, "timeoutSeconds", 1L);
+        cloudinaryServer.setResponseDelay(Duration.ofSeconds(2));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> imageUploadService.uploadAll(List.of(image(1))));
+        assertEquals("Image upload timed out", exception.getMessage());
+
+        // Assert: upload về muộn bị xóa khỏi Cloudinary và không được ghi vào chỉ mục
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cloudinaryServer.getDeletedPublicIds().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(List.of("image-1"), cloudinaryServer.getDeletedPublicIds());
+        verify(uploadedImageRepository, never()).insertOrFindUrl(anyString(), anyString());
+    }
+
+    @Test
+    void uploadAll_shouldThrowServerBusy_whenNoUploadSlotFreesUp() {
+        // Arrange: mọi lượt upload đang bị request khác chiếm
+        ReflectionTestUtils.setField(imageUploadService, "timeoutSeconds", 1L);
+        uploadSlots.drainPermits();
+
+        // Act & Assert
+        assertThrows(ServerBusyException.class, () -> imageUploadService.uploadAll(List.of(image(1))));
+        assertEquals(0, cloudinaryServer.getUploadCount());
+    }
+
+    private byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+        return output.toByteArray();
+    }
+
+    private MockMultipartFile image(int index) {
+        return new MockMultipartFile("images", "image" + index + ".jpg", "image/jpeg", ("image-" + index).getBytes());
+    }
+}
@@ -0,0 +1,203 @@
+package com.vinova.booking_hotel.service;
+
+import com.vinova.booking_hotel.authentication.dto.response.MailQueueResponseDto;
+import com.vinova.booking_hotel.authentication.model.MailOutbox;
+import com.vinova.booking_hotel.authentication.repository.MailOutboxRepository;
+import com.vinova.booking_hotel.authentication.service.impl.MailOutboxServiceImpl;
+import com.vinova.booking_hotel.common.enums.MailOutboxStatus;
+import com.vinova.booking_hotel.config.FakeJavaMailSender;
+import jakarta.mail.Multipart;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailOutboxServiceImplTest {
+
+    @Mock
+    private MailOutboxRepository mailOutboxRepository;
+    @Spy
+    private FakeJavaMailSender javaMailSender = new FakeJavaMailSender();
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ThreadPoolTaskExecutor mailDispatchExecutor;
+
+    @InjectMocks
+    private MailOutboxServiceImpl mailOutboxService;
+
+    // Chạy callback của TransactionTemplate ngay trên thread hiện tại
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private MailOutbox createPendingMail(long id, String recipient) {
+        MailOutbox mail = new MailOutbox();
+        mail.setId(id);
+        mail.setRecipient(recipient);
+        mail.setSubject("Subject " + id);
+        mail.setBody("Body " + id);
+        mail.setHtml(false);
+        mail.setStatus(MailOutboxStatus.PENDING);
+        mail.setAttempts(0);
+        mail.setNextAttemptAt(ZonedDateTime.now());
+        return mail;
+    }
+
+    @Test
+    void enqueue_shouldSavePendingMailAndDispatch() {
+        MailOutbox mail = new MailOutbox();
+        mail.setRecipient("user@example.com");
+        mail.setSubject("Subject");
+        mail.setBody("Body");
+
+        mailOutboxService.enqueue(mail);
+
+        verify(mailOutboxRepository).save(mail);
+        assertEquals(MailOutboxStatus.PENDING, mail.getStatus());
+        assertEquals(0, mail.getAttempts());
+        assertNotNull(mail.getNextAttemptAt());
+        verify(mailDispatchExecutor).execute(any(Runnable.class));
+        verifyNoInteractions(javaMailSender);
+    }
+
+    @Test
+    void dispatch_shouldHandOffToExecutorWithoutSending() {
+        mailOutboxService.dispatch();
+
+        verify(mailDispatchExecutor).execute(any(Runnable.class));
+        verifyNoInteractions(mailOutboxRepository, javaMailSender, transactionTemplate);
+    }
+
+    @Test
+    void processDue_shouldSendWholeBatchOverOneConnection() throws Exception {
+        runTransactionsInline();
+        MailOutbox first = createPendingMail(1L, "first@example.com");
+        MailOutbox second = createPendingMail(2L, "second@example.com");
+        first.setHtml(true);
+        first.setAttachmentName("report.pdf");
+        first.setAttachment("%PDF".getBytes());
+        when(mailOutboxRepository.lockDueBatch(any(ZonedDateTime.class), anyInt())).thenReturn(List.of(first, second));
+
+        mailOutboxService.processDue();
+
+        assertEquals(1, javaMailSender.getBatches());
+        List<MimeMessage> sent = javaMailSender.getSentMessages();
+        assertEquals(2, sent.size());
+        List<String> recipients = new ArrayList<>();
+        for (MimeMessage message : sent) {
+            recipients.add(((InternetAddress) message.getAllRecipients()[0]).getAddress());
+            if (message.getSubject().equals("Subject 1")) {
+                assertInstanceOf(Multipart.class, message.getContent());
+            }
+        }
+        assertTrue(recipients.containsAll(List.of("first@example.com", "second@example.com")));
+        assertEquals(MailOutboxStatus.SENT, first.getStatus());
+        assertEquals(MailOutboxStatus.SENT, second.getStatus());
+        assertNotNull(first.getSentAt());
+        // Nội dung và file đính kèm được xóa sau khi gửi
+        assertEquals("", first.getBody());
+        assertNull(first.getAttachment());
+        // Một lần đánh dấu SENDING trước khi gửi, một lần ghi kết quả sau khi gửi
+        verify(mailOutboxRepository, times(2)).saveAll(anyList());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void processDue_shouldSendOverSmtpBetweenClaimAndResultTransactions() {
+        MailOutbox mail = createPendingMail(1L, "user@example.com");
+        List<Integer> batchesWhenTransactionOpened = new ArrayList<>();
+        List<MailOutboxStatus> statusesAfterTransaction = new ArrayList<>();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            batchesWhenTransactionOpened.add(javaMailSender.getBatches());
+            Object result = invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            statusesAfterTransaction.add(mail.getStatus());
+            return result;
+        });
+        when(mailOutboxRepository.lockDueBatch(any(ZonedDateTime.class), anyInt())).thenReturn(List.of(mail));
+
+        mailOutboxService.processDue();
+
+        // Email được đánh dấu SENDING và commit trước khi gọi SMTP, kết quả ghi trong transaction thứ hai
+        assertEquals(List.of(0, 1), batchesWhenTransactionOpened);
+        assertEquals(List.of(MailOutboxStatus.SENDING, MailOutboxStatus.SENT), statusesAfterTransaction);
+    }
+
+    @Test
+    void processDue_whenSmtpFails_shouldScheduleRetryWithBackoff() {
+        runTransactionsInline();
+        javaMailSender.failNext(1);
+        MailOutbox mail = createPendingMail(1L, "user@example.com");
+        when(mailOutboxRepository.lockDueBatch(any(ZonedDateTime.class), anyInt())).thenReturn(List.of(mail));
+
+        mailOutboxService.processDue();
+
+        assertEquals(MailOutboxStatus.PENDING, mail.getStatus());
+        assertEquals(1, mail.getAttempts());
+        assertNotNull(mail.getLastError());
+        assertTrue(mail.getNextAttemptAt().isAfter(ZonedDateTime.now().plusSeconds(20)));
+        assertTrue(javaMailSender.getSentMessages().isEmpty());
+    }
+
+    @Test
+    void processDue_whenAttemptsExhausted_shouldMarkFailed() {
+        runTransactionsInline();
+        javaMailSender.failNext(1);
+        MailOutbox mail = createPendingMail(1L, "user@example.com");
+        mail.setAttempts(4);
+        when(mailOutboxRepository.lockDueBatch(any(ZonedDateTime.class), anyInt())).thenReturn(List.of(mail));
+
+        mailOutboxService.processDue();
+
+        assertEquals(MailOutboxStatus.FAILED, mail.getStatus());
+        assertEquals(5, mail.getAttempts());
+    }
+
+    @Test
+    void processDue_whenNothingIsDue_shouldNotOpenConnection() {
+        runTransactionsInline();
+        when(mailOutboxRepository.lockDueBatch(any(ZonedDateTime.class), anyInt())).thenReturn(List.of());
+
+        mailOutboxService.processDue();
+
+        assertEquals(0, javaMailSender.getBatches());
+        verify(mailOutboxRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void purgeFinishedBefore_shouldDeleteSentAndFailedMails() {
+        ZonedDateTime before = ZonedDateTime.now().minusDays(7);
+        when(mailOutboxRepository.deleteByStatusInAndUpdateDtBefore(List.of(MailOutboxStatus.SENT, MailOutboxStatus.FAILED), before))
+                .thenReturn(4);
+
+        assertEquals(4, mailOutboxService.purgeFinishedBefore(before));
+    }
+
+    @Test
+    void queueDepth_shouldCountPendingAndFailedMails() {
+        when(mailOutboxRepository.countByStatus(MailOutboxStatus.PENDING)).thenReturn(3L);
+        when(mailOutboxRepository.countByStatus(MailOutboxStatus.FAILED)).thenReturn(1L);
+
+        MailQueueResponseDto response = mailOutboxService.queueDepth();
+
+        assertEquals(3L, response.getPending());
+        assertEquals(1L, response.getFailed());
+    }
+}
@@ -10,6 +10,7 @@ import com.vinova.booking_hotel.authentication.repository.AccountRoleRepository;
 import com.vinova.booking_hotel.authentication.repository.OwnerRegistrationRepository;
 import com.vinova.booking_hotel.authentication.repository.RoleRepository;
 import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.PrincipalCache;
 import com.vinova.booking_hotel.authentication.service.impl.OwnerRegistrationServiceImpl;
 import com.vinova.booking_hotel.common.enums.OwnerRegistrationStatus;
 import com.vinova.booking_hotel.common.exception.OwnerRegistrationException;
@@ -46,6 +47,9 @@ public class OwnerRegistrationServiceImplTest {
     @Mock
     private AccountRoleRepository accountRoleRepository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
     private OwnerRegistrationServiceImpl ownerRegistrationService;
 
@@ -147,6 +151,7 @@ public class OwnerRegistrationServiceImplTest {
         verify(ownerRegistrationRepository, times(1)).findById(TEST_REGISTRATION_ID);
         verify(roleRepository, times(1)).findByName("ROLE_OWNER");
         verify(accountRoleRepository, times(1)).save(any(AccountRole.class));
+        verify(principalCache, times(1)).evict(pendingRegistration.getAccount().getUsername());
         verify(ownerRegistrationRepository, times(1)).save(pendingRegistration);
     }
 
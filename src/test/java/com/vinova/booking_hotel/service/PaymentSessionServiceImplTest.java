@@ -0,0 +1,266 @@
+package com.vinova.booking_hotel.service;
+
+import com.vinova.booking_hotel.authentication.model.Account;
+import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.common.enums.BookingStatus;
+import com.vinova.booking_hotel.common.enums.PaymentSessionStatus;
+import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
+import com.vinova.booking_hotel.config.StubStripeService;
+import com.vinova.booking_hotel.payment.dto.PaymentSessionResponseDto;
+import com.vinova.booking_hotel.payment.model.PaymentSession;
+import com.vinova.booking_hotel.payment.repository.PaymentSessionRepository;
+import com.vinova.booking_hotel.payment.service.impl.PaymentSessionServiceImpl;
+import com.vinova.booking_hotel.property.model.Booking;
+import com.vinova.booking_hotel.property.model.Hotel;
+import com.vinova.booking_hotel.property.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentSessionServiceImplTest {
+
+    @Mock
+    private PaymentSessionRepository paymentSessionRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Spy
+    private StubStripeService stripeService = new StubStripeService();
+    @Mock
+    private JwtUtils jwtUtils;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ThreadPoolTaskExecutor paymentSessionExecutor;
+
+    @InjectMocks
+    private PaymentSessionServiceImpl paymentSessionService;
+
+    private final Long TEST_BOOKING_ID = 3L;
+    private final Long TEST_ACCOUNT_ID = 1L;
+    private final String TEST_TOKEN = "test_token";
+
+    private final AtomicBoolean inTransaction = new AtomicBoolean();
+
+    // Chạy callback của TransactionTemplate ngay trên thread hiện tại, ghi nhận lúc đang trong transaction
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } finally {
+                inTransaction.set(false);
+            }
+        });
+    }
+
+    private Booking createTestBooking(BookingStatus status) {
+        Account account = new Account();
+        account.setId(TEST_ACCOUNT_ID);
+        Hotel hotel = new Hotel();
+        hotel.setId(2L);
+        hotel.setName("Test Hotel");
+        Booking booking = new Booking();
+        booking.setId(TEST_BOOKING_ID);
+        booking.setTotalPrice(BigDecimal.valueOf(150));
+        booking.setStatus(status);
+        booking.setHotel(hotel);
+        booking.setAccount(account);
+        return booking;
+    }
+
+    private PaymentSession createPendingSession() {
+        PaymentSession paymentSession = new PaymentSession();
+        paymentSession.setBookingId(TEST_BOOKING_ID);
+        paymentSession.setStatus(PaymentSessionStatus.PENDING);
+        paymentSession.setAmount(15000L);
+        paymentSession.setCurrency("USD");
+        paymentSession.setProductName("Test Hotel");
+        paymentSession.setAttempts(0);
+        paymentSession.setNextAttemptAt(ZonedDateTime.now());
+        return paymentSession;
+    }
+
+    @Test
+    void enqueue_shouldSavePendingSessionWithAmountInCents() {
+        paymentSessionService.enqueue(createTestBooking(BookingStatus.PENDING));
+
+        ArgumentCaptor<PaymentSession> captor = ArgumentCaptor.forClass(PaymentSession.class);
+        verify(paymentSessionRepository).save(captor.capture());
+        assertEquals(TEST_BOOKING_ID, captor.getValue().getBookingId());
+        assertEquals(PaymentSessionStatus.PENDING, captor.getValue().getStatus());
+        assertEquals(15000L, captor.getValue().getAmount());
+        assertEquals("Test Hotel", captor.getValue().getProductName());
+        assertEquals(0, stripeService.getCalls());
+    }
+
+    @Test
+    void dispatch_shouldHandOffToExecutor() {
+        paymentSessionService.dispatch(TEST_BOOKING_ID);
+
+        verify(paymentSessionExecutor, times(1)).execute(any(Runnable.class));
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void process_success_shouldStoreSessionUrl() {
+        PaymentSession paymentSession = createPendingSession();
+        runTransactionsInline();
+        when(paymentSessionRepository.lockDueByBookingId(eq(TEST_BOOKING_ID), any(ZonedDateTime.class))).thenReturn(Optional.of(paymentSession));
+        when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(createTestBooking(BookingStatus.PENDING)));
+
+        paymentSessionService.process(TEST_BOOKING_ID);
+
+        assertEquals(PaymentSessionStatus.READY, paymentSession.getStatus());
+        assertEquals("cs_test_3", paymentSession.getSessionId());
+        assertEquals("https://checkout.stripe.test/3", paymentSession.getSessionUrl());
+        // Một lần lưu khi nhận session, một lần khi ghi kết quả
+        verify(paymentSessionRepository, times(2)).save(paymentSession);
+    }
+
+    @Test
+    void process_shouldCallStripeBetweenClaimAndResultTransactions() {
+        // Arrange
+        PaymentSession paymentSession = createPendingSession();
+        ZonedDateTime enqueuedAt = paymentSession.getNextAttemptAt();
+        runTransactionsInline();
+        when(paymentSessionRepository.lockDueByBookingId(eq(TEST_BOOKING_ID), any(ZonedDateTime.class))).thenReturn(Optional.of(paymentSession));
+        when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(createTestBooking(BookingStatus.PENDING)));
+        AtomicBoolean stripeCalledInTransaction = new AtomicBoolean();
+        AtomicReference<ZonedDateTime> leaseDuringCall = new AtomicReference<>();
+        doAnswer(invocation -> {
+            stripeCalledInTransaction.set(inTransaction.get());
+            leaseDuringCall.set(paymentSession.getNextAttemptAt());
+            return invocation.callRealMethod();
+        }).when(stripeService).checkoutBooking(any(), anyLong());
+
+        // Act
+        paymentSessionService.process(TEST_BOOKING_ID);
+
+        // Assert: Stripe được gọi khi không có transaction, session đã được giữ bằng next_attempt_at ở tương lai
+        assertFalse(stripeCalledInTransaction.get());
+        assertTrue(leaseDuringCall.get().isAfter(enqueuedAt.plusSeconds(PaymentSessionServiceImpl.PROCESSING_LEASE_SECONDS - 5)));
+        InOrder inOrder = inOrder(transactionTemplate, stripeService);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(stripeService).checkoutBooking(any(), eq(TEST_BOOKING_ID));
+        inOrder.verify(transactionTemplate).execute(any());
+    }
+
+    @Test
+    void process_stripeFailure_shouldScheduleRetry() {
+        PaymentSession paymentSession = createPendingSession();
+        stripeService.failNext(1);
+        runTransactionsInline();
+        when(paymentSessionRepository.lockDueByBookingId(eq(TEST_BOOKING_ID), any(ZonedDateTime.class))).thenReturn(Optional.of(paymentSession));
+        when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(createTestBooking(BookingStatus.PENDING)));
+
+        paymentSessionService.process(TEST_BOOKING_ID);
+
+        assertEquals(PaymentSessionStatus.PENDING, paymentSession.getStatus());
+        assertEquals(1, paymentSession.getAttempts());
+        assertNotNull(paymentSession.getLastError());
+        assertTrue(paymentSession.getNextAttemptAt().isAfter(ZonedDateTime.now()));
+    }
+
+    @Test
+    void process_lastAttemptFails_shouldMarkFailed() {
+        PaymentSession paymentSession = createPendingSession();
+        paymentSession.setAttempts(4);
+        stripeService.failNext(1);
+        runTransactionsInline();
+        when(paymentSessionRepository.lockDueByBookingId(eq(TEST_BOOKING_ID), any(ZonedDateTime.class))).thenReturn(Optional.of(paymentSession));
+        when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(createTestBooking(BookingStatus.PENDING)));
+
+        paymentSessionService.process(TEST_BOOKING_ID);
+
+        assertEquals(PaymentSessionStatus.FAILED, paymentSession.getStatus());
+        assertEquals(5, paymentSession.getAttempts());
+    }
+
+    @Test
+    void process_cancelledBooking_shouldNotCallStripe() {
+        PaymentSession paymentSession = createPendingSession();
+        runTransactionsInline();
+        when(paymentSessionRepository.lockDueByBookingId(eq(TEST_BOOKING_ID), any(ZonedDateTime.class))).thenReturn(Optional.of(paymentSession));
+        when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(createTestBooking(BookingStatus.CANCELLED)));
+
+        paymentSessionService.process(TEST_BOOKING_ID);
+
+        assertEquals(PaymentSessionStatus.CANCELLED, paymentSession.getStatus());
+        assertEquals(0, stripeService.getCalls());
+    }
+
+    @Test
+    void process_sessionAlreadyClaimedOrDone_shouldDoNothing() {
+        runTransactionsInline();
+        when(paymentSessionRepository.lockDueByBookingId(eq(TEST_BOOKING_ID), any(ZonedDateTime.class))).thenReturn(Optional.empty());
+
+        paymentSessionService.process(TEST_BOOKING_ID);
+
+        assertEquals(0, stripeService.getCalls());
+        verify(paymentSessionRepository, never()).save(any(PaymentSession.class));
+    }
+
+    @Test
+    void processDue_shouldDispatchEveryDueSessionToExecutor() {
+        when(paymentSessionRepository.findDueBookingIds(any(ZonedDateTime.class), anyInt())).thenReturn(List.of(10L, 11L));
+
+        paymentSessionService.processDue();
+
+        // Luồng scheduler không gọi Stripe, chỉ giao việc cho executor
+        verify(paymentSessionExecutor, times(2)).execute(any(Runnable.class));
+        verifyNoInteractions(transactionTemplate);
+        assertEquals(0, stripeService.getCalls());
+    }
+
+    @Test
+    void paymentSession_shouldReturnStatusForOwner() {
+        PaymentSession paymentSession = createPendingSession();
+        paymentSession.setStatus(PaymentSessionStatus.READY);
+        paymentSession.setSessionUrl("https://checkout.stripe.test/3");
+        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
+        when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(createTestBooking(BookingStatus.PENDING)));
+        when(paymentSessionRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(paymentSession));
+
+        PaymentSessionResponseDto response = paymentSessionService.paymentSession(TEST_BOOKING_ID, TEST_TOKEN);
+
+        assertEquals("READY", response.getStatus());
+        assertEquals("https://checkout.stripe.test/3", response.getSessionUrl());
+    }
+
+    @Test
+    void paymentSession_otherAccount_shouldThrowException() {
+        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(99L);
+        when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.of(createTestBooking(BookingStatus.PENDING)));
+
+        assertThrows(RuntimeException.class, () -> paymentSessionService.paymentSession(TEST_BOOKING_ID, TEST_TOKEN));
+        verify(paymentSessionRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void paymentSession_bookingNotFound_shouldThrowException() {
+        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
+        when(bookingRepository.findById(TEST_BOOKING_ID)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> paymentSessionService.paymentSession(TEST_BOOKING_ID, TEST_TOKEN));
+    }
+}
@@ -1,187 +1,146 @@
 package com.vinova.booking_hotel.service;
 
-import com.vinova.booking_hotel.authentication.model.Account;
 import com.vinova.booking_hotel.common.enums.BookingStatus;
-import com.vinova.booking_hotel.property.model.Booking;
-import com.vinova.booking_hotel.property.model.Hotel;
+import com.vinova.booking_hotel.property.report.OwnerBookingReport;
+import com.vinova.booking_hotel.property.report.PdfRenderStats;
+import com.vinova.booking_hotel.property.repository.projection.OwnerBookingReportRow;
 import com.vinova.booking_hotel.property.service.impl.PdfServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.io.TempDir;
-import org.mockito.InjectMocks;
-import org.mockito.MockitoAnnotations;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
-import java.io.File;
-import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PdfServiceImplTest {
 
-    @InjectMocks
     private PdfServiceImpl pdfService;
 
-    @TempDir
-    Path tempDir;
-
-    private Path reportsDirectory;
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
 
     @BeforeEach
     void setUp() {
-        MockitoAnnotations.openMocks(this);
-        reportsDirectory = tempDir.resolve("reports");
-        // Đảm bảo thư mục được tạo trước khi chạy test
-        if (!reportsDirectory.toFile().exists()) {
-            reportsDirectory.toFile().mkdirs();
-        }
+        pdfService = new PdfServiceImpl();
     }
 
     @Test
-    void createBookingReport_shouldCreatePdfFileWithCorrectPath_whenBookingsExist() {
+    void renderOwnerBookingReport_shouldReturnPdfBytes_whenBookingsExist() {
         // Arrange
         LocalDate today = LocalDate.now();
-        List<Booking> bookings = Arrays.asList(
-                createBooking(1L, "Hotel A", today.plusDays(1), today.plusDays(3), 200.0, BookingStatus.CONFIRMED),
-                createBooking(2L, "Hotel B", today.plusDays(2), today.plusDays(4), 150.0, BookingStatus.PENDING)
-        );
-        // Lấy đường dẫn tuyệt đối của thư mục "reports" bên trong thư mục dự án
-        String projectReportsPath = new File("reports").getAbsolutePath();
-        Path expectedFilePath = Path.of(projectReportsPath, "booking_report_" + today + ".pdf");
+        OwnerBookingReport report = createReport(1L);
+        report.add(createRow(1L, 10L, "Hotel A", today.plusDays(1), today.plusDays(3), 200.0, BookingStatus.CONFIRMED));
+        report.add(createRow(1L, 11L, "Hotel B", today.plusDays(2), today.plusDays(4), 150.0, BookingStatus.PENDING));
 
         // Act
-        String filePath = pdfService.createBookingReport(bookings, today);
-        File createdFile = new File(filePath);
+        byte[] pdf = pdfService.renderOwnerBookingReport(report, today);
 
         // Assert
-        assertTrue(new File("reports").exists(), "Reports directory should exist"); // Kiểm tra thư mục trong dự án
-        assertTrue(createdFile.exists(), "PDF file should exist");
-        assertEquals(expectedFilePath.toString(), createdFile.getAbsolutePath(), "File path should be correct");
-        assertTrue(createdFile.length() > 0, "PDF file should not be empty");
-
-        // Cleanup
-        createdFile.delete();
-        new File("reports").delete();
+        assertTrue(isPdf(pdf), "Result should be a PDF document");
     }
 
     @Test
-    void createBookingReport_shouldCreatePdfFileWithCorrectPath_whenNoBookingsExist() {
+    void renderOwnerBookingReport_shouldReturnPdfBytes_whenNoBookingsExist() {
         // Arrange
         LocalDate today = LocalDate.now();
-        List<Booking> bookings = List.of();
-
-        // Lấy đường dẫn tuyệt đối đến thư mục "reports" trong thư mục dự án
-        String projectReportsPath = new File("reports").getAbsolutePath();
-        Path expectedFilePath = Path.of(projectReportsPath, "booking_report_" + today + ".pdf");
+        OwnerBookingReport report = createReport(2L);
 
         // Act
-        String filePath = pdfService.createBookingReport(bookings, today);
-        File createdFile = new File(filePath);
+        byte[] pdf = pdfService.renderOwnerBookingReport(report, today);
 
         // Assert
-        assertTrue(new File("reports").exists(), "Reports directory in project should exist");
-        assertTrue(createdFile.exists(), "PDF file should exist");
-        assertEquals(expectedFilePath.toString(), createdFile.getAbsolutePath(), "File path should be correct");
-        assertTrue(createdFile.length() > 0, "PDF file should not be empty");
-
-        // Cleanup
-        createdFile.delete();
-        new File("reports").delete();
+        assertTrue(isPdf(pdf), "Result should be a PDF document");
     }
 
     @Test
-    void createBookingReport_shouldContainNoBookingsMessage_whenNoBookingsExist() throws IOException {
+    void renderOwnerBookingReport_shouldReuseBufferAcrossDocuments() {
         // Arrange
         LocalDate today = LocalDate.now();
-        List<Booking> bookings = List.of();
-        Path expectedFilePath = reportsDirectory.resolve("booking_report_" + today + ".pdf");
+        OwnerBookingReport large = createReport(1L);
+        for (long i = 0; i < 50; i++) {
+            large.add(createRow(1L, i, "Hotel " + i, today, today.plusDays(1), 100.0, BookingStatus.CONFIRMED));
+        }
+        OwnerBookingReport empty = createReport(2L);
 
         // Act
-        String filePath = pdfService.createBookingReport(bookings, today);
-        File createdFile = new File(filePath);
+        byte[] largePdf = pdfService.renderOwnerBookingReport(large, today);
+        byte[] emptyPdf = pdfService.renderOwnerBookingReport(empty, today);
 
-        // Assert
-        assertTrue(reportsDirectory.toFile().exists(), "Reports directory should exist");
-        assertTrue(createdFile.exists(), "PDF file should exist");
-        assertTrue(createdFile.length() > 0, "PDF file should not be empty");
-
-        // Cleanup
-        createdFile.delete();
-        new File("reports").delete();
+        // Assert: tài liệu sau không chứa dữ liệu còn sót lại của tài liệu trước
+        assertTrue(isPdf(largePdf));
+        assertTrue(isPdf(emptyPdf));
+        assertTrue(emptyPdf.length < largePdf.length, "Buffer should be reset between documents");
     }
 
     @Test
-    void createBookingReportNoBookings_shouldCreatePdfFileWithCorrectPath() {
+    void renderOwnerBookingReport_shouldBeSafeToCallInParallel() throws Exception {
         // Arrange
         LocalDate today = LocalDate.now();
-        Account owner = new Account();
-        owner.setId(123L);
-        owner.setUsername("testOwner");
-
-        // Lấy đường dẫn tuyệt đối đến thư mục "reports" trong thư mục dự án
-        String projectReportsPath = new File("reports").getAbsolutePath();
-        Path expectedFilePath = Path.of(projectReportsPath, "no_bookings_report_" + owner.getId() + "_" + today + ".pdf");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<byte[]>> results = new ArrayList<>();
 
         // Act
-        String filePath = pdfService.createBookingReportNoBookings(owner, today);
-        File createdFile = new File(filePath);
-
-        // Assert
-        assertTrue(new File("reports").exists(), "Reports directory in project should exist");
-        assertTrue(createdFile.exists(), "PDF file should exist");
-        assertEquals(expectedFilePath.toString(), createdFile.getAbsolutePath(), "File path should be correct");
-        assertTrue(createdFile.length() > 0, "PDF file should not be empty");
-
-        // Cleanup
-        createdFile.delete();
-        new File("reports").delete();
+        try {
+            for (long ownerId = 1; ownerId <= 16; ownerId++) {
+                OwnerBookingReport report = createReport(ownerId);
+                report.add(createRow(ownerId, ownerId, "Hotel " + ownerId, today, today.plusDays(1), 100.0, BookingStatus.CONFIRMED));
+                results.add(executor.submit(() -> pdfService.renderOwnerBookingReport(report, today)));
+            }
+
+            // Assert
+            for (Future<byte[]> result : results) {
+                assertTrue(isPdf(result.get()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     @Test
-    void createBookingReportNoBookings_shouldContainOwnerInfoInFilename() {
+    void renderStats_shouldCountRenderedDocuments() {
         // Arrange
         LocalDate today = LocalDate.now();
-        Account owner = new Account();
-        owner.setId(456L);
-        owner.setUsername("anotherOwner");
-
-        // Lấy đường dẫn tuyệt đối đến thư mục "reports" trong thư mục dự án
-        String projectReportsPath = new File("reports").getAbsolutePath();
-        Path expectedFilePath = Path.of(projectReportsPath, "no_bookings_report_" + owner.getId() + "_" + today + ".pdf");
 
         // Act
-        String filePath = pdfService.createBookingReportNoBookings(owner, today);
-        File createdFile = new File(filePath);
+        byte[] first = pdfService.renderOwnerBookingReport(createReport(1L), today);
+        byte[] second = pdfService.renderOwnerBookingReport(createReport(2L), today);
+        PdfRenderStats stats = pdfService.renderStats();
 
         // Assert
-        assertTrue(new File("reports").exists(), "Reports directory in project should exist");
-        assertTrue(createdFile.exists(), "PDF file should exist");
-        assertEquals(expectedFilePath.toString(), createdFile.getAbsolutePath(), "File path should be correct");
-        assertTrue(createdFile.getAbsolutePath().contains(String.valueOf(owner.getId())), "File path should contain owner ID");
-        assertTrue(createdFile.length() > 0, "PDF file should not be empty");
-
-        // Cleanup
-        createdFile.delete();
-        new File("reports").delete();
+        assertEquals(2, stats.getDocuments());
+        assertEquals(first.length + second.length, stats.getBytes());
+    }
+
+    private boolean isPdf(byte[] content) {
+        return content.length > 4 && new String(content, 0, 4, StandardCharsets.US_ASCII).equals("%PDF");
+    }
+
+    private OwnerBookingReport createReport(Long ownerId) {
+        return new OwnerBookingReport(ownerId, "owner" + ownerId + "@example.com", "owner" + ownerId);
     }
 
-    // Helper method to create a Booking object
-    private Booking createBooking(Long id, String hotelName, LocalDate startDate, LocalDate endDate, Double totalPrice, BookingStatus status) {
-        Booking booking = new Booking();
-        booking.setId(id);
-        Hotel hotel = new Hotel();
-        hotel.setName(hotelName);
-        booking.setHotel(hotel);
-        booking.setStartDate(ZonedDateTime.from(startDate.atStartOfDay(ZoneId.systemDefault())));
-        booking.setEndDate(ZonedDateTime.from(endDate.atStartOfDay(ZoneId.systemDefault())));
-        booking.setTotalPrice(BigDecimal.valueOf(totalPrice));
-        booking.setStatus(status);
-        return booking;
+    // Helper method to create a report row
+    private OwnerBookingReportRow createRow(Long ownerId, Long bookingId, String hotelName, LocalDate startDate, LocalDate endDate,
+                                           Double totalPrice, BookingStatus status) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("ownerId", ownerId);
+        values.put("bookingId", bookingId);
+        values.put("hotelName", hotelName);
+        values.put("startDate", ZonedDateTime.from(startDate.atStartOfDay(ZoneId.systemDefault())));
+        values.put("endDate", ZonedDateTime.from(endDate.atStartOfDay(ZoneId.systemDefault())));
+        values.put("totalPrice", BigDecimal.valueOf(totalPrice));
+        values.put("status", status);
+        return projectionFactory.createProjection(OwnerBookingReportRow.class, values);
     }
-}
\ No newline at end of file
+}
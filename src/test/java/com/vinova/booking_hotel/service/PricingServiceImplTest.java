@@ -0,0 +1,219 @@
+package com.vinova.booking_hotel.service;
+
+import com.vinova.booking_hotel.common.exception.InvalidDateRangeException;
+import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
+import com.vinova.booking_hotel.property.dto.response.PriceQuoteResponseDto;
+import com.vinova.booking_hotel.property.model.Discount;
+import com.vinova.booking_hotel.property.model.Hotel;
+import com.vinova.booking_hotel.property.model.HotelDiscount;
+import com.vinova.booking_hotel.property.pricing.DiscountCalendar;
+import com.vinova.booking_hotel.property.repository.HotelDiscountRepository;
+import com.vinova.booking_hotel.property.repository.HotelRepository;
+import com.vinova.booking_hotel.property.service.impl.PricingServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PricingServiceImplTest {
+
+    @Mock
+    private HotelRepository hotelRepository;
+    @Mock
+    private HotelDiscountRepository hotelDiscountRepository;
+
+    @InjectMocks
+    private PricingServiceImpl pricingService;
+
+    private final Long TEST_HOTEL_ID = 2L;
+    private final ZonedDateTime BASE = ZonedDateTime.of(2025, 3, 1, 14, 0, 0, 0, ZoneOffset.ofHours(7));
+    // Báo giá chỉ nhận ngày bắt đầu từ hôm nay trở đi
+    private final ZonedDateTime UPCOMING = ZonedDateTime.now(ZoneOffset.ofHours(7)).truncatedTo(ChronoUnit.DAYS).plusDays(30).withHour(14);
+
+    private Hotel createTestHotel() {
+        Hotel hotel = new Hotel();
+        hotel.setId(TEST_HOTEL_ID);
+        hotel.setPricePerDay(BigDecimal.valueOf(100));
+        return hotel;
+    }
+
+    private HotelDiscount hotelDiscount(ZonedDateTime startDate, ZonedDateTime endDate, String rate) {
+        Discount discount = new Discount();
+        discount.setRate(new BigDecimal(rate));
+        HotelDiscount hotelDiscount = new HotelDiscount();
+        hotelDiscount.setStartDate(startDate);
+        hotelDiscount.setEndDate(endDate);
+        hotelDiscount.setDiscount(discount);
+        return hotelDiscount;
+    }
+
+    // Cách tính cũ: duyệt từng ngày và kiểm tra mọi giảm giá, dùng làm chuẩn để so sánh
+    private BigDecimal dayByDayTotal(BigDecimal pricePerDay, List<HotelDiscount> hotelDiscounts,
+                                     ZonedDateTime startDate, ZonedDateTime endDate) {
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        ZonedDateTime currentDate = startDate;
+        while (currentDate.isBefore(endDate)) {
+            BigDecimal dailyPrice = pricePerDay;
+            for (HotelDiscount hotelDiscount : hotelDiscounts) {
+                if (hotelDiscount.getStartDate().isBefore(currentDate.plusDays(1)) && hotelDiscount.getEndDate().isAfter(currentDate)) {
+                    BigDecimal discountRate = hotelDiscount.getDiscount().getRate().divide(BigDecimal.valueOf(100));
+                    dailyPrice = dailyPrice.multiply(BigDecimal.ONE.subtract(discountRate));
+                }
+            }
+            totalPrice = totalPrice.add(dailyPrice);
+            currentDate = currentDate.plusDays(1);
+        }
+        return totalPrice;
+    }
+
+    @Test
+    void totalPrice_withoutDiscount_shouldChargeEveryStartedDay() {
+        Hotel hotel = createTestHotel();
+        when(hotelDiscountRepository.findByHotelId(TEST_HOTEL_ID)).thenReturn(List.of());
+
+        // 2 ngày và 1 giờ được tính là 3 ngày
+        BigDecimal total = pricingService.totalPrice(hotel, BASE, BASE.plusDays(2).plusHours(1));
+
+        assertEquals(BigDecimal.valueOf(300), total);
+    }
+
+    @Test
+    void totalPrice_withOverlappingDiscounts_shouldStackRates() {
+        Hotel hotel = createTestHotel();
+        when(hotelDiscountRepository.findByHotelId(TEST_HOTEL_ID)).thenReturn(List.of(
+                hotelDiscount(BASE.plusDays(1), BASE.plusDays(3), "10"),
+                hotelDiscount(BASE.plusDays(2), BASE.plusDays(4), "50")));
+
+        BigDecimal total = pricingService.totalPrice(hotel, BASE, BASE.plusDays(5));
+
+        // 100 + 90 + 45 + 50 + 100
+        assertEquals(0, total.compareTo(BigDecimal.valueOf(385)));
+    }
+
+    @Test
+    void totalPrice_shouldMatchDayByDayCalculation() {
+        Random random = new Random(7);
+        ZoneId[] zones = {ZoneOffset.UTC, ZoneOffset.ofHours(7), ZoneId.of("Asia/Ho_Chi_Minh"), ZoneId.of("Europe/Berlin")};
+        BigDecimal pricePerDay = new BigDecimal("123.45");
+
+        for (int i = 0; i < 2000; i++) {
+            ZoneId zone = zones[random.nextInt(zones.length)];
+            ZonedDateTime base = ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, zone);
+            ZonedDateTime startDate = base.plusHours(random.nextInt(24 * 60));
+            ZonedDateTime endDate = startDate.plusHours(random.nextInt(24 * 90));
+
+            List<HotelDiscount> hotelDiscounts = new ArrayList<>();
+            for (int d = random.nextInt(8); d > 0; d--) {
+                ZonedDateTime discountStart = base.plusHours(random.nextInt(24 * 160) - 24 * 10)
+                        .withZoneSameInstant(zones[random.nextInt(zones.length)]);
+                hotelDiscounts.add(hotelDiscount(discountStart, discountStart.plusHours(random.nextInt(24 * 30)),
+                        random.nextInt(60) + "." + random.nextInt(10)));
+            }
+
+            assertEquals(dayByDayTotal(pricePerDay, hotelDiscounts, startDate, endDate),
+                    DiscountCalendar.of(hotelDiscounts).totalPrice(pricePerDay, startDate, endDate),
+                    () -> "Mismatch for " + startDate + " - " + endDate);
+        }
+    }
+
+    @Test
+    void quote_shouldReturnDaysAndTotal() {
+        Hotel hotel = createTestHotel();
+        when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
+        when(hotelDiscountRepository.findByHotelId(TEST_HOTEL_ID)).thenReturn(List.of(
+                hotelDiscount(UPCOMING, UPCOMING.plusDays(1), "20")));
+
+        PriceQuoteResponseDto quote = pricingService.quote(TEST_HOTEL_ID, UPCOMING, UPCOMING.plusDays(3));
+
+        assertEquals(TEST_HOTEL_ID, quote.getHotelId());
+        assertEquals(3, quote.getDays());
+        assertEquals(0, quote.getTotalPrice().compareTo(BigDecimal.valueOf(280)));
+    }
+
+    @Test
+    void quote_shouldServeRepeatedRequestsFromCache() {
+        Hotel hotel = createTestHotel();
+        when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(hotel));
+        when(hotelDiscountRepository.findByHotelId(TEST_HOTEL_ID)).thenReturn(List.of());
+
+        pricingService.quote(TEST_HOTEL_ID, UPCOMING, UPCOMING.plusDays(1));
+        pricingService.quote(TEST_HOTEL_ID, UPCOMING, UPCOMING.plusDays(2));
+        // Tạo booking dùng lại cùng lịch giảm giá đã cache
+        pricingService.totalPrice(hotel, UPCOMING, UPCOMING.plusDays(3));
+
+        verify(hotelRepository, times(1)).findById(TEST_HOTEL_ID);
+        verify(hotelDiscountRepository, times(1)).findByHotelId(TEST_HOTEL_ID);
+    }
+
+    @Test
+    void evict_shouldReloadDiscountCalendar() {
+        Hotel hotel = createTestHotel();
+        when(hotelDiscountRepository.findByHotelId(TEST_HOTEL_ID))
+                .thenReturn(List.of())
+                .thenReturn(List.of(hotelDiscount(BASE, BASE.plusDays(1), "50")));
+
+        assertEquals(0, pricingService.totalPrice(hotel, BASE, BASE.plusDays(1)).compareTo(BigDecimal.valueOf(100)));
+
+        pricingService.evict(TEST_HOTEL_ID);
+
+        assertEquals(0, pricingService.totalPrice(hotel, BASE, BASE.plusDays(1)).compareTo(BigDecimal.valueOf(50)));
+        verify(hotelDiscountRepository, times(2)).findByHotelId(TEST_HOTEL_ID);
+    }
+
+    @Test
+    void evictAll_shouldReloadEveryHotel() {
+        Hotel hotel = createTestHotel();
+        when(hotelDiscountRepository.findByHotelId(TEST_HOTEL_ID)).thenReturn(List.of());
+
+        pricingService.totalPrice(hotel, BASE, BASE.plusDays(1));
+        pricingService.evictAll();
+        pricingService.totalPrice(hotel, BASE, BASE.plusDays(1));
+
+        verify(hotelDiscountRepository, times(2)).findByHotelId(TEST_HOTEL_ID);
+        verifyNoInteractions(hotelRepository);
+    }
+
+    @Test
+    void quote_withInvalidDates_shouldThrowException() {
+        assertThrows(RuntimeException.class, () -> pricingService.quote(TEST_HOTEL_ID, BASE, BASE));
+        verifyNoInteractions(hotelRepository);
+    }
+
+    @Test
+    void quote_withPastStartDate_shouldThrowInvalidDateRangeException() {
+        ZonedDateTime yesterday = ZonedDateTime.now(ZoneOffset.ofHours(7)).minusDays(1);
+
+        assertThrows(InvalidDateRangeException.class, () -> pricingService.quote(TEST_HOTEL_ID, yesterday, yesterday.plusDays(2)));
+        verifyNoInteractions(hotelRepository, hotelDiscountRepository);
+    }
+
+    @Test
+    void quote_withTooLongStay_shouldThrowInvalidDateRangeException() {
+        ZonedDateTime endDate = UPCOMING.plusDays(PricingServiceImpl.MAX_STAY_DAYS).plusHours(1);
+
+        assertThrows(InvalidDateRangeException.class, () -> pricingService.quote(TEST_HOTEL_ID, UPCOMING, endDate));
+        verifyNoInteractions(hotelRepository, hotelDiscountRepository);
+    }
+
+    @Test
+    void quote_hotelNotFound_shouldThrowException() {
+        when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> pricingService.quote(TEST_HOTEL_ID, UPCOMING, UPCOMING.plusDays(1)));
+    }
+}
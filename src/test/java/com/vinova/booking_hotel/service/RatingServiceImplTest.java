@@ -1,9 +1,9 @@
 package com.vinova.booking_hotel.service;
 
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
-import com.vinova.booking_hotel.authentication.service.impl.CloudinaryService;
+import com.vinova.booking_hotel.authentication.repository.projection.AccountSummary;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
+import com.vinova.booking_hotel.authentication.service.impl.ImageUploadService;
 import com.vinova.booking_hotel.common.enums.BookingStatus;
 import com.vinova.booking_hotel.common.enums.EntityType;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
@@ -11,17 +11,22 @@ import com.vinova.booking_hotel.property.dto.request.AddRatingRequestDto;
 import com.vinova.booking_hotel.property.dto.response.RatingResponseDto;
 import com.vinova.booking_hotel.property.model.*;
 import com.vinova.booking_hotel.property.repository.BookingRepository;
+import com.vinova.booking_hotel.property.repository.HotelRatingSummaryRepository;
 import com.vinova.booking_hotel.property.repository.HotelRepository;
 import com.vinova.booking_hotel.property.repository.ImageRepository;
 import com.vinova.booking_hotel.property.repository.RatingRepository;
 import com.vinova.booking_hotel.property.service.impl.RatingServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -41,17 +46,21 @@ public class RatingServiceImplTest {
     @Mock
     private RatingRepository ratingRepository;
     @Mock
-    private AccountRepository accountRepository;
+    private CurrentAccount currentAccount;
     @Mock
-    private JwtUtils jwtUtils;
-    @Mock
-    private CloudinaryService cloudinaryService;
+    private ImageUploadService imageUploadService;
     @Mock
     private BookingRepository bookingRepository;
     @Mock
     private HotelRepository hotelRepository;
     @Mock
     private ImageRepository imageRepository;
+    @Mock
+    private HotelRatingSummaryRepository hotelRatingSummaryRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private RatingServiceImpl ratingService;
@@ -61,6 +70,12 @@ public class RatingServiceImplTest {
     private final Long TEST_HOTEL_ID = 2L;
     private final Long TEST_RATING_ID = 3L;
 
+    // Chạy callback của TransactionTemplate ngay trên thread hiện tại
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
     @Test
     void ratingsByHotelId_shouldReturnListOfRatingResponseDtoWithImagesAndAccountInfo() {
         // Arrange
@@ -149,13 +164,14 @@ public class RatingServiceImplTest {
         Image image1 = new Image(11L, TEST_RATING_ID, EntityType.REVIEW, "cloudinary_url1", ZonedDateTime.now(), ZonedDateTime.now());
         Image image2 = new Image(12L, TEST_RATING_ID, EntityType.REVIEW, "cloudinary_url2", ZonedDateTime.now(), ZonedDateTime.now());
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        runTransactionsInline();
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(mockAccount));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(mockAccount);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(mockHotel));
         when(bookingRepository.findFirstByHotelAndAccount(mockHotel, mockAccount)).thenReturn(Optional.of(mockBooking));
         when(ratingRepository.save(any(Rating.class))).thenReturn(savedRating);
-        when(cloudinaryService.uploadImage(any(MultipartFile.class))).thenReturn("cloudinary_url1", "cloudinary_url2");
-        when(imageRepository.save(any(Image.class))).thenReturn(image1, image2);
+        when(imageUploadService.uploadAll(requestDto.getImages())).thenReturn(List.of("cloudinary_url1", "cloudinary_url2"));
+        when(imageRepository.saveAll(anyList())).thenReturn(List.of(image1, image2));
 
         // Act
         RatingResponseDto responseDto = ratingService.create(requestDto, TEST_TOKEN);
@@ -169,8 +185,15 @@ public class RatingServiceImplTest {
         assertEquals("cloudinary_url2", responseDto.getImages().get(1).getImageUrl());
         assertEquals(TEST_ACCOUNT_ID, responseDto.getAccount().getId());
         verify(ratingRepository, times(1)).save(any(Rating.class));
-        verify(cloudinaryService, times(2)).uploadImage(any(MultipartFile.class));
-        verify(imageRepository, times(2)).save(any(Image.class));
+        verify(hotelRatingSummaryRepository, times(1)).addRating(TEST_HOTEL_ID, 5);
+        verify(imageUploadService, times(1)).uploadAll(requestDto.getImages());
+        verify(imageRepository, times(1)).saveAll(anyList());
+
+        // Ảnh được tải lên trước khi transaction ghi rating bắt đầu
+        InOrder inOrder = inOrder(imageUploadService, transactionTemplate, hotelRatingSummaryRepository);
+        inOrder.verify(imageUploadService).uploadAll(requestDto.getImages());
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(hotelRatingSummaryRepository).addRating(TEST_HOTEL_ID, 5);
     }
 
     @Test
@@ -181,16 +204,17 @@ public class RatingServiceImplTest {
         District mockDistrict = new District(13L, "Another District", Collections.emptyList(), ZonedDateTime.now(), ZonedDateTime.now());
         Hotel mockHotel = new Hotel(TEST_HOTEL_ID, "Another Hotel", "other.jpg", "another description", BigDecimal.valueOf(75.0), "456 Oak Ave", "11.0", "21.0", mockDistrict, mockAccount, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), ZonedDateTime.now(), ZonedDateTime.now());
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(mockAccount));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(mockAccount);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(mockHotel));
         when(bookingRepository.findFirstByHotelAndAccount(mockHotel, mockAccount)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> ratingService.create(requestDto, TEST_TOKEN));
         verify(ratingRepository, never()).save(any());
-        verify(cloudinaryService, never()).uploadImage(any());
-        verify(imageRepository, never()).save(any());
+        verify(hotelRatingSummaryRepository, never()).addRating(anyLong(), anyInt());
+        verify(imageUploadService, never()).uploadAll(any());
+        verify(imageRepository, never()).saveAll(any());
     }
 
     @Test
@@ -202,16 +226,17 @@ public class RatingServiceImplTest {
         Hotel mockHotel = new Hotel(TEST_HOTEL_ID, "Another Hotel", "other.jpg", "another description", BigDecimal.valueOf(75.0), "456 Oak Ave", "11.0", "21.0", mockDistrict, mockAccount, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), ZonedDateTime.now(), ZonedDateTime.now());
         Booking mockBooking = new Booking(15L, ZonedDateTime.now().plusDays(1), ZonedDateTime.now().plusDays(3), BigDecimal.valueOf(150.0), BookingStatus.PENDING, mockHotel, mockAccount, ZonedDateTime.now(), ZonedDateTime.now());
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.summary(TEST_TOKEN)).thenReturn(summaryOf(mockAccount));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(mockAccount);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(mockHotel));
         when(bookingRepository.findFirstByHotelAndAccount(mockHotel, mockAccount)).thenReturn(Optional.of(mockBooking));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> ratingService.create(requestDto, TEST_TOKEN));
         verify(ratingRepository, never()).save(any());
-        verify(cloudinaryService, never()).uploadImage(any());
-        verify(imageRepository, never()).save(any());
+        verify(hotelRatingSummaryRepository, never()).addRating(anyLong(), anyInt());
+        verify(imageUploadService, never()).uploadAll(any());
+        verify(imageRepository, never()).saveAll(any());
     }
 
     @Test
@@ -222,8 +247,7 @@ public class RatingServiceImplTest {
         Hotel mockHotel = new Hotel(TEST_HOTEL_ID, "Another Hotel", "other.jpg", "another description", BigDecimal.valueOf(75.0), "456 Oak Ave", "11.0","21.0", mockDistrict, mockAccount, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), ZonedDateTime.now(), ZonedDateTime.now());
         Rating mockRating = new Rating(TEST_RATING_ID, "Okay", 3, mockHotel, mockAccount, ZonedDateTime.now(), ZonedDateTime.now());
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(ratingRepository.findById(TEST_RATING_ID)).thenReturn(Optional.of(mockRating));
 
         // Act
@@ -231,17 +255,7 @@ public class RatingServiceImplTest {
 
         // Assert
         verify(ratingRepository, times(1)).delete(mockRating);
-    }
-
-    @Test
-    void delete_shouldThrowResourceNotFoundExceptionForAccount_whenAccountNotFound() {
-        // Arrange
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> ratingService.delete(TEST_RATING_ID, TEST_TOKEN));
-        verify(ratingRepository, never()).delete(any());
+        verify(hotelRatingSummaryRepository, times(1)).removeRating(TEST_HOTEL_ID, 3);
     }
 
     @Test
@@ -249,8 +263,7 @@ public class RatingServiceImplTest {
         // Arrange
         Account mockAccount = new Account(TEST_ACCOUNT_ID, "testuser", "password", "test@example.com", "Test User", null, "123456789", "avatar", LocalDateTime.now(), "refreshToken", LocalDateTime.now(), ZonedDateTime.now(), ZonedDateTime.now(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
         when(ratingRepository.findById(TEST_RATING_ID)).thenReturn(Optional.empty());
 
         // Act & Assert
@@ -267,12 +280,16 @@ public class RatingServiceImplTest {
         Hotel mockHotel = new Hotel(TEST_HOTEL_ID, "Another Hotel", "other.jpg", "another description", BigDecimal.valueOf(75.0), "456 Oak Ave", "11.0", "21.0", mockDistrict, ownerAccount, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), ZonedDateTime.now(), ZonedDateTime.now());
         Rating mockRating = new Rating(TEST_RATING_ID, "Okay", 3, mockHotel, ownerAccount, ZonedDateTime.now(), ZonedDateTime.now());
 
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(otherAccount.getId());
-        when(accountRepository.findById(otherAccount.getId())).thenReturn(Optional.of(otherAccount));
+        when(currentAccount.id(TEST_TOKEN)).thenReturn(otherAccount.getId());
         when(ratingRepository.findById(TEST_RATING_ID)).thenReturn(Optional.of(mockRating));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> ratingService.delete(TEST_RATING_ID, TEST_TOKEN));
         verify(ratingRepository, never()).delete(any());
+        verify(hotelRatingSummaryRepository, never()).removeRating(anyLong(), anyInt());
+    }
+
+    private AccountSummary summaryOf(Account account) {
+        return new SpelAwareProxyProjectionFactory().createProjection(AccountSummary.class, account);
     }
-}
\ No newline at end of file
+}
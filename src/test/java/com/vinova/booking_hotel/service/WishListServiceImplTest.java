@@ -1,8 +1,7 @@
 package com.vinova.booking_hotel.service;
 
 import com.vinova.booking_hotel.authentication.model.Account;
-import com.vinova.booking_hotel.authentication.repository.AccountRepository;
-import com.vinova.booking_hotel.authentication.security.JwtUtils;
+import com.vinova.booking_hotel.authentication.security.CurrentAccount;
 import com.vinova.booking_hotel.common.exception.ResourceNotFoundException;
 import com.vinova.booking_hotel.property.model.Hotel;
 import com.vinova.booking_hotel.property.model.WishList;
@@ -27,17 +26,14 @@ public class WishListServiceImplTest {
     @Mock
     private WishListRepository wishListRepository;
     @Mock
-    private AccountRepository accountRepository;
-    @Mock
     private HotelRepository hotelRepository;
     @Mock
-    private JwtUtils jwtUtils;
+    private CurrentAccount currentAccount;
 
     @InjectMocks
     private WishListServiceImpl wishListService;
 
     private final String TEST_TOKEN = "Bearer test_token";
-    private final Long TEST_ACCOUNT_ID = 1L;
     private final Long TEST_HOTEL_ID = 2L;
 
     @Test
@@ -45,8 +41,7 @@ public class WishListServiceImplTest {
         // Arrange
         Account mockAccount = new Account();
         Hotel mockHotel = new Hotel();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(mockAccount);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(mockHotel));
         when(wishListRepository.findByAccountAndHotel(mockAccount, mockHotel)).thenReturn(null);
 
@@ -64,8 +59,7 @@ public class WishListServiceImplTest {
         Account mockAccount = new Account();
         Hotel mockHotel = new Hotel();
         WishList mockWishList = new WishList();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(mockAccount);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(mockHotel));
         when(wishListRepository.findByAccountAndHotel(mockAccount, mockHotel)).thenReturn(mockWishList);
 
@@ -77,25 +71,11 @@ public class WishListServiceImplTest {
         verify(wishListRepository, never()).save(any(WishList.class));
     }
 
-    @Test
-    void addToWishList_shouldThrowResourceNotFoundException_whenAccountNotFound() {
-        // Arrange
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> wishListService.addToWishList(TEST_HOTEL_ID, TEST_TOKEN));
-        verify(hotelRepository, never()).findById(anyLong());
-        verify(wishListRepository, never()).findByAccountAndHotel(any(), any());
-        verify(wishListRepository, never()).save(any(WishList.class));
-    }
-
     @Test
     void addToWishList_shouldThrowResourceNotFoundException_whenHotelNotFound() {
         // Arrange
         Account mockAccount = new Account();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(mockAccount);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.empty());
 
         // Act & Assert
@@ -110,8 +90,7 @@ public class WishListServiceImplTest {
         Account mockAccount = new Account();
         Hotel mockHotel = new Hotel();
         WishList mockWishList = new WishList();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(mockAccount);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(mockHotel));
         when(wishListRepository.findByAccountAndHotel(mockAccount, mockHotel)).thenReturn(mockWishList);
 
@@ -128,8 +107,7 @@ public class WishListServiceImplTest {
         // Arrange
         Account mockAccount = new Account();
         Hotel mockHotel = new Hotel();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(mockAccount);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.of(mockHotel));
         when(wishListRepository.findByAccountAndHotel(mockAccount, mockHotel)).thenReturn(null);
 
@@ -141,25 +119,11 @@ public class WishListServiceImplTest {
         verify(wishListRepository, never()).delete(any(WishList.class));
     }
 
-    @Test
-    void removeFromWishList_shouldThrowResourceNotFoundException_whenAccountNotFound() {
-        // Arrange
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.empty());
-
-        // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> wishListService.removeFromWishList(TEST_HOTEL_ID, TEST_TOKEN));
-        verify(hotelRepository, never()).findById(anyLong());
-        verify(wishListRepository, never()).findByAccountAndHotel(any(), any());
-        verify(wishListRepository, never()).delete(any(WishList.class));
-    }
-
     @Test
     void removeFromWishList_shouldThrowResourceNotFoundException_whenHotelNotFound() {
         // Arrange
         Account mockAccount = new Account();
-        when(jwtUtils.getUserIdFromJwtToken(TEST_TOKEN)).thenReturn(TEST_ACCOUNT_ID);
-        when(accountRepository.findById(TEST_ACCOUNT_ID)).thenReturn(Optional.of(mockAccount));
+        when(currentAccount.reference(TEST_TOKEN)).thenReturn(mockAccount);
         when(hotelRepository.findById(TEST_HOTEL_ID)).thenReturn(Optional.empty());
 
         // Act & Assert
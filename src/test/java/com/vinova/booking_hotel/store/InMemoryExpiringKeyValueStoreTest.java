@@ -0,0 +1,61 @@
+package com.vinova.booking_hotel.store;
+
+import com.vinova.booking_hotel.common.store.InMemoryExpiringKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryExpiringKeyValueStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemoryExpiringKeyValueStore store = new InMemoryExpiringKeyValueStore(now::get);
+
+    @Test
+    void get_shouldReturnValueUntilExpired() {
+        store.put("key", "value", Duration.ofSeconds(60));
+
+        now.addAndGet(Duration.ofSeconds(59).toMillis());
+        assertEquals(Optional.of("value"), store.get("key"));
+
+        now.addAndGet(Duration.ofSeconds(1).toMillis());
+        assertEquals(Optional.empty(), store.get("key"));
+    }
+
+    @Test
+    void increment_shouldCountWithinWindowAndRestartAfterExpiry() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 100; i++) {
+            executor.execute(() -> store.increment("counter", Duration.ofMinutes(15)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Các lần tăng đồng thời không bị mất và không kéo dài thời hạn
+        assertEquals(101, store.increment("counter", Duration.ofMinutes(15)));
+
+        now.addAndGet(Duration.ofMinutes(15).toMillis());
+        assertEquals(1, store.increment("counter", Duration.ofMinutes(15)));
+    }
+
+    @Test
+    void purgeExpired_shouldOnlyRemoveKeysWhoseCurrentValueExpired() {
+        store.put("short", "a", Duration.ofSeconds(10));
+        store.put("long", "b", Duration.ofMinutes(10));
+        store.put("rewritten", "old", Duration.ofSeconds(10));
+        store.put("rewritten", "new", Duration.ofMinutes(10));
+
+        now.addAndGet(Duration.ofSeconds(12).toMillis());
+
+        assertEquals(1, store.purgeExpired());
+        assertEquals(Optional.empty(), store.get("short"));
+        assertEquals(Optional.of("b"), store.get("long"));
+        assertEquals(Optional.of("new"), store.get("rewritten"));
+    }
+}